@@ -0,0 +1,172 @@
+package com.contract.ai.core.config;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.resilience.AiRequestContext;
+import com.contract.ai.core.resilience.IdempotencyCache;
+import com.contract.ai.core.resilience.UpstreamCallTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 聊天接口异步处理配置
+ * 聊天请求在有界的 aiRequestExecutor 上执行，释放Servlet容器线程；
+ * 异步超时或客户端断开（异步错误回调）时通过 {@link UpstreamCallTracker} 取消请求及其在途上游调用；
+ * 异步任务（/api/ai/jobs）在独立的有界 aiJobExecutor 上执行，不占用聊天请求的线程
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class AiAsyncConfiguration implements WebMvcConfigurer {
+
+    private final UpstreamCallTracker upstreamCallTracker;
+    private final IdempotencyCache idempotencyCache;
+
+    /**
+     * 异步请求超时（毫秒），应大于降级链延迟预算与单次上游读超时
+     */
+    @Value("${ai.request.async-timeout-ms:360000}")
+    private long asyncTimeoutMs;
+
+    /**
+     * 处理聊天请求的线程数
+     */
+    @Value("${ai.request.executor.threads:64}")
+    private int threads;
+
+    /**
+     * 等待处理的请求队列容量，队列满时拒绝请求
+     */
+    @Value("${ai.request.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    /**
+     * 执行异步任务的线程数
+     */
+    @Value("${ai.jobs.executor.threads:8}")
+    private int jobThreads;
+
+    /**
+     * 等待执行的异步任务队列容量，队列满时拒绝提交
+     */
+    @Value("${ai.jobs.executor.queue-capacity:500}")
+    private int jobQueueCapacity;
+
+    /**
+     * 聊天请求执行线程池
+     */
+    @Bean(name = "aiRequestExecutor", destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor aiRequestExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "ai-request-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 异步任务执行线程池
+     */
+    @Bean(name = "aiJobExecutor", destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor aiJobExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, jobThreads), Math.max(1, jobThreads),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, jobQueueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "ai-job-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+        configurer.registerDeferredResultInterceptors(
+                new RequestCancellationInterceptor(upstreamCallTracker, idempotencyCache));
+    }
+
+    /**
+     * 异步超时与异步错误（客户端断开）时取消请求；
+     * 携带幂等键的请求在客户端断开或超时时交给 {@link IdempotencyCache}，等待结果的客户端全部离开且宽限期内没有重试挂上时才取消
+     */
+    @RequiredArgsConstructor
+    static class RequestCancellationInterceptor implements DeferredResultProcessingInterceptor {
+
+        private final UpstreamCallTracker upstreamCallTracker;
+        private final IdempotencyCache idempotencyCache;
+
+        @Override
+        public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+            String cacheKey = releaseIdempotentClient(request);
+            if (cacheKey != null) {
+                // 执行由重试共享，只结束本次等待，仍有客户端等待或宽限期内有重试挂上时继续执行
+                log.debug("Client of idempotent AI request [{}] timed out", cacheKey);
+                deferredResult.setErrorResult(new AiException(AiErrorCode.AI_REQUEST_TIMEOUT,
+                        "请求处理超时，使用相同的幂等键重试可取得同一次执行的结果"));
+                return false;
+            }
+            AiRequestContext context = contextOf(request);
+            if (context == null) {
+                return true;
+            }
+            upstreamCallTracker.cancel(context, AiRequestContext.REASON_TIMEOUT);
+            deferredResult.setErrorResult(new AiException(AiErrorCode.AI_REQUEST_TIMEOUT,
+                    "请求处理超时，已取消上游调用"));
+            return false;
+        }
+
+        @Override
+        public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> deferredResult, Throwable t) {
+            AiRequestContext context = contextOf(request);
+            String cacheKey = releaseIdempotentClient(request);
+            if (cacheKey != null) {
+                // 携带幂等键的执行由重试共享，仍有客户端等待或宽限期内有重试挂上时继续执行
+                log.debug("Client of idempotent AI request [{}] disconnected: {}", cacheKey, t.getMessage());
+            } else if (context != null) {
+                log.debug("Async error for AI request [{}], client likely disconnected: {}",
+                        context.getRequestId(), t.getMessage());
+                upstreamCallTracker.cancel(context, AiRequestContext.REASON_DISCONNECT);
+            }
+            return true;
+        }
+
+        /**
+         * 本次请求作为幂等执行的一个客户端离开，每个请求只登记一次
+         *
+         * @return 由缓存处理时返回缓存键，否则返回null，由调用方取消请求
+         */
+        private String releaseIdempotentClient(NativeWebRequest request) {
+            Object cacheKey = request.getAttribute(IdempotencyCache.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (!(cacheKey instanceof String key)) {
+                return null;
+            }
+            request.removeAttribute(IdempotencyCache.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            return idempotencyCache.onClientDisconnected(key) ? key : null;
+        }
+
+        private static AiRequestContext contextOf(NativeWebRequest request) {
+            Object context = request.getAttribute(AiRequestContext.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            return context instanceof AiRequestContext aiRequestContext ? aiRequestContext : null;
+        }
+    }
+}
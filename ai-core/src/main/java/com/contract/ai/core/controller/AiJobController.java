@@ -0,0 +1,83 @@
+package com.contract.ai.core.controller;
+
+import com.contract.ai.core.resilience.FairRequestScheduler;
+import com.contract.ai.core.service.AiJobService;
+import com.contract.ai.feign.client.AiIdempotencyInterceptor;
+import com.contract.ai.feign.dto.AiJob;
+import com.contract.ai.feign.dto.ApiResponse;
+import com.contract.ai.feign.dto.ChatRequest;
+import com.ruoyi.feign.annotation.RemotePreAuthorize;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步任务控制器
+ * 长耗时的视觉与文档审核以任务形式提交，立即返回202与任务ID，调用方通过查询接口长轮询结果，
+ * 不再占用网关与调用方的长连接，也不受聊天接口异步超时的限制。
+ * 提交携带 Idempotency-Key 时，同一租户重复提交返回首次创建的任务
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/ai/jobs")
+public class AiJobController {
+
+    private final AiJobService jobService;
+    private final FairRequestScheduler requestScheduler;
+
+    public AiJobController(AiJobService jobService, FairRequestScheduler requestScheduler) {
+        this.jobService = jobService;
+        this.requestScheduler = requestScheduler;
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param request     聊天请求，与聊天接口相同
+     * @param httpRequest 原始请求，读取租户与幂等键请求头
+     * @return 排队中的任务，重复提交时为已有任务的当前状态
+     */
+    @RemotePreAuthorize("@ss.hasAnyRoles('admin,common')")
+    @PostMapping
+    public ResponseEntity<ApiResponse<AiJob>> submit(@Valid @RequestBody ChatRequest request,
+                                                     HttpServletRequest httpRequest) {
+        AiJob job = jobService.submit(request, resolveTenant(httpRequest),
+                httpRequest.getHeader(AiIdempotencyInterceptor.HEADER));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(job));
+    }
+
+    /**
+     * 查询任务
+     * 指定 waitMs 时最多等待该时长（不超过 ai.jobs.max-wait-ms），任务结束后立即返回
+     *
+     * @param jobId  任务ID
+     * @param waitMs 长轮询等待的毫秒数，默认不等待
+     * @return 任务状态，结束后包含结果或错误信息
+     */
+    @RemotePreAuthorize("@ss.hasAnyRoles('admin,common')")
+    @GetMapping("/{jobId}")
+    public CompletableFuture<ResponseEntity<ApiResponse<AiJob>>> get(@PathVariable("jobId") String jobId,
+                                                                     @RequestParam(value = "waitMs", defaultValue = "0") long waitMs) {
+        return jobService.await(jobId, waitMs).thenApply(job -> job != null
+                ? ResponseEntity.ok(ApiResponse.success(job))
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(HttpStatus.NOT_FOUND.value(), "任务不存在")));
+    }
+
+    /**
+     * 从配置的租户请求头中取租户，均未指定时返回null
+     */
+    private String resolveTenant(HttpServletRequest httpRequest) {
+        for (String header : requestScheduler.getTenantHeaders()) {
+            String value = httpRequest.getHeader(header);
+            if (value != null && !value.isBlank()) {
+                return value.trim();
+            }
+        }
+        return null;
+    }
+}
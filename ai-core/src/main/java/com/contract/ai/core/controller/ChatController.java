@@ -1,36 +1,76 @@
 package com.contract.ai.core.controller;
 
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.resilience.AiRequestContext;
+import com.contract.ai.core.resilience.FairRequestScheduler;
+import com.contract.ai.core.resilience.IdempotencyCache;
+import com.contract.ai.core.resilience.LoadShedder;
+import com.contract.ai.core.resilience.UpstreamCallTracker;
 import com.contract.ai.core.service.ChatService;
 import com.contract.ai.core.strategy.impl.glm.GlmVisionAiStrategy;
+import com.contract.ai.core.util.InMemoryMultipartFile;
+import com.contract.ai.feign.client.AiDeadline;
+import com.contract.ai.feign.client.AiIdempotencyInterceptor;
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
 import com.contract.ai.feign.dto.ApiResponse;
+import com.contract.ai.feign.dto.RequestProfile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ruoyi.common.annotation.Anonymous;
 import com.ruoyi.feign.annotation.RemotePreAuthorize;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 聊天控制器
- * 提供REST入口，映射到Service与统一错误响应
+ * 提供REST入口，映射到Service与统一错误响应。
+ * 聊天接口在 aiRequestExecutor 上异步执行，请求绑定 {@link AiRequestContext}，客户端断开或异步超时时取消在途的上游调用；
+ * 执行前经过 {@link FairRequestScheduler} 按租户与优先级（交互/批量）公平排队；过载时由 {@link LoadShedder} 直接以503拒绝；
+ * 携带 Idempotency-Key 的重试由 {@link IdempotencyCache} 挂到首次请求的执行上或直接返回其结果
  */
 @Slf4j
 @RestController
 @RequestMapping("/api/ai")
-@RequiredArgsConstructor
 public class ChatController {
 
     private final ChatService chatService;
     private final ObjectMapper objectMapper;
     private final GlmVisionAiStrategy glmVisionAiStrategy;
+    private final UpstreamCallTracker upstreamCallTracker;
+    private final FairRequestScheduler requestScheduler;
+    private final LoadShedder loadShedder;
+    private final IdempotencyCache idempotencyCache;
+
+    public ChatController(ChatService chatService, ObjectMapper objectMapper, GlmVisionAiStrategy glmVisionAiStrategy,
+                          UpstreamCallTracker upstreamCallTracker, FairRequestScheduler requestScheduler,
+                          LoadShedder loadShedder, IdempotencyCache idempotencyCache) {
+        this.chatService = chatService;
+        this.objectMapper = objectMapper;
+        this.glmVisionAiStrategy = glmVisionAiStrategy;
+        this.upstreamCallTracker = upstreamCallTracker;
+        this.requestScheduler = requestScheduler;
+        this.loadShedder = loadShedder;
+        this.idempotencyCache = idempotencyCache;
+    }
 
     /**
      * 聊天接口
@@ -43,35 +83,28 @@ public class ChatController {
      */
     @RemotePreAuthorize("@ss.hasAnyRoles('admin,common')")
     @PostMapping("/chat")
-    public ResponseEntity<ApiResponse<ChatResponse>> chat(@Valid @RequestBody ChatRequest request) {
+    public CompletableFuture<ResponseEntity<ApiResponse<ChatResponse>>> chat(@Valid @RequestBody ChatRequest request) {
         String requestId = UUID.randomUUID().toString().replace("-", "");
 
-        // 计算请求中的内容类型
-        int imageCount = request.getMessages().stream()
-            .filter(msg -> msg.isMultimodal())
-            .flatMap(msg -> msg.getMultimodalContent().stream())
-            .mapToInt(item -> "image_url".equals(item.getType()) ? 1 : 0)
-            .sum();
+        // 计算请求画像，后续服务、路由与转换器复用
+        RequestProfile profile = request.getProfile();
 
-        int fileCount = request.getMessages().stream()
-            .filter(msg -> msg.isMultimodal())
-            .flatMap(msg -> msg.getMultimodalContent().stream())
-            .mapToInt(item -> "file_url".equals(item.getType()) ? 1 : 0)
-            .sum();
+        log.info("Received universal chat request [{}] for model: [{}] with {} images and {} files, fingerprint: {}",
+                requestId, request.getModel(), profile.getImageCount(), profile.getFileCount(),
+                profile.getFingerprint());
 
-        log.info("Received universal chat request [{}] for model: [{}] with {} images and {} files",
-                requestId, request.getModel(), imageCount, fileCount);
+        return submit(requestId, "/chat", request, () -> {
+            try {
+                ChatResponse response = chatService.chat(request);
+                log.info("Successfully processed universal chat request [{}] for model: [{}]",
+                        requestId, request.getModel());
+                return ResponseEntity.ok(ApiResponse.success(response));
 
-        try {
-            ChatResponse response = chatService.chat(request);
-            log.info("Successfully processed universal chat request [{}] for model: [{}]",
-                    requestId, request.getModel());
-            return ResponseEntity.ok(ApiResponse.success(response));
-
-        } catch (Exception e) {
-            log.error("Error processing universal chat request [{}]: {}", requestId, e.getMessage(), e);
-            throw e; // 重新抛出异常，让全局异常处理器处理
-        }
+            } catch (Exception e) {
+                logFailure("universal chat request", requestId, e);
+                throw e; // 重新抛出异常，让全局异常处理器处理
+            }
+        });
     }
 
     /**
@@ -83,30 +116,27 @@ public class ChatController {
      */
     @RemotePreAuthorize("@ss.hasAnyRoles('admin,common')")
     @PostMapping(value = "/chat/vision/urls", consumes = "application/json")
-    public ResponseEntity<ApiResponse<ChatResponse>> chatWithUrls(
+    public CompletableFuture<ResponseEntity<ApiResponse<ChatResponse>>> chatWithUrls(
             @Valid @RequestBody ChatRequest request) {
 
         String requestId = UUID.randomUUID().toString().replace("-", "");
 
-        // 计算请求中的图片数量
-        int imageCount = request.getMessages().stream()
-            .filter(msg -> msg.isMultimodal())
-            .flatMap(msg -> msg.getMultimodalContent().stream())
-            .mapToInt(item -> "image_url".equals(item.getType()) ? 1 : 0)
-            .sum();
+        RequestProfile profile = request.getProfile();
 
-        log.info("Received vision URLs chat request [{}] for model: [{}] with {} image URLs",
-                requestId, request.getModel(), imageCount);
+        log.info("Received vision URLs chat request [{}] for model: [{}] with {} image URLs ({} bytes)",
+                requestId, request.getModel(), profile.getImageCount(), profile.getTotalImageBytes());
 
-        try {
-            ChatResponse response = chatService.chat(request);
-            log.info("Successfully processed vision URLs chat request [{}] for model: [{}]", requestId, request.getModel());
-            return ResponseEntity.ok(ApiResponse.success(response));
+        return submit(requestId, "/chat/vision/urls", request, () -> {
+            try {
+                ChatResponse response = chatService.chat(request);
+                log.info("Successfully processed vision URLs chat request [{}] for model: [{}]", requestId, request.getModel());
+                return ResponseEntity.ok(ApiResponse.success(response));
 
-        } catch (Exception e) {
-            log.error("Error processing vision URLs chat request [{}]: {}", requestId, e.getMessage(), e);
-            throw e; // 重新抛出异常，让全局异常处理器处理
-        }
+            } catch (Exception e) {
+                logFailure("vision URLs chat request", requestId, e);
+                throw e; // 重新抛出异常，让全局异常处理器处理
+            }
+        });
     }
 
     /**
@@ -119,32 +149,196 @@ public class ChatController {
      */
     @RemotePreAuthorize("@ss.hasAnyRoles('admin,common')")
     @PostMapping(value = "/chat/vision/base64", consumes = "multipart/form-data")
-    public ResponseEntity<ApiResponse<ChatResponse>> chatWithVisionBase64(
+    public CompletableFuture<ResponseEntity<ApiResponse<ChatResponse>>> chatWithVisionBase64(
             @RequestPart("request") String requestJson,
             @RequestPart(value = "files", required = false) MultipartFile[] files) {
 
         String requestId = UUID.randomUUID().toString().replace("-", "");
 
+        // 解析JSON请求
+        ChatRequest request;
         try {
-            // 解析JSON请求
-            ChatRequest request = objectMapper.readValue(requestJson, ChatRequest.class);
-
-            log.info("Received vision chat request with base64 conversion [{}] for model: [{}] with {} files",
-                    requestId, request.getModel(), files != null ? files.length : 0);
-
-            ChatResponse response = glmVisionAiStrategy.handleChatWithVisionBase64(request, files);
-            log.info("Successfully processed vision chat request with base64 conversion [{}] for model: [{}]",
-                    requestId, request.getModel());
-            return ResponseEntity.ok(ApiResponse.success(response));
-
+            request = objectMapper.readValue(requestJson, ChatRequest.class);
         } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
             log.error("Invalid JSON in vision chat request [{}]: {}", requestId, e.getMessage(), e);
             throw new IllegalArgumentException("请求JSON格式错误: " + e.getMessage(), e);
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing vision chat request with base64 conversion [{}]: {}", requestId, e.getMessage(), e);
-            throw e; // 重新抛出异常，让全局异常处理器处理
+        log.info("Received vision chat request with base64 conversion [{}] for model: [{}] with {} files",
+                requestId, request.getModel(), files != null ? files.length : 0);
+
+        // 异步执行可能晚于本次请求结束（届时上传的临时文件已删除），先读入内存
+        MultipartFile[] uploaded = InMemoryMultipartFile.copyOf(files);
+        return submit(requestId, "/chat/vision/base64", request, () -> fingerprintWithFiles(request, uploaded), () -> {
+            try {
+                ChatResponse response = glmVisionAiStrategy.handleChatWithVisionBase64(request, uploaded);
+                log.info("Successfully processed vision chat request with base64 conversion [{}] for model: [{}]",
+                        requestId, request.getModel());
+                return ResponseEntity.ok(ApiResponse.success(response));
+
+            } catch (Exception e) {
+                logFailure("vision chat request with base64 conversion", requestId, e);
+                throw e; // 重新抛出异常，让全局异常处理器处理
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(String requestId, String route, ChatRequest request, Supplier<T> call) {
+        return submit(requestId, route, request, () -> request.getProfile().getFingerprint(), call);
+    }
+
+    /**
+     * 提交聊天请求
+     * 携带 Idempotency-Key 时，同一租户同一个键的请求只执行一次：执行中的重试挂到首次执行上，已成功的重试直接返回保存的结果；
+     * 客户端断开时执行在短暂的宽限期内保留以便重试挂上，等待结果的客户端全部断开且没有重试挂上时取消
+     *
+     * @param requestId   请求ID
+     * @param route       接口路径
+     * @param request     聊天请求
+     * @param fingerprint 请求内容指纹，仅在携带幂等键时计算
+     * @param call        请求处理逻辑
+     * @return 异步响应
+     */
+    private <T> CompletableFuture<T> submit(String requestId, String route, ChatRequest request,
+                                            Supplier<String> fingerprint, Supplier<T> call) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        String idempotencyKey = attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest().getHeader(AiIdempotencyInterceptor.HEADER) : null;
+        AiRequestContext context = new AiRequestContext(requestId);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return execute(context, route, request, call);
+        }
+        String tenant = resolveTenant(attributes);
+        attributes.setAttribute(IdempotencyCache.REQUEST_ATTRIBUTE,
+                IdempotencyCache.cacheKey(route, tenant, idempotencyKey), RequestAttributes.SCOPE_REQUEST);
+        return idempotencyCache.execute(route, tenant, idempotencyKey, fingerprint.get(),
+                () -> execute(context, route, request, call),
+                () -> upstreamCallTracker.cancel(context, AiRequestContext.REASON_DISCONNECT));
+    }
+
+    /**
+     * 上传文件请求的内容指纹：请求JSON的指纹加上各文件的名称、类型与内容摘要，
+     * 同一个幂等键用于文件不同的请求时按内容冲突拒绝，不会取得其他文件的结果
+     */
+    private static String fingerprintWithFiles(ChatRequest request, MultipartFile[] files) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+        digest.update(request.getProfile().getFingerprint().getBytes(StandardCharsets.UTF_8));
+        if (files != null) {
+            for (MultipartFile file : files) {
+                digest.update((byte) 0);
+                digest.update(String.valueOf(file.getOriginalFilename()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(file.getContentType()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try {
+                    digest.update(file.getBytes());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("读取上传文件失败: " + file.getOriginalFilename(), e);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 从配置的租户请求头中取租户，均未指定时返回null
+     */
+    private String resolveTenant(RequestAttributes attributes) {
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            for (String header : requestScheduler.getTenantHeaders()) {
+                String value = servletAttributes.getRequest().getHeader(header);
+                if (value != null && !value.isBlank()) {
+                    return value.trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在请求线程池上异步执行聊天请求
+     * 创建请求的取消上下文并保存到请求属性，异步超时或客户端断开时由 AiAsyncConfiguration 取消；
+     * 公平队列已满时直接拒绝。调用方通过 X-Ai-Timeout-Ms 设定时限时，排队期间已过期的请求不再调用上游，
+     * 到期仍未完成的请求被取消并以 AI_REQUEST_TIMEOUT 返回。
+     * 租户取自配置的请求头，优先级取自 X-Ai-Priority 请求头或扩展参数 priority，均未指定时按租户配置；
+     * 接口过载时直接以503与 Retry-After 拒绝，不进入队列
+     *
+     * @param context 请求的取消上下文
+     * @param route   接口路径
+     * @param request 聊天请求
+     * @param call    请求处理逻辑
+     * @return 异步响应
+     */
+    private <T> CompletableFuture<T> execute(AiRequestContext context, String route, ChatRequest request,
+                                             Supplier<T> call) {
+        String requestId = context.getRequestId();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(AiRequestContext.REQUEST_ATTRIBUTE, context, RequestAttributes.SCOPE_REQUEST);
+        }
+        Long timeoutMs = attributes instanceof ServletRequestAttributes servletAttributes
+                ? AiDeadline.parse(servletAttributes.getRequest().getHeader(AiDeadline.HEADER)) : null;
+        if (timeoutMs != null) {
+            context.setTimeoutMs(timeoutMs);
+        }
+        String tenant = resolveTenant(attributes);
+        Object priorityHint = request.getExtensions() != null
+                ? request.getExtensions().get(FairRequestScheduler.PRIORITY_EXTENSION) : null;
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            String headerHint = servletAttributes.getRequest().getHeader(FairRequestScheduler.PRIORITY_HEADER);
+            if (headerHint != null && !headerHint.isBlank()) {
+                priorityHint = headerHint;
+            }
+        }
+        FairRequestScheduler.Priority priority = requestScheduler.resolvePriority(tenant, priorityHint);
+        LoadShedder.Ticket ticket = loadShedder.admit(route, priority);
+
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                try (AiRequestContext.Scope ignored = context.bind()) {
+                    if (context.isExpired()) {
+                        upstreamCallTracker.cancel(context, AiRequestContext.REASON_DEADLINE);
+                        throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "请求在排队期间已超过截止时间，未调用上游");
+                    }
+                    if (context.isCancelled()) {
+                        throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "请求已取消");
+                    }
+                    return call.get();
+                }
+            }, ticket.wrap(requestScheduler.executorFor(tenant, priority)));
+        } catch (RejectedExecutionException e) {
+            log.warn("AI request queue saturated, rejecting {} request [{}] of tenant [{}]", priority, requestId, tenant);
+            throw new AiException(AiErrorCode.AI_SERVICE_UNAVAILABLE, "服务繁忙，请稍后重试");
+        }
+
+        if (timeoutMs != null) {
+            CompletableFuture.delayedExecutor(Math.max(0, timeoutMs), TimeUnit.MILLISECONDS).execute(() -> {
+                if (!future.isDone()) {
+                    upstreamCallTracker.cancel(context, AiRequestContext.REASON_DEADLINE);
+                    future.completeExceptionally(new AiException(AiErrorCode.AI_REQUEST_TIMEOUT,
+                            String.format("请求未能在调用方设定的 %d 毫秒内完成，已取消上游调用", timeoutMs)));
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * 记录请求失败，请求已被取消（客户端断开或超时）时不作为错误记录
+     */
+    private void logFailure(String requestType, String requestId, Exception e) {
+        if (AiRequestContext.isCurrentCancelled()) {
+            log.info("Processing of {} [{}] stopped after cancellation ({})", requestType, requestId,
+                    AiRequestContext.current().getCancelReason());
+            return;
         }
+        log.error("Error processing {} [{}]: {}", requestType, requestId, e.getMessage(), e);
     }
 
     /**
@@ -0,0 +1,28 @@
+package com.contract.ai.core.exception;
+
+/**
+ * 本地准入拒绝异常
+ * 平台调用频率上限、在途成本上限等本地准入控制在等待时限内无法放行时抛出，请求未发往上游。
+ * 对调用方仍表现为 429 / AI_REQUEST_LIMIT_EXCEEDED，但与模型本身无关，不计入熔断与并发限制的失败统计
+ */
+public class AiAdmissionRejectedException extends AiUpstreamException {
+
+    public AiAdmissionRejectedException(String provider, String message) {
+        super(provider, 429, AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, null, null, false, message);
+    }
+
+    /**
+     * 是否为本地准入拒绝（包括被包装的情况）
+     */
+    public static boolean isAdmissionRejected(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof AiAdmissionRejectedException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
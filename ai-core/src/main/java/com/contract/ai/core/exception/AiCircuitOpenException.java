@@ -0,0 +1,39 @@
+package com.contract.ai.core.exception;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 模型熔断异常
+ * 模型熔断器打开时调用未发往上游即被拒绝，对调用方表现为 AI_SERVICE_UNAVAILABLE，仍可降级到备选模型；
+ * 拒绝与模型当前的延迟无关，不计入并发限制的失败统计
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AiCircuitOpenException extends AiException {
+
+    /**
+     * 熔断中的模型
+     */
+    private final String model;
+
+    public AiCircuitOpenException(String model, String message) {
+        super(AiErrorCode.AI_SERVICE_UNAVAILABLE, message);
+        this.model = model;
+    }
+
+    /**
+     * 是否为熔断拒绝（包括被包装的情况）
+     */
+    public static boolean isCircuitOpen(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof AiCircuitOpenException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,29 @@
+package com.contract.ai.core.exception;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 服务过载异常
+ * 负载保护在排队延迟超过目标或在途请求已满时拒绝新请求，以 503 与 Retry-After 返回，调用方应按 Retry-After 稍后重试
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AiOverloadedException extends AiException {
+
+    /**
+     * 被拒绝请求的接口
+     */
+    private final String route;
+
+    /**
+     * 建议的重试等待秒数
+     */
+    private final long retryAfterSeconds;
+
+    public AiOverloadedException(String route, long retryAfterSeconds, String message) {
+        super(AiErrorCode.AI_SERVICE_UNAVAILABLE, message);
+        this.route = route;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,33 @@
+package com.contract.ai.core.exception;
+
+import com.contract.ai.feign.dto.ApiResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 服务过载异常处理器
+ * 优先于统一异常处理器匹配，过载拒绝不会被兜底处理为500
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice
+public class AiOverloadedExceptionHandler {
+
+    /**
+     * 处理服务过载异常
+     * 返回503与 Retry-After，便于调用方退避与网关、弹性伸缩识别过载
+     *
+     * @param e 异常对象
+     * @return 503响应
+     */
+    @ExceptionHandler(AiOverloadedException.class)
+    public ResponseEntity<ApiResponse<Void>> handleAiOverloadedException(AiOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.contract.ai.core.exception;
+
+import feign.FeignException;
+import lombok.Getter;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * 上游AI平台调用异常
+ * 由各平台的ErrorDecoder根据HTTP状态码与响应体错误码生成，携带归类后的错误码与是否可重试
+ */
+@Getter
+public class AiUpstreamException extends RuntimeException {
+
+    /**
+     * 平台名称
+     */
+    private final String provider;
+
+    /**
+     * HTTP状态码
+     */
+    private final int status;
+
+    /**
+     * 归类后的错误码
+     */
+    private final AiErrorCode errorCode;
+
+    /**
+     * 平台返回的原始错误码，可能为null
+     */
+    private final String providerCode;
+
+    /**
+     * 上游要求的重试等待时间（毫秒），未返回时为null
+     */
+    private final Long retryAfterMillis;
+
+    /**
+     * 是否为可重试的瞬时错误
+     */
+    private final boolean retryable;
+
+    public AiUpstreamException(String provider, int status, AiErrorCode errorCode, String providerCode,
+                               Long retryAfterMillis, boolean retryable, String message) {
+        super(message);
+        this.provider = provider;
+        this.status = status;
+        this.errorCode = errorCode;
+        this.providerCode = providerCode;
+        this.retryAfterMillis = retryAfterMillis;
+        this.retryable = retryable;
+    }
+
+    /**
+     * 按HTTP状态码归类错误码，响应体中没有可识别的错误码时使用
+     */
+    public static AiErrorCode errorCodeForStatus(int status) {
+        switch (status) {
+            case 400:
+            case 422:
+                return AiErrorCode.AI_INVALID_MODEL_PARAMETER;
+            case 401:
+            case 403:
+                return AiErrorCode.AI_AUTHENTICATION_FAILED;
+            case 402:
+                return AiErrorCode.AI_QUOTA_EXCEEDED;
+            case 404:
+                return AiErrorCode.AI_MODEL_NOT_SUPPORTED;
+            case 408:
+            case 504:
+                return AiErrorCode.AI_REQUEST_TIMEOUT;
+            case 413:
+                return AiErrorCode.AI_CONTEXT_TOO_LONG;
+            case 429:
+                return AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED;
+            case 503:
+            case 529:
+                return AiErrorCode.AI_SERVICE_UNAVAILABLE;
+            default:
+                return AiErrorCode.AI_SERVICE_ERROR;
+        }
+    }
+
+    /**
+     * 将调用上游时抛出的异常归类为错误码
+     * 优先使用ErrorDecoder生成的 {@link AiUpstreamException} 或已归类的 {@link AiException}，
+     * 其次按网络异常类型与Feign状态码判断
+     *
+     * @param e 调用异常
+     * @return 错误码，无法识别时为 AI_SERVICE_ERROR
+     */
+    public static AiErrorCode errorCodeOf(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof AiUpstreamException upstream) {
+                return upstream.getErrorCode();
+            }
+            if (t instanceof AiException aiException && aiException.getErrorCode() instanceof AiErrorCode code
+                    && code != AiErrorCode.AI_SERVICE_ERROR) {
+                return code;
+            }
+            if (t instanceof SocketTimeoutException) {
+                return isConnectTimeout(t) ? AiErrorCode.AI_CONNECTION_TIMEOUT : AiErrorCode.AI_READ_TIMEOUT;
+            }
+            if (t instanceof ConnectException) {
+                return AiErrorCode.AI_CONNECTION_FAILED;
+            }
+            if (t instanceof UnknownHostException || t instanceof NoRouteToHostException) {
+                return AiErrorCode.AI_NETWORK_UNREACHABLE;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        if (e instanceof FeignException feignException && feignException.status() > 0) {
+            return errorCodeForStatus(feignException.status());
+        }
+        return AiErrorCode.AI_SERVICE_ERROR;
+    }
+
+    /**
+     * 是否为连接超时（读超时意味着请求可能已被上游处理）
+     */
+    public static boolean isConnectTimeout(Throwable t) {
+        return t instanceof SocketTimeoutException && t.getMessage() != null
+                && t.getMessage().toLowerCase().contains("connect");
+    }
+}
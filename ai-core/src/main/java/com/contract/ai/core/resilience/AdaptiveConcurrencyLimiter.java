@@ -0,0 +1,216 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个模型的自适应并发限制
+ * 采用梯度算法：以短期与长期两个指数加权平均延迟之比估计排队程度，
+ * 新上限 = 当前上限 × clamp(tolerance × 长期延迟 / 短期延迟, 0.5, 1) + √当前上限，再按 smoothing 平滑。
+ * 延迟稳定时上限缓慢增长，延迟上升时收缩；上游失败（超时、限流、5xx等）时乘以 backoffRatio，每个延迟周期内最多收缩一次。
+ * 在途数不足上限一半时只收缩不增长，避免低负载下上限无限增长。超过上限的调用最多 maxQueue 个排队等待，其余直接拒绝
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    @Getter
+    private final String model;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final double smoothing;
+    private final double shortAlpha;
+    private final double longAlpha;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double shortRttNanos;
+    private double longRttNanos;
+    private long decreaseAllowedAtNanos;
+
+    /**
+     * @param model        模型名称
+     * @param initialLimit 初始并发上限
+     * @param minLimit     并发上限的下界
+     * @param maxLimit     并发上限的上界
+     * @param maxQueue     超过上限时最多排队的调用数
+     * @param tolerance    可容忍的延迟上升倍数，短期延迟不超过长期延迟的该倍数时不收缩
+     * @param backoffRatio 上游失败时上限的收缩比例
+     * @param shortWindow  短期平均延迟的样本数
+     * @param longWindow   长期平均延迟的样本数
+     * @param nanoClock    纳秒时钟
+     */
+    public AdaptiveConcurrencyLimiter(String model, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      double tolerance, double backoffRatio, int shortWindow, int longWindow,
+                                      LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || shortWindow < 1 || longWindow < shortWindow) {
+            throw new IllegalArgumentException("Invalid concurrency limiter settings for model " + model);
+        }
+        this.model = model;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.smoothing = 0.2;
+        this.shortAlpha = 2.0 / (shortWindow + 1);
+        this.longAlpha = 2.0 / (longWindow + 1);
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 获取一个并发名额，已满时排队等待
+     *
+     * @param maxWaitMs 最多等待的毫秒数
+     * @return 是否获得名额；未获得时不需要调用结果方法
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    public boolean acquire(long maxWaitMs) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return true;
+            }
+            if (maxWaitMs <= 0 || waiting >= maxQueue) {
+                return false;
+            }
+            waiting++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用成功，以本次耗时调整上限
+     */
+    public void onSuccess(long rttNanos) {
+        lock.lock();
+        try {
+            int sampledInFlight = inFlight;
+            release();
+            if (rttNanos <= 0) {
+                return;
+            }
+            if (shortRttNanos == 0) {
+                shortRttNanos = rttNanos;
+                longRttNanos = rttNanos;
+            } else {
+                shortRttNanos += shortAlpha * (rttNanos - shortRttNanos);
+                longRttNanos += longAlpha * (rttNanos - longRttNanos);
+            }
+            // 延迟明显下降（如上游扩容）时让长期平均更快跟上
+            if (longRttNanos / shortRttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+            double target = limit * gradient + Math.sqrt(limit);
+            double newLimit = limit * (1 - smoothing) + target * smoothing;
+            if (newLimit > limit && sampledInFlight < limit / 2) {
+                // 负载不足时延迟无法说明上限是否够用，只收缩不增长
+                return;
+            }
+            setLimit(newLimit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 上游侧失败，收缩上限
+     */
+    public void onDropped() {
+        lock.lock();
+        try {
+            release();
+            long now = nanoClock.getAsLong();
+            if (now - decreaseAllowedAtNanos < 0) {
+                return;
+            }
+            setLimit(limit * backoffRatio);
+            // 同一延迟周期内的并发失败只收缩一次
+            decreaseAllowedAtNanos = now + (long) shortRttNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 与模型无关的失败（参数错误、请求取消等），只释放名额
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 排队等待名额的调用数
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void release() {
+        inFlight = Math.max(0, inFlight - 1);
+        released.signalAll();
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,257 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+import okhttp3.Call;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单次AI请求的取消上下文
+ * 处理请求的线程通过 {@link #bind()} 绑定上下文，期间发起的OkHttp调用由 {@link UpstreamCallTracker} 登记到上下文。
+ * 客户端断开、异步超时或降级单跳超时时调用 {@link #cancel(String)}：取消所有在途上游调用、中断绑定的线程
+ * （退避等待、限时等待随之结束），并级联取消子上下文。取消后重试器与降级链不再继续。
+ * 调用方通过 X-Ai-Timeout-Ms 传入时限时，上下文记录截止时间，子上下文继承父上下文的截止时间。
+ * 上下文同时保存本次请求中需要复用的已下载文件（见 {@link #retainFile}），随请求结束释放
+ */
+public final class AiRequestContext {
+
+    /**
+     * 控制器把上下文保存在该请求属性中，供异步超时与连接错误回调取消请求
+     */
+    public static final String REQUEST_ATTRIBUTE = AiRequestContext.class.getName();
+
+    /**
+     * 取消原因：客户端断开、异步请求超时、降级单跳超时、超过调用方设定的截止时间
+     */
+    public static final String REASON_DISCONNECT = "disconnect";
+    public static final String REASON_TIMEOUT = "timeout";
+    public static final String REASON_HOP_TIMEOUT = "hop_timeout";
+    public static final String REASON_DEADLINE = "deadline";
+
+    private static final ThreadLocal<AiRequestContext> CURRENT = new ThreadLocal<>();
+
+    @Getter
+    private final String requestId;
+    private final AiRequestContext parent;
+    private final Map<Call, Long> calls = new ConcurrentHashMap<>();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Set<AiRequestContext> children = ConcurrentHashMap.newKeySet();
+    private final Map<String, byte[]> retainedFiles = new ConcurrentHashMap<>();
+    private volatile String cancelReason;
+    private volatile boolean hasDeadline;
+    private volatile long deadlineNanos;
+
+    public AiRequestContext(String requestId) {
+        this(requestId, null);
+    }
+
+    private AiRequestContext(String requestId, AiRequestContext parent) {
+        this.requestId = requestId;
+        this.parent = parent;
+    }
+
+    /**
+     * 当前线程绑定的上下文
+     *
+     * @return 上下文，未绑定时返回null
+     */
+    public static AiRequestContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程绑定的请求是否已取消
+     */
+    public static boolean isCurrentCancelled() {
+        AiRequestContext context = CURRENT.get();
+        return context != null && context.isCancelled();
+    }
+
+    /**
+     * 当前线程绑定请求的剩余时限
+     *
+     * @return 剩余毫秒数，未绑定上下文或未设定时限时返回null
+     */
+    public static Long currentRemainingMillis() {
+        AiRequestContext context = CURRENT.get();
+        return context != null ? context.remainingMillis() : null;
+    }
+
+    /**
+     * 设定请求时限
+     *
+     * @param timeoutMs 从现在起的时限（毫秒）
+     */
+    public void setTimeoutMs(long timeoutMs) {
+        deadlineNanos = System.nanoTime() + timeoutMs * 1_000_000L;
+        hasDeadline = true;
+    }
+
+    /**
+     * 剩余时限，子上下文沿用父上下文的截止时间
+     *
+     * @return 剩余毫秒数（已过期时为0或负数），未设定时限时返回null
+     */
+    public Long remainingMillis() {
+        if (hasDeadline) {
+            return Math.floorDiv(deadlineNanos - System.nanoTime(), 1_000_000L);
+        }
+        return parent != null ? parent.remainingMillis() : null;
+    }
+
+    /**
+     * 是否已超过截止时间
+     */
+    public boolean isExpired() {
+        Long remaining = remainingMillis();
+        return remaining != null && remaining <= 0;
+    }
+
+    /**
+     * 创建子上下文，父上下文取消时子上下文一并取消，子上下文可单独取消
+     *
+     * @return 子上下文
+     */
+    public AiRequestContext child() {
+        AiRequestContext child = new AiRequestContext(requestId, this);
+        children.add(child);
+        if (isCancelled()) {
+            child.cancel(getCancelReason());
+        }
+        return child;
+    }
+
+    /**
+     * 将上下文绑定到当前线程，关闭返回的作用域时解绑并恢复之前的上下文
+     *
+     * @return 绑定作用域
+     */
+    public Scope bind() {
+        Thread thread = Thread.currentThread();
+        AiRequestContext previous = CURRENT.get();
+        CURRENT.set(this);
+        threads.add(thread);
+        return () -> {
+            synchronized (this) {
+                threads.remove(thread);
+            }
+            if (isCancelled()) {
+                // 清除取消时留下的中断标记，避免影响线程后续任务
+                Thread.interrupted();
+            }
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            if (parent != null && previous != this) {
+                parent.children.remove(this);
+            }
+        };
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * 取消原因，未取消时返回null
+     */
+    public String getCancelReason() {
+        if (cancelReason != null) {
+            return cancelReason;
+        }
+        return parent != null ? parent.getCancelReason() : null;
+    }
+
+    /**
+     * 取消请求：取消在途的上游调用并中断绑定的线程
+     *
+     * @param reason 取消原因
+     * @return 本次取消前仍在途的上游调用数，已取消过时返回-1
+     */
+    public synchronized int cancel(String reason) {
+        if (cancelReason != null) {
+            return -1;
+        }
+        cancelReason = reason != null ? reason : "cancelled";
+        int cancelled = calls.size();
+        calls.keySet().forEach(Call::cancel);
+        threads.forEach(Thread::interrupt);
+        for (AiRequestContext child : children) {
+            int childCalls = child.cancel(cancelReason);
+            if (childCalls > 0) {
+                cancelled += childCalls;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * 保留已下载的文件内容，供同一请求的后续处理（包括子上下文中的处理）复用一次
+     *
+     * @param url     文件URL
+     * @param content 文件内容
+     */
+    public void retainFile(String url, byte[] content) {
+        root().retainedFiles.put(url, content);
+    }
+
+    /**
+     * 取出保留的文件内容，取出后不再保留
+     *
+     * @param url 文件URL
+     * @return 文件内容，未保留时返回null
+     */
+    public byte[] takeRetainedFile(String url) {
+        return root().retainedFiles.remove(url);
+    }
+
+    /**
+     * 释放保留的全部文件内容
+     */
+    public void discardRetainedFiles() {
+        root().retainedFiles.clear();
+    }
+
+    private AiRequestContext root() {
+        return parent != null ? parent.root() : this;
+    }
+
+    /**
+     * 登记上游调用，上下文已取消时立即取消该调用
+     */
+    void register(Call call) {
+        calls.put(call, System.nanoTime());
+        if (isCancelled()) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * 上游调用结束
+     *
+     * @return 调用开始时间（纳秒），未登记时返回null
+     */
+    Long unregister(Call call) {
+        return calls.remove(call);
+    }
+
+    /**
+     * 上游调用开始时间（纳秒）
+     */
+    Long startedAt(Call call) {
+        return calls.get(call);
+    }
+
+    /**
+     * 绑定作用域
+     */
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
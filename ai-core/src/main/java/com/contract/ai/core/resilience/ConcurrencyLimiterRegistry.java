@@ -0,0 +1,168 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiCircuitOpenException;
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 模型自适应并发限制注册中心
+ * 按模型名称懒创建 {@link AdaptiveConcurrencyLimiter}，AiRouter 的每一跳调用经过它获取并发名额：
+ * 名额已满时排队，最多等待 max-wait-ms 与请求剩余时限中的较小值，排不上或队列已满时以 AI_SERVICE_UNAVAILABLE 拒绝（可降级到备选模型）。
+ * 成功调用的耗时用于调整上限，上游侧失败收缩上限，熔断拒绝未发往上游，不收缩上限；当前上限、在途数与排队数注册为指标
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimiterRegistry {
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ai.resilience.concurrency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.resilience.concurrency.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${ai.resilience.concurrency.min-limit:2}")
+    private int minLimit;
+
+    @Value("${ai.resilience.concurrency.max-limit:200}")
+    private int maxLimit;
+
+    /**
+     * 超过上限时最多排队的调用数
+     */
+    @Value("${ai.resilience.concurrency.max-queue:50}")
+    private int maxQueue;
+
+    /**
+     * 排队最多等待的时间
+     */
+    @Value("${ai.resilience.concurrency.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    /**
+     * 可容忍的延迟上升倍数
+     */
+    @Value("${ai.resilience.concurrency.tolerance:1.5}")
+    private double tolerance;
+
+    /**
+     * 上游失败时上限的收缩比例
+     */
+    @Value("${ai.resilience.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${ai.resilience.concurrency.short-window:10}")
+    private int shortWindow;
+
+    @Value("${ai.resilience.concurrency.long-window:200}")
+    private int longWindow;
+
+    public ConcurrencyLimiterRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * 在模型的并发限制下执行调用
+     *
+     * @param model 模型名称
+     * @param call  模型调用
+     * @return 调用结果
+     */
+    public <T> T execute(String model, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        AdaptiveConcurrencyLimiter limiter = get(model);
+        long maxWait = maxWaitMs;
+        Long remaining = AiRequestContext.currentRemainingMillis();
+        if (remaining != null) {
+            maxWait = Math.min(maxWait, remaining);
+        }
+        boolean acquired;
+        try {
+            acquired = limiter.acquire(maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiException(AiErrorCode.AI_SERVICE_UNAVAILABLE, "等待模型并发名额时请求被取消");
+        }
+        if (!acquired) {
+            log.warn("Shedding call to model [{}]: concurrency limit {} reached, {} waiting",
+                    model, (int) limiter.getLimit(), limiter.getWaiting());
+            if (meterRegistry != null) {
+                Counter.builder("ai.concurrency.shed")
+                        .description("超过并发上限被拒绝的调用次数")
+                        .tag("model", model)
+                        .register(meterRegistry)
+                        .increment();
+            }
+            throw new AiException(AiErrorCode.AI_SERVICE_UNAVAILABLE,
+                    String.format("模型 %s 当前并发已满，请稍后重试", model));
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            limiter.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            if (DispatchGuard.isUpstreamFailure(e) && !AiCircuitOpenException.isCircuitOpen(e)) {
+                limiter.onDropped();
+            } else {
+                limiter.onIgnored();
+            }
+            throw e;
+        } catch (Error e) {
+            limiter.onIgnored();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取模型的并发限制，不存在时创建
+     *
+     * @param model 模型名称
+     * @return 并发限制
+     */
+    public AdaptiveConcurrencyLimiter get(String model) {
+        return limiters.computeIfAbsent(model, this::create);
+    }
+
+    public Map<String, AdaptiveConcurrencyLimiter> getAll() {
+        return Map.copyOf(limiters);
+    }
+
+    private AdaptiveConcurrencyLimiter create(String model) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(model, initialLimit, minLimit, maxLimit,
+                maxQueue, tolerance, backoffRatio, shortWindow, longWindow, System::nanoTime);
+        if (meterRegistry != null) {
+            Gauge.builder("ai.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("模型当前的并发上限")
+                    .tag("model", model)
+                    .register(meterRegistry);
+            Gauge.builder("ai.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("model", model)
+                    .register(meterRegistry);
+            Gauge.builder("ai.concurrency.queue", limiter, AdaptiveConcurrencyLimiter::getWaiting)
+                    .description("等待并发名额的调用数")
+                    .tag("model", model)
+                    .register(meterRegistry);
+        }
+        log.info("Created concurrency limiter for model [{}]: initial={}, range=[{}, {}], maxQueue={}",
+                model, initialLimit, minLimit, maxLimit, maxQueue);
+        return limiter;
+    }
+}
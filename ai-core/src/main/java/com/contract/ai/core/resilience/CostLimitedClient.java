@@ -0,0 +1,81 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiAdmissionRejectedException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.function.BiConsumer;
+
+/**
+ * 按成本加权准入的Feign客户端
+ * 每次HTTP调用按 {@link RequestCostEstimator} 估算的成本向平台的 {@link WeightedSemaphore} 获取名额，调用结束后释放；
+ * 名额不足时排队，最多等待 maxWaitMs 与请求剩余时限中的较小值，等不到时以 AI_REQUEST_LIMIT_EXCEEDED 失败，不调用上游，
+ * 该失败为本地准入拒绝（{@link AiAdmissionRejectedException}），不计入熔断统计
+ */
+@Slf4j
+public class CostLimitedClient implements Client {
+
+    private final Client delegate;
+    private final WeightedSemaphore semaphore;
+    private final RequestCostEstimator costEstimator;
+    private final long maxWaitMs;
+    private final BiConsumer<WeightedSemaphore, RequestCostEstimator.Estimate> costRecorder;
+
+    /**
+     * @param delegate      实际发送请求的客户端
+     * @param semaphore     平台的加权信号量
+     * @param costEstimator 请求成本估算
+     * @param maxWaitMs     最多排队等待的毫秒数
+     * @param costRecorder  记录准入请求的估算成本，可为null
+     */
+    public CostLimitedClient(Client delegate, WeightedSemaphore semaphore, RequestCostEstimator costEstimator,
+                             long maxWaitMs, BiConsumer<WeightedSemaphore, RequestCostEstimator.Estimate> costRecorder) {
+        this.delegate = delegate;
+        this.semaphore = semaphore;
+        this.costEstimator = costEstimator;
+        this.maxWaitMs = maxWaitMs;
+        this.costRecorder = costRecorder;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        long maxWait = maxWaitMs;
+        Long remaining = AiRequestContext.currentRemainingMillis();
+        if (remaining != null && remaining <= 0) {
+            // 已过期，交给 DeadlineAwareClient 以超时失败
+            return delegate.execute(request, options);
+        }
+        if (remaining != null) {
+            maxWait = Math.min(maxWait, remaining);
+        }
+
+        RequestCostEstimator.Estimate estimate = costEstimator.estimate(request.body());
+        long weight;
+        try {
+            weight = semaphore.acquire(estimate.getCost(), maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + semaphore.getName() + " cost admission");
+        }
+        if (weight < 0) {
+            log.warn("Rejecting {} request: cost {} (images={}, imageBytes={}) not admitted within {}ms, utilization={}",
+                    semaphore.getName(), estimate.getCost(), estimate.getImages(), estimate.getImageBytes(), maxWait,
+                    String.format("%.2f", semaphore.getUtilization()));
+            throw new AiAdmissionRejectedException(semaphore.getName(), String.format(
+                    "[%s] 在途请求量已满，%d 毫秒内无法排到调用", semaphore.getName(), maxWait));
+        }
+        if (costRecorder != null) {
+            costRecorder.accept(semaphore, estimate);
+        }
+
+        try {
+            return delegate.execute(request, options);
+        } finally {
+            semaphore.release(weight);
+        }
+    }
+}
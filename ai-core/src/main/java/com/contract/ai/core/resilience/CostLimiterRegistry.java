@@ -0,0 +1,130 @@
+package com.contract.ai.core.resilience;
+
+import feign.Client;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 成本加权准入注册中心
+ * 各平台的Feign配置通过它创建 {@link WeightedSemaphore} 并包装客户端，按估算成本（输入token、max_tokens、图片数量与字节数）
+ * 而不是请求数控制在途量，统一成本估算方式、大请求份额与排队上限，并将加权利用率、在途成本与排队数注册为指标
+ */
+@Slf4j
+@Component
+public class CostLimiterRegistry {
+
+    private final Map<String, WeightedSemaphore> semaphores = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ai.resilience.cost.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 单次调用最多排队等待的时间，同时不超过请求剩余时限
+     */
+    @Value("${ai.resilience.cost.max-wait-ms:30000}")
+    private long maxWaitMs;
+
+    @Value("${ai.resilience.cost.max-queue:100}")
+    private int maxQueue;
+
+    /**
+     * 大请求的成本阈值
+     */
+    @Value("${ai.resilience.cost.large-threshold:20000}")
+    private long largeThreshold;
+
+    /**
+     * 大请求合计最多占用的名额比例
+     */
+    @Value("${ai.resilience.cost.large-max-share:0.5}")
+    private double largeMaxShare;
+
+    /**
+     * 每个成本单位对应的base64图片字节数
+     */
+    @Value("${ai.resilience.cost.image-bytes-per-unit:1000}")
+    private long imageBytesPerUnit;
+
+    @Value("${ai.resilience.rate-limit.chars-per-token:2}")
+    private double charsPerToken;
+
+    @Value("${ai.resilience.rate-limit.image-tokens:1000}")
+    private long imageTokens;
+
+    public CostLimiterRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * 创建平台的加权信号量
+     *
+     * @param provider 平台名称
+     * @param capacity 在途成本上限
+     * @return 加权信号量
+     */
+    public WeightedSemaphore create(String provider, long capacity) {
+        WeightedSemaphore semaphore = new WeightedSemaphore(provider, capacity, largeThreshold, largeMaxShare, maxQueue);
+        semaphores.put(provider, semaphore);
+        if (meterRegistry != null) {
+            Gauge.builder("ai.cost.utilization", semaphore, WeightedSemaphore::getUtilization)
+                    .description("在途请求估算成本占上限的比例")
+                    .tag("provider", provider)
+                    .register(meterRegistry);
+            Gauge.builder("ai.cost.in.flight", semaphore, WeightedSemaphore::getUsed)
+                    .tag("provider", provider)
+                    .tag("size", "all")
+                    .register(meterRegistry);
+            Gauge.builder("ai.cost.in.flight", semaphore, WeightedSemaphore::getLargeUsed)
+                    .tag("provider", provider)
+                    .tag("size", "large")
+                    .register(meterRegistry);
+            Gauge.builder("ai.cost.waiting", semaphore, WeightedSemaphore::getWaiting)
+                    .description("等待成本名额的调用数")
+                    .tag("provider", provider)
+                    .register(meterRegistry);
+        }
+        if (enabled) {
+            log.info("Created cost limiter for provider [{}]: capacity={}, largeThreshold={}, largeMaxShare={}",
+                    provider, capacity, largeThreshold, largeMaxShare);
+        }
+        return semaphore;
+    }
+
+    /**
+     * 为平台的Feign客户端加上成本加权准入
+     *
+     * @param delegate  实际发送请求的客户端
+     * @param semaphore 平台的加权信号量
+     * @return 包装后的客户端，未启用时返回原客户端
+     */
+    public Client decorate(Client delegate, WeightedSemaphore semaphore) {
+        if (!enabled) {
+            return delegate;
+        }
+        return new CostLimitedClient(delegate, semaphore,
+                new RequestCostEstimator(charsPerToken, imageTokens, imageBytesPerUnit), maxWaitMs, this::recordCost);
+    }
+
+    public Map<String, WeightedSemaphore> getAll() {
+        return Map.copyOf(semaphores);
+    }
+
+    private void recordCost(WeightedSemaphore semaphore, RequestCostEstimator.Estimate estimate) {
+        if (meterRegistry != null) {
+            DistributionSummary.builder("ai.cost.request")
+                    .description("准入请求的估算成本")
+                    .tag("provider", semaphore.getName())
+                    .register(meterRegistry)
+                    .record(estimate.getCost());
+        }
+    }
+}
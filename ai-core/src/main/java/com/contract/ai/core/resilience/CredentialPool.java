@@ -0,0 +1,221 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个平台的API密钥池
+ * 每次请求按最少在途（或轮询）从未冷却的密钥中选取一个；返回429的密钥按 Retry-After（缺省 cooldownMs）冷却，
+ * 返回401/402/403（认证失败、余额或配额不足）的密钥冷却 rejectedCooldownMs。
+ * 所有密钥都在冷却时选取最早恢复的密钥，交给上游决定是否仍然限流
+ */
+@Slf4j
+public class CredentialPool {
+
+    /**
+     * 密钥选取方式
+     */
+    public enum Selection {
+        LEAST_LOADED,
+        ROUND_ROBIN
+    }
+
+    @Getter
+    private final String provider;
+    private final List<Credential> credentials;
+    private final Selection selection;
+    private final long cooldownMs;
+    private final long rejectedCooldownMs;
+    private final LongSupplier clock;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    public CredentialPool(String provider, List<String> apiKeys, Selection selection, long cooldownMs,
+                          long rejectedCooldownMs) {
+        this(provider, apiKeys, selection, cooldownMs, rejectedCooldownMs, System::currentTimeMillis);
+    }
+
+    CredentialPool(String provider, List<String> apiKeys, Selection selection, long cooldownMs,
+                   long rejectedCooldownMs, LongSupplier clock) {
+        this.provider = provider;
+        this.selection = selection;
+        this.cooldownMs = cooldownMs;
+        this.rejectedCooldownMs = rejectedCooldownMs;
+        this.clock = clock;
+        List<Credential> list = new ArrayList<>();
+        for (String apiKey : apiKeys) {
+            if (apiKey != null && !apiKey.isBlank()) {
+                list.add(new Credential("key" + (list.size() + 1), apiKey.trim()));
+            }
+        }
+        this.credentials = Collections.unmodifiableList(list);
+    }
+
+    public boolean isEmpty() {
+        return credentials.isEmpty();
+    }
+
+    public List<Credential> getCredentials() {
+        return credentials;
+    }
+
+    /**
+     * 选取一个密钥，调用结束后必须通过租约记录结果
+     *
+     * @return 密钥租约，池为空时返回null
+     */
+    public Lease acquire() {
+        if (credentials.isEmpty()) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        int size = credentials.size();
+        int start = Math.floorMod(cursor.getAndIncrement(), size);
+        Credential chosen = null;
+        Credential soonest = null;
+        for (int i = 0; i < size; i++) {
+            Credential credential = credentials.get((start + i) % size);
+            if (credential.coolingUntil > now) {
+                if (soonest == null || credential.coolingUntil < soonest.coolingUntil) {
+                    soonest = credential;
+                }
+                continue;
+            }
+            if (selection == Selection.ROUND_ROBIN) {
+                chosen = credential;
+                break;
+            }
+            if (chosen == null || credential.inFlight.get() < chosen.inFlight.get()) {
+                chosen = credential;
+            }
+        }
+        if (chosen == null) {
+            chosen = soonest;
+            log.warn("All {} API keys of provider [{}] are cooling down, using [{}] which recovers first",
+                    size, provider, chosen.label);
+        }
+        chosen.inFlight.incrementAndGet();
+        return new Lease(chosen);
+    }
+
+    /**
+     * 单个密钥及其统计
+     */
+    public static final class Credential {
+
+        @Getter
+        private final String label;
+        private final String apiKey;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+        private volatile long coolingUntil;
+
+        private Credential(String label, String apiKey) {
+            this.label = label;
+            this.apiKey = apiKey;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public long getSuccesses() {
+            return successes.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        /**
+         * 被限流或拒绝（429/401/402/403）的次数
+         */
+        public long getThrottled() {
+            return throttled.get();
+        }
+
+        public long getCoolingUntil() {
+            return coolingUntil;
+        }
+    }
+
+    /**
+     * 一次调用对密钥的占用，结果只记录一次
+     */
+    public final class Lease {
+
+        private final Credential credential;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Credential credential) {
+            this.credential = credential;
+        }
+
+        public String getApiKey() {
+            return credential.apiKey;
+        }
+
+        public String getLabel() {
+            return credential.label;
+        }
+
+        public void onSuccess() {
+            if (release()) {
+                credential.successes.incrementAndGet();
+            }
+        }
+
+        /**
+         * 网络异常或5xx，与密钥无关，不冷却
+         */
+        public void onFailure() {
+            if (release()) {
+                credential.failures.incrementAndGet();
+            }
+        }
+
+        /**
+         * 429限流，按 Retry-After 冷却
+         *
+         * @param retryAfterMillis 上游建议的等待时间，缺失时为null
+         */
+        public void onThrottled(Long retryAfterMillis) {
+            if (release()) {
+                long wait = retryAfterMillis != null && retryAfterMillis > 0 ? retryAfterMillis : cooldownMs;
+                coolDown(wait);
+            }
+        }
+
+        /**
+         * 认证失败或余额、配额不足，长时间冷却
+         */
+        public void onRejected() {
+            if (release()) {
+                coolDown(rejectedCooldownMs);
+            }
+        }
+
+        private void coolDown(long wait) {
+            credential.throttled.incrementAndGet();
+            credential.coolingUntil = Math.max(credential.coolingUntil, clock.getAsLong() + wait);
+            log.warn("API key [{}] of provider [{}] cooling down for {}ms", credential.label, provider, wait);
+        }
+
+        private boolean release() {
+            if (released.compareAndSet(false, true)) {
+                credential.inFlight.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.contract.ai.core.resilience;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 从密钥池取密钥的Feign客户端
+ * 每次HTTP调用（包括重试）重新选取密钥并写入 Authorization 头，按响应状态记录密钥结果，
+ * 重试时会自动避开刚被限流的密钥。密钥池为空时原样转发请求
+ */
+public class CredentialPoolClient implements Client {
+
+    private static final String AUTHORIZATION = "Authorization";
+
+    private final Client delegate;
+    private final CredentialPool pool;
+
+    public CredentialPoolClient(Client delegate, CredentialPool pool) {
+        this.delegate = delegate;
+        this.pool = pool;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        CredentialPool.Lease lease = pool.acquire();
+        if (lease == null) {
+            return delegate.execute(request, options);
+        }
+
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(request.headers());
+        headers.put(AUTHORIZATION, List.of("Bearer " + lease.getApiKey()));
+        Request authorized = Request.create(request.httpMethod(), request.url(), headers, request.body(),
+                request.charset(), request.requestTemplate());
+
+        Response response;
+        try {
+            response = delegate.execute(authorized, options);
+        } catch (IOException | RuntimeException e) {
+            lease.onFailure();
+            throw e;
+        }
+
+        int status = response.status();
+        if (status == 429) {
+            lease.onThrottled(ProviderErrorDecoder.parseRetryAfterMillis(response.headers(), status,
+                    System.currentTimeMillis()));
+        } else if (status == 401 || status == 402 || status == 403) {
+            lease.onRejected();
+        } else if (status >= 500) {
+            lease.onFailure();
+        } else {
+            lease.onSuccess();
+        }
+        return response;
+    }
+}
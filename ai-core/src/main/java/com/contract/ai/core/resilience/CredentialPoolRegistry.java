@@ -0,0 +1,106 @@
+package com.contract.ai.core.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * API密钥池注册中心
+ * 各平台的Feign配置通过它创建密钥池，统一选取方式与冷却时间，并将每个密钥的在途数、成功、失败与限流次数注册为指标
+ */
+@Slf4j
+@Component
+public class CredentialPoolRegistry {
+
+    private final Map<String, CredentialPool> pools = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 选取方式：LEAST_LOADED / ROUND_ROBIN
+     */
+    @Value("${ai.resilience.credential-pool.selection:LEAST_LOADED}")
+    private CredentialPool.Selection selection;
+
+    /**
+     * 429且无 Retry-After 时的冷却时间
+     */
+    @Value("${ai.resilience.credential-pool.cooldown-ms:30000}")
+    private long cooldownMs;
+
+    /**
+     * 认证失败、余额或配额不足时的冷却时间
+     */
+    @Value("${ai.resilience.credential-pool.rejected-cooldown-ms:600000}")
+    private long rejectedCooldownMs;
+
+    public CredentialPoolRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * 创建平台的密钥池
+     *
+     * @param provider 平台名称
+     * @param apiKeys  逗号分隔的多个密钥
+     * @param apiKey   单个密钥，apiKeys 为空时使用
+     * @return 密钥池
+     */
+    public CredentialPool create(String provider, String apiKeys, String apiKey) {
+        List<String> keys = new ArrayList<>();
+        if (apiKeys != null) {
+            for (String key : apiKeys.split(",")) {
+                if (!key.isBlank() && !keys.contains(key.trim())) {
+                    keys.add(key.trim());
+                }
+            }
+        }
+        if (keys.isEmpty() && apiKey != null && !apiKey.isBlank()) {
+            keys.add(apiKey.trim());
+        }
+
+        CredentialPool pool = new CredentialPool(provider, keys, selection, cooldownMs, rejectedCooldownMs);
+        pools.put(provider, pool);
+        if (meterRegistry != null) {
+            for (CredentialPool.Credential credential : pool.getCredentials()) {
+                Gauge.builder("ai.credential.in.flight", credential, CredentialPool.Credential::getInFlight)
+                        .tag("provider", provider)
+                        .tag("key", credential.getLabel())
+                        .register(meterRegistry);
+                registerCounter(provider, credential, "success", CredentialPool.Credential::getSuccesses);
+                registerCounter(provider, credential, "failure", CredentialPool.Credential::getFailures);
+                registerCounter(provider, credential, "throttled", CredentialPool.Credential::getThrottled);
+            }
+        }
+        if (pool.isEmpty()) {
+            log.warn("No API key configured for provider [{}]", provider);
+        } else {
+            log.info("Created credential pool for provider [{}] with {} key(s), selection={}",
+                    provider, pool.getCredentials().size(), selection);
+        }
+        return pool;
+    }
+
+    public Map<String, CredentialPool> getAll() {
+        return Map.copyOf(pools);
+    }
+
+    private void registerCounter(String provider, CredentialPool.Credential credential, String outcome,
+                                 ToDoubleFunction<CredentialPool.Credential> count) {
+        FunctionCounter.builder("ai.credential.calls", credential, count)
+                .description("各密钥的调用结果次数")
+                .tag("provider", provider)
+                .tag("key", credential.getLabel())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
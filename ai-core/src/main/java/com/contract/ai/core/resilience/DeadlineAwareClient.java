@@ -0,0 +1,43 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按请求截止时间限时的Feign客户端
+ * 当前请求带有截止时间（见 {@link AiRequestContext}）时，每次HTTP调用（包括重试）把连接、读取超时收紧到剩余时限以内；
+ * 已过期时直接以 AI_REQUEST_TIMEOUT 失败，不再调用上游。平台配置的超时只作为上限
+ */
+public class DeadlineAwareClient implements Client {
+
+    private final Client delegate;
+
+    public DeadlineAwareClient(Client delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        Long remaining = AiRequestContext.currentRemainingMillis();
+        if (remaining == null) {
+            return delegate.execute(request, options);
+        }
+        if (remaining <= 0) {
+            throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "请求已超过调用方设定的截止时间，未调用上游");
+        }
+        if (remaining >= options.connectTimeoutMillis() && remaining >= options.readTimeoutMillis()) {
+            return delegate.execute(request, options);
+        }
+        Request.Options bounded = new Request.Options(
+                Math.min(options.connectTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+                Math.min(options.readTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+                options.isFollowRedirects());
+        return delegate.execute(request, bounded);
+    }
+}
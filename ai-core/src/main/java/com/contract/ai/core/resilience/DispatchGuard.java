@@ -0,0 +1,100 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiAdmissionRejectedException;
+import com.contract.ai.core.exception.AiCircuitOpenException;
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiUpstreamException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 模型调用守卫
+ * AiRouter 调用策略前先经过熔断器：熔断打开时直接以 {@link AiCircuitOpenException}（AI_SERVICE_UNAVAILABLE）失败，
+ * 调用结束后按耗时与错误类型记录结果。只有上游侧的错误（5xx、过载、限流、超时、网络异常）计为失败，
+ * 参数错误、内容过滤、上下文过长等由请求本身导致的错误不影响熔断；请求被客户端断开、整体超时取消或超过调用方截止时间时与模型无关，同样不计，
+ * 本地调用频率上限等准入控制拒绝的请求（{@link AiAdmissionRejectedException}）未发往上游，也不计，
+ * 降级单跳超时被取消则说明模型过慢，计为失败
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DispatchGuard {
+
+    /**
+     * 计入熔断统计的错误码
+     */
+    private static final Set<AiErrorCode> UPSTREAM_FAILURES = EnumSet.of(
+            AiErrorCode.AI_SERVICE_ERROR,
+            AiErrorCode.AI_SERVICE_UNAVAILABLE,
+            AiErrorCode.AI_REQUEST_TIMEOUT,
+            AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED,
+            AiErrorCode.AI_CONNECTION_FAILED,
+            AiErrorCode.AI_CONNECTION_TIMEOUT,
+            AiErrorCode.AI_READ_TIMEOUT,
+            AiErrorCode.AI_NETWORK_UNREACHABLE);
+
+    private final ModelCircuitBreakerRegistry circuitBreakerRegistry;
+
+    /**
+     * 在熔断保护下执行模型调用
+     *
+     * @param model 模型名称
+     * @param call  策略调用
+     * @return 调用结果
+     */
+    public <T> T execute(String model, Supplier<T> call) {
+        if (!circuitBreakerRegistry.isEnabled()) {
+            return call.get();
+        }
+
+        ModelCircuitBreaker breaker = circuitBreakerRegistry.get(model);
+        if (!breaker.tryAcquirePermission()) {
+            long remainingSeconds = Math.max(1, (breaker.getRemainingOpenMillis() + 999) / 1000);
+            log.warn("Circuit breaker for model [{}] is {}, rejecting call", model, breaker.getState());
+            throw new AiCircuitOpenException(model,
+                    String.format("模型 %s 暂时不可用（熔断中），请约 %d 秒后重试", model, remainingSeconds));
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            breaker.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            if (isUpstreamFailure(e)) {
+                breaker.onError(System.nanoTime() - start);
+                if (breaker.getState() == ModelCircuitBreaker.State.OPEN) {
+                    log.warn("Circuit breaker for model [{}] opened: failureRate={}, last error: {}",
+                            model, breaker.getFailureRate(), e.getMessage());
+                }
+            } else {
+                breaker.onIgnored();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 是否为上游侧的失败
+     */
+    public static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof IllegalArgumentException || AiAdmissionRejectedException.isAdmissionRejected(e)) {
+            // 本地准入拒绝时请求未发往上游，与模型无关
+            return false;
+        }
+        AiRequestContext context = AiRequestContext.current();
+        if (context != null && context.isCancelled()) {
+            return AiRequestContext.REASON_HOP_TIMEOUT.equals(context.getCancelReason());
+        }
+        if (context != null && context.isExpired()) {
+            // 调用方设定的时限过短导致的超时与模型无关
+            return false;
+        }
+        return UPSTREAM_FAILURES.contains(AiUpstreamException.errorCodeOf(e));
+    }
+}
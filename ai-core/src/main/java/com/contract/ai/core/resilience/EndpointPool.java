@@ -0,0 +1,204 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个平台的多入口地址池
+ * 每次调用随机取两个未摘除的入口（power of two choices），选 EWMA延迟 ×（在途数 + 1）较小的一个；
+ * 连续失败达到阈值的入口被摘除 ejectionMs，多次摘除按次数线性延长，被摘除入口数不超过 maxEjectionPercent
+ */
+@Slf4j
+public class EndpointPool {
+
+    @Getter
+    private final String provider;
+    private final List<Endpoint> endpoints;
+    private final double ewmaAlpha;
+    private final int ejectionFailures;
+    private final long ejectionNanos;
+    private final int maxEjectedEndpoints;
+    private final LongSupplier nanoClock;
+
+    public EndpointPool(String provider, List<String> baseUrls, double ewmaAlpha, int ejectionFailures,
+                        long ejectionMs, int maxEjectionPercent) {
+        this(provider, baseUrls, ewmaAlpha, ejectionFailures, ejectionMs, maxEjectionPercent, System::nanoTime);
+    }
+
+    EndpointPool(String provider, List<String> baseUrls, double ewmaAlpha, int ejectionFailures,
+                 long ejectionMs, int maxEjectionPercent, LongSupplier nanoClock) {
+        this.provider = provider;
+        this.ewmaAlpha = ewmaAlpha;
+        this.ejectionFailures = Math.max(1, ejectionFailures);
+        this.ejectionNanos = ejectionMs * 1_000_000L;
+        this.nanoClock = nanoClock;
+        List<Endpoint> list = new ArrayList<>();
+        for (String baseUrl : baseUrls) {
+            String normalized = normalize(baseUrl);
+            if (!normalized.isEmpty() && list.stream().noneMatch(e -> e.baseUrl.equals(normalized))) {
+                list.add(new Endpoint(normalized));
+            }
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+        this.maxEjectedEndpoints = list.size() * Math.max(0, Math.min(100, maxEjectionPercent)) / 100;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 选择入口并占用一个在途名额，调用结束后必须调用 {@link #onResult}
+     *
+     * @return 入口，地址池为空时返回null
+     */
+    public Endpoint choose() {
+        if (endpoints.isEmpty()) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        Endpoint soonest = null;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isEjected(now)) {
+                if (soonest == null || endpoint.ejectedUntil < soonest.ejectedUntil) {
+                    soonest = endpoint;
+                }
+            } else {
+                available.add(endpoint);
+            }
+        }
+
+        Endpoint chosen;
+        if (available.isEmpty()) {
+            chosen = soonest;
+        } else if (available.size() == 1) {
+            chosen = available.get(0);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(available.size());
+            int second = random.nextInt(available.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            Endpoint a = available.get(first);
+            Endpoint b = available.get(second);
+            chosen = a.cost() <= b.cost() ? a : b;
+        }
+        chosen.inFlight.incrementAndGet();
+        return chosen;
+    }
+
+    /**
+     * 记录调用结果
+     *
+     * @param endpoint      入口
+     * @param latencyNanos  收到响应头的耗时
+     * @param success       是否成功（网络异常与5xx为失败）
+     */
+    public void onResult(Endpoint endpoint, long latencyNanos, boolean success) {
+        endpoint.inFlight.decrementAndGet();
+        synchronized (endpoint) {
+            endpoint.ewmaNanos = endpoint.ewmaNanos == 0
+                    ? latencyNanos
+                    : endpoint.ewmaNanos + ewmaAlpha * (latencyNanos - endpoint.ewmaNanos);
+        }
+        if (success) {
+            endpoint.successes.incrementAndGet();
+            endpoint.consecutiveFailures.set(0);
+            return;
+        }
+        endpoint.failures.incrementAndGet();
+        if (endpoint.consecutiveFailures.incrementAndGet() >= ejectionFailures) {
+            eject(endpoint);
+        }
+    }
+
+    private synchronized void eject(Endpoint endpoint) {
+        long now = nanoClock.getAsLong();
+        if (endpoint.isEjected(now)) {
+            return;
+        }
+        long ejected = endpoints.stream().filter(e -> e.isEjected(now)).count();
+        if (ejected >= maxEjectedEndpoints) {
+            log.warn("Endpoint [{}] of provider [{}] keeps failing, but {} of {} endpoints are already ejected",
+                    endpoint.baseUrl, provider, ejected, endpoints.size());
+            return;
+        }
+        int times = endpoint.ejections.incrementAndGet();
+        endpoint.ejectedUntil = now + ejectionNanos * times;
+        endpoint.consecutiveFailures.set(0);
+        log.warn("Ejected endpoint [{}] of provider [{}] for {}ms after {} consecutive failures",
+                endpoint.baseUrl, provider, ejectionNanos * times / 1_000_000L, ejectionFailures);
+    }
+
+    static String normalize(String baseUrl) {
+        if (baseUrl == null) {
+            return "";
+        }
+        String trimmed = baseUrl.trim();
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * 单个入口及其统计
+     */
+    public final class Endpoint {
+
+        @Getter
+        private final String baseUrl;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicInteger ejections = new AtomicInteger();
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile double ewmaNanos;
+        private volatile long ejectedUntil;
+
+        private Endpoint(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        /**
+         * 选择代价：EWMA延迟 ×（在途数 + 1），未测量过的入口代价为0，优先被探测
+         */
+        double cost() {
+            return ewmaNanos * (inFlight.get() + 1);
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil != 0 && now - ejectedUntil < 0;
+        }
+
+        public boolean isEjected() {
+            return isEjected(nanoClock.getAsLong());
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public double getEwmaMillis() {
+            return ewmaNanos / 1_000_000d;
+        }
+
+        public long getSuccesses() {
+            return successes.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.contract.ai.core.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多入口地址池注册中心
+ * 各平台的Feign配置通过它创建地址池，统一EWMA与摘除参数，并将每个入口的延迟、在途数、摘除状态与调用结果注册为指标
+ */
+@Slf4j
+@Component
+public class EndpointPoolRegistry {
+
+    private final Map<String, EndpointPool> pools = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * EWMA平滑系数，越大越偏向最近的延迟
+     */
+    @Value("${ai.resilience.endpoint.ewma-alpha:0.3}")
+    private double ewmaAlpha;
+
+    /**
+     * 连续失败多少次后摘除入口
+     */
+    @Value("${ai.resilience.endpoint.ejection-failures:3}")
+    private int ejectionFailures;
+
+    /**
+     * 摘除时间（毫秒），多次摘除按次数线性延长
+     */
+    @Value("${ai.resilience.endpoint.ejection-ms:30000}")
+    private long ejectionMs;
+
+    /**
+     * 同时被摘除的入口比例上限（百分比）
+     */
+    @Value("${ai.resilience.endpoint.max-ejection-percent:50}")
+    private int maxEjectionPercent;
+
+    public EndpointPoolRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * 创建平台的地址池
+     *
+     * @param provider 平台名称
+     * @param baseUrls 逗号分隔的多个入口地址
+     * @param baseUrl  主地址，baseUrls 为空时使用
+     * @return 地址池
+     */
+    public EndpointPool create(String provider, String baseUrls, String baseUrl) {
+        List<String> urls = new ArrayList<>();
+        if (baseUrls != null && !baseUrls.isBlank()) {
+            urls.addAll(List.of(baseUrls.split(",")));
+        }
+        if (urls.isEmpty()) {
+            urls.add(baseUrl);
+        }
+
+        EndpointPool pool = new EndpointPool(provider, urls, ewmaAlpha, ejectionFailures, ejectionMs,
+                maxEjectionPercent);
+        pools.put(provider, pool);
+        if (meterRegistry != null && pool.getEndpoints().size() > 1) {
+            for (EndpointPool.Endpoint endpoint : pool.getEndpoints()) {
+                Gauge.builder("ai.endpoint.latency.ewma", endpoint, EndpointPool.Endpoint::getEwmaMillis)
+                        .baseUnit("milliseconds")
+                        .tag("provider", provider)
+                        .tag("endpoint", endpoint.getBaseUrl())
+                        .register(meterRegistry);
+                Gauge.builder("ai.endpoint.in.flight", endpoint, EndpointPool.Endpoint::getInFlight)
+                        .tag("provider", provider)
+                        .tag("endpoint", endpoint.getBaseUrl())
+                        .register(meterRegistry);
+                Gauge.builder("ai.endpoint.ejected", endpoint, e -> e.isEjected() ? 1 : 0)
+                        .tag("provider", provider)
+                        .tag("endpoint", endpoint.getBaseUrl())
+                        .register(meterRegistry);
+                FunctionCounter.builder("ai.endpoint.calls", endpoint, EndpointPool.Endpoint::getSuccesses)
+                        .tag("provider", provider)
+                        .tag("endpoint", endpoint.getBaseUrl())
+                        .tag("outcome", "success")
+                        .register(meterRegistry);
+                FunctionCounter.builder("ai.endpoint.calls", endpoint, EndpointPool.Endpoint::getFailures)
+                        .tag("provider", provider)
+                        .tag("endpoint", endpoint.getBaseUrl())
+                        .tag("outcome", "failure")
+                        .register(meterRegistry);
+            }
+            log.info("Created endpoint pool for provider [{}]: {}", provider,
+                    pool.getEndpoints().stream().map(EndpointPool.Endpoint::getBaseUrl).toList());
+        }
+        return pool;
+    }
+
+    public Map<String, EndpointPool> getAll() {
+        return Map.copyOf(pools);
+    }
+}
@@ -0,0 +1,48 @@
+package com.contract.ai.core.resilience;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+
+/**
+ * 多入口选择的Feign客户端
+ * {@code @FeignClient} 上配置的 url 作为主地址，每次HTTP调用（包括重试）由 {@link EndpointPool} 选择入口并替换请求地址前缀，
+ * 按收到响应头的耗时与状态更新入口统计。只有一个入口时原样转发请求
+ */
+public class EndpointSelectingClient implements Client {
+
+    private final Client delegate;
+    private final EndpointPool pool;
+    private final String primaryBaseUrl;
+
+    public EndpointSelectingClient(Client delegate, EndpointPool pool, String primaryBaseUrl) {
+        this.delegate = delegate;
+        this.pool = pool;
+        this.primaryBaseUrl = EndpointPool.normalize(primaryBaseUrl);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (pool.getEndpoints().size() <= 1 || !request.url().startsWith(primaryBaseUrl)) {
+            return delegate.execute(request, options);
+        }
+
+        EndpointPool.Endpoint endpoint = pool.choose();
+        Request routed = Request.create(request.httpMethod(),
+                endpoint.getBaseUrl() + request.url().substring(primaryBaseUrl.length()),
+                request.headers(), request.body(), request.charset(), request.requestTemplate());
+
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = delegate.execute(routed, options);
+        } catch (IOException | RuntimeException e) {
+            pool.onResult(endpoint, System.nanoTime() - start, false);
+            throw e;
+        }
+        pool.onResult(endpoint, System.nanoTime() - start, response.status() < 500);
+        return response;
+    }
+}
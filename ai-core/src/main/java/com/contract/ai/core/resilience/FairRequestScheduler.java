@@ -0,0 +1,372 @@
+package com.contract.ai.core.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求加权公平调度器
+ * 聊天请求按（优先级, 租户）分成多个流，最多 max-concurrent 个请求同时执行，其余按加权公平队列排队：
+ * 每个请求的虚拟完成时间 = max(系统虚拟时间, 该流上一个请求的完成时间) + 1 / 权重，空出名额时执行虚拟完成时间最小的请求，
+ * 权重 = 优先级权重 × 租户权重。批量请求最多占用 batch-max-share 比例的名额，为交互请求保留余量，
+ * 避免批量任务占满名额后交互请求要等长耗时调用结束；没有交互请求时批量请求仍可用满其份额
+ */
+@Slf4j
+@Component
+public class FairRequestScheduler {
+
+    /**
+     * 请求优先级
+     */
+    public enum Priority {
+        /**
+         * 交互请求，审核人员在页面上等待结果
+         */
+        INTERACTIVE,
+        /**
+         * 批量请求，如后台批量复审
+         */
+        BATCH;
+
+        /**
+         * 解析优先级提示
+         *
+         * @param value 提示值（interactive / batch，不区分大小写）
+         * @return 优先级，无法识别时返回null
+         */
+        public static Priority parse(Object value) {
+            if (value == null) {
+                return null;
+            }
+            String text = String.valueOf(value).trim().toUpperCase(Locale.ROOT);
+            for (Priority priority : values()) {
+                if (priority.name().equals(text)) {
+                    return priority;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 请求头：优先级提示
+     */
+    public static final String PRIORITY_HEADER = "X-Ai-Priority";
+
+    /**
+     * 请求扩展参数：优先级提示
+     */
+    public static final String PRIORITY_EXTENSION = "priority";
+
+    private static final String DEFAULT_TENANT = "default";
+
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final Object lock = new Object();
+    private final Map<Priority, PriorityQueue<Task>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, Integer> running = new EnumMap<>(Priority.class);
+    private final Map<String, Double> lastFinish = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+
+    @Value("${ai.scheduler.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 同时执行的请求数上限，应与各平台可承受的并发相当且不超过请求线程数
+     */
+    @Value("${ai.scheduler.max-concurrent:32}")
+    private int maxConcurrent;
+
+    /**
+     * 批量请求最多占用的名额比例
+     */
+    @Value("${ai.scheduler.batch-max-share:0.75}")
+    private double batchMaxShare;
+
+    /**
+     * 每个优先级最多排队的请求数，超过时拒绝
+     */
+    @Value("${ai.scheduler.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${ai.scheduler.interactive-weight:8}")
+    private double interactiveWeight;
+
+    @Value("${ai.scheduler.batch-weight:1}")
+    private double batchWeight;
+
+    /**
+     * 租户权重，格式 "租户=权重,租户=权重"，未配置的租户权重为1
+     */
+    @Value("${ai.scheduler.tenant-weights:}")
+    private String tenantWeightsSpec;
+
+    /**
+     * 默认按批量优先级调度的租户（如后台任务的服务账号），逗号分隔
+     */
+    @Value("${ai.scheduler.batch-tenants:}")
+    private String batchTenantsSpec;
+
+    /**
+     * 识别租户的请求头，依次读取第一个非空值
+     */
+    @Value("${ai.scheduler.tenant-headers:X-Tenant-Id,username}")
+    private List<String> tenantHeaders;
+
+    private Map<String, Double> tenantWeights = Map.of();
+    private Set<String> batchTenants = Set.of();
+    private int batchLimit;
+
+    public FairRequestScheduler(@Qualifier("aiRequestExecutor") ExecutorService executor,
+                                ObjectProvider<MeterRegistry> meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        Comparator<Task> order = Comparator.comparingDouble((Task task) -> task.finish)
+                .thenComparingLong(task -> task.sequence);
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new PriorityQueue<>(order));
+            running.put(priority, 0);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        maxConcurrent = Math.max(1, maxConcurrent);
+        if (executor instanceof ThreadPoolExecutor pool) {
+            // 放行的请求不在线程池中排队
+            maxConcurrent = Math.min(maxConcurrent, pool.getMaximumPoolSize());
+        }
+        batchLimit = Math.max(1, (int) Math.floor(maxConcurrent * batchMaxShare));
+        tenantWeights = parseWeights(tenantWeightsSpec);
+        batchTenants = new HashSet<>();
+        if (batchTenantsSpec != null) {
+            for (String tenant : batchTenantsSpec.split(",")) {
+                if (!tenant.isBlank()) {
+                    batchTenants.add(tenant.trim());
+                }
+            }
+        }
+        if (meterRegistry != null) {
+            for (Priority priority : Priority.values()) {
+                String tag = priority.name().toLowerCase(Locale.ROOT);
+                Gauge.builder("ai.scheduler.queued", this, s -> s.getQueued(priority))
+                        .description("排队等待执行的请求数")
+                        .tag("priority", tag)
+                        .register(meterRegistry);
+                Gauge.builder("ai.scheduler.running", this, s -> s.getRunning(priority))
+                        .tag("priority", tag)
+                        .register(meterRegistry);
+            }
+        }
+        if (enabled) {
+            log.info("Fair request scheduler enabled: maxConcurrent={}, batchLimit={}, weights interactive={} batch={}, tenants={}",
+                    maxConcurrent, batchLimit, interactiveWeight, batchWeight, tenantWeights);
+        }
+    }
+
+    /**
+     * 识别租户的请求头
+     */
+    public List<String> getTenantHeaders() {
+        return tenantHeaders;
+    }
+
+    /**
+     * 确定请求的优先级：显式提示优先，否则按租户配置
+     *
+     * @param tenant 租户
+     * @param hint   请求头或扩展参数中的优先级提示，可为null
+     * @return 优先级
+     */
+    public Priority resolvePriority(String tenant, Object hint) {
+        Priority priority = Priority.parse(hint);
+        if (priority != null) {
+            return priority;
+        }
+        return tenant != null && batchTenants.contains(tenant) ? Priority.BATCH : Priority.INTERACTIVE;
+    }
+
+    /**
+     * 获取按租户与优先级调度的执行器
+     * 提交的任务进入公平队列，轮到时在请求线程池上执行；队列已满时抛出 RejectedExecutionException
+     *
+     * @param tenant   租户，为空时归入默认租户
+     * @param priority 优先级
+     * @return 执行器
+     */
+    public Executor executorFor(String tenant, Priority priority) {
+        if (!enabled) {
+            return executor;
+        }
+        String flowTenant = tenant == null || tenant.isBlank() ? DEFAULT_TENANT : tenant;
+        return command -> enqueue(flowTenant, priority, command);
+    }
+
+    public int getQueued(Priority priority) {
+        synchronized (lock) {
+            return queues.get(priority).size();
+        }
+    }
+
+    public int getRunning(Priority priority) {
+        synchronized (lock) {
+            return running.get(priority);
+        }
+    }
+
+    private void enqueue(String tenant, Priority priority, Runnable command) {
+        synchronized (lock) {
+            PriorityQueue<Task> queue = queues.get(priority);
+            if (queue.size() >= queueCapacity) {
+                throw new RejectedExecutionException("Fair scheduler queue for " + priority + " is full");
+            }
+            String flow = priority + "/" + tenant;
+            double weight = (priority == Priority.BATCH ? batchWeight : interactiveWeight)
+                    * tenantWeights.getOrDefault(tenant, 1.0);
+            double start = Math.max(virtualTime, lastFinish.getOrDefault(flow, 0.0));
+            double finish = start + 1.0 / Math.max(weight, 1e-6);
+            lastFinish.put(flow, finish);
+            queue.add(new Task(priority, tenant, command, start, finish, sequence++, System.nanoTime()));
+        }
+        dispatch();
+    }
+
+    /**
+     * 在名额允许时按虚拟完成时间从各优先级队列中取出请求执行
+     */
+    private void dispatch() {
+        List<Task> ready = new ArrayList<>();
+        synchronized (lock) {
+            while (running.get(Priority.INTERACTIVE) + running.get(Priority.BATCH) < maxConcurrent) {
+                Task next = pollNext();
+                if (next == null) {
+                    break;
+                }
+                running.merge(next.priority, 1, Integer::sum);
+                virtualTime = Math.max(virtualTime, next.start);
+                ready.add(next);
+            }
+            if (lastFinish.size() > 1024) {
+                // 清理已空闲的流，其完成时间不再影响新请求
+                lastFinish.values().removeIf(finish -> finish <= virtualTime);
+            }
+        }
+        for (Task task : ready) {
+            recordWait(task);
+            try {
+                executor.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                log.error("AI request executor rejected a scheduled request of tenant [{}]", task.tenant, e);
+                finish(task);
+            }
+        }
+    }
+
+    private Task pollNext() {
+        Task interactive = queues.get(Priority.INTERACTIVE).peek();
+        Task batch = running.get(Priority.BATCH) < batchLimit ? queues.get(Priority.BATCH).peek() : null;
+        if (interactive == null && batch == null) {
+            return null;
+        }
+        Task next = batch == null || (interactive != null && interactive.finish <= batch.finish) ? interactive : batch;
+        return queues.get(next.priority).poll();
+    }
+
+    private void run(Task task) {
+        try {
+            task.command.run();
+        } finally {
+            finish(task);
+        }
+    }
+
+    private void finish(Task task) {
+        synchronized (lock) {
+            running.merge(task.priority, -1, Integer::sum);
+        }
+        dispatch();
+    }
+
+    private void recordWait(Task task) {
+        if (meterRegistry != null) {
+            Timer.builder("ai.scheduler.wait")
+                    .description("请求在公平队列中的等待时间")
+                    .tag("priority", task.priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 解析租户权重配置
+     *
+     * @param spec 格式 "租户=权重,租户=权重"
+     * @return 租户到权重的映射，格式错误或非正数的条目被忽略
+     */
+    static Map<String, Double> parseWeights(String spec) {
+        Map<String, Double> weights = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return weights;
+        }
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                continue;
+            }
+            try {
+                double weight = Double.parseDouble(parts[1].trim());
+                if (weight > 0) {
+                    weights.put(parts[0].trim(), weight);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid tenant weight entry: {}", entry);
+            }
+        }
+        return weights;
+    }
+
+    private static final class Task {
+
+        private final Priority priority;
+        private final String tenant;
+        private final Runnable command;
+        private final double start;
+        private final double finish;
+        private final long sequence;
+        private final long enqueuedAt;
+
+        private Task(Priority priority, String tenant, Runnable command, double start, double finish, long sequence,
+                     long enqueuedAt) {
+            this.priority = priority;
+            this.tenant = tenant;
+            this.command = command;
+            this.start = start;
+            this.finish = finish;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键缓存
+ * 请求携带 Idempotency-Key 时，按（接口, 租户, 键）记录首次请求的执行：执行中的重试挂到同一个执行上，已成功的重试直接返回保存的结果，
+ * 不再重复调用上游模型；执行失败的记录立即移除，之后的重试重新执行。
+ * 最多保存 max-entries 个键（超出时淘汰最早的），成功结果保存 ttl-ms；同一个键用于内容不同的请求时拒绝。
+ * 等待结果的客户端（首次请求与挂上的重试）全部断开后，执行只保留 disconnect-grace-ms 等待重试，期间没有重试挂上则取消
+ */
+@Slf4j
+@Component
+public class IdempotencyCache {
+
+    /**
+     * 请求属性：请求由幂等键共享执行，值为 {@link #cacheKey} 生成的缓存键，客户端断开或异步超时时交给 {@link #onClientDisconnected} 处理
+     */
+    public static final String REQUEST_ATTRIBUTE = IdempotencyCache.class.getName();
+
+    /**
+     * 幂等键的最大长度
+     */
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+
+    @Value("${ai.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * 成功结果的保存时间
+     */
+    @Value("${ai.idempotency.ttl-ms:600000}")
+    private long ttlMs;
+
+    /**
+     * 客户端全部断开后保留执行、等待重试挂上的时间
+     */
+    @Value("${ai.idempotency.disconnect-grace-ms:10000}")
+    private long disconnectGraceMs;
+
+    public IdempotencyCache(ObjectProvider<MeterRegistry> meterRegistry) {
+        this(meterRegistry.getIfAvailable(), System::nanoTime);
+    }
+
+    IdempotencyCache(MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        if (meterRegistry != null) {
+            Gauge.builder("ai.idempotency.entries", this, IdempotencyCache::size)
+                    .description("保存的幂等键数量（含执行中）")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 按幂等键执行：键已存在时返回首次执行的结果，否则执行 execution 并记录
+     *
+     * @param route       接口名称
+     * @param key         幂等键，为空时直接执行
+     * @param fingerprint 请求内容指纹，同一个键对应不同内容时拒绝
+     * @param execution   实际执行，返回异步结果
+     * @return 异步结果；挂到已有执行时返回其副本，调用方的处理不会影响其他请求
+     */
+    public <T> CompletableFuture<T> execute(String route, String key, String fingerprint,
+                                            Supplier<CompletableFuture<T>> execution) {
+        return execute(route, null, key, fingerprint, execution, null);
+    }
+
+    /**
+     * 按租户的幂等键执行，等待结果的客户端全部断开且宽限期内没有重试挂上时调用 onAbandoned 取消执行
+     *
+     * @param route       接口名称
+     * @param tenant      租户，不同租户的相同键互不影响，可为null
+     * @param key         幂等键，为空时直接执行
+     * @param fingerprint 请求内容指纹，同一个键对应不同内容时拒绝
+     * @param execution   实际执行，返回异步结果
+     * @param onAbandoned 取消执行，可为null（客户端断开时不取消）
+     * @return 异步结果；挂到已有执行时返回其副本，调用方的处理不会影响其他请求
+     */
+    public <T> CompletableFuture<T> execute(String route, String tenant, String key, String fingerprint,
+                                            Supplier<CompletableFuture<T>> execution, Runnable onAbandoned) {
+        if (!enabled || key == null || key.isBlank()) {
+            return execution.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new AiException(AiErrorCode.AI_INVALID_MODEL_PARAMETER,
+                    "Idempotency-Key 长度不能超过 " + MAX_KEY_LENGTH);
+        }
+        String cacheKey = cacheKey(route, tenant, key);
+        Entry entry;
+        CompletableFuture<T> owned = new CompletableFuture<>();
+        synchronized (this) {
+            entry = entries.get(cacheKey);
+            if (entry != null && entry.isExpired(nanoClock.getAsLong(), ttlMs)) {
+                entries.remove(cacheKey);
+                entry = null;
+            }
+            if (entry == null) {
+                entries.put(cacheKey, new Entry(fingerprint, owned, onAbandoned));
+                while (entries.size() > maxEntries) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+        }
+
+        if (entry != null) {
+            if (fingerprint != null && entry.fingerprint != null && !fingerprint.equals(entry.fingerprint)) {
+                count("conflict");
+                throw new AiException(AiErrorCode.AI_INVALID_MODEL_PARAMETER,
+                        "Idempotency-Key 已用于内容不同的请求");
+            }
+            entry.clients.incrementAndGet();
+            count(entry.future.isDone() ? "replayed" : "attached");
+            log.info("Request with Idempotency-Key [{}] on route [{}] {} the original execution",
+                    key, route, entry.future.isDone() ? "replays" : "attaches to");
+            @SuppressWarnings("unchecked")
+            CompletableFuture<T> shared = (CompletableFuture<T>) entry.future;
+            return shared.thenApply(result -> result);
+        }
+
+        count("new");
+        CompletableFuture<T> future;
+        try {
+            future = execution.get();
+        } catch (RuntimeException e) {
+            remove(cacheKey, owned);
+            owned.completeExceptionally(e);
+            throw e;
+        }
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                // 失败不保存，之后的重试重新执行
+                remove(cacheKey, owned);
+                owned.completeExceptionally(error);
+            } else {
+                markCompleted(cacheKey, owned);
+                owned.complete(result);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 缓存键：接口、租户与幂等键，以请求头中不会出现的换行分隔
+     */
+    public static String cacheKey(String route, String tenant, String key) {
+        return route + "\n" + (tenant != null ? tenant : "") + "\n" + key.trim();
+    }
+
+    /**
+     * 等待该键执行结果的一个客户端已断开或异步超时，每个客户端只应调用一次
+     * 仍有客户端（首次请求或挂上的重试）在等待时继续执行；全部断开后保留 disconnect-grace-ms，
+     * 期间没有新的重试挂上则调用执行登记的 onAbandoned 取消执行
+     *
+     * @param cacheKey 缓存键，见 {@link #cacheKey}
+     * @return 是否由缓存处理；键不存在、执行已结束或没有登记取消操作时返回false，由调用方自行处理
+     */
+    public boolean onClientDisconnected(String cacheKey) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(cacheKey);
+        }
+        if (entry == null || entry.future.isDone() || entry.onAbandoned == null) {
+            return false;
+        }
+        if (entry.clients.decrementAndGet() > 0) {
+            log.debug("Client of idempotent request [{}] disconnected, {} client(s) still waiting",
+                    cacheKey, entry.clients.get());
+            return true;
+        }
+        log.debug("All clients of idempotent request [{}] disconnected, keeping execution for {}ms",
+                cacheKey, disconnectGraceMs);
+        CompletableFuture.delayedExecutor(Math.max(0, disconnectGraceMs), TimeUnit.MILLISECONDS).execute(() -> {
+            if (!entry.future.isDone() && entry.clients.get() <= 0) {
+                count("abandoned");
+                log.info("No retry attached to idempotent request [{}] within {}ms, cancelling execution",
+                        cacheKey, disconnectGraceMs);
+                entry.onAbandoned.run();
+            }
+        });
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void remove(String cacheKey, CompletableFuture<?> future) {
+        Entry entry = entries.get(cacheKey);
+        if (entry != null && entry.future == future) {
+            entries.remove(cacheKey);
+        }
+    }
+
+    private synchronized void markCompleted(String cacheKey, CompletableFuture<?> future) {
+        Entry entry = entries.get(cacheKey);
+        if (entry != null && entry.future == future) {
+            entry.completedAt = nanoClock.getAsLong();
+        }
+    }
+
+    private void count(String result) {
+        if (meterRegistry != null) {
+            Counter.builder("ai.idempotency.requests")
+                    .description("携带幂等键的请求数")
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * 一个幂等键的执行
+     */
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<?> future;
+        private final Runnable onAbandoned;
+        /**
+         * 仍在等待结果的客户端数（首次请求与挂上的重试）
+         */
+        private final AtomicInteger clients = new AtomicInteger(1);
+        private volatile long completedAt;
+
+        private Entry(String fingerprint, CompletableFuture<?> future, Runnable onAbandoned) {
+            this.fingerprint = fingerprint;
+            this.future = future;
+            this.onAbandoned = onAbandoned;
+        }
+
+        /**
+         * 成功结果超过保存时间后过期；执行中的记录不过期，由执行结束时移除或标记
+         */
+        private boolean isExpired(long now, long ttlMs) {
+            return future.isDone() && now - completedAt > TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.contract.ai.core.resilience;
+
+import feign.AsyncClient;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 基于JDK HttpClient的Feign客户端
+ * 请求以 sendAsync 发出，由 HttpClient 的选择器线程与少量执行线程完成连接与读写，不为每个在途请求占用I/O线程；
+ * 协商到HTTP/2时同一平台的并发请求复用少量连接（多路复用），否则回退HTTP/1.1并复用空闲连接。
+ * 每个平台一个实例，连接池与执行线程按平台隔离。
+ * 同步调用（各平台当前的调用方式）由调用线程等待响应，等待期间被中断（请求被取消）时中止请求；
+ * 作为 {@link AsyncClient} 使用时直接返回 CompletableFuture，不占用等待线程。
+ * JDK HttpClient 的连接超时只能在客户端上统一设置，不能按请求设置，{@link Request.Options} 中的连接超时不单独生效：
+ * 连接与读取超时中的较大者作为整个请求（含建立连接与等待响应）的超时，按截止时间收紧后的 Options 因此仍限制整个调用
+ */
+public class JdkHttp2Client implements Client, AsyncClient<Object> {
+
+    /**
+     * JDK HttpClient 不允许设置的请求头，由客户端自行生成
+     */
+    private static final Set<String> RESTRICTED_HEADERS = restrictedHeaders();
+
+    private final HttpClient httpClient;
+
+    public JdkHttp2Client(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        CompletableFuture<Response> future = send(request, options);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("AI上游调用已取消: " + request.url());
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause(), request);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request, Request.Options options,
+                                               Optional<Object> requestContext) {
+        return send(request, options);
+    }
+
+    private CompletableFuture<Response> send(Request request, Request.Options options) {
+        HttpRequest httpRequest = toHttpRequest(request, options);
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> toResponse(response, request));
+    }
+
+    private static HttpRequest toHttpRequest(Request request, Request.Options options) {
+        HttpRequest.BodyPublisher body = request.body() != null && request.body().length > 0
+                ? HttpRequest.BodyPublishers.ofByteArray(request.body())
+                : HttpRequest.BodyPublishers.noBody();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.url()))
+                .method(request.httpMethod().name(), body);
+        long timeoutMillis = Math.max(options.connectTimeoutMillis(), options.readTimeoutMillis());
+        if (timeoutMillis > 0) {
+            builder.timeout(Duration.ofMillis(timeoutMillis));
+        }
+        for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+            if (RESTRICTED_HEADERS.contains(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.header(header.getKey(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Response toResponse(HttpResponse<byte[]> response, Request request) {
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        HttpHeaders httpHeaders = response.headers();
+        httpHeaders.map().forEach((name, values) -> {
+            // HTTP/2 的伪头（如 :status）不是普通请求头
+            if (!name.startsWith(":")) {
+                headers.put(name, values);
+            }
+        });
+        return Response.builder()
+                .status(response.statusCode())
+                .reason("")
+                .headers(headers)
+                .body(response.body())
+                .request(request)
+                .protocolVersion(response.version() == HttpClient.Version.HTTP_2
+                        ? Request.ProtocolVersion.HTTP_2 : Request.ProtocolVersion.HTTP_1_1)
+                .build();
+    }
+
+    private static IOException asIOException(Throwable cause, Request request) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof HttpTimeoutException timeout) {
+            // 与OkHttp一致，读取超时以 SocketTimeoutException 报告，便于按连接/读取超时归类
+            SocketTimeoutException socketTimeout = new SocketTimeoutException(
+                    (timeout instanceof HttpConnectTimeoutException ? "connect timed out: " : "timeout: ") + request.url());
+            socketTimeout.initCause(timeout);
+            return socketTimeout;
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+
+    private static Set<String> restrictedHeaders() {
+        Set<String> headers = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        headers.addAll(Set.of("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+        return headers;
+    }
+}
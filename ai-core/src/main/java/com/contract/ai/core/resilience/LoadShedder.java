@@ -0,0 +1,263 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * 接口级负载保护
+ * 按接口统计在途请求数与排队延迟（从接收到开始执行的时间），采用 CoDel 思路判断是否过载：
+ * 排队延迟在一个 interval 内持续高于 target-delay 时进入过载状态，此时新的批量请求直接以 503 拒绝，
+ * 出现低于目标的排队延迟或已没有排队请求时恢复；在途请求达到 max-in-flight 时任何优先级的新请求都被拒绝。
+ * 拒绝时按当前排队延迟给出 Retry-After，避免请求在队列中等到调用方超时、白白消耗上游额度；拒绝次数注册为指标供调用方与弹性伸缩参考
+ */
+@Slf4j
+@Component
+public class LoadShedder {
+
+    private static final String REASON_QUEUE_DELAY = "queue_delay";
+    private static final String REASON_IN_FLIGHT = "in_flight";
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+
+    @Value("${ai.load-shedding.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 目标排队延迟
+     */
+    @Value("${ai.load-shedding.target-delay-ms:2000}")
+    private long targetDelayMs;
+
+    /**
+     * 排队延迟持续高于目标多久后判定为过载
+     */
+    @Value("${ai.load-shedding.interval-ms:10000}")
+    private long intervalMs;
+
+    /**
+     * 每个接口的在途请求上限（含排队），0表示不限
+     */
+    @Value("${ai.load-shedding.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${ai.load-shedding.min-retry-after-seconds:1}")
+    private long minRetryAfterSeconds;
+
+    @Value("${ai.load-shedding.max-retry-after-seconds:60}")
+    private long maxRetryAfterSeconds;
+
+    public LoadShedder(ObjectProvider<MeterRegistry> meterRegistry) {
+        this(meterRegistry.getIfAvailable(), System::nanoTime);
+    }
+
+    LoadShedder(MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 准入一个请求，过载时抛出 {@link AiOverloadedException}
+     *
+     * @param route    接口名称
+     * @param priority 请求优先级
+     * @return 准入凭证，请求开始执行与结束时通过 {@link Ticket#wrap(Executor)} 包装的执行器自动记录
+     */
+    public Ticket admit(String route, FairRequestScheduler.Priority priority) {
+        Route state = routes.computeIfAbsent(route, this::createRoute);
+        if (!enabled) {
+            return new Ticket(state, nanoClock.getAsLong(), false);
+        }
+        String reason = null;
+        synchronized (state) {
+            long now = nanoClock.getAsLong();
+            if (state.dropping && state.queued == 0) {
+                // 队列已排空，不再是持续排队
+                state.exitDropping();
+            }
+            if (maxInFlight > 0 && state.inFlight >= maxInFlight) {
+                reason = REASON_IN_FLIGHT;
+            } else if (state.dropping && priority == FairRequestScheduler.Priority.BATCH) {
+                reason = REASON_QUEUE_DELAY;
+            } else {
+                state.inFlight++;
+                state.queued++;
+                return new Ticket(state, now, true);
+            }
+        }
+        long retryAfter = retryAfterSeconds(state);
+        log.warn("Shedding {} request on route [{}] ({}): inFlight={}, queueDelay={}ms, retryAfter={}s",
+                priority, route, reason, state.getInFlight(), state.getQueueDelayMs(), retryAfter);
+        if (meterRegistry != null) {
+            Counter.builder("ai.load.shedding.shed")
+                    .description("负载保护拒绝的请求数")
+                    .tag("route", route)
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+        }
+        throw new AiOverloadedException(route, retryAfter, "服务繁忙，请稍后重试");
+    }
+
+    public Map<String, Route> getRoutes() {
+        return Map.copyOf(routes);
+    }
+
+    private long retryAfterSeconds(Route state) {
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(state.getQueueDelayMs() + 999);
+        return Math.max(minRetryAfterSeconds, Math.min(maxRetryAfterSeconds, seconds));
+    }
+
+    private Route createRoute(String route) {
+        Route state = new Route(route);
+        if (meterRegistry != null) {
+            Gauge.builder("ai.load.shedding.in.flight", state, Route::getInFlight)
+                    .description("接口在途请求数（含排队）")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            Gauge.builder("ai.load.shedding.queue.delay", state, Route::getQueueDelayMs)
+                    .description("最近开始执行的请求的排队延迟（毫秒）")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            Gauge.builder("ai.load.shedding.dropping", state, s -> s.isDropping() ? 1 : 0)
+                    .description("接口是否处于过载拒绝状态")
+                    .tag("route", route)
+                    .register(meterRegistry);
+        }
+        return state;
+    }
+
+    /**
+     * 单个接口的负载状态
+     */
+    public final class Route {
+
+        private final String name;
+        private int inFlight;
+        private int queued;
+        private long queueDelayNanos;
+        private long firstAboveTime;
+        private boolean dropping;
+
+        private Route(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        public synchronized long getQueueDelayMs() {
+            return TimeUnit.NANOSECONDS.toMillis(queueDelayNanos);
+        }
+
+        public synchronized boolean isDropping() {
+            return dropping;
+        }
+
+        private synchronized void onStart(long admittedAt) {
+            queued = Math.max(0, queued - 1);
+            long now = nanoClock.getAsLong();
+            queueDelayNanos = now - admittedAt;
+            if (queueDelayNanos < TimeUnit.MILLISECONDS.toNanos(targetDelayMs)) {
+                exitDropping();
+                return;
+            }
+            if (firstAboveTime == 0) {
+                firstAboveTime = now + TimeUnit.MILLISECONDS.toNanos(intervalMs);
+            } else if (!dropping && now - firstAboveTime >= 0) {
+                dropping = true;
+                log.warn("Route [{}] overloaded: queue delay {}ms above target {}ms for {}ms, shedding batch requests",
+                        name, getQueueDelayMs(), targetDelayMs, intervalMs);
+            }
+        }
+
+        private synchronized void onFinish(boolean started) {
+            inFlight = Math.max(0, inFlight - 1);
+            if (!started) {
+                queued = Math.max(0, queued - 1);
+            }
+        }
+
+        private void exitDropping() {
+            if (dropping) {
+                log.info("Route [{}] recovered: queue delay {}ms", name, getQueueDelayMs());
+            }
+            firstAboveTime = 0;
+            dropping = false;
+        }
+    }
+
+    /**
+     * 准入凭证
+     */
+    public static final class Ticket {
+
+        private final Route route;
+        private final long admittedAt;
+        private final boolean tracked;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Ticket(Route route, long admittedAt, boolean tracked) {
+            this.route = route;
+            this.admittedAt = admittedAt;
+            this.tracked = tracked;
+        }
+
+        /**
+         * 包装执行器：任务开始执行时记录排队延迟，结束或被拒绝时释放在途名额
+         *
+         * @param executor 实际执行器
+         * @return 包装后的执行器，只应提交一个任务
+         */
+        public Executor wrap(Executor executor) {
+            if (!tracked) {
+                return executor;
+            }
+            return command -> {
+                try {
+                    executor.execute(() -> {
+                        started.set(true);
+                        route.onStart(admittedAt);
+                        try {
+                            command.run();
+                        } finally {
+                            release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    release();
+                    throw e;
+                }
+            };
+        }
+
+        private void release() {
+            if (finished.compareAndSet(false, true)) {
+                route.onFinish(started.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 单个模型的熔断器
+ * 以最近 windowSize 次调用为滑动窗口统计失败率与慢调用率，调用数达到 minimumCalls 后任一比率超过阈值即打开；
+ * 打开期间直接拒绝调用，经过 openDurationMs 后进入半开状态，放行 probeCalls 个探测请求，
+ * 探测全部完成后按同样的阈值决定关闭或重新打开
+ */
+public class ModelCircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte OUTCOME_FAILURE = 1;
+    private static final byte OUTCOME_SLOW = 2;
+
+    @Getter
+    private final String model;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallThresholdNanos;
+    private final long openDurationNanos;
+    private final int probeCalls;
+    private final LongSupplier nanoClock;
+
+    /**
+     * 关闭状态的滑动窗口（环形缓冲区）
+     */
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesIssued;
+    private int probesCompleted;
+    private int probeFailures;
+    private int probeSlowCalls;
+    private long notPermittedCalls;
+
+    public ModelCircuitBreaker(String model, int windowSize, int minimumCalls, double failureRateThreshold,
+                               double slowCallRateThreshold, long slowCallThresholdMs, long openDurationMs,
+                               int probeCalls, LongSupplier nanoClock) {
+        if (windowSize < 1 || minimumCalls < 1 || probeCalls < 1) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings for model " + model);
+        }
+        this.model = model;
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallThresholdNanos = slowCallThresholdMs * 1_000_000L;
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.probeCalls = probeCalls;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 申请调用许可
+     *
+     * @return 关闭状态或半开状态仍有探测名额时返回true
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probesIssued < probeCalls) {
+                    probesIssued++;
+                    return true;
+                }
+                notPermittedCalls++;
+                return false;
+            default:
+                notPermittedCalls++;
+                return false;
+        }
+    }
+
+    /**
+     * 记录一次成功调用
+     *
+     * @param durationNanos 调用耗时
+     */
+    public void onSuccess(long durationNanos) {
+        record(false, durationNanos);
+    }
+
+    /**
+     * 记录一次上游失败
+     *
+     * @param durationNanos 调用耗时
+     */
+    public void onError(long durationNanos) {
+        record(true, durationNanos);
+    }
+
+    /**
+     * 调用因请求自身问题失败（如参数错误），不计入统计，只归还半开状态的探测名额
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesIssued > probesCompleted) {
+            probesIssued--;
+        }
+    }
+
+    private synchronized void record(boolean failure, long durationNanos) {
+        boolean slow = durationNanos >= slowCallThresholdNanos;
+        if (state == State.HALF_OPEN) {
+            if (probesCompleted >= probesIssued) {
+                // 打开前放行的慢调用在半开期间才返回，不计为探测结果
+                return;
+            }
+            probesCompleted++;
+            probeFailures += failure ? 1 : 0;
+            probeSlowCalls += slow ? 1 : 0;
+            if (probesCompleted >= probeCalls) {
+                boolean healthy = probeFailures < failureRateThreshold * probesCompleted
+                        && probeSlowCalls < slowCallRateThreshold * probesCompleted;
+                transitionTo(healthy ? State.CLOSED : State.OPEN);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // 打开前已放行的调用在打开后才返回，不再影响状态
+            return;
+        }
+
+        byte outcome = (byte) ((failure ? OUTCOME_FAILURE : 0) | (slow ? OUTCOME_SLOW : 0));
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            windowFailures -= (evicted & OUTCOME_FAILURE) != 0 ? 1 : 0;
+            windowSlowCalls -= (evicted & OUTCOME_SLOW) != 0 ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        windowFailures += failure ? 1 : 0;
+        windowSlowCalls += slow ? 1 : 0;
+
+        if (windowCount >= minimumCalls
+                && (getFailureRate() >= failureRateThreshold || getSlowCallRate() >= slowCallRateThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        probesIssued = 0;
+        probesCompleted = 0;
+        probeFailures = 0;
+        probeSlowCalls = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = nanoClock.getAsLong();
+        }
+        if (next != State.HALF_OPEN) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+            windowSlowCalls = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 滑动窗口内的失败率（0-1）
+     */
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : (double) windowFailures / windowCount;
+    }
+
+    /**
+     * 滑动窗口内的慢调用率（0-1）
+     */
+    public synchronized double getSlowCallRate() {
+        return windowCount == 0 ? 0 : (double) windowSlowCalls / windowCount;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return windowCount;
+    }
+
+    public synchronized long getNotPermittedCalls() {
+        return notPermittedCalls;
+    }
+
+    /**
+     * 打开状态剩余时间（毫秒），非打开状态为0
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, (openDurationNanos - (nanoClock.getAsLong() - openedAtNanos)) / 1_000_000L);
+    }
+}
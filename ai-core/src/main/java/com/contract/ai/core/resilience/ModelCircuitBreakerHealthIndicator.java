@@ -0,0 +1,47 @@
+package com.contract.ai.core.resilience;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 模型熔断器健康信息
+ * 在 /actuator/health 的 modelCircuitBreaker 组件下展示各模型熔断状态。
+ * 单个模型熔断不代表实例不可用，状态始终为UP，避免 Nacos 健康检查摘除整个实例
+ */
+@Component
+@RequiredArgsConstructor
+public class ModelCircuitBreakerHealthIndicator implements HealthIndicator {
+
+    private final ModelCircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Override
+    public Health health() {
+        Map<String, Object> models = new TreeMap<>();
+        int openCount = 0;
+        for (Map.Entry<String, ModelCircuitBreaker> entry : circuitBreakerRegistry.getAll().entrySet()) {
+            ModelCircuitBreaker breaker = entry.getValue();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", breaker.getState());
+            details.put("failureRate", breaker.getFailureRate());
+            details.put("slowCallRate", breaker.getSlowCallRate());
+            details.put("bufferedCalls", breaker.getBufferedCalls());
+            details.put("notPermittedCalls", breaker.getNotPermittedCalls());
+            if (breaker.getState() == ModelCircuitBreaker.State.OPEN) {
+                details.put("remainingOpenMs", breaker.getRemainingOpenMillis());
+                openCount++;
+            }
+            models.put(entry.getKey(), details);
+        }
+        return Health.up()
+                .withDetail("enabled", circuitBreakerRegistry.isEnabled())
+                .withDetail("openCircuits", openCount)
+                .withDetail("models", models)
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.contract.ai.core.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模型熔断器注册中心
+ * 按模型名称懒创建熔断器，并将状态、失败率、慢调用率与拒绝次数注册为 Micrometer 指标（Prometheus 导出）
+ */
+@Slf4j
+@Component
+public class ModelCircuitBreakerRegistry {
+
+    private final Map<String, ModelCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 是否启用熔断
+     */
+    @Value("${ai.resilience.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 滑动窗口大小（最近调用次数）
+     */
+    @Value("${ai.resilience.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    /**
+     * 窗口内至少有多少次调用才计算比率
+     */
+    @Value("${ai.resilience.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${ai.resilience.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${ai.resilience.circuit-breaker.slow-call-rate-threshold:0.8}")
+    private double slowCallRateThreshold;
+
+    /**
+     * 超过该耗时的调用记为慢调用
+     */
+    @Value("${ai.resilience.circuit-breaker.slow-call-threshold-ms:120000}")
+    private long slowCallThresholdMs;
+
+    /**
+     * 打开状态持续时间，之后进入半开状态
+     */
+    @Value("${ai.resilience.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    /**
+     * 半开状态放行的探测请求数
+     */
+    @Value("${ai.resilience.circuit-breaker.probe-calls:3}")
+    private int probeCalls;
+
+    public ModelCircuitBreakerRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取模型的熔断器，不存在时创建
+     *
+     * @param model 模型名称
+     * @return 熔断器
+     */
+    public ModelCircuitBreaker get(String model) {
+        return breakers.computeIfAbsent(model, this::create);
+    }
+
+    /**
+     * 所有已创建的熔断器
+     */
+    public Map<String, ModelCircuitBreaker> getAll() {
+        return Map.copyOf(breakers);
+    }
+
+    private ModelCircuitBreaker create(String model) {
+        ModelCircuitBreaker breaker = new ModelCircuitBreaker(model, windowSize, minimumCalls, failureRateThreshold,
+                slowCallRateThreshold, slowCallThresholdMs, openDurationMs, probeCalls, System::nanoTime);
+        if (meterRegistry != null) {
+            for (ModelCircuitBreaker.State state : ModelCircuitBreaker.State.values()) {
+                Gauge.builder("ai.circuit.breaker.state", breaker, b -> b.getState() == state ? 1 : 0)
+                        .description("熔断器状态，当前状态为1")
+                        .tag("model", model)
+                        .tag("state", state.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+            Gauge.builder("ai.circuit.breaker.failure.rate", breaker, ModelCircuitBreaker::getFailureRate)
+                    .tag("model", model)
+                    .register(meterRegistry);
+            Gauge.builder("ai.circuit.breaker.slow.call.rate", breaker, ModelCircuitBreaker::getSlowCallRate)
+                    .tag("model", model)
+                    .register(meterRegistry);
+            FunctionCounter.builder("ai.circuit.breaker.not.permitted", breaker,
+                            ModelCircuitBreaker::getNotPermittedCalls)
+                    .description("熔断拒绝的调用次数")
+                    .tag("model", model)
+                    .register(meterRegistry);
+        }
+        log.info("Created circuit breaker for model [{}]: window={}, failureRate={}, slowCallRate={}, slowCall={}ms",
+                model, windowSize, failureRateThreshold, slowCallRateThreshold, slowCallThresholdMs);
+        return breaker;
+    }
+}
@@ -0,0 +1,273 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiUpstreamException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+import feign.codec.ErrorDecoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上游平台错误解码器
+ * 按HTTP状态码与响应体中的错误码（error.code / error.type）归类为 {@link AiErrorCode}，
+ * 限流、过载、5xx等瞬时错误返回 {@link RetryableException} 交给 {@link ProviderRetryer}，
+ * 并解析 Retry-After 与 x-ratelimit-reset-* 响应头作为重试等待时间；其他错误直接返回 {@link AiUpstreamException}
+ */
+@Slf4j
+public class ProviderErrorDecoder implements ErrorDecoder {
+
+    /**
+     * OpenAI兼容平台（DeepSeek、心流）的错误码映射
+     */
+    public static final Map<String, AiErrorCode> OPENAI_COMPATIBLE_CODES = Map.of(
+            "context_length_exceeded", AiErrorCode.AI_CONTEXT_TOO_LONG,
+            "insufficient_quota", AiErrorCode.AI_QUOTA_EXCEEDED,
+            "invalid_api_key", AiErrorCode.AI_AUTHENTICATION_FAILED,
+            "authentication_error", AiErrorCode.AI_AUTHENTICATION_FAILED,
+            "model_not_found", AiErrorCode.AI_MODEL_NOT_SUPPORTED,
+            "rate_limit_exceeded", AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED,
+            "rate_limit_error", AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED,
+            "content_filter", AiErrorCode.AI_CONTENT_FILTERED,
+            "server_overloaded", AiErrorCode.AI_SERVICE_UNAVAILABLE);
+
+    /**
+     * 响应体最多读取的字节数
+     */
+    private static final int MAX_BODY_BYTES = 4096;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final String provider;
+    private final Map<String, AiErrorCode> errorCodeMappings;
+    private final LongSupplier clock;
+
+    public ProviderErrorDecoder(String provider, Map<String, AiErrorCode> errorCodeMappings) {
+        this(provider, errorCodeMappings, System::currentTimeMillis);
+    }
+
+    ProviderErrorDecoder(String provider, Map<String, AiErrorCode> errorCodeMappings, LongSupplier clock) {
+        this.provider = provider;
+        this.errorCodeMappings = errorCodeMappings;
+        this.clock = clock;
+    }
+
+    @Override
+    public Exception decode(String methodKey, Response response) {
+        int status = response.status();
+        String body = readBody(response);
+
+        String providerCode = null;
+        String providerMessage = null;
+        AiErrorCode errorCode = null;
+        JsonNode error = parseError(body);
+        if (error != null) {
+            providerMessage = text(error.get("message"));
+            for (String field : new String[]{"code", "type"}) {
+                String value = text(error.get(field));
+                if (value == null || errorCode != null) {
+                    continue;
+                }
+                errorCode = errorCodeMappings.get(value);
+                if (providerCode == null || errorCode != null) {
+                    providerCode = value;
+                }
+            }
+        }
+        if (errorCode == null && providerMessage != null
+                && providerMessage.toLowerCase().contains("maximum context length")) {
+            errorCode = AiErrorCode.AI_CONTEXT_TOO_LONG;
+        }
+        if (errorCode == null) {
+            errorCode = AiUpstreamException.errorCodeForStatus(status);
+        }
+
+        long now = clock.getAsLong();
+        Long retryAfterMillis = parseRetryAfterMillis(response.headers(), status, now);
+        boolean retryable = isTransient(status, errorCode);
+        String message = String.format("[%s] HTTP %d%s: %s", provider, status,
+                providerCode != null ? " (" + providerCode + ")" : "",
+                truncate(providerMessage != null ? providerMessage : body));
+        AiUpstreamException exception = new AiUpstreamException(provider, status, errorCode, providerCode,
+                retryAfterMillis, retryable, message);
+        log.warn("Upstream error from {}: {} -> {}, retryable={}, retryAfter={}ms",
+                provider, message, errorCode, retryable, retryAfterMillis);
+
+        if (!retryable) {
+            return exception;
+        }
+        Request request = response.request();
+        return new RetryableException(status, message, request != null ? request.httpMethod() : null, exception,
+                retryAfterMillis != null ? now + retryAfterMillis : null, request);
+    }
+
+    /**
+     * 是否为瞬时错误：限流、过载、超时，以及未识别出业务错误码的5xx
+     */
+    static boolean isTransient(int status, AiErrorCode errorCode) {
+        switch (errorCode) {
+            case AI_REQUEST_LIMIT_EXCEEDED:
+            case AI_SERVICE_UNAVAILABLE:
+            case AI_REQUEST_TIMEOUT:
+                return true;
+            case AI_SERVICE_ERROR:
+                return status >= 500;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 解析重试等待时间（毫秒）
+     * 支持 Retry-After（秒数或HTTP日期）、retry-after-ms、x-ratelimit-reset（秒数或epoch秒），
+     * 429时还会读取 x-ratelimit-reset-requests / x-ratelimit-reset-tokens（如 "1s"、"6m0s"、"20ms"）并取较大值
+     */
+    static Long parseRetryAfterMillis(Map<String, Collection<String>> headers, int status, long now) {
+        if (headers == null || headers.isEmpty()) {
+            return null;
+        }
+        String retryAfterMs = header(headers, "retry-after-ms");
+        if (retryAfterMs != null) {
+            Long value = parseSeconds(retryAfterMs, 1);
+            if (value != null) {
+                return value;
+            }
+        }
+        String retryAfter = header(headers, "Retry-After");
+        if (retryAfter != null) {
+            Long value = parseSeconds(retryAfter, 1000);
+            if (value != null) {
+                return value;
+            }
+            try {
+                long at = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0, at - now);
+            } catch (DateTimeParseException e) {
+                log.debug("Ignoring unparseable Retry-After header: {}", retryAfter);
+            }
+        }
+        if (status != 429) {
+            return null;
+        }
+        Long reset = null;
+        for (String name : new String[]{"x-ratelimit-reset-requests", "x-ratelimit-reset-tokens"}) {
+            Long value = parseDuration(header(headers, name));
+            if (value != null && (reset == null || value > reset)) {
+                reset = value;
+            }
+        }
+        if (reset != null) {
+            return reset;
+        }
+        String resetAt = header(headers, "x-ratelimit-reset");
+        Long seconds = resetAt != null ? parseSeconds(resetAt, 1000) : null;
+        if (seconds != null) {
+            // 大于一年的数值视为epoch秒
+            return seconds > 365L * 24 * 3600 * 1000 ? Math.max(0, seconds - now) : seconds;
+        }
+        return null;
+    }
+
+    /**
+     * 解析形如 "1h2m3.5s"、"20ms" 的时长为毫秒
+     */
+    static Long parseDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        Long plain = parseSeconds(trimmed, 1000);
+        if (plain != null) {
+            return plain;
+        }
+        Matcher matcher = DURATION_PART.matcher(trimmed);
+        double millis = 0;
+        int matched = 0;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h" -> millis += amount * 3_600_000;
+                case "m" -> millis += amount * 60_000;
+                case "s" -> millis += amount * 1000;
+                default -> millis += amount;
+            }
+            matched += matcher.group().length();
+        }
+        return matched == trimmed.length() ? (long) Math.ceil(millis) : null;
+    }
+
+    private static Long parseSeconds(String value, long unitMillis) {
+        try {
+            double amount = Double.parseDouble(value.trim());
+            return amount < 0 ? null : (long) Math.ceil(amount * unitMillis);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String header(Map<String, Collection<String>> headers, String name) {
+        for (Map.Entry<String, Collection<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                return entry.getValue().iterator().next();
+            }
+        }
+        return null;
+    }
+
+    private static String readBody(Response response) {
+        if (response.body() == null) {
+            return "";
+        }
+        try (InputStream in = response.body().asInputStream()) {
+            return new String(in.readNBytes(MAX_BODY_BYTES), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * 解析 {"error": {...}} 结构，兼容顶层直接给出 code/message 的格式
+     */
+    private static JsonNode parseError(String body) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode root = OBJECT_MAPPER.readTree(body);
+            if (root == null || !root.isObject()) {
+                return null;
+            }
+            JsonNode error = root.get("error");
+            return error != null && error.isObject() ? error : root;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() || node.asText().isEmpty() ? null : node.asText();
+    }
+
+    private static String truncate(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() > 200 ? value.substring(0, 200) + "..." : value;
+    }
+}
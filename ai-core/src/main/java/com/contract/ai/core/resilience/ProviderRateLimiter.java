@@ -0,0 +1,293 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个平台的限流准入控制
+ * 按平台的每分钟请求数（RPM）与每分钟token数（TPM）各维护一个令牌桶，容量为 burstSeconds 秒的配额。
+ * 每次HTTP调用前预约所需令牌，令牌不足时按预约顺序排队等待，等待时间超过上限或请求剩余时限时直接以限流失败，不再把请求发往上游换取429。
+ * 上游响应的 x-ratelimit-limit-* 会实时调整速率（与配置取较小值，多个密钥时按密钥数放大），
+ * 单密钥时 x-ratelimit-remaining-* / x-ratelimit-reset-* 同步剩余配额；429时按 Retry-After 暂停准入，多个密钥时只清空请求桶，由密钥池冷却被限流的密钥
+ */
+@Slf4j
+public class ProviderRateLimiter {
+
+    @Getter
+    private final String provider;
+    private final boolean enabled;
+    private final int keyCount;
+    private final RequestCostEstimator costEstimator;
+    private final LongSupplier clock;
+    private final Bucket requests;
+    private final Bucket tokens;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private long pausedUntil;
+
+    /**
+     * @param provider      平台名称
+     * @param enabled       是否启用
+     * @param rpm           配置的每分钟请求数，0表示不限（收到上游限流头后按上游调整）
+     * @param tpm           配置的每分钟token数，0表示不限
+     * @param burstSeconds  令牌桶容量对应的秒数
+     * @param keyCount      平台的密钥数量，上游限流头按单个密钥计算
+     * @param charsPerToken 估算token数时每个token对应的字符数
+     * @param imageTokens   每张图片估算的token数
+     */
+    public ProviderRateLimiter(String provider, boolean enabled, long rpm, long tpm, double burstSeconds,
+                               int keyCount, double charsPerToken, long imageTokens) {
+        this(provider, enabled, rpm, tpm, burstSeconds, keyCount, charsPerToken, imageTokens,
+                System::currentTimeMillis);
+    }
+
+    ProviderRateLimiter(String provider, boolean enabled, long rpm, long tpm, double burstSeconds, int keyCount,
+                        double charsPerToken, long imageTokens, LongSupplier clock) {
+        this.provider = provider;
+        this.enabled = enabled;
+        this.keyCount = Math.max(1, keyCount);
+        this.costEstimator = new RequestCostEstimator(charsPerToken, imageTokens, 0);
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.requests = new Bucket(rpm, burstSeconds, now);
+        this.tokens = new Bucket(tpm, burstSeconds, now);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 正在排队等待准入的调用数
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public synchronized double getRequestsPerMinute() {
+        return requests.perMinute;
+    }
+
+    public synchronized double getTokensPerMinute() {
+        return tokens.perMinute;
+    }
+
+    /**
+     * 预约一次调用的令牌
+     *
+     * @param tokenCount 估算的token数
+     * @param maxWaitMs  最多等待的毫秒数
+     * @return 需要等待的毫秒数；超过 maxWaitMs 时返回-1，且不占用令牌
+     */
+    synchronized long reserve(long tokenCount, long maxWaitMs) {
+        long now = clock.getAsLong();
+        requests.refill(now);
+        tokens.refill(now);
+        long wait = Math.max(0, pausedUntil - now);
+        wait = Math.max(wait, requests.waitMillis(1));
+        wait = Math.max(wait, tokens.waitMillis(tokenCount));
+        if (wait > maxWaitMs) {
+            return -1;
+        }
+        requests.take(1);
+        tokens.take(tokenCount);
+        return wait;
+    }
+
+    /**
+     * 归还未使用的预约（等待期间请求被取消）
+     */
+    synchronized void refund(long tokenCount) {
+        requests.give(1);
+        tokens.give(tokenCount);
+    }
+
+    /**
+     * 等待准入
+     *
+     * @param tokenCount 估算的token数
+     * @param maxWaitMs  最多等待的毫秒数
+     * @return 实际等待的毫秒数；在 maxWaitMs 内无法准入时返回-1
+     * @throws InterruptedException 等待期间线程被中断（请求被取消），预约已归还
+     */
+    public long acquire(long tokenCount, long maxWaitMs) throws InterruptedException {
+        if (!enabled) {
+            return 0;
+        }
+        long wait = reserve(tokenCount, maxWaitMs);
+        if (wait <= 0) {
+            return wait;
+        }
+        waiting.incrementAndGet();
+        try {
+            Thread.sleep(wait);
+            return wait;
+        } catch (InterruptedException e) {
+            refund(tokenCount);
+            throw e;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * 估算请求体消耗的token数：文本按字符数折算，图片按固定值计算，再加上 max_tokens
+     *
+     * @param body 请求体
+     * @return 估算的token数，至少为1
+     */
+    public long estimateTokens(byte[] body) {
+        return costEstimator.estimate(body).getTokens();
+    }
+
+    /**
+     * 按上游响应调整限流状态
+     *
+     * @param status  HTTP状态码
+     * @param headers 响应头
+     */
+    public void onResponse(int status, Map<String, Collection<String>> headers) {
+        if (!enabled || headers == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Long retryAfter = status == 429 ? ProviderErrorDecoder.parseRetryAfterMillis(headers, status, now) : null;
+        synchronized (this) {
+            requests.refill(now);
+            tokens.refill(now);
+            adjust(requests, "requests", headers, now);
+            adjust(tokens, "tokens", headers, now);
+            if (status != 429) {
+                return;
+            }
+            if (keyCount == 1 && retryAfter != null && retryAfter > 0) {
+                pausedUntil = Math.max(pausedUntil, now + retryAfter);
+                log.info("Provider [{}] throttled, pausing admission for {}ms", provider, retryAfter);
+            } else {
+                requests.drain();
+            }
+        }
+    }
+
+    private void adjust(Bucket bucket, String kind, Map<String, Collection<String>> headers, long now) {
+        Long limit = parseLong(ProviderErrorDecoder.header(headers, "x-ratelimit-limit-" + kind));
+        if (limit != null && limit > 0) {
+            if (bucket.adopt(limit * keyCount)) {
+                log.info("Rate limit of provider [{}] adjusted from response headers: {} {}/min",
+                        provider, (long) bucket.perMinute, kind);
+            }
+        }
+        if (keyCount > 1) {
+            // 剩余配额只反映本次使用的密钥
+            return;
+        }
+        Long remaining = parseLong(ProviderErrorDecoder.header(headers, "x-ratelimit-remaining-" + kind));
+        if (remaining == null) {
+            return;
+        }
+        bucket.clampAvailable(remaining);
+        if (remaining == 0) {
+            Long reset = ProviderErrorDecoder.parseDuration(
+                    ProviderErrorDecoder.header(headers, "x-ratelimit-reset-" + kind));
+            if (reset != null && reset > 0) {
+                pausedUntil = Math.max(pausedUntil, now + reset);
+            }
+        }
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 令牌桶，剩余令牌可以为负，表示已被排队中的调用预约
+     */
+    private static final class Bucket {
+
+        private final double configured;
+        private final double burstSeconds;
+        private double perMinute;
+        private double available;
+        private long updatedAt;
+
+        private Bucket(double perMinute, double burstSeconds, long now) {
+            this.configured = Math.max(0, perMinute);
+            this.burstSeconds = burstSeconds > 0 ? burstSeconds : 1;
+            this.perMinute = this.configured;
+            this.available = capacity();
+            this.updatedAt = now;
+        }
+
+        private boolean unlimited() {
+            return perMinute <= 0;
+        }
+
+        private double capacity() {
+            return Math.max(1, perMinute * burstSeconds / 60);
+        }
+
+        private void refill(long now) {
+            if (!unlimited() && now > updatedAt) {
+                available = Math.min(capacity(), available + (now - updatedAt) * perMinute / 60_000);
+            }
+            updatedAt = now;
+        }
+
+        private long waitMillis(double amount) {
+            if (unlimited()) {
+                return 0;
+            }
+            double deficit = Math.min(amount, capacity()) - available;
+            return deficit <= 0 ? 0 : (long) Math.ceil(deficit * 60_000 / perMinute);
+        }
+
+        private void take(double amount) {
+            if (!unlimited()) {
+                available -= Math.min(amount, capacity());
+            }
+        }
+
+        private void give(double amount) {
+            if (!unlimited()) {
+                available = Math.min(capacity(), available + Math.min(amount, capacity()));
+            }
+        }
+
+        private void drain() {
+            available = Math.min(available, 0);
+        }
+
+        private void clampAvailable(double remaining) {
+            if (!unlimited()) {
+                available = Math.min(available, remaining);
+            }
+        }
+
+        /**
+         * 采用上游返回的速率，配置了速率时取较小值
+         *
+         * @return 速率是否变化
+         */
+        private boolean adopt(double limit) {
+            double target = configured > 0 ? Math.min(configured, limit) : limit;
+            if (target == perMinute) {
+                return false;
+            }
+            boolean wasUnlimited = unlimited();
+            perMinute = target;
+            available = wasUnlimited ? capacity() : Math.min(available, capacity());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiUpstreamException;
+import feign.RetryableException;
+import feign.Retryer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * 平台重试策略
+ * 只重试瞬时错误：{@link ProviderErrorDecoder} 判定为可重试的响应，以及建立连接阶段的网络异常；
+ * 读超时不重试（上游可能已在处理，重试会让耗时翻倍）。
+ * 上游返回 Retry-After 时按其等待，超过 maxRetryAfterMs 直接放弃；否则按指数退避加抖动等待。
+ * 每次重试需从平台共享的 {@link RetryBudget} 扣减令牌，预算耗尽时不再重试；请求已取消（见 {@link AiRequestContext}），
+ * 或等待时间已超过请求剩余时限时也不再重试
+ */
+@Slf4j
+public class ProviderRetryer implements Retryer {
+
+    private final String provider;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long maxRetryAfterMs;
+    private final RetryBudget budget;
+    private final Sleeper sleeper;
+    private final LongSupplier clock;
+
+    private int attempt = 1;
+
+    /**
+     * @param provider         平台名称
+     * @param maxAttempts      最大尝试次数（含首次调用）
+     * @param initialBackoffMs 首次重试的退避时间
+     * @param maxBackoffMs     退避时间上限
+     * @param maxRetryAfterMs  可接受的 Retry-After 上限，超过时不再重试
+     * @param budget           平台共享的重试预算
+     */
+    public ProviderRetryer(String provider, int maxAttempts, long initialBackoffMs, long maxBackoffMs,
+                           long maxRetryAfterMs, RetryBudget budget) {
+        this(provider, maxAttempts, initialBackoffMs, maxBackoffMs, maxRetryAfterMs, budget,
+                Thread::sleep, System::currentTimeMillis);
+    }
+
+    ProviderRetryer(String provider, int maxAttempts, long initialBackoffMs, long maxBackoffMs,
+                    long maxRetryAfterMs, RetryBudget budget, Sleeper sleeper, LongSupplier clock) {
+        this.provider = provider;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.maxRetryAfterMs = maxRetryAfterMs;
+        this.budget = budget;
+        this.sleeper = sleeper;
+        this.clock = clock;
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (AiRequestContext.isCurrentCancelled()) {
+            log.debug("Not retrying cancelled {} request: {}", provider, e.getMessage());
+            throw e;
+        }
+        if (!isRetryable(e)) {
+            throw e;
+        }
+        if (attempt >= maxAttempts) {
+            log.warn("Giving up {} request after {} attempts: {}", provider, attempt, e.getMessage());
+            throw e;
+        }
+
+        long delay;
+        Long retryAfter = e.retryAfter();
+        if (retryAfter != null) {
+            delay = Math.max(0, retryAfter - clock.getAsLong());
+            if (delay > maxRetryAfterMs) {
+                log.warn("Not retrying {} request: upstream asked to wait {}ms (limit {}ms)",
+                        provider, delay, maxRetryAfterMs);
+                throw e;
+            }
+        } else {
+            delay = backoff(attempt);
+        }
+
+        Long remaining = AiRequestContext.currentRemainingMillis();
+        if (remaining != null && delay >= remaining) {
+            log.warn("Not retrying {} request: waiting {}ms would exceed the remaining deadline of {}ms",
+                    provider, delay, remaining);
+            throw e;
+        }
+
+        if (!budget.tryAcquire()) {
+            log.warn("Retry budget of {} exhausted, not retrying: {}", provider, e.getMessage());
+            throw e;
+        }
+
+        attempt++;
+        log.info("Retrying {} request (attempt {}/{}) in {}ms after: {}",
+                provider, attempt, maxAttempts, delay, e.getMessage());
+        try {
+            sleeper.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * 每次Feign调用都会克隆一个新的重试器，借此为重试预算记录一次请求
+     */
+    @Override
+    public Retryer clone() {
+        budget.recordRequest();
+        return new ProviderRetryer(provider, maxAttempts, initialBackoffMs, maxBackoffMs, maxRetryAfterMs,
+                budget, sleeper, clock);
+    }
+
+    /**
+     * 指数退避加抖动：取 min(maxBackoff, initial * 2^(attempt-1)) 的一半作为下限，另一半随机
+     */
+    long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    /**
+     * ErrorDecoder生成的异常按其判定；Feign的IO异常只在非读超时时重试
+     */
+    static boolean isRetryable(RetryableException e) {
+        for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+            if (t instanceof AiUpstreamException upstream) {
+                return upstream.isRetryable();
+            }
+            if (t instanceof SocketTimeoutException) {
+                return AiUpstreamException.isConnectTimeout(t);
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 等待方式，便于测试替换
+     */
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+}
@@ -0,0 +1,91 @@
+package com.contract.ai.core.resilience;
+
+import feign.Client;
+import feign.okhttp.OkHttpClient;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 平台HTTP传输
+ * 按 ai.strategy.{平台}.transport 为各平台创建底层Feign客户端：
+ * okhttp（默认）使用OkHttp，调用登记到请求上下文，取消请求时直接取消在途调用；
+ * jdk 使用 {@link JdkHttp2Client}，优先协商HTTP/2多路复用，每个平台独立的连接池与 ai.transport.jdk.threads 个I/O执行线程，
+ * 大量慢速在途调用不再各占一条OkHttp连接，取消请求时通过中断等待线程中止调用
+ */
+@Slf4j
+@Component
+public class ProviderTransports {
+
+    public static final String OKHTTP = "okhttp";
+    public static final String JDK = "jdk";
+
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+
+    /**
+     * 每个平台的JDK HttpClient执行线程数
+     */
+    @Value("${ai.transport.jdk.threads:4}")
+    private int jdkThreads;
+
+    /**
+     * 是否优先协商HTTP/2，不支持的服务端自动回退HTTP/1.1
+     */
+    @Value("${ai.transport.jdk.http2:true}")
+    private boolean jdkHttp2;
+
+    /**
+     * 创建平台的底层客户端
+     *
+     * @param provider       平台名称
+     * @param transport      传输类型：okhttp 或 jdk
+     * @param connectTimeout 连接超时
+     * @param okHttpClient   OkHttp客户端，仅在使用 okhttp 时创建
+     * @return Feign客户端
+     */
+    public Client create(String provider, String transport, Duration connectTimeout,
+                         Supplier<okhttp3.OkHttpClient> okHttpClient) {
+        String type = transport != null ? transport.trim().toLowerCase(Locale.ROOT) : OKHTTP;
+        if (JDK.equals(type)) {
+            log.info("Using JDK HttpClient transport for provider [{}] (http2={}, threads={})",
+                    provider, jdkHttp2, jdkThreads);
+            return new JdkHttp2Client(jdkHttpClient(provider, connectTimeout));
+        }
+        if (!OKHTTP.equals(type)) {
+            log.warn("Unknown transport [{}] for provider [{}], falling back to okhttp", transport, provider);
+        }
+        return new OkHttpClient(okHttpClient.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    private HttpClient jdkHttpClient(String provider, Duration connectTimeout) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, jdkThreads), r -> {
+            Thread thread = new Thread(r, "ai-http-" + provider + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executors.add(executor);
+        return HttpClient.newBuilder()
+                .version(jdkHttp2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiAdmissionRejectedException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.function.BiConsumer;
+
+/**
+ * 经过平台限流准入的Feign客户端
+ * 每次HTTP调用（包括重试、分组并行调用）先按估算的token数向 {@link ProviderRateLimiter} 预约，
+ * 令牌不足时在调用线程上排队，最多等待 maxWaitMs 与请求剩余时限中的较小值；等不到时以 AI_REQUEST_LIMIT_EXCEEDED 失败，不调用上游，
+ * 该失败为本地准入拒绝（{@link AiAdmissionRejectedException}），不计入熔断统计。
+ * 响应头用于实时调整限流速率
+ */
+@Slf4j
+public class RateLimitedClient implements Client {
+
+    private final Client delegate;
+    private final ProviderRateLimiter limiter;
+    private final long maxWaitMs;
+    private final BiConsumer<String, Long> waitRecorder;
+
+    /**
+     * @param delegate     实际发送请求的客户端
+     * @param limiter      平台限流准入控制
+     * @param maxWaitMs    最多排队等待的毫秒数
+     * @param waitRecorder 记录排队等待时间（平台名称、毫秒数），可为null
+     */
+    public RateLimitedClient(Client delegate, ProviderRateLimiter limiter, long maxWaitMs,
+                             BiConsumer<String, Long> waitRecorder) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.maxWaitMs = maxWaitMs;
+        this.waitRecorder = waitRecorder;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (!limiter.isEnabled()) {
+            return delegate.execute(request, options);
+        }
+
+        long maxWait = maxWaitMs;
+        Long remaining = AiRequestContext.currentRemainingMillis();
+        if (remaining != null && remaining <= 0) {
+            // 已过期，交给 DeadlineAwareClient 以超时失败
+            return delegate.execute(request, options);
+        }
+        if (remaining != null) {
+            maxWait = Math.min(maxWait, remaining);
+        }
+        long tokenCount = limiter.estimateTokens(request.body());
+        long waited;
+        try {
+            waited = limiter.acquire(tokenCount, maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + limiter.getProvider() + " rate limit");
+        }
+        if (waited < 0) {
+            log.warn("Rejecting {} request: rate limit admission not possible within {}ms ({} tokens estimated)",
+                    limiter.getProvider(), maxWait, tokenCount);
+            throw new AiAdmissionRejectedException(limiter.getProvider(), String.format(
+                    "[%s] 已达到平台调用频率上限，%d 毫秒内无法排到调用", limiter.getProvider(), maxWait));
+        }
+        if (waited > 0) {
+            log.debug("Waited {}ms for {} rate limit admission", waited, limiter.getProvider());
+        }
+        if (waitRecorder != null) {
+            waitRecorder.accept(limiter.getProvider(), waited);
+        }
+
+        Response response = delegate.execute(request, options);
+        limiter.onResponse(response.status(), response.headers());
+        return response;
+    }
+}
@@ -0,0 +1,116 @@
+package com.contract.ai.core.resilience;
+
+import feign.Client;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 平台限流准入注册中心
+ * 各平台的Feign配置通过它创建限流准入控制并包装客户端，统一排队上限、令牌桶容量与token估算方式，
+ * 并将排队数、当前速率与排队等待时间注册为指标
+ */
+@Slf4j
+@Component
+public class RateLimiterRegistry {
+
+    private final Map<String, ProviderRateLimiter> limiters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ai.resilience.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 单次调用最多排队等待的时间，同时不超过请求剩余时限
+     */
+    @Value("${ai.resilience.rate-limit.max-wait-ms:30000}")
+    private long maxWaitMs;
+
+    /**
+     * 令牌桶容量对应的秒数，决定允许的突发量
+     */
+    @Value("${ai.resilience.rate-limit.burst-seconds:10}")
+    private double burstSeconds;
+
+    /**
+     * 估算token数时每个token对应的字符数
+     */
+    @Value("${ai.resilience.rate-limit.chars-per-token:2}")
+    private double charsPerToken;
+
+    /**
+     * 每张base64图片估算的token数
+     */
+    @Value("${ai.resilience.rate-limit.image-tokens:1000}")
+    private long imageTokens;
+
+    public RateLimiterRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * 创建平台的限流准入控制
+     *
+     * @param provider       平台名称
+     * @param rpm            每分钟请求数，0表示不限
+     * @param tpm            每分钟token数，0表示不限
+     * @param credentialPool 平台的密钥池，上游限流头按单个密钥计算
+     * @return 限流准入控制
+     */
+    public ProviderRateLimiter create(String provider, long rpm, long tpm, CredentialPool credentialPool) {
+        int keyCount = credentialPool != null ? credentialPool.getCredentials().size() : 1;
+        ProviderRateLimiter limiter = new ProviderRateLimiter(provider, enabled, rpm, tpm, burstSeconds, keyCount,
+                charsPerToken, imageTokens);
+        limiters.put(provider, limiter);
+        if (meterRegistry != null) {
+            Gauge.builder("ai.rate.limit.waiting", limiter, ProviderRateLimiter::getWaiting)
+                    .description("等待限流准入的调用数")
+                    .tag("provider", provider)
+                    .register(meterRegistry);
+            Gauge.builder("ai.rate.limit.rpm", limiter, ProviderRateLimiter::getRequestsPerMinute)
+                    .tag("provider", provider)
+                    .register(meterRegistry);
+            Gauge.builder("ai.rate.limit.tpm", limiter, ProviderRateLimiter::getTokensPerMinute)
+                    .tag("provider", provider)
+                    .register(meterRegistry);
+        }
+        if (enabled) {
+            log.info("Created rate limiter for provider [{}]: rpm={}, tpm={}, keys={}, maxWait={}ms",
+                    provider, rpm > 0 ? rpm : "auto", tpm > 0 ? tpm : "auto", keyCount, maxWaitMs);
+        }
+        return limiter;
+    }
+
+    /**
+     * 为平台的Feign客户端加上限流准入
+     *
+     * @param delegate 实际发送请求的客户端
+     * @param limiter  平台限流准入控制
+     * @return 包装后的客户端
+     */
+    public Client decorate(Client delegate, ProviderRateLimiter limiter) {
+        return new RateLimitedClient(delegate, limiter, maxWaitMs, this::recordWait);
+    }
+
+    public Map<String, ProviderRateLimiter> getAll() {
+        return Map.copyOf(limiters);
+    }
+
+    private void recordWait(String provider, long waitedMs) {
+        if (meterRegistry != null) {
+            Timer.builder("ai.rate.limit.wait")
+                    .description("限流准入的排队等待时间")
+                    .tag("provider", provider)
+                    .register(meterRegistry)
+                    .record(waitedMs, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上游请求成本估算
+ * 直接解析发往平台的JSON请求体，不依赖具体DTO：文本按 charsPerToken 个字符折算一个token，
+ * 每张图片（base64内容或图片URL）按 imageTokens 计，加上 max_tokens 得到估算token数；
+ * 成本在token数之外再按base64图片字节数计入，每 imageBytesPerUnit 字节计一个单位，体现高分辨率、多页图片的处理开销
+ */
+public class RequestCostEstimator {
+
+    private static final String BASE64_MARKER = ";base64,";
+    private static final Pattern MAX_TOKENS = Pattern.compile("\"max_tokens\"\\s*:\\s*(\\d+)");
+    private static final Pattern IMAGE_URL = Pattern.compile("\"image_url\"\\s*:\\s*\\{");
+
+    private final double charsPerToken;
+    private final long imageTokens;
+    private final long imageBytesPerUnit;
+
+    /**
+     * @param charsPerToken     每个token对应的字符数
+     * @param imageTokens       每张图片估算的token数
+     * @param imageBytesPerUnit 每个成本单位对应的图片字节数，0表示不按字节计
+     */
+    public RequestCostEstimator(double charsPerToken, long imageTokens, long imageBytesPerUnit) {
+        this.charsPerToken = charsPerToken > 0 ? charsPerToken : 1;
+        this.imageTokens = imageTokens;
+        this.imageBytesPerUnit = imageBytesPerUnit;
+    }
+
+    /**
+     * 估算请求成本
+     *
+     * @param body 请求体，可为null
+     * @return 估算结果
+     */
+    public Estimate estimate(byte[] body) {
+        if (body == null || body.length == 0) {
+            return new Estimate(0, 0, 0, 0, 1);
+        }
+        String json = new String(body, StandardCharsets.UTF_8);
+        long textChars = 0;
+        int base64Images = 0;
+        long imageBytes = 0;
+        int from = 0;
+        while (true) {
+            int marker = json.indexOf(BASE64_MARKER, from);
+            if (marker < 0) {
+                textChars += json.length() - from;
+                break;
+            }
+            textChars += marker - from;
+            base64Images++;
+            int end = json.indexOf('"', marker);
+            from = end < 0 ? json.length() : end;
+            // base64每4个字符对应3个字节
+            imageBytes += (from - marker - BASE64_MARKER.length()) * 3L / 4;
+        }
+        int urlImages = 0;
+        Matcher imageUrl = IMAGE_URL.matcher(json);
+        while (imageUrl.find()) {
+            urlImages++;
+        }
+        int images = Math.max(base64Images, urlImages);
+
+        long maxTokens = 0;
+        Matcher matcher = MAX_TOKENS.matcher(json);
+        if (matcher.find()) {
+            try {
+                maxTokens = Long.parseLong(matcher.group(1));
+            } catch (NumberFormatException ignored) {
+                // 数值过大，按未设置处理
+            }
+        }
+        long promptTokens = (long) Math.ceil(textChars / charsPerToken) + images * imageTokens;
+        long cost = promptTokens + maxTokens + (imageBytesPerUnit > 0 ? imageBytes / imageBytesPerUnit : 0);
+        return new Estimate(promptTokens, maxTokens, images, imageBytes, Math.max(1, cost));
+    }
+
+    /**
+     * 估算结果
+     */
+    @Getter
+    public static final class Estimate {
+
+        /**
+         * 输入token数，含图片
+         */
+        private final long promptTokens;
+
+        /**
+         * 请求的最大输出token数，未设置时为0
+         */
+        private final long maxTokens;
+
+        private final int images;
+
+        /**
+         * base64图片的字节数
+         */
+        private final long imageBytes;
+
+        /**
+         * 成本单位数，至少为1
+         */
+        private final long cost;
+
+        Estimate(long promptTokens, long maxTokens, int images, long imageBytes, long cost) {
+            this.promptTokens = promptTokens;
+            this.maxTokens = maxTokens;
+            this.images = images;
+            this.imageBytes = imageBytes;
+            this.cost = cost;
+        }
+
+        /**
+         * 估算token数（输入与最大输出之和），至少为1
+         */
+        public long getTokens() {
+            return Math.max(1, promptTokens + maxTokens);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.contract.ai.core.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 平台级重试预算
+ * 每个请求存入 ratio 个令牌，每次重试消耗1个令牌，另按 minRetriesPerSecond 匀速补充保证低流量时也能重试，
+ * 余额不超过 maxBalance。上游整体故障时重试量被限制在正常请求量的 ratio 倍以内，避免重试放大故障
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minRetriesPerSecond;
+    private final double maxBalance;
+    private final LongSupplier nanoClock;
+
+    private double balance;
+    private long lastRefillNanos;
+
+    public RetryBudget(double ratio, double minRetriesPerSecond, double maxBalance) {
+        this(ratio, minRetriesPerSecond, maxBalance, System::nanoTime);
+    }
+
+    RetryBudget(double ratio, double minRetriesPerSecond, double maxBalance, LongSupplier nanoClock) {
+        if (ratio < 0 || minRetriesPerSecond < 0 || maxBalance < 1) {
+            throw new IllegalArgumentException("Invalid retry budget: ratio=" + ratio
+                    + ", minRetriesPerSecond=" + minRetriesPerSecond + ", maxBalance=" + maxBalance);
+        }
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.maxBalance = maxBalance;
+        this.nanoClock = nanoClock;
+        this.balance = maxBalance;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * 记录一次请求，存入 ratio 个令牌
+     */
+    public synchronized void recordRequest() {
+        refill();
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * 尝试为一次重试扣减令牌
+     *
+     * @return 预算充足时返回true
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (balance >= 1) {
+            balance -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前余额
+     */
+    public synchronized double getBalance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            balance = Math.min(maxBalance, balance + elapsed / 1_000_000_000.0 * minRetriesPerSecond);
+            lastRefillNanos = now;
+        }
+    }
+}
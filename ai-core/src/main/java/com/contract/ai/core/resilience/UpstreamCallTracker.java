@@ -0,0 +1,113 @@
+package com.contract.ai.core.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上游调用跟踪器
+ * 作为各平台OkHttp客户端的 EventListener.Factory，把调用线程上发起的调用登记到当前 {@link AiRequestContext}，
+ * 使请求取消时能直接取消在途的OkHttp调用。按上游主机统计正常完成调用的EWMA耗时，
+ * 调用被取消时以 EWMA耗时 − 已耗时 估算节省的上游时间，记录为 ai.upstream.cancelled.saved
+ */
+@Slf4j
+@Component
+public class UpstreamCallTracker implements EventListener.Factory {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Map<String, Double> ewmaNanosByHost = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamCallTracker(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        AiRequestContext context = AiRequestContext.current();
+        if (context == null) {
+            return EventListener.NONE;
+        }
+        context.register(call);
+        return new EventListener() {
+            @Override
+            public void callEnd(Call call) {
+                Long start = context.unregister(call);
+                if (start != null) {
+                    ewmaNanosByHost.merge(call.request().url().host(), (double) (System.nanoTime() - start),
+                            (ewma, latest) -> ewma + EWMA_ALPHA * (latest - ewma));
+                }
+            }
+
+            @Override
+            public void callFailed(Call call, IOException ioe) {
+                context.unregister(call);
+            }
+
+            @Override
+            public void canceled(Call call) {
+                Long start = context.startedAt(call);
+                if (start != null) {
+                    onCancelled(call.request().url().host(), context.getCancelReason(), System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    /**
+     * 取消请求并记录请求级的取消次数
+     *
+     * @param context 请求上下文
+     * @param reason  取消原因
+     */
+    public void cancel(AiRequestContext context, String reason) {
+        int inFlight = context.cancel(reason);
+        if (inFlight < 0) {
+            return;
+        }
+        log.info("Cancelled AI request [{}] ({}), aborted {} in-flight upstream call(s)",
+                context.getRequestId(), reason, inFlight);
+        if (meterRegistry != null) {
+            Counter.builder("ai.request.cancelled")
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private void onCancelled(String host, String reason, long elapsedNanos) {
+        Double expected = ewmaNanosByHost.get(host);
+        long savedNanos = expected != null ? Math.max(0, expected.longValue() - elapsedNanos) : 0;
+        log.debug("Upstream call to [{}] cancelled ({}) after {}ms, estimated {}ms saved",
+                host, reason, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), TimeUnit.NANOSECONDS.toMillis(savedNanos));
+        if (meterRegistry == null) {
+            return;
+        }
+        String reasonTag = reason != null ? reason : "unknown";
+        Timer.builder("ai.upstream.cancelled.elapsed")
+                .description("被取消的上游调用取消前已耗时")
+                .tag("host", host)
+                .tag("reason", reasonTag)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (expected != null) {
+            Timer.builder("ai.upstream.cancelled.saved")
+                    .description("取消上游调用估算节省的时间")
+                    .tag("host", host)
+                    .tag("reason", reasonTag)
+                    .register(meterRegistry)
+                    .record(savedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
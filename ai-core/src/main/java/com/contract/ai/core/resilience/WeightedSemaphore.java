@@ -0,0 +1,213 @@
+package com.contract.ai.core.resilience;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按成本加权的信号量
+ * 每次调用按估算成本占用名额，在途成本之和不超过 capacity。成本不低于 largeThreshold 的大请求合计最多占用
+ * capacity × largeMaxShare，单个请求的占用也以此为上限，保证少数超大视觉请求不会挤占全部名额，其余名额始终留给小请求。
+ * 名额不足时按到达顺序排队；只因大请求份额已满而等待的大请求不阻塞其后的小请求，其余情况下后到的请求不能越过先到的请求，避免大请求饿死
+ */
+public class WeightedSemaphore {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final long capacity;
+    private final long largeThreshold;
+    private final long largeCapacity;
+    private final int maxQueue;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private long used;
+    private long largeUsed;
+
+    /**
+     * @param name           名称（平台名称）
+     * @param capacity       在途成本上限
+     * @param largeThreshold 大请求的成本阈值
+     * @param largeMaxShare  大请求合计最多占用的比例
+     * @param maxQueue       最多排队的调用数
+     */
+    public WeightedSemaphore(String name, long capacity, long largeThreshold, double largeMaxShare, int maxQueue) {
+        if (capacity < 1 || largeMaxShare <= 0 || largeMaxShare > 1) {
+            throw new IllegalArgumentException("Invalid weighted semaphore settings for " + name);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.largeCapacity = Math.max(1, (long) (capacity * largeMaxShare));
+        this.largeThreshold = Math.max(1, Math.min(largeThreshold, largeCapacity));
+        this.maxQueue = Math.max(0, maxQueue);
+    }
+
+    /**
+     * 计算成本对应的占用，限制在 [1, 大请求份额] 之间
+     *
+     * @param cost 估算成本
+     * @return 实际占用
+     */
+    public long weightOf(long cost) {
+        return Math.max(1, Math.min(cost, largeCapacity));
+    }
+
+    /**
+     * 获取名额，不足时排队等待
+     *
+     * @param cost      估算成本
+     * @param maxWaitMs 最多等待的毫秒数
+     * @return 实际占用，释放时传回 {@link #release(long)}；等不到时返回-1
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    public long acquire(long cost, long maxWaitMs) throws InterruptedException {
+        long weight = weightOf(cost);
+        lock.lockInterruptibly();
+        try {
+            Waiter waiter = new Waiter(weight, lock.newCondition());
+            waiters.addLast(waiter);
+            grant();
+            if (waiter.granted) {
+                return weight;
+            }
+            if (maxWaitMs <= 0 || waiters.size() > maxQueue) {
+                // 排在队尾，移除后不影响其他请求
+                waiters.removeLast();
+                return -1;
+            }
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            try {
+                while (!waiter.granted) {
+                    if (remaining <= 0) {
+                        waiters.remove(waiter);
+                        // 排在前面的请求离开后，后面的请求可能可以放行
+                        grant();
+                        return -1;
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+                return weight;
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    release(weight);
+                } else {
+                    waiters.remove(waiter);
+                    grant();
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放名额
+     *
+     * @param weight {@link #acquire(long, long)} 返回的占用
+     */
+    public void release(long weight) {
+        lock.lock();
+        try {
+            used = Math.max(0, used - weight);
+            if (isLarge(weight)) {
+                largeUsed = Math.max(0, largeUsed - weight);
+            }
+            grant();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在途成本之和
+     */
+    public long getUsed() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 大请求的在途成本之和
+     */
+    public long getLargeUsed() {
+        lock.lock();
+        try {
+            return largeUsed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 加权利用率，即在途成本占上限的比例
+     */
+    public double getUtilization() {
+        return (double) getUsed() / capacity;
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isLarge(long weight) {
+        return weight >= largeThreshold;
+    }
+
+    private boolean fits(long weight) {
+        return used + weight <= capacity && (!isLarge(weight) || largeUsed + weight <= largeCapacity);
+    }
+
+    private void take(long weight) {
+        used += weight;
+        if (isLarge(weight)) {
+            largeUsed += weight;
+        }
+    }
+
+    /**
+     * 按到达顺序放行排队的请求
+     */
+    private void grant() {
+        Iterator<Waiter> iterator = waiters.iterator();
+        while (iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            if (fits(waiter.weight)) {
+                take(waiter.weight);
+                waiter.granted = true;
+                iterator.remove();
+                waiter.condition.signal();
+            } else if (!(isLarge(waiter.weight) && used + waiter.weight <= capacity)) {
+                // 总名额不足，后面的请求不能越过它
+                return;
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final long weight;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(long weight, Condition condition) {
+            this.weight = weight;
+            this.condition = condition;
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package com.contract.ai.core.router;
 
 import com.contract.ai.core.registry.AiStrategyRegistry;
+import com.contract.ai.core.resilience.AiRequestContext;
+import com.contract.ai.core.resilience.ConcurrencyLimiterRegistry;
+import com.contract.ai.core.resilience.DispatchGuard;
 import com.contract.ai.core.strategy.AiStrategy;
 import com.contract.ai.core.strategy.VisionAiStrategy;
+import com.contract.ai.core.strategy.impl.glm.GlmVisionAiStrategy;
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
+import com.contract.ai.feign.enums.ModelCapability;
+import com.contract.ai.feign.enums.ModelType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
 /**
  * AI路由器
- * 根据模型名称路由到对应的AI策略
+ * 根据模型名称路由到对应的AI策略，调用经过按模型的自适应并发限制（{@link ConcurrencyLimiterRegistry}）与 {@link DispatchGuard} 的熔断保护。
+ * 模型配置了降级链（{@link ModelFallbackPolicy}）时，上游错误、熔断打开或单跳超时会依次尝试能力满足请求的备选模型，
+ * 实际提供服务的模型记录在响应扩展字段 served_model 中
  */
 @Slf4j
 @Component
@@ -20,6 +37,9 @@ import org.springframework.web.multipart.MultipartFile;
 public class AiRouter {
 
     private final AiStrategyRegistry strategyRegistry;
+    private final DispatchGuard dispatchGuard;
+    private final ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+    private final ModelFallbackPolicy fallbackPolicy;
 
     /**
      * 路由聊天请求到对应的AI策略
@@ -42,8 +62,15 @@ public class AiRouter {
         AiStrategy strategy = strategyRegistry.getStrategy(model);
         log.debug("Found strategy [{}] for model: [{}]", strategy.getClass().getSimpleName(), model);
 
+        // 请求包含图片时，非视觉策略会丢弃图片内容，直接拒绝
+        if (request.getProfile().requires(ModelCapability.VISION) && !(strategy instanceof VisionAiStrategy)) {
+            throw new IllegalArgumentException("Model " + model + " does not support vision features");
+        }
+
         try {
-            ChatResponse response = strategy.handleChat(request);
+            // GLM视觉策略不支持纯文本入口，不作为该入口的备选
+            ChatResponse response = dispatch(request, strategy, candidate -> !(candidate instanceof GlmVisionAiStrategy),
+                AiStrategy::handleChat);
             log.debug("Successfully processed chat request for model: [{}]", model);
             return response;
         } catch (Exception e) {
@@ -80,8 +107,8 @@ public class AiRouter {
         }
 
         try {
-            VisionAiStrategy visionStrategy = (VisionAiStrategy) strategy;
-            ChatResponse response = visionStrategy.handleChatWithVision(request, files);
+            ChatResponse response = dispatch(request, strategy, VisionAiStrategy.class::isInstance,
+                (candidate, hopRequest) -> ((VisionAiStrategy) candidate).handleChatWithVision(hopRequest, files));
             log.debug("Successfully processed vision chat request for model: [{}]", model);
             return response;
         } catch (Exception e) {
@@ -118,8 +145,8 @@ public class AiRouter {
         }
 
         try {
-            VisionAiStrategy visionStrategy = (VisionAiStrategy) strategy;
-            ChatResponse response = visionStrategy.handleChatWithVision(request, imageMap);
+            ChatResponse response = dispatch(request, strategy, VisionAiStrategy.class::isInstance,
+                (candidate, hopRequest) -> ((VisionAiStrategy) candidate).handleChatWithVision(hopRequest, imageMap));
             log.debug("Successfully processed vision chat request with base64 images for model: [{}]", model);
             return response;
         } catch (Exception e) {
@@ -151,14 +178,13 @@ public class AiRouter {
         log.debug("Found strategy [{}] for model: [{}]", strategy.getClass().getSimpleName(), model);
 
         // 检查策略是否支持文件处理功能
-        if (!(strategy instanceof com.contract.ai.core.strategy.impl.glm.GlmVisionAiStrategy)) {
+        if (!(strategy instanceof GlmVisionAiStrategy)) {
             throw new IllegalArgumentException("Model " + model + " does not support file URL features");
         }
 
         try {
-            com.contract.ai.core.strategy.impl.glm.GlmVisionAiStrategy fileStrategy =
-                (com.contract.ai.core.strategy.impl.glm.GlmVisionAiStrategy) strategy;
-            ChatResponse response = fileStrategy.handleChatWithFiles(request, fileMap);
+            ChatResponse response = dispatch(request, strategy, GlmVisionAiStrategy.class::isInstance,
+                (candidate, hopRequest) -> ((GlmVisionAiStrategy) candidate).handleChatWithFiles(hopRequest, fileMap));
             log.debug("Successfully processed file URL chat request for model: [{}]", model);
             return response;
         } catch (Exception e) {
@@ -167,6 +193,142 @@ public class AiRouter {
         }
     }
 
+    /**
+     * 按降级链依次调用模型
+     * 只有上游侧失败（见 {@link DispatchGuard#isUpstreamFailure}）才转向下一跳，参数错误等请求自身的问题直接抛出；
+     * 后面还有备选时单跳调用受超时限制，剩余延迟预算（不超过请求剩余时限）不足时停止降级并抛出最后一次错误
+     *
+     * @param request  原始请求
+     * @param strategy 请求模型对应的策略
+     * @param eligible 备选策略须满足的条件（与当前路由方法的入口一致）
+     * @param call     策略调用
+     * @return 聊天响应
+     */
+    private ChatResponse dispatch(ChatRequest request, AiStrategy strategy, Predicate<AiStrategy> eligible,
+                                  BiFunction<AiStrategy, ChatRequest, ChatResponse> call) {
+        String model = request.getModel();
+        List<String> chain = resolveChain(request, eligible);
+        if (chain.size() == 1) {
+            return markServedModel(guarded(model, () -> call.apply(strategy, request)), model, model, 0);
+        }
+
+        // 延迟预算不超过调用方设定的剩余时限
+        long budgetMs = fallbackPolicy.getLatencyBudgetMs();
+        Long requestRemainingMs = AiRequestContext.currentRemainingMillis();
+        if (requestRemainingMs != null) {
+            budgetMs = Math.min(budgetMs, requestRemainingMs);
+        }
+        long deadline = System.currentTimeMillis() + budgetMs;
+        RuntimeException lastError = null;
+        for (int hop = 0; hop < chain.size(); hop++) {
+            String hopModel = chain.get(hop);
+            long remainingMs = deadline - System.currentTimeMillis();
+            if (hop > 0 && remainingMs < fallbackPolicy.getMinHopBudgetMs()) {
+                log.warn("Latency budget exhausted after {} hop(s) for model [{}], remaining {}ms",
+                        hop, model, remainingMs);
+                break;
+            }
+
+            AiStrategy hopStrategy = hop == 0 ? strategy : strategyRegistry.getStrategy(hopModel);
+            ChatRequest hopRequest = hop == 0 ? request : withModel(request, hopModel);
+            // 最后一跳没有可降级的对象，不再额外限时，由客户端读超时兜底
+            long timeoutMs = hop == chain.size() - 1 ? 0 : fallbackPolicy.hopTimeoutMs(remainingMs);
+            try {
+                ChatResponse response = fallbackPolicy.callWithTimeout(hopModel, timeoutMs,
+                        () -> guarded(hopModel, () -> call.apply(hopStrategy, hopRequest)));
+                if (hop > 0) {
+                    log.info("Request for model [{}] served by fallback model [{}] after {} failed hop(s)",
+                            model, hopModel, hop);
+                }
+                return markServedModel(response, model, hopModel, hop);
+            } catch (RuntimeException e) {
+                if (!DispatchGuard.isUpstreamFailure(e)) {
+                    throw e;
+                }
+                lastError = e;
+                if (hop < chain.size() - 1) {
+                    log.warn("Model [{}] failed ({}), falling back to [{}]", hopModel, e.getMessage(), chain.get(hop + 1));
+                }
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * 在模型的并发限制与熔断保护下调用
+     * 并发限制在熔断器之外，排队或拒绝不计入熔断统计
+     */
+    private ChatResponse guarded(String model, Supplier<ChatResponse> call) {
+        return concurrencyLimiterRegistry.execute(model, () -> dispatchGuard.execute(model, call));
+    }
+
+    /**
+     * 计算请求的调用链：请求模型加上已注册、满足路由入口条件且支持请求所需能力的备选模型
+     */
+    private List<String> resolveChain(ChatRequest request, Predicate<AiStrategy> eligible) {
+        List<String> configured = fallbackPolicy.getChain(request.getModel());
+        if (configured.size() == 1) {
+            return configured;
+        }
+
+        Set<ModelCapability> required = request.getProfile().getRequiredCapabilities();
+        List<String> chain = new ArrayList<>(configured.size());
+        chain.add(request.getModel());
+        for (String candidate : configured.subList(1, configured.size())) {
+            if (!strategyRegistry.isSupported(candidate)) {
+                log.debug("Skipping fallback model [{}]: not registered", candidate);
+                continue;
+            }
+            AiStrategy candidateStrategy = strategyRegistry.getStrategy(candidate);
+            if (!eligible.test(candidateStrategy)
+                    || !candidateStrategy.getCapabilities(candidate).containsAll(required)) {
+                log.debug("Skipping fallback model [{}]: missing capabilities {}", candidate, required);
+                continue;
+            }
+            chain.add(candidate);
+        }
+        return chain;
+    }
+
+
+    /**
+     * 复制请求并替换模型，平台按模型枚举推断，未知模型沿用原平台
+     */
+    private ChatRequest withModel(ChatRequest request, String model) {
+        ModelType modelType = ModelType.fromModelCode(model);
+        return ChatRequest.builder()
+            .platform(modelType != null ? modelType.getPlatform() : request.getPlatform())
+            .model(model)
+            .messages(request.getMessages())
+            .maxTokens(request.getMaxTokens())
+            .temperature(request.getTemperature())
+            .topP(request.getTopP())
+            .stream(request.getStream())
+            .stop(request.getStop())
+            .responseReformat(request.getResponseReformat())
+            .n(request.getN())
+            .extensions(request.getExtensions())
+            .build();
+    }
+
+    /**
+     * 在响应扩展字段中记录实际提供服务的模型
+     */
+    private ChatResponse markServedModel(ChatResponse response, String requestedModel, String servedModel, int hop) {
+        if (response == null) {
+            return null;
+        }
+        Map<String, Object> extensions = response.getExtensions() != null
+            ? new HashMap<>(response.getExtensions()) : new HashMap<>();
+        extensions.put("served_model", servedModel);
+        if (hop > 0) {
+            extensions.put("requested_model", requestedModel);
+            extensions.put("fallback_hops", hop);
+        }
+        response.setExtensions(extensions);
+        return response;
+    }
+
     /**
      * 检查模型是否被支持
      *
@@ -0,0 +1,215 @@
+package com.contract.ai.core.router;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.resilience.AiRequestContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 模型降级策略
+ * 按模型配置备选模型链，格式为 "模型=备选1,备选2;模型=备选1"，如 "GLM-4.6=deepseek-chat;glm-4.5v=GLM-4V-Plus-0111"。
+ * 还有后续备选时，单跳调用受 hop-timeout-ms 限制，超时即转向下一跳；整条链共享 latency-budget-ms 的延迟预算，
+ * 剩余预算不足 min-hop-budget-ms 时不再尝试后续备选
+ */
+@Slf4j
+@Component
+public class ModelFallbackPolicy {
+
+    @Value("${ai.routing.fallback.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.routing.fallback.chains:}")
+    private String chainsSpec;
+
+    /**
+     * 单跳超时（毫秒），仅对后面还有备选的调用生效，0表示只受延迟预算限制
+     */
+    @Value("${ai.routing.fallback.hop-timeout-ms:120000}")
+    private long hopTimeoutMs;
+
+    /**
+     * 整条降级链的延迟预算（毫秒）
+     */
+    @Value("${ai.routing.fallback.latency-budget-ms:300000}")
+    private long latencyBudgetMs;
+
+    /**
+     * 发起下一跳所需的最少剩余预算（毫秒）
+     */
+    @Value("${ai.routing.fallback.min-hop-budget-ms:5000}")
+    private long minHopBudgetMs;
+
+    /**
+     * 限时调用线程数上限，线程用尽时在调用线程上直接执行（不限时）
+     */
+    @Value("${ai.routing.fallback.max-threads:32}")
+    private int maxThreads;
+
+    private Map<String, List<String>> chains = Collections.emptyMap();
+    private ThreadPoolExecutor hopExecutor;
+
+    @PostConstruct
+    public void init() {
+        chains = parseChains(chainsSpec);
+        AtomicInteger threadIndex = new AtomicInteger();
+        hopExecutor = new ThreadPoolExecutor(0, Math.max(1, maxThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ai-fallback-hop-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled && !chains.isEmpty()) {
+            log.info("Model fallback chains: {}, hopTimeout={}ms, latencyBudget={}ms",
+                    chains, hopTimeoutMs, latencyBudgetMs);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hopExecutor != null) {
+            hopExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取模型的调用链，第一个元素为模型本身
+     *
+     * @param model 请求的模型
+     * @return 模型及其备选模型
+     */
+    public List<String> getChain(String model) {
+        List<String> fallbacks = enabled ? chains.get(model) : null;
+        if (fallbacks == null || fallbacks.isEmpty()) {
+            return List.of(model);
+        }
+        List<String> chain = new ArrayList<>(fallbacks.size() + 1);
+        chain.add(model);
+        chain.addAll(fallbacks);
+        return chain;
+    }
+
+    public long getLatencyBudgetMs() {
+        return latencyBudgetMs;
+    }
+
+    public long getMinHopBudgetMs() {
+        return minHopBudgetMs;
+    }
+
+    /**
+     * 单跳的超时时间
+     *
+     * @param remainingBudgetMs 剩余延迟预算
+     * @return 超时毫秒数
+     */
+    public long hopTimeoutMs(long remainingBudgetMs) {
+        if (hopTimeoutMs <= 0) {
+            return Math.max(1, remainingBudgetMs);
+        }
+        return Math.max(1, Math.min(hopTimeoutMs, remainingBudgetMs));
+    }
+
+    /**
+     * 限时执行一跳调用，超时时中断调用线程并抛出 AI_REQUEST_TIMEOUT
+     * 调用线程绑定当前请求的子上下文（见 {@link AiRequestContext}），超时即取消该跳的在途上游调用，请求取消时一并取消
+     *
+     * @param model     模型名称
+     * @param timeoutMs 超时时间，0表示不限制
+     * @param call      调用
+     * @return 调用结果
+     */
+    public <T> T callWithTimeout(String model, long timeoutMs, Supplier<T> call) {
+        if (timeoutMs <= 0) {
+            return call.get();
+        }
+        AiRequestContext parent = AiRequestContext.current();
+        AiRequestContext hopContext = parent != null ? parent.child() : new AiRequestContext(model);
+        Future<T> future;
+        try {
+            future = hopExecutor.submit(() -> {
+                try (AiRequestContext.Scope ignored = hopContext.bind()) {
+                    return call.get();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Fallback hop executor saturated, calling model [{}] without hop timeout", model);
+            return call.get();
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            hopContext.cancel(AiRequestContext.REASON_HOP_TIMEOUT);
+            future.cancel(true);
+            throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT,
+                    String.format("模型 %s 在 %d 毫秒内未返回", model, timeoutMs));
+        } catch (InterruptedException e) {
+            // 请求被取消时子上下文已级联取消，这里只处理其他原因的中断
+            hopContext.cancel("interrupted");
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "等待模型 " + model + " 响应时被中断");
+        } catch (CancellationException e) {
+            throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "模型 " + model + " 调用已取消");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new AiException(AiErrorCode.AI_SERVICE_ERROR, "模型 " + model + " 调用失败", cause);
+        }
+    }
+
+    /**
+     * 解析降级链配置
+     */
+    static Map<String, List<String>> parseChains(String spec) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return result;
+        }
+        for (String entry : spec.split(";")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                if (!entry.isBlank()) {
+                    log.warn("Ignoring malformed fallback chain entry: [{}]", entry);
+                }
+                continue;
+            }
+            String model = entry.substring(0, separator).trim();
+            List<String> fallbacks = new ArrayList<>();
+            for (String fallback : entry.substring(separator + 1).split(",")) {
+                String candidate = fallback.trim();
+                if (!candidate.isEmpty() && !candidate.equals(model) && !fallbacks.contains(candidate)) {
+                    fallbacks.add(candidate);
+                }
+            }
+            if (!fallbacks.isEmpty()) {
+                result.put(model, List.copyOf(fallbacks));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,401 @@
+package com.contract.ai.core.service;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.exception.AiUpstreamException;
+import com.contract.ai.core.resilience.AiRequestContext;
+import com.contract.ai.core.resilience.IdempotencyCache;
+import com.contract.ai.feign.dto.AiJob;
+import com.contract.ai.feign.dto.ApiResponse;
+import com.contract.ai.feign.dto.ChatRequest;
+import com.contract.ai.feign.dto.ChatResponse;
+import com.contract.ai.feign.enums.AiJobStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步任务服务
+ * 长耗时的视觉与文档审核以任务形式提交：立即返回任务ID，请求在有界的 aiJobExecutor 上执行，状态与结果保存在 {@link AiJobStore}。
+ * 服务启动时恢复未结束的任务：排队中的任务重新排队，执行中被打断的任务在未超过 max-attempts 时重新执行，否则标记失败；
+ * 结束超过 retention-hours 的任务被清理；请求在扩展参数 callback_url 中指定回调地址时，任务结束后由 {@link WebhookDispatcher} 推送结果。
+ * 携带 Idempotency-Key 提交时，同一租户同一个键在任务保留期内只创建一个任务
+ */
+@Slf4j
+@Service
+public class AiJobService {
+
+    private static final long PRUNE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * 任务提交接口，与租户、幂等键一起组成任务的幂等键
+     */
+    private static final String SUBMIT_ROUTE = "/jobs";
+
+    private final ChatService chatService;
+    private final AiJobStore jobStore;
+    private final ExecutorService executor;
+    private final WebhookDispatcher webhookDispatcher;
+    private final Map<String, AiJobStore.StoredJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> completions = new ConcurrentHashMap<>();
+    /**
+     * 幂等键（含租户）到任务ID
+     */
+    private final Map<String, String> idempotentJobs = new ConcurrentHashMap<>();
+    private volatile long lastPruneAt;
+
+    /**
+     * 单个任务的执行时限，0表示不限
+     */
+    @Value("${ai.jobs.timeout-ms:900000}")
+    private long timeoutMs;
+
+    /**
+     * 服务重启打断执行中的任务时，最多执行的次数
+     */
+    @Value("${ai.jobs.max-attempts:2}")
+    private int maxAttempts;
+
+    /**
+     * 结束的任务保留的小时数
+     */
+    @Value("${ai.jobs.retention-hours:24}")
+    private long retentionHours;
+
+    /**
+     * 长轮询最多等待的时间
+     */
+    @Value("${ai.jobs.max-wait-ms:60000}")
+    private long maxWaitMs;
+
+    public AiJobService(ChatService chatService, AiJobStore jobStore,
+                        @Qualifier("aiJobExecutor") ExecutorService executor, WebhookDispatcher webhookDispatcher) {
+        this.chatService = chatService;
+        this.jobStore = jobStore;
+        this.executor = executor;
+        this.webhookDispatcher = webhookDispatcher;
+    }
+
+    /**
+     * 恢复上次运行时未结束的任务
+     */
+    @PostConstruct
+    public void init() {
+        int resumed = 0;
+        int failed = 0;
+        LocalDateTime expiry = LocalDateTime.now().minusHours(retentionHours);
+        for (AiJobStore.StoredJob stored : jobStore.loadAll()) {
+            AiJob job = stored.getJob();
+            if (job.getStatus().isTerminal()) {
+                if (job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiry)) {
+                    jobStore.delete(job.getJobId());
+                } else {
+                    jobs.put(job.getJobId(), stored);
+                    indexIdempotencyKey(stored);
+                }
+                continue;
+            }
+            jobs.put(job.getJobId(), stored);
+            indexIdempotencyKey(stored);
+            completions.put(job.getJobId(), new CompletableFuture<>());
+            int attempts = job.getAttempts() != null ? job.getAttempts() : 0;
+            if (stored.getRequest() == null) {
+                fail(stored, AiErrorCode.AI_SERVICE_ERROR, "任务请求内容丢失，无法恢复执行");
+                failed++;
+            } else if (job.getStatus() == AiJobStatus.RUNNING && attempts >= maxAttempts) {
+                fail(stored, AiErrorCode.AI_SERVICE_ERROR,
+                        String.format("任务执行期间服务重启，已执行 %d 次，不再重试", attempts));
+                failed++;
+            } else {
+                synchronized (stored) {
+                    job.setStatus(AiJobStatus.QUEUED);
+                    jobStore.save(stored);
+                }
+                if (enqueue(job.getJobId())) {
+                    resumed++;
+                } else {
+                    fail(stored, AiErrorCode.AI_SERVICE_UNAVAILABLE, "任务队列已满，恢复执行失败");
+                    failed++;
+                }
+            }
+        }
+        lastPruneAt = System.currentTimeMillis();
+        if (!jobs.isEmpty()) {
+            log.info("Recovered {} AI jobs from store: {} resumed, {} failed", jobs.size(), resumed, failed);
+        }
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param request 聊天请求
+     * @return 任务信息
+     */
+    public AiJob submit(ChatRequest request) {
+        return submit(request, null, null);
+    }
+
+    /**
+     * 提交任务
+     * 携带幂等键时，同一租户同一个键只创建一个任务：重复提交返回已有任务的当前状态，键已用于内容不同的请求时拒绝；
+     * 键随任务保留，任务被清理或因队列已满被拒绝后可再次使用
+     *
+     * @param request        聊天请求
+     * @param tenant         租户，可为null
+     * @param idempotencyKey 幂等键，可为null
+     * @return 任务信息
+     */
+    public AiJob submit(ChatRequest request, String tenant, String idempotencyKey) {
+        String callbackUrl = WebhookDispatcher.callbackUrlOf(request.getExtensions());
+        if (callbackUrl != null) {
+            String invalid = webhookDispatcher.validate(callbackUrl);
+            if (invalid != null) {
+                throw new AiException(AiErrorCode.AI_INVALID_MODEL_PARAMETER, invalid);
+            }
+        }
+        pruneExpired();
+        String dedupKey = null;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            if (idempotencyKey.length() > IdempotencyCache.MAX_KEY_LENGTH) {
+                throw new AiException(AiErrorCode.AI_INVALID_MODEL_PARAMETER,
+                        "Idempotency-Key 长度不能超过 " + IdempotencyCache.MAX_KEY_LENGTH);
+            }
+            dedupKey = IdempotencyCache.cacheKey(SUBMIT_ROUTE, tenant, idempotencyKey);
+        }
+        AiJob job = new AiJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setStatus(AiJobStatus.QUEUED);
+        job.setModel(request.getModel());
+        job.setAttempts(0);
+        job.setCreatedAt(LocalDateTime.now());
+        AiJobStore.StoredJob stored = new AiJobStore.StoredJob(job, request);
+        if (dedupKey != null) {
+            stored.setIdempotencyKey(dedupKey);
+            stored.setFingerprint(request.getProfile().getFingerprint());
+        }
+        AiJobStore.StoredJob existing = register(stored);
+        if (existing != null) {
+            log.info("Idempotent resubmission returned existing AI job [{}]", existing.getJob().getJobId());
+            return snapshot(existing);
+        }
+        try {
+            jobStore.save(stored);
+        } catch (RuntimeException e) {
+            unregister(stored);
+            throw e;
+        }
+        if (!enqueue(job.getJobId())) {
+            unregister(stored);
+            jobStore.delete(job.getJobId());
+            log.warn("AI job executor saturated, rejecting job for model [{}]", request.getModel());
+            throw new AiException(AiErrorCode.AI_SERVICE_UNAVAILABLE, "任务队列已满，请稍后重试");
+        }
+        log.info("Accepted AI job [{}] for model [{}]", job.getJobId(), request.getModel());
+        return snapshot(stored);
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务ID
+     * @return 任务信息，不存在时返回null
+     */
+    public AiJob get(String jobId) {
+        AiJobStore.StoredJob stored = jobs.get(jobId);
+        return stored != null ? snapshot(stored) : null;
+    }
+
+    /**
+     * 等待任务结束，最多等待 waitMs 与 max-wait-ms 中的较小值
+     *
+     * @param jobId  任务ID
+     * @param waitMs 最多等待的毫秒数
+     * @return 结束或超时后的任务信息，不存在时为null
+     */
+    public CompletableFuture<AiJob> await(String jobId, long waitMs) {
+        CompletableFuture<Void> completion = completions.get(jobId);
+        long wait = Math.min(Math.max(0, waitMs), maxWaitMs);
+        if (completion == null || wait == 0) {
+            return CompletableFuture.completedFuture(get(jobId));
+        }
+        return completion.copy()
+                .completeOnTimeout(null, wait, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> get(jobId));
+    }
+
+    /**
+     * 登记新任务；携带幂等键且键已对应保留中的任务时不登记，返回已有任务
+     *
+     * @throws AiException 幂等键已用于内容不同的请求
+     */
+    private AiJobStore.StoredJob register(AiJobStore.StoredJob stored) {
+        String jobId = stored.getJob().getJobId();
+        String key = stored.getIdempotencyKey();
+        if (key != null) {
+            synchronized (idempotentJobs) {
+                String existingId = idempotentJobs.get(key);
+                AiJobStore.StoredJob existing = existingId != null ? jobs.get(existingId) : null;
+                if (existing != null) {
+                    if (!Objects.equals(existing.getFingerprint(), stored.getFingerprint())) {
+                        throw new AiException(AiErrorCode.AI_INVALID_MODEL_PARAMETER,
+                                "Idempotency-Key 已用于内容不同的请求");
+                    }
+                    return existing;
+                }
+                idempotentJobs.put(key, jobId);
+                jobs.put(jobId, stored);
+            }
+        } else {
+            jobs.put(jobId, stored);
+        }
+        completions.put(jobId, new CompletableFuture<>());
+        return null;
+    }
+
+    private void unregister(AiJobStore.StoredJob stored) {
+        String jobId = stored.getJob().getJobId();
+        jobs.remove(jobId);
+        completions.remove(jobId);
+        if (stored.getIdempotencyKey() != null) {
+            idempotentJobs.remove(stored.getIdempotencyKey(), jobId);
+        }
+    }
+
+    private void indexIdempotencyKey(AiJobStore.StoredJob stored) {
+        if (stored.getIdempotencyKey() != null) {
+            idempotentJobs.put(stored.getIdempotencyKey(), stored.getJob().getJobId());
+        }
+    }
+
+    private boolean enqueue(String jobId) {
+        try {
+            executor.execute(() -> execute(jobId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void execute(String jobId) {
+        AiJobStore.StoredJob stored = jobs.get(jobId);
+        if (stored == null) {
+            return;
+        }
+        ChatRequest request;
+        synchronized (stored) {
+            AiJob job = stored.getJob();
+            job.setStatus(AiJobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job.setAttempts((job.getAttempts() != null ? job.getAttempts() : 0) + 1);
+            request = stored.getRequest();
+            jobStore.save(stored);
+        }
+
+        AiRequestContext context = new AiRequestContext(jobId);
+        if (timeoutMs > 0) {
+            context.setTimeoutMs(timeoutMs);
+        }
+        try (AiRequestContext.Scope ignored = context.bind()) {
+            ChatResponse response = chatService.chat(request);
+            finish(stored, AiJobStatus.SUCCEEDED, response, null, null);
+            log.info("AI job [{}] succeeded", jobId);
+        } catch (Exception e) {
+            fail(stored, AiUpstreamException.errorCodeOf(e), e.getMessage());
+            log.warn("AI job [{}] failed: {}", jobId, e.getMessage());
+        }
+    }
+
+    private void fail(AiJobStore.StoredJob stored, AiErrorCode code, String message) {
+        finish(stored, AiJobStatus.FAILED, null, code.getCode(), message);
+    }
+
+    private void finish(AiJobStore.StoredJob stored, AiJobStatus status, ChatResponse result, String errorCode,
+                        String errorMessage) {
+        String jobId;
+        String callbackUrl;
+        synchronized (stored) {
+            AiJob job = stored.getJob();
+            jobId = job.getJobId();
+            callbackUrl = stored.getRequest() != null
+                    ? WebhookDispatcher.callbackUrlOf(stored.getRequest().getExtensions()) : null;
+            job.setStatus(status);
+            job.setResult(result);
+            job.setErrorCode(errorCode);
+            job.setErrorMessage(errorMessage);
+            job.setFinishedAt(LocalDateTime.now());
+            stored.setRequest(null);
+            try {
+                jobStore.save(stored);
+            } catch (RuntimeException e) {
+                // 结果仍可从内存查询，重启后按中断的任务处理
+                log.error("Failed to persist result of AI job [{}]", jobId, e);
+            }
+        }
+        CompletableFuture<Void> completion = completions.remove(jobId);
+        if (completion != null) {
+            completion.complete(null);
+        }
+        if (callbackUrl != null) {
+            ApiResponse<ChatResponse> payload = status == AiJobStatus.SUCCEEDED
+                    ? ApiResponse.success(result, jobId)
+                    : ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), errorMessage, jobId);
+            webhookDispatcher.dispatch(callbackUrl, jobId, payload);
+        }
+    }
+
+    /**
+     * 清理结束超过保留时间的任务，最多每10分钟执行一次
+     */
+    private void pruneExpired() {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneAt < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPruneAt = now;
+        LocalDateTime expiry = LocalDateTime.now().minusHours(retentionHours);
+        jobs.values().removeIf(stored -> {
+            AiJob job = stored.getJob();
+            synchronized (stored) {
+                if (job.getStatus().isTerminal() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiry)) {
+                    jobStore.delete(job.getJobId());
+                    if (stored.getIdempotencyKey() != null) {
+                        idempotentJobs.remove(stored.getIdempotencyKey(), job.getJobId());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    private AiJob snapshot(AiJobStore.StoredJob stored) {
+        synchronized (stored) {
+            AiJob job = stored.getJob();
+            AiJob copy = new AiJob();
+            copy.setJobId(job.getJobId());
+            copy.setStatus(job.getStatus());
+            copy.setModel(job.getModel());
+            copy.setAttempts(job.getAttempts());
+            copy.setCreatedAt(job.getCreatedAt());
+            copy.setStartedAt(job.getStartedAt());
+            copy.setFinishedAt(job.getFinishedAt());
+            copy.setResult(job.getResult());
+            copy.setErrorCode(job.getErrorCode());
+            copy.setErrorMessage(job.getErrorMessage());
+            return copy;
+        }
+    }
+}
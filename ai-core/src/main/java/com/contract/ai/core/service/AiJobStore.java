@@ -0,0 +1,143 @@
+package com.contract.ai.core.service;
+
+import com.contract.ai.feign.dto.AiJob;
+import com.contract.ai.feign.dto.ChatRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 异步任务本地存储
+ * 每个任务保存为存储目录下的一个JSON文件（任务状态与原始请求），先写临时文件再原子替换，进程崩溃时不会留下半截文件；
+ * 任务结束后只保留状态与结果，不再保存原始请求（可能包含大量base64图片）
+ */
+@Slf4j
+@Component
+public class AiJobStore {
+
+    private static final String SUFFIX = ".json";
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+
+    public AiJobStore(ObjectMapper objectMapper, @Value("${ai.jobs.store-dir:data/ai-jobs}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create AI job store directory " + this.directory, e);
+        }
+    }
+
+    /**
+     * 保存任务，覆盖已有内容
+     *
+     * @param job 任务与请求
+     * @throws UncheckedIOException 写入失败
+     */
+    public void save(StoredJob job) {
+        Path target = pathOf(job.getJob().getJobId());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), job);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot persist AI job " + job.getJob().getJobId(), e);
+        }
+    }
+
+    /**
+     * 读取全部任务，无法解析的文件被跳过
+     *
+     * @return 任务列表
+     */
+    public List<StoredJob> loadAll() {
+        List<StoredJob> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    StoredJob job = objectMapper.readValue(file.toFile(), StoredJob.class);
+                    if (job.getJob() != null && job.getJob().getJobId() != null && job.getJob().getStatus() != null) {
+                        jobs.add(job);
+                    }
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable AI job file {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list AI job store directory " + directory, e);
+        }
+        return jobs;
+    }
+
+    /**
+     * 删除任务
+     *
+     * @param jobId 任务ID
+     */
+    public void delete(String jobId) {
+        try {
+            Files.deleteIfExists(pathOf(jobId));
+        } catch (IOException e) {
+            log.warn("Failed to delete AI job file of [{}]: {}", jobId, e.getMessage());
+        }
+    }
+
+    private Path pathOf(String jobId) {
+        return directory.resolve(jobId + SUFFIX);
+    }
+
+    /**
+     * 持久化的任务
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StoredJob {
+
+        /**
+         * 任务状态
+         */
+        private AiJob job;
+
+        /**
+         * 原始请求，任务结束后清空
+         */
+        private ChatRequest request;
+
+        /**
+         * 提交时携带的幂等键（含租户），未携带时为null
+         */
+        private String idempotencyKey;
+
+        /**
+         * 请求内容指纹，携带幂等键时用于识别键被用于不同内容的请求
+         */
+        private String fingerprint;
+
+        public StoredJob(AiJob job, ChatRequest request) {
+            this.job = job;
+            this.request = request;
+        }
+    }
+}
@@ -2,20 +2,26 @@ package com.contract.ai.core.service;
 
 import com.contract.ai.core.exception.AiErrorCode;
 import com.contract.ai.core.router.AiRouter;
+import com.contract.ai.core.util.RemoteFileDownloader;
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
+import com.contract.ai.feign.dto.RequestProfile;
+import com.contract.ai.feign.enums.PlatFormType;
 import com.contract.ai.feign.util.ImageBase64Validator;
 import com.contract.ai.core.exception.AiException;
 import com.contractreview.exception.enums.CommonErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.UUID;
 
 /**
@@ -28,6 +34,29 @@ import java.util.UUID;
 public class ChatService {
 
     private final AiRouter aiRouter;
+    private final DocumentTextExtractionService documentTextExtractionService;
+    private final RemoteFileDownloader remoteFileDownloader;
+
+    /**
+     * 是否对 file_url 文档进行本地文本提取，可通过请求扩展参数 text_extraction 单独开启/关闭
+     */
+    @Value("${ai.document.text-extraction.enabled:true}")
+    private boolean textExtractionEnabled;
+
+    /**
+     * 文档全部具有文本层时改用的文本模型
+     */
+    @Value("${ai.document.text-extraction.text-model:deepseek-chat}")
+    private String textModel;
+
+    @Value("${ai.document.text-extraction.text-platform:DEEPSEEK}")
+    private PlatFormType textPlatform;
+
+    /**
+     * 提取文本总字符数上限，超过时仍交给视觉模型处理原文件
+     */
+    @Value("${ai.document.text-extraction.max-text-chars:60000}")
+    private int maxTextChars;
 
     /**
      * 处理纯文本聊天请求
@@ -76,15 +105,22 @@ public class ChatService {
             ChatRequest normalizedRequest = validateAndNormalize(request);
 
             // 检查是否包含图片或文件，决定路由方式
-            boolean hasImages = normalizedRequest.getMessages().stream()
-                .anyMatch(msg -> msg.isMultimodal() &&
-                    msg.getMultimodalContent().stream()
-                        .anyMatch(item -> "image_url".equals(item.getType())));
-
-            boolean hasFiles = normalizedRequest.getMessages().stream()
-                .anyMatch(msg -> msg.isMultimodal() &&
-                    msg.getMultimodalContent().stream()
-                        .anyMatch(item -> "file_url".equals(item.getType())));
+            RequestProfile profile = normalizedRequest.getProfile();
+            boolean hasImages = profile.getImageCount() > 0;
+            boolean hasFiles = profile.getFileCount() > 0;
+
+            // 具有文本层的文档在本地提取文本，避免走视觉模型
+            if (hasFiles && !hasImages && isTextExtractionEnabled(normalizedRequest)) {
+                ChatRequest extractedRequest = rewriteTextBearingFiles(normalizedRequest);
+                if (extractedRequest != null) {
+                    // 已改用提取的文本，文件路由不再需要下载结果
+                    remoteFileDownloader.discardRetained();
+                    normalizedRequest = extractedRequest;
+                    profile = normalizedRequest.getProfile();
+                    hasImages = profile.getImageCount() > 0;
+                    hasFiles = profile.getFileCount() > 0;
+                }
+            }
 
             ChatResponse response;
             if (hasFiles && !hasImages) {
@@ -119,6 +155,134 @@ public class ChatService {
         }
     }
 
+    /**
+     * 是否启用文档本地文本提取，请求扩展参数 text_extraction 优先于全局配置
+     */
+    private boolean isTextExtractionEnabled(ChatRequest request) {
+        if (request.getExtensions() != null && request.getExtensions().get("text_extraction") != null) {
+            return Boolean.parseBoolean(String.valueOf(request.getExtensions().get("text_extraction")));
+        }
+        return textExtractionEnabled;
+    }
+
+    /**
+     * 将具有文本层的文档改写为文本内容
+     * 全部页面可提取文本时改用文本模型；少量扫描页渲染为图片，与文本一起交给原视觉模型
+     *
+     * @param request 归一化后的请求
+     * @return 改写后的请求；任一文档无法本地处理时返回null，保持原有文件路由
+     */
+    private ChatRequest rewriteTextBearingFiles(ChatRequest request) {
+        long startTime = System.currentTimeMillis();
+        List<ChatRequest.Message> rewrittenMessages = new ArrayList<>(request.getMessages().size());
+        boolean needsVision = false;
+        int totalTextLength = 0;
+
+        for (ChatRequest.Message message : request.getMessages()) {
+            if (!message.isMultimodal()) {
+                rewrittenMessages.add(message);
+                continue;
+            }
+
+            List<ChatRequest.Message.ContentItem> contentItems = message.getMultimodalContent();
+            List<ChatRequest.Message.ContentItem> items = new ArrayList<>();
+            for (int index = 0; index < contentItems.size(); index++) {
+                ChatRequest.Message.ContentItem item = contentItems.get(index);
+                if (!"file_url".equals(item.getType())) {
+                    items.add(item);
+                    continue;
+                }
+
+                if (item.getFile_url() == null || !StringUtils.hasText(item.getFile_url().getUrl())) {
+                    throw new IllegalArgumentException(String.format("第%d个文件URL不能为空", index + 1));
+                }
+                String fileUrl = item.getFile_url().getUrl();
+                DocumentTextExtractionService.ExtractedDocument document;
+                try {
+                    document = documentTextExtractionService.extract(fileUrl);
+                } catch (Exception e) {
+                    log.warn("文档本地文本提取失败，保持原文件路由: {}, 原因: {}", fileUrl, e.getMessage());
+                    return null;
+                }
+                if (document == null || !document.hasTextLayer()
+                    || (!document.isFullyTextBearing() && !document.isScannedPagesRendered())) {
+                    log.info("文档 {} 无法仅依靠本地文本处理，保持原文件路由", fileUrl);
+                    return null;
+                }
+
+                items.add(ChatRequest.Message.ContentItem.text(formatDocumentText(document)));
+                for (int i = 0; i < document.getScannedPageImages().size(); i++) {
+                    items.add(ChatRequest.Message.ContentItem.text(String.format("以下为《%s》第%d页（扫描页）",
+                        document.getFileName(), document.getScannedPages().get(i))));
+                    items.add(ChatRequest.Message.ContentItem.imageUrl(document.getScannedPageImages().get(i)));
+                }
+                needsVision |= !document.isFullyTextBearing();
+                totalTextLength += document.getTextLength();
+            }
+            rewrittenMessages.add(ChatRequest.Message.builder()
+                .role(message.getRole())
+                .content(items)
+                .extensions(message.getExtensions())
+                .build());
+        }
+
+        if (totalTextLength > maxTextChars) {
+            log.info("文档文本长度 {} 超过上限 {}，保持原文件路由", totalTextLength, maxTextChars);
+            return null;
+        }
+
+        // 复制全部请求参数（含 responseReformat 等），仅替换消息与改用文本模型时的模型、平台
+        ChatRequest.ChatRequestBuilder builder = request.toBuilder();
+
+        if (needsVision) {
+            builder.messages(rewrittenMessages);
+        } else {
+            if (!aiRouter.isModelSupported(textModel)) {
+                log.warn("文本模型 {} 未启用，保持原文件路由", textModel);
+                return null;
+            }
+            // 文本模型只接收纯文本消息，将内容项合并为字符串
+            List<ChatRequest.Message> textMessages = new ArrayList<>(rewrittenMessages.size());
+            for (ChatRequest.Message message : rewrittenMessages) {
+                if (!message.isMultimodal()) {
+                    textMessages.add(message);
+                    continue;
+                }
+                List<String> texts = new ArrayList<>();
+                for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                    texts.add(item.getText());
+                }
+                textMessages.add(ChatRequest.Message.textMessage(message.getRole(), String.join("\n\n", texts)));
+            }
+            builder.messages(textMessages).model(textModel).platform(textPlatform);
+        }
+
+        ChatRequest rewritten = builder.build();
+        log.info("文档本地文本提取完成，模型 [{}] -> [{}]，文本长度: {}，耗时 {} ms", request.getModel(),
+            rewritten.getModel(), totalTextLength, System.currentTimeMillis() - startTime);
+        return rewritten;
+    }
+
+    /**
+     * 将提取结果格式化为带文件名与页码标记的文本
+     */
+    private String formatDocumentText(DocumentTextExtractionService.ExtractedDocument document) {
+        StringBuilder text = new StringBuilder();
+        text.append("【文件：").append(document.getFileName()).append("】\n");
+        if (document.getPageCount() == 1) {
+            return text.append(document.getPageTexts().get(0)).toString();
+        }
+        for (int page = 1; page <= document.getPageCount(); page++) {
+            if (document.getScannedPages().contains(page)) {
+                text.append("\n--- 第").append(page).append("页（扫描页，见下方图片） ---\n");
+            } else {
+                text.append("\n--- 第").append(page).append("页 ---\n")
+                    .append(document.getPageTexts().get(page - 1)).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
     /**
      * 处理带文件的视觉聊天请求
      *
@@ -242,6 +406,7 @@ public class ChatService {
         }
 
         builder.stop(request.getStop());
+        builder.extensions(request.getExtensions());
 
         ChatRequest normalized = builder.build();
 
@@ -333,15 +498,13 @@ public class ChatService {
         }
 
         builder.stop(request.getStop());
+        builder.extensions(request.getExtensions());
 
         ChatRequest normalized = builder.build();
-        boolean hasImages = normalized.getMessages().stream()
-            .anyMatch(msg -> msg.isMultimodal() &&
-                msg.getMultimodalContent().stream()
-                    .anyMatch(item -> "image_url".equals(item.getType())));
-
-        log.debug("Normalized chat request for model: [{}] with images: {}",
-            normalized.getModel(), hasImages);
+        // 消息列表与模型不变，沿用原请求的画像
+        normalized.reuseProfile(request);
+        log.debug("Normalized chat request for model: [{}] with profile: {}",
+            normalized.getModel(), normalized.getProfile());
         return normalized;
     }
 
@@ -409,21 +572,11 @@ public class ChatService {
      * @return 图片文件名到base64数据的映射
      */
     private Map<String, String> extractImageMap(ChatRequest request) {
-        Map<String, String> imageMap = new HashMap<>();
+        Map<String, String> imageMap = new LinkedHashMap<>();
         int imageIndex = 1;
-
-        for (ChatRequest.Message message : request.getMessages()) {
-            if (message.isMultimodal()) {
-                for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
-                    if ("image_url".equals(item.getType()) && item.getImage_url() != null) {
-                        String fileName = "image_" + imageIndex + ".jpg";
-                        imageMap.put(fileName, item.getImage_url().getUrl());
-                        imageIndex++;
-                    }
-                }
-            }
+        for (String imageUrl : request.getProfile().getImageUrls()) {
+            imageMap.put("image_" + imageIndex++ + ".jpg", imageUrl);
         }
-
         return imageMap;
     }
 
@@ -433,21 +586,11 @@ public class ChatService {
      * @return 文件名到URL的映射
      */
     private Map<String, String> extractFileMap(ChatRequest request) {
-        Map<String, String> fileMap = new HashMap<>();
+        Map<String, String> fileMap = new LinkedHashMap<>();
         int fileIndex = 1;
-
-        for (ChatRequest.Message message : request.getMessages()) {
-            if (message.isMultimodal()) {
-                for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
-                    if ("file_url".equals(item.getType()) && item.getFile_url() != null) {
-                        String fileName = "file_" + fileIndex;
-                        fileMap.put(fileName, item.getFile_url().getUrl());
-                        fileIndex++;
-                    }
-                }
-            }
+        for (String fileUrl : request.getProfile().getFileUrls()) {
+            fileMap.put("file_" + fileIndex++, fileUrl);
         }
-
         return fileMap;
     }
 
@@ -0,0 +1,108 @@
+package com.contract.ai.core.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 文档文本提取服务接口
+ * 负责下载 file_url 指向的 PDF/Word 文档并提取文本层，识别没有文本层的扫描页
+ */
+public interface DocumentTextExtractionService {
+
+    /**
+     * 提取文档文本
+     *
+     * @param fileUrl 文件URL
+     * @return 提取结果；文件格式不支持时返回null
+     * @throws IOException 下载或解析失败
+     */
+    ExtractedDocument extract(String fileUrl) throws IOException;
+
+    /**
+     * 文档格式
+     */
+    enum DocumentFormat {
+        PDF,
+        DOCX,
+        DOC
+    }
+
+    /**
+     * 文档提取结果
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class ExtractedDocument {
+
+        /**
+         * 文件名
+         */
+        private String fileName;
+
+        /**
+         * 文档格式
+         */
+        private DocumentFormat format;
+
+        /**
+         * 各页文本，Word文档整体视为一页，扫描页为空字符串
+         */
+        private List<String> pageTexts;
+
+        /**
+         * 没有可用文本层的页码（从1开始）
+         */
+        private List<Integer> scannedPages;
+
+        /**
+         * 扫描页渲染后的base64图片，与 scannedPages 一一对应；扫描页过多时不渲染，为空列表
+         */
+        private List<String> scannedPageImages;
+
+        /**
+         * 页数
+         */
+        public int getPageCount() {
+            return pageTexts != null ? pageTexts.size() : 0;
+        }
+
+        /**
+         * 所有页面均有文本层
+         */
+        public boolean isFullyTextBearing() {
+            return getPageCount() > 0 && scannedPages.isEmpty();
+        }
+
+        /**
+         * 至少有一页具有文本层
+         */
+        public boolean hasTextLayer() {
+            return scannedPages.size() < getPageCount();
+        }
+
+        /**
+         * 扫描页均已渲染为图片
+         */
+        public boolean isScannedPagesRendered() {
+            return scannedPageImages != null && scannedPageImages.size() == scannedPages.size();
+        }
+
+        /**
+         * 提取文本的总字符数
+         */
+        public int getTextLength() {
+            int length = 0;
+            for (String pageText : pageTexts) {
+                length += pageText.length();
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.contract.ai.core.service;
+
+import com.contract.ai.core.util.RemoteFileDownloader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Dns;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 完成回调投递
+ * 请求在扩展参数 callback_url 中指定回调地址时，处理结束后将结果以JSON POST到该地址，调用方无需轮询。
+ * 投递在独立的线程池上进行，不占用请求线程；待投递（含等待重试）的回调最多 queue-capacity 个，超出时丢弃并计数。
+ * 配置 secret 时对 "时间戳.请求体" 做 HMAC-SHA256 签名，放在 X-Ai-Signature 请求头（sha256=十六进制），接收方据此校验来源并拒绝重放；
+ * 连接失败、408、429与5xx按指数退避重试，最多 max-attempts 次。
+ * 回调地址由调用方提供，默认拒绝解析到回环、内网、链路本地（含云厂商元数据地址）等内部地址的回调：
+ * 提交时校验一次，每次投递与每次建立连接时重新解析并校验，避免提交后DNS改指向内网
+ */
+@Slf4j
+@Component
+public class WebhookDispatcher {
+
+    /**
+     * 回调地址的扩展参数名
+     */
+    public static final String CALLBACK_URL_EXTENSION = "callback_url";
+
+    public static final String SIGNATURE_HEADER = "X-Ai-Signature";
+    public static final String TIMESTAMP_HEADER = "X-Ai-Timestamp";
+    public static final String DELIVERY_HEADER = "X-Ai-Delivery-Id";
+    public static final String ATTEMPT_HEADER = "X-Ai-Delivery-Attempt";
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger pending = new AtomicInteger();
+    private OkHttpClient httpClient;
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+
+    @Value("${ai.webhook.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 签名密钥，为空时不签名
+     */
+    @Value("${ai.webhook.secret:}")
+    private String secret;
+
+    /**
+     * 允许回调的主机，逗号分隔，支持 *.example.com 形式，为空时不限制
+     */
+    @Value("${ai.webhook.allowed-hosts:}")
+    private List<String> allowedHosts;
+
+    /**
+     * 是否允许回调内网地址，仅用于接收方部署在内网的环境
+     */
+    @Value("${ai.webhook.allow-private-network:false}")
+    private boolean allowPrivateNetwork;
+
+    @Value("${ai.webhook.executor.threads:4}")
+    private int threads;
+
+    /**
+     * 待投递（含等待重试）的回调上限
+     */
+    @Value("${ai.webhook.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${ai.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${ai.webhook.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${ai.webhook.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${ai.webhook.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${ai.webhook.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    public WebhookDispatcher(ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void init() {
+        httpClient = new OkHttpClient.Builder()
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .followRedirects(false)
+                .dns(this::lookup)
+                .build();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "ai-webhook-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ai-webhook-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (meterRegistry != null) {
+            Gauge.builder("ai.webhook.pending", pending, AtomicInteger::get)
+                    .description("待投递（含等待重试）的回调数")
+                    .register(meterRegistry);
+        }
+        if (secret == null || secret.isBlank()) {
+            log.warn("ai.webhook.secret is not configured, completion callbacks will be sent unsigned");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+        if (pending.get() > 0) {
+            log.warn("Discarding {} undelivered completion callbacks on shutdown", pending.get());
+        }
+    }
+
+    /**
+     * 读取扩展参数中的回调地址
+     *
+     * @param extensions 请求扩展参数
+     * @return 回调地址，未指定时为null
+     */
+    public static String callbackUrlOf(Map<String, Object> extensions) {
+        Object url = extensions != null ? extensions.get(CALLBACK_URL_EXTENSION) : null;
+        return url != null && !String.valueOf(url).isBlank() ? String.valueOf(url).trim() : null;
+    }
+
+    /**
+     * 校验回调地址，提交请求时调用，避免处理结束后才发现地址不可用
+     *
+     * @param url 回调地址
+     * @return 不可用的原因，可用时为null
+     */
+    public String validate(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return "回调地址格式错误";
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : null;
+        if (!"http".equals(scheme) && !"https".equals(scheme) || uri.getHost() == null) {
+            return "回调地址必须是 http 或 https 地址";
+        }
+        if (!isAllowedHost(uri.getHost())) {
+            return "回调地址的主机不在允许范围内";
+        }
+        try {
+            lookup(uri.getHost());
+        } catch (InternalAddressException e) {
+            return e.getMessage();
+        } catch (UnknownHostException e) {
+            // 暂时无法解析时不拒绝，投递时重新解析并校验
+            log.debug("Cannot resolve callback host [{}] yet: {}", uri.getHost(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 投递回调，立即返回
+     *
+     * @param url        回调地址
+     * @param deliveryId 投递ID，接收方据此去重
+     * @param payload    回调内容，序列化为JSON
+     * @return 是否已进入投递队列
+     */
+    public boolean dispatch(String url, String deliveryId, Object payload) {
+        if (!enabled) {
+            return false;
+        }
+        String invalid = validate(url);
+        if (invalid != null) {
+            log.warn("Skipping completion callback [{}] to [{}]: {}", deliveryId, url, invalid);
+            countFailure("invalid_url");
+            return false;
+        }
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize completion callback [{}]", deliveryId, e);
+            countFailure("serialization");
+            return false;
+        }
+        if (pending.incrementAndGet() > queueCapacity) {
+            pending.decrementAndGet();
+            log.warn("Completion callback queue is full ({}), dropping callback [{}] to [{}]",
+                    queueCapacity, deliveryId, url);
+            countFailure("queue_full");
+            return false;
+        }
+        Delivery delivery = new Delivery(url, deliveryId, body, System.nanoTime());
+        if (!submit(delivery)) {
+            pending.decrementAndGet();
+            countFailure("rejected");
+            return false;
+        }
+        return true;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    private boolean submit(Delivery delivery) {
+        try {
+            executor.execute(() -> attempt(delivery));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Completion callback executor is shut down, dropping callback [{}]", delivery.id);
+            return false;
+        }
+    }
+
+    private void attempt(Delivery delivery) {
+        int attempt = ++delivery.attempts;
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        Request.Builder request = new Request.Builder()
+                .url(delivery.url)
+                .post(RequestBody.create(delivery.body, JSON))
+                .header(DELIVERY_HEADER, delivery.id)
+                .header(ATTEMPT_HEADER, String.valueOf(attempt))
+                .header(TIMESTAMP_HEADER, timestamp);
+        if (secret != null && !secret.isBlank()) {
+            request.header(SIGNATURE_HEADER, "sha256=" + sign(secret, timestamp, delivery.body));
+        }
+
+        boolean retryable;
+        String outcome;
+        Request call = request.build();
+        try {
+            // 每次投递都重新解析并校验，复用的连接不经过DNS
+            lookup(call.url().host());
+            try (Response response = httpClient.newCall(call).execute()) {
+                if (response.isSuccessful()) {
+                    finish(delivery, "success");
+                    log.debug("Delivered completion callback [{}] to [{}] on attempt {}",
+                            delivery.id, delivery.url, attempt);
+                    return;
+                }
+                int status = response.code();
+                retryable = status == 408 || status == 429 || status >= 500;
+                outcome = "status_" + status;
+            }
+        } catch (InternalAddressException e) {
+            // 提交后DNS改指向了内部地址，不再重试
+            retryable = false;
+            outcome = "internal_address";
+            log.warn("Completion callback [{}] to [{}] blocked: {}", delivery.id, delivery.url, e.getMessage());
+        } catch (IOException e) {
+            retryable = true;
+            outcome = "io_error";
+            log.debug("Completion callback [{}] to [{}] failed on attempt {}: {}",
+                    delivery.id, delivery.url, attempt, e.getMessage());
+        }
+        count("ai.webhook.attempts", "result", outcome);
+
+        if (retryable && attempt < maxAttempts) {
+            long backoff = backoffMs(attempt);
+            try {
+                retryScheduler.schedule(() -> {
+                    if (!submit(delivery)) {
+                        finish(delivery, "rejected");
+                    }
+                }, backoff, TimeUnit.MILLISECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                log.warn("Completion callback retry scheduler is shut down, dropping callback [{}]", delivery.id);
+            }
+        }
+        log.warn("Giving up completion callback [{}] to [{}] after {} attempts ({})",
+                delivery.id, delivery.url, attempt, outcome);
+        finish(delivery, "failed");
+    }
+
+    private void finish(Delivery delivery, String result) {
+        pending.decrementAndGet();
+        if (meterRegistry != null) {
+            Timer.builder("ai.webhook.delivery")
+                    .description("回调从提交到投递结束的耗时")
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - delivery.createdAt, TimeUnit.NANOSECONDS);
+        }
+        if (!"success".equals(result)) {
+            countFailure(result);
+        }
+    }
+
+    /**
+     * 指数退避，在 [1/2, 1] 倍之间加随机抖动，避免接收方恢复时同时重试
+     */
+    private long backoffMs(int attempt) {
+        long base = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    /**
+     * 解析回调主机，不允许内网时任一解析结果为内部地址即拒绝。
+     * 作为OkHttp的DNS使用，每次建立连接时都重新解析并校验，连接只会建立到校验过的地址
+     *
+     * @param host 主机
+     * @return 解析出的地址
+     * @throws UnknownHostException 无法解析或解析到内部地址
+     */
+    private List<InetAddress> lookup(String host) throws UnknownHostException {
+        List<InetAddress> addresses;
+        try {
+            addresses = Dns.SYSTEM.lookup(host);
+        } catch (UnknownHostException e) {
+            UnknownHostException failure = new UnknownHostException("无法解析回调地址的主机: " + host);
+            failure.initCause(e);
+            throw failure;
+        }
+        if (!allowPrivateNetwork) {
+            for (InetAddress address : addresses) {
+                if (RemoteFileDownloader.isInternalAddress(address)) {
+                    throw new InternalAddressException(host);
+                }
+            }
+        }
+        return addresses;
+    }
+
+    private boolean isAllowedHost(String host) {
+        if (allowedHosts == null || allowedHosts.stream().allMatch(String::isBlank)) {
+            return true;
+        }
+        String normalized = host.toLowerCase(Locale.ROOT);
+        for (String allowed : allowedHosts) {
+            String entry = allowed.trim().toLowerCase(Locale.ROOT);
+            if (entry.isEmpty()) {
+                continue;
+            }
+            if (entry.startsWith("*.") ? normalized.endsWith(entry.substring(1)) : normalized.equals(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void countFailure(String reason) {
+        count("ai.webhook.failures", "reason", reason);
+    }
+
+    private void count(String name, String tag, String value) {
+        if (meterRegistry != null) {
+            Counter.builder(name).tag(tag, value).register(meterRegistry).increment();
+        }
+    }
+
+    /**
+     * 计算签名：HMAC-SHA256(secret, 时间戳 + "." + 请求体)，十六进制小写
+     *
+     * @param secret    签名密钥
+     * @param timestamp 秒级时间戳，与 X-Ai-Timestamp 一致
+     * @param body      请求体
+     * @return 签名
+     */
+    static String sign(String secret, String timestamp, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            mac.update(timestamp.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '.');
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * 回调地址解析到内部地址
+     */
+    private static final class InternalAddressException extends UnknownHostException {
+
+        private InternalAddressException(String host) {
+            super("回调地址指向内部地址，拒绝投递: " + host);
+        }
+    }
+
+    /**
+     * 一次回调投递
+     */
+    private static final class Delivery {
+
+        private final String url;
+        private final String id;
+        private final byte[] body;
+        private final long createdAt;
+        private int attempts;
+
+        private Delivery(String url, String id, byte[] body, long createdAt) {
+            this.url = url;
+            this.id = id;
+            this.body = body;
+            this.createdAt = createdAt;
+        }
+    }
+}
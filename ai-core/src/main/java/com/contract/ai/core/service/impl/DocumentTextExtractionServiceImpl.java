@@ -0,0 +1,231 @@
+package com.contract.ai.core.service.impl;
+
+import com.contract.ai.core.service.DocumentTextExtractionService;
+import com.contract.ai.core.util.PdfPageRasterizer;
+import com.contract.ai.core.util.RemoteFileDownloader;
+import com.contract.ai.feign.util.ImageCompressorWithThumbnailator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.extractor.WordExtractor;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 文档文本提取服务实现类
+ * PDF 使用 PDFBox 逐页提取文本，Word 使用 POI 提取全文
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentTextExtractionServiceImpl implements DocumentTextExtractionService {
+
+    /**
+     * 扫描页渲染图片的压缩限制，与GLM视觉模型一致
+     */
+    private static final int MAX_IMAGE_SIDE = 6000;
+    private static final int TARGET_IMAGE_SIZE_KB = 5 * 1024;
+
+    /**
+     * 乱码字符占比超过该值时视为文本层不可用（字体未嵌入映射表等情况）
+     */
+    private static final double MAX_GARBLED_RATIO = 0.3;
+
+    private final PdfPageRasterizer pdfPageRasterizer;
+    private final RemoteFileDownloader remoteFileDownloader;
+
+    @Value("${ai.document.text-extraction.max-file-size-mb:50}")
+    private int maxFileSizeMb;
+
+    @Value("${ai.document.text-extraction.download-timeout-ms:30000}")
+    private int downloadTimeoutMs;
+
+    /**
+     * 每页至少包含的有效字符数，低于该值视为扫描页
+     */
+    @Value("${ai.document.text-extraction.min-chars-per-page:30}")
+    private int minCharsPerPage;
+
+    /**
+     * 扫描页不超过该数量时才渲染为图片交给视觉模型
+     */
+    @Value("${ai.document.text-extraction.max-scanned-pages:1}")
+    private int maxScannedPages;
+
+    /**
+     * 扫描页渲染分辨率
+     */
+    @Value("${ai.document.text-extraction.render-dpi:150}")
+    private int renderDpi;
+
+    @Override
+    public ExtractedDocument extract(String fileUrl) throws IOException {
+        String fileName = RemoteFileDownloader.extractFileName(fileUrl);
+        // 文本提取放弃时原请求仍走文件路由，保留下载结果供页面渲染复用
+        byte[] content = remoteFileDownloader.downloadAndRetain(fileUrl, maxFileSizeMb * 1024L * 1024L, downloadTimeoutMs);
+
+        DocumentFormat format = detectFormat(content, fileName);
+        if (format == null) {
+            log.info("文件 {} 不是PDF/Word文档，跳过本地文本提取", fileName);
+            return null;
+        }
+
+        ExtractedDocument document = switch (format) {
+            case PDF -> extractPdf(content);
+            case DOCX -> extractWord(extractDocx(content));
+            case DOC -> extractWord(extractDoc(content));
+        };
+        document.setFileName(fileName);
+        document.setFormat(format);
+
+        log.info("文档 {} 文本提取完成，格式: {}，页数: {}，扫描页: {}，文本长度: {}", fileName, format,
+                document.getPageCount(), document.getScannedPages(), document.getTextLength());
+        return document;
+    }
+
+    /**
+     * 逐页提取PDF文本，识别扫描页并在数量允许时渲染为图片
+     */
+    private ExtractedDocument extractPdf(byte[] content) throws IOException {
+        try (PDDocument pdf = Loader.loadPDF(content)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+
+            int pageCount = pdf.getNumberOfPages();
+            List<String> pageTexts = new ArrayList<>(pageCount);
+            List<Integer> scannedPages = new ArrayList<>();
+            for (int page = 1; page <= pageCount; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                String text = normalizeText(stripper.getText(pdf));
+                if (hasUsableText(text)) {
+                    pageTexts.add(text);
+                } else {
+                    pageTexts.add("");
+                    scannedPages.add(page);
+                }
+            }
+
+            List<String> scannedPageImages = new ArrayList<>();
+            if (!scannedPages.isEmpty() && scannedPages.size() < pageCount && scannedPages.size() <= maxScannedPages) {
+                scannedPageImages = pdfPageRasterizer.rasterize(content, scannedPages, renderDpi,
+                        (pageNumber, image) -> encodePage(image));
+            }
+
+            return ExtractedDocument.builder()
+                    .pageTexts(pageTexts)
+                    .scannedPages(scannedPages)
+                    .scannedPageImages(scannedPageImages)
+                    .build();
+        }
+    }
+
+    private String extractDocx(byte[] content) throws IOException {
+        try (XWPFDocument docx = new XWPFDocument(new ByteArrayInputStream(content));
+             XWPFWordExtractor extractor = new XWPFWordExtractor(docx)) {
+            return extractor.getText();
+        }
+    }
+
+    private String extractDoc(byte[] content) throws IOException {
+        try (HWPFDocument doc = new HWPFDocument(new ByteArrayInputStream(content));
+             WordExtractor extractor = new WordExtractor(doc)) {
+            return extractor.getText();
+        }
+    }
+
+    /**
+     * Word文档没有固定分页，整体视为一页
+     */
+    private ExtractedDocument extractWord(String rawText) {
+        String text = normalizeText(rawText);
+        boolean usable = hasUsableText(text);
+        return ExtractedDocument.builder()
+                .pageTexts(List.of(usable ? text : ""))
+                .scannedPages(usable ? List.of() : List.of(1))
+                .scannedPageImages(List.of())
+                .build();
+    }
+
+    /**
+     * 将渲染后的页面编码为压缩后的base64 JPEG图片
+     */
+    private String encodePage(BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", baos);
+        byte[] compressed = ImageCompressorWithThumbnailator.compressImageBytes(baos.toByteArray(),
+                MAX_IMAGE_SIDE, MAX_IMAGE_SIDE, TARGET_IMAGE_SIZE_KB);
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(compressed);
+    }
+
+    /**
+     * 根据文件头识别文档格式，ZIP容器需结合扩展名判断是否为docx
+     */
+    private DocumentFormat detectFormat(byte[] content, String fileName) {
+        if (content.length < 8) {
+            return null;
+        }
+        if (content[0] == '%' && content[1] == 'P' && content[2] == 'D' && content[3] == 'F') {
+            return DocumentFormat.PDF;
+        }
+        String lowerName = fileName.toLowerCase();
+        if (content[0] == 'P' && content[1] == 'K' && content[2] == 3 && content[3] == 4
+                && !lowerName.endsWith(".xlsx") && !lowerName.endsWith(".pptx") && !lowerName.endsWith(".zip")) {
+            return DocumentFormat.DOCX;
+        }
+        if ((content[0] & 0xFF) == 0xD0 && (content[1] & 0xFF) == 0xCF
+                && (content[2] & 0xFF) == 0x11 && (content[3] & 0xFF) == 0xE0 && lowerName.endsWith(".doc")) {
+            return DocumentFormat.DOC;
+        }
+        return null;
+    }
+
+    /**
+     * 压缩连续空白，减少送入模型的token数
+     */
+    private String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replaceAll("[ \\t\\x0B\\f\\r\\u00A0\\u3000]+", " ")
+                .replaceAll(" ?\\n ?", "\n")
+                .replaceAll("\\n{3,}", "\n\n")
+                .trim();
+    }
+
+    /**
+     * 判断页面文本是否可用：有效字符足够且乱码占比不高
+     */
+    private boolean hasUsableText(String text) {
+        int meaningful = 0;
+        int garbled = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int type = Character.getType(c);
+            if (c == '\uFFFD' || type == Character.PRIVATE_USE || type == Character.CONTROL
+                    || type == Character.UNASSIGNED) {
+                garbled++;
+            } else {
+                meaningful++;
+            }
+        }
+        return meaningful >= minCharsPerPage && garbled <= (meaningful + garbled) * MAX_GARBLED_RATIO;
+    }
+}
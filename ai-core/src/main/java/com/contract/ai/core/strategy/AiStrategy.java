@@ -2,8 +2,11 @@ package com.contract.ai.core.strategy;
 
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
+import com.contract.ai.feign.enums.ModelCapability;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * AI策略接口
@@ -46,4 +49,15 @@ public interface AiStrategy {
     default int getPriority() {
         return 0;
     }
+
+    /**
+     * 获取模型支持的能力
+     * 路由降级时用于判断备选模型能否处理请求
+     *
+     * @param model 模型名称
+     * @return 能力集合
+     */
+    default Set<ModelCapability> getCapabilities(String model) {
+        return EnumSet.of(ModelCapability.TEXT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.contract.ai.core.strategy;
+
+import com.contract.ai.feign.dto.ChatRequest;
+import com.contract.ai.feign.dto.ChatResponse;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分组调用结果合并器
+ * 图片数量超过模型限制而拆分为多次调用时，用于将各分组的部分回答合并为一个响应
+ */
+@FunctionalInterface
+public interface PartialResponseMerger {
+
+    /**
+     * 分组响应扩展参数中记录页码范围的键，例如 "1-5"
+     */
+    String PAGE_RANGE_EXTENSION = "page_range";
+
+    /**
+     * 合并分组响应
+     * 返回响应的 usage 只需包含合并过程自身的消耗，各分组调用的消耗由调用方统一累加
+     *
+     * @param request 原始聊天请求
+     * @param partialResponses 按分组顺序排列的部分响应
+     * @return 合并后的响应
+     */
+    ChatResponse merge(ChatRequest request, List<ChatResponse> partialResponses);
+
+    /**
+     * 按分组顺序拼接各部分回答，并以页码范围作为小标题
+     */
+    static PartialResponseMerger concatenating() {
+        return (request, partialResponses) -> {
+            StringBuilder content = new StringBuilder();
+            for (ChatResponse partial : partialResponses) {
+                if (content.length() > 0) {
+                    content.append("\n\n");
+                }
+                Map<String, Object> extensions = partial.getExtensions();
+                if (extensions != null && extensions.get(PAGE_RANGE_EXTENSION) != null) {
+                    content.append("【第").append(extensions.get(PAGE_RANGE_EXTENSION)).append("页】\n");
+                }
+                if (partial.getMessages() != null && !partial.getMessages().isEmpty()
+                        && partial.getMessages().get(0).getContent() != null) {
+                    content.append(partial.getMessages().get(0).getContent());
+                }
+            }
+
+            ChatResponse merged = new ChatResponse();
+            merged.setId(partialResponses.get(0).getId());
+            merged.setModel(partialResponses.get(0).getModel());
+            merged.setMessages(List.of(new ChatResponse.Message("assistant", content.toString())));
+            return merged;
+        };
+    }
+}
@@ -2,8 +2,12 @@ package com.contract.ai.core.strategy;
 
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
+import com.contract.ai.feign.enums.ModelCapability;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * 视觉AI策略接口
  * 扩展AI策略以支持文件处理能力
@@ -36,4 +40,9 @@ public interface VisionAiStrategy extends AiStrategy {
     default boolean supportsVision() {
         return true;
     }
+
+    @Override
+    default Set<ModelCapability> getCapabilities(String model) {
+        return EnumSet.of(ModelCapability.TEXT, ModelCapability.VISION);
+    }
 }
\ No newline at end of file
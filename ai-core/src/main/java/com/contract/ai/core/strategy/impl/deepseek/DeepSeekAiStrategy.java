@@ -2,6 +2,7 @@ package com.contract.ai.core.strategy.impl.deepseek;
 
 import com.contract.ai.core.exception.AiErrorCode;
 import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.exception.AiUpstreamException;
 import com.contract.ai.core.registry.AiStrategyRegistry;
 import com.contract.ai.core.strategy.AiStrategy;
 import com.contract.ai.feign.convertor.DeepSeekConvertor;
@@ -9,6 +10,7 @@ import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
 import com.contract.ai.feign.dto.deepseek.DeepSeekChatRequest;
 import com.contract.ai.feign.dto.deepseek.DeepSeekChatResponse;
+import com.contract.ai.feign.enums.ModelCapability;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,7 +18,9 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * DeepSeek平台AI策略实现
@@ -57,6 +61,12 @@ public class DeepSeekAiStrategy implements AiStrategy {
         return enabledModels.isEmpty() ? Collections.singletonList("deepseek-chat") : enabledModels;
     }
 
+    @Override
+    public Set<ModelCapability> getCapabilities(String model) {
+        // 转换器会透传 response_format: json_object
+        return EnumSet.of(ModelCapability.TEXT, ModelCapability.JSON_MODE);
+    }
+
     @Override
     public ChatResponse handleChat(ChatRequest request) {
         log.info("Processing chat request with DeepSeek strategy for model: [{}]", request.getModel());
@@ -90,8 +100,8 @@ public class DeepSeekAiStrategy implements AiStrategy {
         } catch (Exception e) {
             log.error("Error calling DeepSeek API for model [{}]: {}", request.getModel(), e.getMessage(), e);
 
-            // 根据异常类型映射到不同的错误码
-            AiErrorCode errorCode = mapExceptionToErrorCode(e);
+            // 按错误解码器的归类映射错误码，网络异常按异常类型判断
+            AiErrorCode errorCode = AiUpstreamException.errorCodeOf(e);
             throw new AiException(errorCode, e);
         }
     }
@@ -101,37 +111,6 @@ public class DeepSeekAiStrategy implements AiStrategy {
         return enabledModels.contains(model);
     }
 
-    /**
-     * 映射异常到错误码
-     */
-    private AiErrorCode mapExceptionToErrorCode(Exception e) {
-        String errorMessage = e.getMessage().toLowerCase();
-
-        if (errorMessage.contains("400") || errorMessage.contains("bad request")) {
-            return AiErrorCode.AI_INVALID_MODEL_PARAMETER;
-        } else if (errorMessage.contains("401") || errorMessage.contains("unauthorized") ||
-                   errorMessage.contains("api key") || errorMessage.contains("invalid api key")) {
-            return AiErrorCode.AI_AUTHENTICATION_FAILED;
-        } else if (errorMessage.contains("404") || errorMessage.contains("not found")) {
-            return AiErrorCode.AI_MODEL_NOT_SUPPORTED;
-        } else if (errorMessage.contains("429") || errorMessage.contains("too many requests") ||
-                   errorMessage.contains("rate limit")) {
-            return AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED;
-        } else if (errorMessage.contains("503") || errorMessage.contains("service unavailable")) {
-            return AiErrorCode.AI_SERVICE_UNAVAILABLE;
-        } else if (errorMessage.contains("504") || errorMessage.contains("gateway timeout")) {
-            return AiErrorCode.AI_REQUEST_TIMEOUT;
-        } else if (errorMessage.contains("timeout")) {
-            return AiErrorCode.AI_READ_TIMEOUT;
-        } else if (errorMessage.contains("insufficient quota") || errorMessage.contains("quota")) {
-            return AiErrorCode.AI_QUOTA_EXCEEDED;
-        } else if (errorMessage.contains("model") && errorMessage.contains("not found")) {
-            return AiErrorCode.AI_MODEL_NOT_SUPPORTED;
-        } else {
-            return AiErrorCode.AI_SERVICE_ERROR;
-        }
-    }
-
     /**
      * 提取响应内容
      *
@@ -1,12 +1,32 @@
 package com.contract.ai.core.strategy.impl.deepseek;
 
+import com.contract.ai.core.resilience.CostLimiterRegistry;
+import com.contract.ai.core.resilience.CredentialPool;
+import com.contract.ai.core.resilience.CredentialPoolClient;
+import com.contract.ai.core.resilience.CredentialPoolRegistry;
+import com.contract.ai.core.resilience.DeadlineAwareClient;
+import com.contract.ai.core.resilience.EndpointPool;
+import com.contract.ai.core.resilience.EndpointPoolRegistry;
+import com.contract.ai.core.resilience.EndpointSelectingClient;
+import com.contract.ai.core.resilience.ProviderErrorDecoder;
+import com.contract.ai.core.resilience.ProviderRateLimiter;
+import com.contract.ai.core.resilience.ProviderRetryer;
+import com.contract.ai.core.resilience.ProviderTransports;
+import com.contract.ai.core.resilience.RateLimiterRegistry;
+import com.contract.ai.core.resilience.RetryBudget;
+import com.contract.ai.core.resilience.UpstreamCallTracker;
+import com.contract.ai.core.resilience.WeightedSemaphore;
+import feign.Client;
 import feign.Request;
 import feign.RequestInterceptor;
 import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,19 +35,78 @@ import java.util.concurrent.TimeUnit;
 public class DeepSeekConfiguration {
 
     /**
-     * DeepSeek API 认证拦截器
-     * 在请求头中添加 Authorization: Bearer {api_key}
-     *
-     * @param apiKey DeepSeek API密钥
-     * @return 认证拦截器
+     * DeepSeek API密钥池
+     * 优先使用 api-keys（逗号分隔），未配置时使用单个 api-key
      */
-    @Bean("deepSeekBearerTokenInterceptor")
-    public RequestInterceptor deepSeekBearerTokenInterceptor(@Value("${ai.strategy.deepseek.api-key:}") String apiKey) {
-        return requestTemplate -> {
-            if (apiKey != null && !apiKey.trim().isEmpty()) {
-                requestTemplate.header("Authorization", "Bearer " + apiKey.trim());
-            }
-        };
+    @Bean("deepSeekCredentialPool")
+    public CredentialPool deepSeekCredentialPool(CredentialPoolRegistry credentialPoolRegistry,
+                                                 @Value("${ai.strategy.deepseek.api-keys:}") String apiKeys,
+                                                 @Value("${ai.strategy.deepseek.api-key:}") String apiKey) {
+        return credentialPoolRegistry.create("deepseek", apiKeys, apiKey);
+    }
+
+    /**
+     * DeepSeek 入口地址池
+     * 优先使用 base-urls（逗号分隔，可包含OpenAI兼容镜像），未配置时只使用 base-url
+     */
+    @Bean("deepSeekEndpointPool")
+    public EndpointPool deepSeekEndpointPool(EndpointPoolRegistry endpointPoolRegistry,
+                                             @Value("${ai.strategy.deepseek.base-urls:}") String baseUrls,
+                                             @Value("${ai.strategy.deepseek.base-url:https://api.deepseek.com}") String baseUrl) {
+        return endpointPoolRegistry.create("deepseek", baseUrls, baseUrl);
+    }
+
+    /**
+     * DeepSeek 限流准入
+     * 按 rate-limit.rpm / rate-limit.tpm 排队调用，未配置时按响应中的 x-ratelimit-* 自动调整
+     */
+    @Bean("deepSeekRateLimiter")
+    public ProviderRateLimiter deepSeekRateLimiter(RateLimiterRegistry rateLimiterRegistry,
+                                                   @Qualifier("deepSeekCredentialPool") CredentialPool credentialPool,
+                                                   @Value("${ai.strategy.deepseek.rate-limit.rpm:0}") long rpm,
+                                                   @Value("${ai.strategy.deepseek.rate-limit.tpm:0}") long tpm) {
+        return rateLimiterRegistry.create("deepseek", rpm, tpm, credentialPool);
+    }
+
+    /**
+     * DeepSeek 成本加权准入
+     * 在途请求的估算成本（输入token + max_tokens + 图片字节）之和不超过 cost.capacity
+     */
+    @Bean("deepSeekCostLimiter")
+    public WeightedSemaphore deepSeekCostLimiter(CostLimiterRegistry costLimiterRegistry,
+                                                 @Value("${ai.strategy.deepseek.cost.capacity:200000}") long capacity) {
+        return costLimiterRegistry.create("deepseek", capacity);
+    }
+
+    /**
+     * DeepSeek Feign客户端
+     * 每次调用按延迟与在途数选择入口，并从密钥池选取密钥，在请求头中添加 Authorization: Bearer {api_key}；
+     * 底层默认使用OkHttp，调用登记到请求上下文，客户端断开或超时时可被取消，超时按请求剩余时限收紧；
+     * transport 为 jdk 时改用JDK HttpClient（HTTP/2多路复用），见 {@link ProviderTransports}；
+     * 调用前经过平台限流准入，配额不足时排队等待；在途成本超过上限时排队等待成本名额
+     */
+    @Bean("deepSeekFeignClient")
+    public Client deepSeekFeignClient(@Qualifier("deepSeekCredentialPool") CredentialPool credentialPool,
+                                      @Qualifier("deepSeekEndpointPool") EndpointPool endpointPool,
+                                      @Value("${ai.strategy.deepseek.base-url:https://api.deepseek.com}") String baseUrl,
+                                      UpstreamCallTracker upstreamCallTracker,
+                                      RateLimiterRegistry rateLimiterRegistry,
+                                      @Qualifier("deepSeekRateLimiter") ProviderRateLimiter rateLimiter,
+                                      CostLimiterRegistry costLimiterRegistry,
+                                      @Qualifier("deepSeekCostLimiter") WeightedSemaphore costLimiter,
+                                      ProviderTransports providerTransports,
+                                      @Value("${ai.strategy.deepseek.transport:okhttp}") String transport) {
+        Client httpClient = providerTransports.create("deepseek", transport, Duration.ofSeconds(60),
+                () -> new okhttp3.OkHttpClient.Builder()
+                        .connectTimeout(60, TimeUnit.SECONDS)
+                        .readTimeout(60, TimeUnit.SECONDS)
+                        .writeTimeout(60, TimeUnit.SECONDS)
+                        .eventListenerFactory(upstreamCallTracker)
+                        .build());
+        return rateLimiterRegistry.decorate(costLimiterRegistry.decorate(new DeadlineAwareClient(
+                new EndpointSelectingClient(new CredentialPoolClient(httpClient, credentialPool),
+                        endpointPool, baseUrl)), costLimiter),
+                rateLimiter);
     }
 
     /**
@@ -56,14 +135,38 @@ public class DeepSeekConfiguration {
         );
     }
 
+    /**
+     * DeepSeek 错误解码器
+     * 按HTTP状态码与 error.code 归类错误，瞬时错误交给重试器
+     */
+    @Bean("deepSeekErrorDecoder")
+    public ErrorDecoder deepSeekErrorDecoder() {
+        return new ProviderErrorDecoder("deepseek", ProviderErrorDecoder.OPENAI_COMPATIBLE_CODES);
+    }
+
+    /**
+     * DeepSeek 重试预算，所有DeepSeek请求共享
+     */
+    @Bean("deepSeekRetryBudget")
+    public RetryBudget deepSeekRetryBudget(
+            @Value("${ai.strategy.deepseek.retry-budget.ratio:0.2}") double ratio,
+            @Value("${ai.strategy.deepseek.retry-budget.min-per-second:1}") double minRetriesPerSecond,
+            @Value("${ai.strategy.deepseek.retry-budget.max-balance:10}") double maxBalance) {
+        return new RetryBudget(ratio, minRetriesPerSecond, maxBalance);
+    }
+
     /**
      * DeepSeek Feign客户端专用重试策略
-     * 3次重试，指数退避
+     * 只重试限流、过载、5xx与连接失败，指数退避加抖动，遵循 Retry-After
      */
     @Bean("deepSeekRetryer")
     @ConditionalOnMissingBean(Retryer.class)
-    public Retryer deepSeekRetryer() {
-        // 初始间隔100ms，最大间隔1s，最大重试次数3次
-        return new Retryer.Default(100, TimeUnit.SECONDS.toMillis(1), 3);
+    public Retryer deepSeekRetryer(@Value("${ai.strategy.deepseek.retry-attempts:3}") int maxAttempts,
+                                   @Value("${ai.strategy.deepseek.retry-delay:1000}") long initialBackoffMs,
+                                   @Value("${ai.strategy.deepseek.retry-max-delay:8000}") long maxBackoffMs,
+                                   @Value("${ai.strategy.deepseek.retry-max-wait:30000}") long maxRetryAfterMs,
+                                   @Qualifier("deepSeekRetryBudget") RetryBudget retryBudget) {
+        return new ProviderRetryer("deepseek", maxAttempts, initialBackoffMs, maxBackoffMs, maxRetryAfterMs,
+                retryBudget);
     }
-}
\ No newline at end of file
+}
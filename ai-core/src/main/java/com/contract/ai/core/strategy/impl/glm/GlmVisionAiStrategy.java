@@ -2,27 +2,58 @@ package com.contract.ai.core.strategy.impl.glm;
 
 import com.contract.ai.core.exception.AiErrorCode;
 import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.exception.AiUpstreamException;
 import com.contract.ai.core.registry.AiStrategyRegistry;
+import com.contract.ai.core.resilience.AiRequestContext;
 import com.contract.ai.core.service.FileStorageService;
+import com.contract.ai.core.strategy.PartialResponseMerger;
 import com.contract.ai.core.strategy.VisionAiStrategy;
+import com.contract.ai.core.util.PdfPageRasterizer;
+import com.contract.ai.core.util.RemoteFileDownloader;
+import com.contract.ai.core.util.VideoKeyframeExtractor;
 import com.contract.ai.feign.convertor.GlmConvertor;
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
 import com.contract.ai.feign.dto.glm.GlmVisionChatRequest;
 import com.contract.ai.feign.dto.glm.GlmVisionChatResponse;
+import com.contract.ai.feign.enums.ModelCapability;
+import com.contract.ai.feign.enums.ResizeEngine;
+import com.contract.ai.feign.util.DocumentImagePreprocessor;
+import com.contract.ai.feign.util.ImageBase64Validator;
 import com.contract.ai.feign.util.ImageCompressorWithThumbnailator;
+import com.contract.ai.feign.util.PageTileCompositor;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * GLM视觉模型策略实现
@@ -38,6 +69,9 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
     private final FileStorageService fileStorageService;
     private final GlmConvertor glmConvertor;
     private final AiStrategyRegistry strategyRegistry;
+    private final PdfPageRasterizer pdfPageRasterizer;
+    private final VideoKeyframeExtractor videoKeyframeExtractor;
+    private final RemoteFileDownloader remoteFileDownloader;
 
     /**
      * 支持的GLM视觉模型列表
@@ -55,6 +89,18 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
         MODEL_IMAGE_LIMITS.put("glm-4v-plus-0111", 5);
     }
 
+    /**
+     * 模型PDF页面渲染分辨率（DPI）映射，未配置的模型使用 rasterize.default-dpi
+     * 单图模型的页面通常还会被拼接缩小，无需过高分辨率
+     */
+    public static final Map<String, Integer> MODEL_RENDER_DPI = new HashMap<>();
+
+    static {
+        MODEL_RENDER_DPI.put("glm-4.1v-thinking-flash", 150);
+        MODEL_RENDER_DPI.put("glm-4v-plus-0111", 200);
+        MODEL_RENDER_DPI.put("glm-4.5v", 200);
+    }
+
     /**
      * 图片压缩限制常量
      */
@@ -63,9 +109,101 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
     private static final int TARGET_SIZE_KB = 5 * 1024; // 5MB 限制 (5*1024 KB)
 
 
-    @Value("${ai.strategy.glm.api-key:}")
-    private String apiKey;
+    /**
+     * 是否启用文档类图片预处理（灰度/二值化、裁边）
+     */
+    @Value("${ai.strategy.glm.preprocess.enabled:true}")
+    private boolean preprocessEnabled;
+
+    /**
+     * 预处理时是否进行纠偏
+     */
+    @Value("${ai.strategy.glm.preprocess.deskew:false}")
+    private boolean preprocessDeskew;
+
+    /**
+     * 图片压缩使用的缩放引擎
+     */
+    @Value("${ai.strategy.glm.resize-engine:THUMBNAILATOR}")
+    private ResizeEngine resizeEngine;
+
+    /**
+     * 图片数量超过模型限制时是否将多页拼接为网格图，可通过请求扩展参数 page_tiling 单独开启/关闭
+     */
+    @Value("${ai.strategy.glm.tiling.enabled:false}")
+    private boolean tilingEnabled;
+
+    /**
+     * 拼接后单页最小宽度（像素），低于该值时放弃拼接
+     */
+    @Value("${ai.strategy.glm.tiling.min-page-width:900}")
+    private int tilingMinPageWidth;
+
+    /**
+     * 图片数量超过模型限制时是否拆分为多组并行调用后合并结果，可通过请求扩展参数 map_reduce 单独开启/关闭
+     */
+    @Value("${ai.strategy.glm.map-reduce.enabled:false}")
+    private boolean mapReduceEnabled;
+
+    /**
+     * 分组调用的最大并发数（所有请求共享）
+     */
+    @Value("${ai.strategy.glm.map-reduce.max-concurrency:3}")
+    private int mapReduceMaxConcurrency;
+
+    /**
+     * 分组结果合并方式：REDUCE（再调用一次模型汇总）/ CONCAT（按页码顺序拼接）
+     */
+    @Value("${ai.strategy.glm.map-reduce.merge-mode:REDUCE}")
+    private String mapReduceMergeMode;
+
+    /**
+     * 是否将 file_url 中的PDF在本地渲染为页面图片后按base64图片处理
+     */
+    @Value("${ai.strategy.glm.rasterize.enabled:true}")
+    private boolean rasterizeEnabled;
+
+    @Value("${ai.strategy.glm.rasterize.default-dpi:150}")
+    private int rasterizeDefaultDpi;
+
+    /**
+     * 单次请求最多渲染的页数，超过时仍以文件URL方式交给模型
+     */
+    @Value("${ai.strategy.glm.rasterize.max-pages:50}")
+    private int rasterizeMaxPages;
+
+    @Value("${ai.strategy.glm.rasterize.max-file-size-mb:50}")
+    private int rasterizeMaxFileSizeMb;
+
+    @Value("${ai.strategy.glm.rasterize.download-timeout-ms:30000}")
+    private int rasterizeDownloadTimeoutMs;
+
+    /**
+     * 是否将MP4视频在本地提取关键帧后按base64图片处理，而非上传整个视频
+     */
+    @Value("${ai.strategy.glm.video.enabled:true}")
+    private boolean videoKeyframeEnabled;
+
+    @Value("${ai.strategy.glm.video.max-file-size-mb:200}")
+    private int videoMaxFileSizeMb;
+
+    @Value("${ai.strategy.glm.video.download-timeout-ms:60000}")
+    private int videoDownloadTimeoutMs;
 
+    /**
+     * 自定义分组结果合并器，存在时优先于 merge-mode 配置
+     */
+    private PartialResponseMerger partialResponseMerger;
+
+    /**
+     * 分组调用线程池，首次使用时创建
+     */
+    private volatile ExecutorService mapReduceExecutor;
+
+    @Autowired(required = false)
+    public void setPartialResponseMerger(PartialResponseMerger partialResponseMerger) {
+        this.partialResponseMerger = partialResponseMerger;
+    }
 
 
     @PostConstruct
@@ -77,6 +215,13 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
         return this;
     }
 
+    @PreDestroy
+    public void shutdownMapReduceExecutor() {
+        if (mapReduceExecutor != null) {
+            mapReduceExecutor.shutdownNow();
+        }
+    }
+
 
     @Override
     public List<String> getModel() {
@@ -93,6 +238,12 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
         return false;
     }
 
+    @Override
+    public Set<ModelCapability> getCapabilities(String model) {
+        // file_url 中的文档在本地渲染为图片或提取文本，所有GLM视觉模型均可处理
+        return EnumSet.of(ModelCapability.TEXT, ModelCapability.VISION, ModelCapability.FILE_INPUT);
+    }
+
     @Override
     public ChatResponse handleChat(ChatRequest request) {
         throw new UnsupportedOperationException("GLM视觉模型需要使用handleChatWithVision方法以支持文件参数");
@@ -103,19 +254,30 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
         try {
             log.info("处理GLM视觉模型请求，模型: {}", request.getModel());
 
-            // 验证图片数量限制
-            validateImageLimit(request.getModel(), files != null ? files.length : 0);
+            // 未开启多页拼接与分组调用时先按上传的图片数验证限制，避免无谓的压缩；视频展开为关键帧后再按实际图片数验证
+            boolean overLimitAllowed = isOverLimitAllowed(request);
+            if (!overLimitAllowed) {
+                validateImageLimit(request.getModel(), countImageFiles(files));
+            }
 
             // 压缩并存储上传的文件
-            Map<String, String> fileContents = compressAndStoreFiles(files);
+            Map<String, String> fileContents = compressAndStoreFiles(files,
+                    resolveVideoFrameBudget(request.getModel(), files));
             log.info("成功压缩并存储{}个文件", fileContents.size());
 
+            // 图片数量超过限制时改为图片项，按base64图片路径拼接或分组调用
+            if (overLimitAllowed && fileContents.size() > resolveImageLimit(request.getModel())) {
+                ChatRequest inlined = inlineUploadedImages(request, fileContents);
+                return handleChatWithVision(inlined, collectImages(inlined));
+            }
+            validateImageLimit(request.getModel(), fileContents.size());
+
             // 转换请求格式
             GlmVisionChatRequest glmRequest = glmConvertor.convertToGlmVisionRequest(request, fileContents);
             log.info("转换请求格式完成");
 
             // 调用GLM API
-            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions("Bearer " + getApiKey(), glmRequest);
+            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions(glmRequest);
             log.info("GLM API调用成功，响应ID: {}", glmResponse.getId());
 
             // 转换响应格式
@@ -126,7 +288,7 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
 
         } catch (Exception e) {
             log.error("GLM视觉模型处理失败", e);
-            throw new AiException(AiErrorCode.AI_SERVICE_ERROR, e);
+            throw new AiException(AiUpstreamException.errorCodeOf(e), e);
         }
     }
 
@@ -147,23 +309,34 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
                 throw new IllegalArgumentException("上传文件不能为空");
             }
 
-            // 验证图片数量限制
-            validateImageLimit(request.getModel(), files.length);
+            // 未开启多页拼接与分组调用时先按上传的图片数验证限制，避免无谓的压缩；视频展开为关键帧后再按实际图片数验证
+            boolean overLimitAllowed = isOverLimitAllowed(request);
+            if (!overLimitAllowed) {
+                validateImageLimit(request.getModel(), countImageFiles(files));
+            }
 
             // 压缩文件并转换为base64格式
-            Map<String, String> base64ImageMap = compressAndConvertFilesToBase64(files);
+            Map<String, String> base64ImageMap = compressAndConvertFilesToBase64(files,
+                    resolveVideoFrameBudget(request.getModel(), files));
             log.info("成功压缩并转换{}个文件为base64格式", base64ImageMap.size());
 
             if (base64ImageMap.isEmpty()) {
                 throw new AiException(AiErrorCode.AI_MISSING_REQUIRED_PARAMETER, "没有成功转换的图片文件，请检查文件格式和大小");
             }
 
+            // 图片数量超过限制时改为图片项，按base64图片路径拼接或分组调用
+            if (overLimitAllowed && base64ImageMap.size() > resolveImageLimit(request.getModel())) {
+                ChatRequest inlined = inlineUploadedImages(request, base64ImageMap);
+                return handleChatWithVision(inlined, collectImages(inlined));
+            }
+            validateImageLimit(request.getModel(), base64ImageMap.size());
+
             // 转换请求格式
             GlmVisionChatRequest glmRequest = glmConvertor.convertToGlmVisionRequest(request, base64ImageMap);
             log.info("转换请求格式完成");
 
             // 调用GLM API
-            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions("Bearer " + getApiKey(), glmRequest);
+            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions(glmRequest);
             log.info("GLM API调用成功，响应ID: {}", glmResponse.getId());
 
             // 转换响应格式
@@ -177,7 +350,7 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
             throw new AiException(AiErrorCode.AI_MISSING_REQUIRED_PARAMETER, e.getMessage());
         } catch (Exception e) {
             log.error("GLM视觉模型处理失败（base64编码）", e);
-            throw new AiException(AiErrorCode.AI_SERVICE_ERROR, e);
+            throw new AiException(AiUpstreamException.errorCodeOf(e), e);
         }
     }
 
@@ -190,6 +363,14 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
      * @return 聊天响应
      */
     public ChatResponse handleChatWithFiles(ChatRequest request, Map<String, String> fileMap) {
+        // PDF在本地并行渲染为页面图片、MP4提取关键帧，改走base64图片路径
+        if (rasterizeEnabled || videoKeyframeEnabled) {
+            ChatRequest converted = convertFilesToImages(request);
+            if (converted != null) {
+                return handleChatWithVision(converted, collectImages(converted));
+            }
+        }
+
         try {
             log.info("处理GLM文件URL请求，模型: {}", request.getModel());
 
@@ -204,7 +385,7 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
             log.info("转换请求格式完成");
 
             // 调用GLM API
-            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions("Bearer " + getApiKey(), glmRequest);
+            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions(glmRequest);
             log.info("GLM API调用成功，响应ID: {}", glmResponse.getId());
 
             // 转换响应格式
@@ -215,7 +396,7 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
 
         } catch (Exception e) {
             log.error("GLM文件处理失败", e);
-            throw new AiException(AiErrorCode.AI_SERVICE_ERROR, e);
+            throw new AiException(AiUpstreamException.errorCodeOf(e), e);
         }
     }
 
@@ -228,6 +409,21 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
                 throw new IllegalArgumentException("base64图片数据不能为空");
             }
 
+            // 图片数量超过限制时尝试多页拼接，拼接结果写入请求副本，调用方的请求（回退、幂等重放时复用）保持不变
+            int imageLimit = resolveImageLimit(request.getModel());
+            if (imageMap.size() > imageLimit && isPageTilingEnabled(request)) {
+                ChatRequest tiled = applyPageTiling(request, imageLimit);
+                if (tiled != null) {
+                    request = tiled;
+                    imageMap = collectImages(tiled);
+                }
+            }
+
+            // 仍超过限制时按限制数量分组并行调用
+            if (imageMap.size() > imageLimit && isMapReduceEnabled(request)) {
+                return handleMapReduce(request, imageLimit);
+            }
+
             // 验证图片数量限制
             validateImageLimit(request.getModel(), imageMap.size());
 
@@ -238,7 +434,7 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
             log.info("转换请求格式完成");
 
             // 调用GLM API
-            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions("Bearer " + getApiKey(), glmRequest);
+            GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions(glmRequest);
             log.info("GLM API调用成功，响应ID: {}", glmResponse.getId());
 
             // 转换响应格式
@@ -249,7 +445,7 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
 
         } catch (Exception e) {
             log.error("GLM视觉模型处理失败（base64图片）", e);
-            throw new AiException(AiErrorCode.AI_SERVICE_ERROR, e);
+            throw new AiException(AiUpstreamException.errorCodeOf(e), e);
         }
     }
 
@@ -260,11 +456,7 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
      * @param imageCount 图片数量
      */
     private void validateImageLimit(String model, int imageCount) {
-        Integer limit = MODEL_IMAGE_LIMITS.get(model);
-        if (limit == null) {
-            log.warn("未找到模型 {} 的图片数量限制配置，使用默认限制1张", model);
-            limit = 1; // 默认限制
-        }
+        int limit = resolveImageLimit(model);
 
         if (imageCount > limit) {
             String errorMessage = String.format("模型 %s 仅支持最多 %d 张图片，当前上传了 %d 张图片", model, limit, imageCount);
@@ -276,13 +468,664 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
     }
 
     /**
-     * 获取GLM API密钥
+     * 获取模型的图片数量限制
+     *
+     * @param model 模型名称
+     * @return 单次请求允许的最大图片数量
+     */
+    private int resolveImageLimit(String model) {
+        Integer limit = MODEL_IMAGE_LIMITS.get(model);
+        if (limit == null) {
+            log.warn("未找到模型 {} 的图片数量限制配置，使用默认限制1张", model);
+            limit = 1; // 默认限制
+        }
+        return limit;
+    }
+
+    /**
+     * 是否启用多页拼接，请求扩展参数 page_tiling 优先于全局配置
+     */
+    private boolean isPageTilingEnabled(ChatRequest request) {
+        if (request.getExtensions() != null && request.getExtensions().get("page_tiling") != null) {
+            return Boolean.parseBoolean(String.valueOf(request.getExtensions().get("page_tiling")));
+        }
+        return tilingEnabled;
+    }
+
+    /**
+     * 图片数量超过模型限制时是否可由多页拼接或分组调用处理
+     */
+    private boolean isOverLimitAllowed(ChatRequest request) {
+        return isPageTilingEnabled(request) || isMapReduceEnabled(request);
+    }
+
+    /**
+     * 将请求中的全部图片拼接为不超过模型限制数量的网格图
+     * 第一张图片所在位置替换为页码位置说明与拼接图，其余图片项移除
+     *
+     * @param request 聊天请求，不被修改
+     * @param imageLimit 模型图片数量限制
+     * @return 替换为拼接图的请求副本；无法拼接时返回null
+     */
+    private ChatRequest applyPageTiling(ChatRequest request, int imageLimit) {
+        long startTime = System.currentTimeMillis();
+
+        List<byte[]> pages = new ArrayList<>();
+        for (ChatRequest.Message message : request.getMessages()) {
+            if (!message.isMultimodal()) {
+                continue;
+            }
+            for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                if ("image_url".equals(item.getType()) && item.getImage_url() != null) {
+                    byte[] imageBytes = ImageBase64Validator.decodeBase64Image(item.getImage_url().getUrl());
+                    if (imageBytes == null) {
+                        log.warn("第{}张图片无法解码，放弃多页拼接", pages.size() + 1);
+                        return null;
+                    }
+                    pages.add(imageBytes);
+                }
+            }
+        }
+
+        List<PageTileCompositor.Tile> tiles;
+        try {
+            tiles = PageTileCompositor.compose(pages, imageLimit, PageTileCompositor.Options.defaults()
+                    .maxWidth(MAX_WIDTH)
+                    .maxHeight(MAX_HEIGHT)
+                    .maxBytes(TARGET_SIZE_KB * 1024L)
+                    .minPageWidth(tilingMinPageWidth)
+                    .resizeEngine(resizeEngine));
+        } catch (IOException | RuntimeException e) {
+            log.warn("多页拼接失败，按原图处理: {}", e.getMessage());
+            return null;
+        }
+        if (tiles.isEmpty()) {
+            return null;
+        }
+
+        List<ChatRequest.Message.ContentItem> replacement = new ArrayList<>();
+        replacement.add(ChatRequest.Message.ContentItem.text(PageTileCompositor.describe(tiles)));
+        for (PageTileCompositor.Tile tile : tiles) {
+            replacement.add(ChatRequest.Message.ContentItem.imageUrl(tile.toDataUrl()));
+        }
+        log.info("多页拼接完成: {} 页 -> {} 张拼接图, 耗时 {} ms", pages.size(), tiles.size(),
+                System.currentTimeMillis() - startTime);
+        return copyWithMessages(request, replaceImageItems(request.getMessages(), replacement));
+    }
+
+    /**
+     * 将请求中的PDF与MP4文件在本地转换为图片，并把 file_url 项改写为图片项：
+     * PDF并行渲染为页面图片，支持请求扩展参数 page_range（如 "1-3,5"）只发送相关页面；
+     * MP4提取去重后的关键帧，帧数不超过模型剩余的图片数量。页数与帧数连同请求中已有的图片一起计入模型的图片数量限制
+     *
+     * @param request 聊天请求，不被修改
+     * @return 文件替换为图片项的请求副本；存在其他类型文件、图片数超限或转换失败时返回null，保持文件URL方式
+     */
+    private ChatRequest convertFilesToImages(ChatRequest request) {
+        long startTime = System.currentTimeMillis();
+        String pageRange = request.getExtensions() != null && request.getExtensions().get("page_range") != null
+                ? String.valueOf(request.getExtensions().get("page_range")) : null;
+        float dpi = MODEL_RENDER_DPI.getOrDefault(request.getModel(), rasterizeDefaultDpi);
+        int imageLimit = resolveImageLimit(request.getModel());
+        boolean overLimitAllowed = isOverLimitAllowed(request);
+
+        Map<String, List<ChatRequest.Message.ContentItem>> replacements = new LinkedHashMap<>();
+        // 请求中已有的图片项与展开后的页面、关键帧一起发送
+        int totalImages = collectImages(request).size();
+        for (ChatRequest.Message message : request.getMessages()) {
+            if (!message.isMultimodal()) {
+                continue;
+            }
+            for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                if (!"file_url".equals(item.getType()) || item.getFile_url() == null
+                        || replacements.containsKey(item.getFile_url().getUrl())) {
+                    continue;
+                }
+                String fileUrl = item.getFile_url().getUrl();
+                String fileName = RemoteFileDownloader.extractFileName(fileUrl);
+                boolean videoHint = fileName.toLowerCase().endsWith(".mp4");
+                if (videoHint ? !videoKeyframeEnabled : !rasterizeEnabled) {
+                    return null;
+                }
+
+                byte[] content;
+                try {
+                    content = videoHint
+                            ? remoteFileDownloader.download(fileUrl, videoMaxFileSizeMb * 1024L * 1024L,
+                                    videoDownloadTimeoutMs)
+                            : remoteFileDownloader.download(fileUrl, rasterizeMaxFileSizeMb * 1024L * 1024L,
+                                    rasterizeDownloadTimeoutMs);
+                } catch (IOException e) {
+                    log.warn("文件下载失败，保持文件URL方式: {}, 原因: {}", fileUrl, e.getMessage());
+                    return null;
+                }
+
+                List<ChatRequest.Message.ContentItem> imageItems = new ArrayList<>();
+                if (rasterizeEnabled && isPdf(content)) {
+                    List<Integer> pages;
+                    try {
+                        pages = PdfPageRasterizer.parsePageRange(pageRange, pdfPageRasterizer.getPageCount(content));
+                    } catch (IOException e) {
+                        log.warn("PDF解析失败，保持文件URL方式: {}, 原因: {}", fileName, e.getMessage());
+                        return null;
+                    } catch (IllegalArgumentException e) {
+                        throw new AiException(AiErrorCode.AI_INVALID_MODEL_PARAMETER, e.getMessage());
+                    }
+
+                    totalImages += pages.size();
+                    if (totalImages > rasterizeMaxPages || (totalImages > imageLimit && !overLimitAllowed)) {
+                        log.info("待渲染页数 {} 超过限制（最多 {} 页，模型单次 {} 张图片），保持文件URL方式",
+                                totalImages, rasterizeMaxPages, imageLimit);
+                        return null;
+                    }
+
+                    List<String> pageImages;
+                    try {
+                        pageImages = pdfPageRasterizer.rasterize(content, pages, dpi,
+                                (pageNumber, image) -> encodeRenderedPage(fileName, pageNumber, image));
+                    } catch (IOException e) {
+                        log.warn("PDF页面渲染失败，保持文件URL方式: {}, 原因: {}", fileName, e.getMessage());
+                        return null;
+                    }
+
+                    imageItems.add(ChatRequest.Message.ContentItem.text(
+                            String.format("以下为《%s》第%s页", fileName, describePages(pages))));
+                    pageImages.forEach(pageImage -> imageItems.add(ChatRequest.Message.ContentItem.imageUrl(pageImage)));
+                } else if (videoKeyframeEnabled && isMp4(content)) {
+                    int remaining = imageLimit - totalImages;
+                    if (remaining <= 0) {
+                        log.info("模型单次 {} 张图片已用完，视频 {} 保持文件URL方式", imageLimit, fileName);
+                        return null;
+                    }
+
+                    List<String> timestamps = new ArrayList<>();
+                    List<String> frameImages;
+                    try {
+                        frameImages = videoKeyframeExtractor.extract(content, remaining, (timestampMs, frame) -> {
+                            timestamps.add(formatTimestamp(timestampMs));
+                            return encodeVideoFrame(frame);
+                        });
+                    } catch (IOException e) {
+                        log.warn("视频关键帧提取失败，保持文件URL方式: {}, 原因: {}", fileName, e.getMessage());
+                        return null;
+                    }
+                    if (frameImages.isEmpty()) {
+                        return null;
+                    }
+                    totalImages += frameImages.size();
+
+                    imageItems.add(ChatRequest.Message.ContentItem.text(
+                            String.format("以下为视频《%s》的关键帧，时间点依次为：%s", fileName, String.join("、", timestamps))));
+                    frameImages.forEach(frameImage -> imageItems.add(ChatRequest.Message.ContentItem.imageUrl(frameImage)));
+                } else {
+                    log.info("文件 {} 不是可在本地转换的PDF/MP4，保持文件URL方式", fileName);
+                    return null;
+                }
+                replacements.put(fileUrl, imageItems);
+            }
+        }
+        if (replacements.isEmpty()) {
+            return null;
+        }
+
+        List<ChatRequest.Message> rewrittenMessages = new ArrayList<>(request.getMessages().size());
+        for (ChatRequest.Message message : request.getMessages()) {
+            if (!message.isMultimodal()) {
+                rewrittenMessages.add(message);
+                continue;
+            }
+            List<ChatRequest.Message.ContentItem> items = new ArrayList<>();
+            for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                if ("file_url".equals(item.getType()) && item.getFile_url() != null) {
+                    List<ChatRequest.Message.ContentItem> imageItems = replacements.remove(item.getFile_url().getUrl());
+                    if (imageItems != null) {
+                        items.addAll(imageItems);
+                    }
+                } else {
+                    items.add(item);
+                }
+            }
+            rewrittenMessages.add(ChatRequest.Message.builder()
+                    .role(message.getRole())
+                    .content(items)
+                    .extensions(message.getExtensions())
+                    .build());
+        }
+        log.info("文件本地转换完成: 共 {} 张图片, 耗时 {} ms", totalImages, System.currentTimeMillis() - startTime);
+        return copyWithMessages(request, rewrittenMessages);
+    }
+
+    /**
+     * 收集请求消息中的图片项
+     *
+     * @param request 聊天请求
+     * @return 图片文件名到base64数据的映射，按出现顺序
+     */
+    private Map<String, String> collectImages(ChatRequest request) {
+        Map<String, String> imageMap = new LinkedHashMap<>();
+        for (ChatRequest.Message message : request.getMessages()) {
+            if (!message.isMultimodal()) {
+                continue;
+            }
+            for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                if ("image_url".equals(item.getType()) && item.getImage_url() != null) {
+                    imageMap.put("image_" + (imageMap.size() + 1) + ".jpg", item.getImage_url().getUrl());
+                }
+            }
+        }
+        return imageMap;
+    }
+
+    /**
+     * 将上传文件转换得到的图片作为图片项写入引用它们的消息（消息扩展参数 files），
+     * 使上传图片与 image_url 图片走相同的拼接、分组处理
+     *
+     * @param request 聊天请求，不被修改
+     * @param uploadedImages 上传文件名到base64数据的映射
+     * @return 图片写入消息内容后的请求副本
+     */
+    @SuppressWarnings("unchecked")
+    private ChatRequest inlineUploadedImages(ChatRequest request, Map<String, String> uploadedImages) {
+        List<ChatRequest.Message> rewrittenMessages = new ArrayList<>(request.getMessages().size());
+        for (ChatRequest.Message message : request.getMessages()) {
+            if (message.getExtensions() == null || !(message.getExtensions().get("files") instanceof List<?> files)) {
+                rewrittenMessages.add(message);
+                continue;
+            }
+            List<ChatRequest.Message.ContentItem> items = new ArrayList<>();
+            if (message.isMultimodal()) {
+                items.addAll(message.getMultimodalContent());
+            } else if (message.getTextContent() != null && !message.getTextContent().isBlank()) {
+                items.add(ChatRequest.Message.ContentItem.text(message.getTextContent()));
+            }
+            for (Object file : files) {
+                Object name = file instanceof Map ? ((Map<String, Object>) file).get("name") : file;
+                String image = uploadedImages.get(String.valueOf(name));
+                if (image != null) {
+                    items.add(ChatRequest.Message.ContentItem.imageUrl(image));
+                }
+            }
+            Map<String, Object> extensions = new HashMap<>(message.getExtensions());
+            extensions.remove("files");
+            rewrittenMessages.add(ChatRequest.Message.builder()
+                    .role(message.getRole())
+                    .content(items)
+                    .extensions(extensions.isEmpty() ? null : extensions)
+                    .build());
+        }
+        return copyWithMessages(request, rewrittenMessages);
+    }
+
+    /**
+     * 渲染后的页面经预处理、压缩后转换为base64图片，在渲染线程中逐页执行
+     */
+    private String encodeRenderedPage(String fileName, int pageNumber, BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", baos);
+
+        DocumentImagePreprocessor.PreprocessResult prepared =
+                preprocessImage(baos.toByteArray(), fileName + "#" + pageNumber);
+        byte[] compressedBytes = ImageCompressorWithThumbnailator.compressImageBytes(
+                prepared.getBytes(), MAX_WIDTH, MAX_HEIGHT, TARGET_SIZE_KB, resizeEngine);
+        String mimeType = prepared.isProcessed() ? prepared.getMimeType() : "image/jpeg";
+        return String.format("data:%s;base64,%s", mimeType, Base64.getEncoder().encodeToString(compressedBytes));
+    }
+
+    /**
+     * 将页码列表描述为区间形式，例如 [1,2,3,5] -> "1-3,5"
+     */
+    private String describePages(List<Integer> pages) {
+        StringBuilder description = new StringBuilder();
+        int i = 0;
+        while (i < pages.size()) {
+            int j = i;
+            while (j + 1 < pages.size() && pages.get(j + 1) == pages.get(j) + 1) {
+                j++;
+            }
+            if (description.length() > 0) {
+                description.append(',');
+            }
+            description.append(pages.get(i));
+            if (j > i) {
+                description.append('-').append(pages.get(j));
+            }
+            i = j + 1;
+        }
+        return description.toString();
+    }
+
+    private boolean isPdf(byte[] content) {
+        return content.length > 4 && content[0] == '%' && content[1] == 'P' && content[2] == 'D' && content[3] == 'F';
+    }
+
+    /**
+     * MP4/MOV 容器在第4字节起为 ftyp 盒
+     */
+    private boolean isMp4(byte[] content) {
+        return content.length > 12 && content[4] == 'f' && content[5] == 't' && content[6] == 'y' && content[7] == 'p';
+    }
+
+    /**
+     * 视频帧压缩后转换为base64图片（视频画面不做扫描件预处理）
+     */
+    private String encodeVideoFrame(BufferedImage frame) throws IOException {
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(compressVideoFrame(frame));
+    }
+
+    private byte[] compressVideoFrame(BufferedImage frame) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(frame, "jpeg", baos);
+        return ImageCompressorWithThumbnailator.compressImageBytes(baos.toByteArray(), MAX_WIDTH, MAX_HEIGHT,
+                TARGET_SIZE_KB, resizeEngine);
+    }
+
+    /**
+     * 毫秒时间格式化为 分:秒，例如 75000 -> "1:15"
+     */
+    private String formatTimestamp(long timestampMs) {
+        long seconds = timestampMs / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    /**
+     * 替换消息中的图片项：第一张图片所在位置插入替换内容，其余图片项移除
+     *
+     * @param messages 原消息列表
+     * @param replacement 替换内容
+     * @return 新的消息列表，原消息不被修改
+     */
+    private List<ChatRequest.Message> replaceImageItems(List<ChatRequest.Message> messages,
+                                                        List<ChatRequest.Message.ContentItem> replacement) {
+        List<ChatRequest.Message> rewrittenMessages = new ArrayList<>(messages.size());
+        boolean replaced = false;
+        for (ChatRequest.Message message : messages) {
+            if (!message.isMultimodal()) {
+                rewrittenMessages.add(message);
+                continue;
+            }
+            List<ChatRequest.Message.ContentItem> items = new ArrayList<>();
+            for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                if (!"image_url".equals(item.getType())) {
+                    items.add(item);
+                } else if (!replaced) {
+                    items.addAll(replacement);
+                    replaced = true;
+                }
+            }
+            rewrittenMessages.add(ChatRequest.Message.builder()
+                    .role(message.getRole())
+                    .content(items)
+                    .extensions(message.getExtensions())
+                    .build());
+        }
+        return rewrittenMessages;
+    }
+
+    /**
+     * 是否启用分组并行调用，请求扩展参数 map_reduce 优先于全局配置
+     */
+    private boolean isMapReduceEnabled(ChatRequest request) {
+        if (request.getExtensions() != null && request.getExtensions().get("map_reduce") != null) {
+            return Boolean.parseBoolean(String.valueOf(request.getExtensions().get("map_reduce")));
+        }
+        return mapReduceEnabled;
+    }
+
+    /**
+     * 将图片按模型限制数量分组，各组并行调用后合并为一个响应
+     *
+     * @param request 聊天请求
+     * @param imageLimit 模型图片数量限制
+     * @return 合并后的响应，usage 为全部调用消耗之和
      */
-    private String getApiKey() {
-        if (apiKey == null || apiKey.trim().isEmpty()) {
-            throw new AiException(AiErrorCode.AI_AUTHENTICATION_FAILED, "GLM API密钥未配置，请设置GLM_API_KEY环境变量");
+    private ChatResponse handleMapReduce(ChatRequest request, int imageLimit) {
+        long startTime = System.currentTimeMillis();
+
+        List<String> imageUrls = new ArrayList<>();
+        for (ChatRequest.Message message : request.getMessages()) {
+            if (!message.isMultimodal()) {
+                continue;
+            }
+            for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                if ("image_url".equals(item.getType()) && item.getImage_url() != null) {
+                    imageUrls.add(item.getImage_url().getUrl());
+                }
+            }
+        }
+
+        int groupCount = (imageUrls.size() + imageLimit - 1) / imageLimit;
+        log.info("图片数量 {} 超过模型限制 {}，拆分为 {} 组并行调用", imageUrls.size(), imageLimit, groupCount);
+
+        // 各组在当前请求的子上下文中调用：请求取消时分组调用一并取消，任一组失败时取消其余分组；
+        // 子上下文沿用请求的截止时间，分组调用同样受调用方时限约束
+        AiRequestContext parent = AiRequestContext.current();
+        List<AiRequestContext> groupContexts = new ArrayList<>(groupCount);
+        List<CompletableFuture<ChatResponse>> futures = new ArrayList<>(groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            int from = group * imageLimit;
+            int to = Math.min(from + imageLimit, imageUrls.size());
+            String pageRange = to - from == 1 ? String.valueOf(from + 1) : (from + 1) + "-" + to;
+
+            List<ChatRequest.Message.ContentItem> replacement = new ArrayList<>();
+            replacement.add(ChatRequest.Message.ContentItem.text(
+                    String.format("以下为第%s页（共%d页），请仅根据这些页面作答。", pageRange, imageUrls.size())));
+            for (String imageUrl : imageUrls.subList(from, to)) {
+                replacement.add(ChatRequest.Message.ContentItem.imageUrl(imageUrl));
+            }
+            ChatRequest groupRequest = copyWithMessages(request, replaceImageItems(request.getMessages(), replacement));
+
+            AiRequestContext groupContext = parent != null ? parent.child() : new AiRequestContext(request.getModel());
+            groupContexts.add(groupContext);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try (AiRequestContext.Scope ignored = groupContext.bind()) {
+                    if (groupContext.isCancelled()) {
+                        throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT,
+                                "分组调用已取消: " + groupContext.getCancelReason());
+                    }
+                    if (groupContext.isExpired()) {
+                        throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "请求已超过调用方设定的截止时间，未调用分组");
+                    }
+                    ChatResponse partial = callGlm(groupRequest);
+                    Map<String, Object> extensions = new HashMap<>();
+                    if (partial.getExtensions() != null) {
+                        extensions.putAll(partial.getExtensions());
+                    }
+                    extensions.put(PartialResponseMerger.PAGE_RANGE_EXTENSION, pageRange);
+                    partial.setExtensions(extensions);
+                    return partial;
+                }
+            }, getMapReduceExecutor()));
+        }
+
+        List<ChatResponse> partialResponses = awaitGroups(parent, futures, groupContexts);
+        log.info("{} 组分组调用完成，耗时 {} ms", groupCount, System.currentTimeMillis() - startTime);
+
+        ChatResponse merged = resolvePartialResponseMerger().merge(request, partialResponses);
+
+        List<ChatResponse.Usage> usages = new ArrayList<>();
+        for (ChatResponse partial : partialResponses) {
+            usages.add(partial.getUsage());
         }
-        return apiKey;
+        if (partialResponses.stream().noneMatch(partial -> partial == merged)) {
+            usages.add(merged.getUsage());
+        }
+        merged.setUsage(sumUsage(usages));
+
+        Map<String, Object> extensions = new HashMap<>();
+        if (merged.getExtensions() != null) {
+            extensions.putAll(merged.getExtensions());
+        }
+        extensions.put("map_reduce_groups", groupCount);
+        merged.setExtensions(extensions);
+
+        log.info("GLM视觉模型 [{}] 分组合并完成，共 {} 组，总耗时 {} ms，回答内容: [{}]", request.getModel(), groupCount,
+                System.currentTimeMillis() - startTime, extractResponseContent(merged));
+        return merged;
+    }
+
+    /**
+     * 按分组顺序等待各组结果，等待可被中断，请求带有截止时间时最多等到截止时间
+     * 任一组失败、等待被中断（请求取消）或超过截止时间时取消全部分组的子上下文，在途的上游调用随之取消
+     *
+     * @param parent        当前请求的上下文，未绑定时为null
+     * @param futures       各组调用
+     * @param groupContexts 各组的请求上下文
+     * @return 各组响应，顺序与分组一致
+     */
+    private List<ChatResponse> awaitGroups(AiRequestContext parent, List<CompletableFuture<ChatResponse>> futures,
+                                           List<AiRequestContext> groupContexts) {
+        List<ChatResponse> partialResponses = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<ChatResponse> future : futures) {
+                Long remaining = parent != null ? parent.remainingMillis() : null;
+                partialResponses.add(remaining != null
+                        ? future.get(Math.max(0, remaining), TimeUnit.MILLISECONDS)
+                        : future.get());
+            }
+            return partialResponses;
+        } catch (TimeoutException e) {
+            cancelGroups(futures, groupContexts, AiRequestContext.REASON_DEADLINE);
+            throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "分组调用超过调用方设定的截止时间");
+        } catch (InterruptedException e) {
+            cancelGroups(futures, groupContexts, "interrupted");
+            Thread.currentThread().interrupt();
+            throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "等待分组调用结果时被中断");
+        } catch (ExecutionException e) {
+            cancelGroups(futures, groupContexts, "map_reduce_failed");
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new AiException(AiErrorCode.AI_SERVICE_ERROR, "分组调用失败", cause);
+        }
+    }
+
+    private void cancelGroups(List<CompletableFuture<ChatResponse>> futures, List<AiRequestContext> groupContexts,
+                              String reason) {
+        groupContexts.forEach(context -> context.cancel(reason));
+        futures.forEach(future -> future.cancel(true));
+    }
+
+    /**
+     * 获取分组结果合并器：优先使用自定义合并器，其次按 merge-mode 配置选择
+     */
+    private PartialResponseMerger resolvePartialResponseMerger() {
+        if (partialResponseMerger != null) {
+            return partialResponseMerger;
+        }
+        if ("CONCAT".equalsIgnoreCase(mapReduceMergeMode)) {
+            return PartialResponseMerger.concatenating();
+        }
+        return this::reduceByModel;
+    }
+
+    /**
+     * 再调用一次模型，将各分组的部分回答汇总为完整回答
+     */
+    private ChatResponse reduceByModel(ChatRequest request, List<ChatResponse> partialResponses) {
+        List<ChatRequest.Message> reduceMessages = new ArrayList<>();
+        StringBuilder question = new StringBuilder();
+        for (ChatRequest.Message message : request.getMessages()) {
+            String text = message.getTextContent();
+            if (text == null || text.trim().isEmpty()) {
+                continue;
+            }
+            if ("system".equals(message.getRole())) {
+                reduceMessages.add(ChatRequest.Message.textMessage("system", text));
+            } else if ("user".equals(message.getRole())) {
+                question.append(text).append('\n');
+            }
+        }
+
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("原始问题：\n").append(question)
+                .append("\n该文档页数较多，已按页分组分别作答。请将以下各组的部分回答综合为一份完整回答，")
+                .append("合并重复内容，保留页码引用，不要提及分组过程。\n");
+        for (ChatResponse partial : partialResponses) {
+            prompt.append("\n【第").append(partial.getExtensions().get(PartialResponseMerger.PAGE_RANGE_EXTENSION))
+                    .append("页】\n").append(partial.getMessages().get(0).getContent()).append('\n');
+        }
+        reduceMessages.add(ChatRequest.Message.textMessage("user", prompt.toString()));
+
+        return callGlm(copyWithMessages(request, reduceMessages));
+    }
+
+    /**
+     * 调用GLM接口并转换响应
+     */
+    private ChatResponse callGlm(ChatRequest request) {
+        GlmVisionChatRequest glmRequest = glmConvertor.convertToGlmVisionRequest(request, Map.of());
+        GlmVisionChatResponse glmResponse = glmVisionClient.chatCompletions(glmRequest);
+        log.info("GLM API调用成功，响应ID: {}", glmResponse.getId());
+        return convertToChatResponse(glmResponse);
+    }
+
+    /**
+     * 复制请求参数并替换消息列表
+     */
+    private ChatRequest copyWithMessages(ChatRequest request, List<ChatRequest.Message> messages) {
+        return ChatRequest.builder()
+                .platform(request.getPlatform())
+                .model(request.getModel())
+                .messages(messages)
+                .maxTokens(request.getMaxTokens())
+                .temperature(request.getTemperature())
+                .topP(request.getTopP())
+                .stream(request.getStream())
+                .stop(request.getStop())
+                .responseReformat(request.getResponseReformat())
+                .n(request.getN())
+                .extensions(request.getExtensions())
+                .build();
+    }
+
+    /**
+     * 累加多次调用的token消耗
+     */
+    private ChatResponse.Usage sumUsage(List<ChatResponse.Usage> usages) {
+        int promptTokens = 0;
+        int completionTokens = 0;
+        int totalTokens = 0;
+        boolean present = false;
+        for (ChatResponse.Usage usage : usages) {
+            if (usage == null) {
+                continue;
+            }
+            present = true;
+            promptTokens += usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+            completionTokens += usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+            totalTokens += usage.getTotalTokens() != null ? usage.getTotalTokens() : 0;
+        }
+        if (!present) {
+            return null;
+        }
+        ChatResponse.Usage total = new ChatResponse.Usage();
+        total.setPromptTokens(promptTokens);
+        total.setCompletionTokens(completionTokens);
+        total.setTotalTokens(totalTokens);
+        return total;
+    }
+
+    /**
+     * 获取分组调用线程池，线程数即分组调用的并发上限
+     */
+    private ExecutorService getMapReduceExecutor() {
+        if (mapReduceExecutor == null) {
+            synchronized (this) {
+                if (mapReduceExecutor == null) {
+                    AtomicInteger threadIndex = new AtomicInteger();
+                    mapReduceExecutor = Executors.newFixedThreadPool(Math.max(1, mapReduceMaxConcurrency), runnable -> {
+                        Thread thread = new Thread(runnable, "glm-map-reduce-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return mapReduceExecutor;
     }
 
     /**
@@ -328,10 +1171,11 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
     /**
      * 压缩文件并转换为base64格式
      * @param files 上传的文件数组
+     * @param videoFrameBudget 每个视频最多提取的关键帧数
      * @return 文件名到base64数据的映射
      */
-    private Map<String, String> compressAndConvertFilesToBase64(MultipartFile[] files) {
-        Map<String, String> base64ImageMap = new HashMap<>();
+    private Map<String, String> compressAndConvertFilesToBase64(MultipartFile[] files, int videoFrameBudget) {
+        Map<String, String> base64ImageMap = new LinkedHashMap<>();
 
         if (files == null || files.length == 0) {
             return base64ImageMap;
@@ -341,17 +1185,29 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
         for (MultipartFile file : files) {
             if (file != null && !file.isEmpty()) {
                 try {
-                    // 压缩文件
-                    byte[] compressedBytes = ImageCompressorWithThumbnailator.compressMultipartFile(
-                            file, MAX_WIDTH, MAX_HEIGHT, TARGET_SIZE_KB);
+                    if (videoKeyframeEnabled && isVideoFile(file)) {
+                        for (byte[] frame : extractVideoFrames(file, videoFrameBudget)) {
+                            base64ImageMap.put("image_" + fileIndex + ".jpg",
+                                    "data:image/jpeg;base64," + java.util.Base64.getEncoder().encodeToString(frame));
+                            fileIndex++;
+                        }
+                        continue;
+                    }
 
-                    // 转换为base64
                     String mimeType = file.getContentType();
                     if (mimeType == null || !mimeType.startsWith("image/")) {
                         log.warn("跳过非图片文件: {}", file.getOriginalFilename());
                         continue;
                     }
 
+                    // 文档类图片预处理后再压缩
+                    DocumentImagePreprocessor.PreprocessResult prepared = preprocessImage(file);
+                    byte[] compressedBytes = ImageCompressorWithThumbnailator.compressImageBytes(
+                            prepared.getBytes(), MAX_WIDTH, MAX_HEIGHT, TARGET_SIZE_KB, resizeEngine);
+                    if (prepared.isProcessed()) {
+                        mimeType = prepared.getMimeType();
+                    }
+
                     // 构建完整的base64 URL格式
                     String base64Raw = java.util.Base64.getEncoder().encodeToString(compressedBytes);
                     String base64Image = String.format("data:%s;base64,%s", mimeType, base64Raw);
@@ -366,7 +1222,9 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
 
                     String base64Data = com.contract.ai.feign.util.ImageBase64Validator.normalizeBase64Image(base64Image);
 
-                    String fileName = "image_" + fileIndex + getImageExtension(file.getOriginalFilename());
+                    String extension = prepared.isProcessed() ? "." + prepared.getFormat().replace("jpeg", "jpg")
+                            : getImageExtension(file.getOriginalFilename());
+                    String fileName = "image_" + fileIndex + extension;
                     base64ImageMap.put(fileName, base64Data);
                     fileIndex++;
 
@@ -389,9 +1247,10 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
      * 压缩并存储文件
      * 直接将压缩后的字节数组传递给存储服务
      * @param files 上传的文件数组
+     * @param videoFrameBudget 每个视频最多提取的关键帧数
      * @return 文件名到文件内容的映射
      */
-    private Map<String, String> compressAndStoreFiles(MultipartFile[] files) {
+    private Map<String, String> compressAndStoreFiles(MultipartFile[] files, int videoFrameBudget) {
         Map<String, String> fileContents = new HashMap<>();
 
         if (files == null || files.length == 0) {
@@ -399,15 +1258,28 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
         }
 
         // 优先尝试压缩文件
-        Map<String, byte[]> compressedFiles = new HashMap<>();
+        Map<String, byte[]> compressedFiles = new LinkedHashMap<>();
         for (MultipartFile file : files) {
             if (file != null && !file.isEmpty()) {
                 try {
-                    // 压缩文件
-                    byte[] compressedBytes = ImageCompressorWithThumbnailator.compressMultipartFile(
-                            file, MAX_WIDTH, MAX_HEIGHT, TARGET_SIZE_KB);
+                    if (videoKeyframeEnabled && isVideoFile(file)) {
+                        List<byte[]> frames = extractVideoFrames(file, videoFrameBudget);
+                        for (int i = 0; i < frames.size(); i++) {
+                            compressedFiles.put("keyframe_" + (i + 1) + "_" + file.getOriginalFilename() + ".jpg",
+                                    frames.get(i));
+                        }
+                        continue;
+                    }
+
+                    // 文档类图片预处理后再压缩
+                    DocumentImagePreprocessor.PreprocessResult prepared = preprocessImage(file);
+                    byte[] compressedBytes = ImageCompressorWithThumbnailator.compressImageBytes(
+                            prepared.getBytes(), MAX_WIDTH, MAX_HEIGHT, TARGET_SIZE_KB, resizeEngine);
 
                     String fileName = "compressed_" + file.getOriginalFilename();
+                    if (prepared.isProcessed()) {
+                        fileName = fileName.replaceAll("\\.[^.]*$", "") + "." + prepared.getFormat();
+                    }
                     compressedFiles.put(fileName, compressedBytes);
 
                     log.info("文件压缩完成: {}, 原始大小: {} KB, 压缩后大小: {} KB",
@@ -466,6 +1338,93 @@ public class GlmVisionAiStrategy implements VisionAiStrategy {
         return fileContents;
     }
 
+    /**
+     * 上传的视频保存为临时文件后提取关键帧，返回压缩后的JPEG数据
+     *
+     * @param file 上传的视频
+     * @param maxFrames 最多提取的帧数
+     * @return 按时间顺序排列的关键帧
+     */
+    private List<byte[]> extractVideoFrames(MultipartFile file, int maxFrames) throws IOException {
+        Path tempFile = Files.createTempFile("glm-video-", ".mp4");
+        try {
+            file.transferTo(tempFile);
+            List<byte[]> frames = videoKeyframeExtractor.extract(tempFile, maxFrames,
+                    (timestampMs, frame) -> compressVideoFrame(frame));
+            log.info("视频 {} 提取关键帧 {} 张，原始大小: {} KB", file.getOriginalFilename(), frames.size(),
+                    file.getSize() / 1024);
+            return frames;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 计算每个上传视频可提取的关键帧数：模型图片数量限制扣除普通图片后平均分配，至少1帧
+     */
+    private int resolveVideoFrameBudget(String model, MultipartFile[] files) {
+        if (files == null) {
+            return 0;
+        }
+        long videoCount = Arrays.stream(files).filter(file -> file != null && isVideoFile(file)).count();
+        if (videoCount == 0) {
+            return 0;
+        }
+        return (int) Math.max(1, (resolveImageLimit(model) - countImageFiles(files)) / videoCount);
+    }
+
+    /**
+     * 上传文件中的图片数（不含视频），是展开关键帧后图片数的下限
+     */
+    private int countImageFiles(MultipartFile[] files) {
+        if (files == null) {
+            return 0;
+        }
+        return (int) Arrays.stream(files)
+                .filter(file -> file != null && !file.isEmpty() && !isVideoFile(file)
+                        && file.getContentType() != null && file.getContentType().startsWith("image/"))
+                .count();
+    }
+
+    private boolean isVideoFile(MultipartFile file) {
+        String contentType = file.getContentType() != null ? file.getContentType().toLowerCase() : "";
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        return contentType.startsWith("video/") || fileName.endsWith(".mp4");
+    }
+
+    /**
+     * 对文档类图片进行预处理
+     * 预处理失败或未启用时返回原图，不影响后续压缩流程
+     *
+     * @param file 上传的文件
+     * @return 预处理结果
+     */
+    private DocumentImagePreprocessor.PreprocessResult preprocessImage(MultipartFile file) throws IOException {
+        return preprocessImage(file.getBytes(), file.getOriginalFilename());
+    }
+
+    /**
+     * 文档类图片预处理，失败或未启用时返回原图
+     */
+    private DocumentImagePreprocessor.PreprocessResult preprocessImage(byte[] originalBytes, String name) {
+        if (!preprocessEnabled) {
+            return DocumentImagePreprocessor.PreprocessResult.original(originalBytes, 0, 0, 0);
+        }
+
+        try {
+            DocumentImagePreprocessor.PreprocessResult result = DocumentImagePreprocessor.preprocess(originalBytes,
+                    DocumentImagePreprocessor.Options.defaults().deskew(preprocessDeskew));
+            if (result.isProcessed()) {
+                log.info("文档图片预处理完成: {}, 原始大小: {} KB, {}", name,
+                        originalBytes.length / 1024, result);
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            log.warn("文档图片预处理失败，使用原图: {}, 错误: {}", name, e.getMessage());
+            return DocumentImagePreprocessor.PreprocessResult.original(originalBytes, 0, 0, 0);
+        }
+    }
+
     /**
      * 根据原始文件名获取图片扩展名
      */
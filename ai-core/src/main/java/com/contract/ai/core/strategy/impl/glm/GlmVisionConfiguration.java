@@ -1,13 +1,36 @@
 package com.contract.ai.core.strategy.impl.glm;
 
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.resilience.CostLimiterRegistry;
+import com.contract.ai.core.resilience.CredentialPool;
+import com.contract.ai.core.resilience.CredentialPoolClient;
+import com.contract.ai.core.resilience.CredentialPoolRegistry;
+import com.contract.ai.core.resilience.DeadlineAwareClient;
+import com.contract.ai.core.resilience.EndpointPool;
+import com.contract.ai.core.resilience.EndpointPoolRegistry;
+import com.contract.ai.core.resilience.EndpointSelectingClient;
+import com.contract.ai.core.resilience.ProviderErrorDecoder;
+import com.contract.ai.core.resilience.ProviderRateLimiter;
+import com.contract.ai.core.resilience.ProviderRetryer;
+import com.contract.ai.core.resilience.ProviderTransports;
+import com.contract.ai.core.resilience.RateLimiterRegistry;
+import com.contract.ai.core.resilience.RetryBudget;
+import com.contract.ai.core.resilience.UpstreamCallTracker;
+import com.contract.ai.core.resilience.WeightedSemaphore;
+import feign.Client;
 import feign.Request;
 import feign.RequestInterceptor;
 import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,6 +38,25 @@ import java.util.concurrent.TimeUnit;
  */
 public class GlmVisionConfiguration {
 
+    /**
+     * 智谱业务错误码映射
+     */
+    static final Map<String, AiErrorCode> GLM_ERROR_CODES = Map.ofEntries(
+            Map.entry("1000", AiErrorCode.AI_AUTHENTICATION_FAILED),
+            Map.entry("1001", AiErrorCode.AI_AUTHENTICATION_FAILED),
+            Map.entry("1002", AiErrorCode.AI_AUTHENTICATION_FAILED),
+            Map.entry("1003", AiErrorCode.AI_AUTHENTICATION_FAILED),
+            Map.entry("1004", AiErrorCode.AI_AUTHENTICATION_FAILED),
+            Map.entry("1113", AiErrorCode.AI_QUOTA_EXCEEDED),
+            Map.entry("1211", AiErrorCode.AI_MODEL_NOT_SUPPORTED),
+            Map.entry("1214", AiErrorCode.AI_INVALID_MODEL_PARAMETER),
+            Map.entry("1261", AiErrorCode.AI_CONTEXT_TOO_LONG),
+            Map.entry("1301", AiErrorCode.AI_CONTENT_FILTERED),
+            Map.entry("1302", AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED),
+            Map.entry("1303", AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED),
+            Map.entry("1304", AiErrorCode.AI_QUOTA_EXCEEDED),
+            Map.entry("1305", AiErrorCode.AI_SERVICE_UNAVAILABLE));
+
     /**
      * 配置请求参数
      * 连接超时：60秒
@@ -30,21 +72,120 @@ public class GlmVisionConfiguration {
     }
 
     /**
-     * 请求拦截器，用于添加Authorization头
+     * GLM API密钥池
+     * 优先使用 api-keys（逗号分隔），未配置时使用单个 api-key
+     */
+    @Bean("glmVisionCredentialPool")
+    public CredentialPool glmVisionCredentialPool(CredentialPoolRegistry credentialPoolRegistry,
+                                                  @Value("${ai.strategy.glm.api-keys:}") String apiKeys,
+                                                  @Value("${ai.strategy.glm.api-key:}") String apiKey) {
+        return credentialPoolRegistry.create("glm", apiKeys, apiKey);
+    }
+
+    /**
+     * GLM 入口地址池
+     * 优先使用 base-urls（逗号分隔，可包含兼容网关与区域镜像），未配置时只使用 base-url
+     */
+    @Bean("glmVisionEndpointPool")
+    public EndpointPool glmVisionEndpointPool(EndpointPoolRegistry endpointPoolRegistry,
+                                              @Value("${ai.strategy.glm.base-urls:}") String baseUrls,
+                                              @Value("${ai.strategy.glm.base-url:https://open.bigmodel.cn/api/paas/v4}") String baseUrl) {
+        return endpointPoolRegistry.create("glm", baseUrls, baseUrl);
+    }
+
+    /**
+     * GLM 限流准入
+     * 按 rate-limit.rpm / rate-limit.tpm 排队调用，未配置时按响应中的 x-ratelimit-* 自动调整；分组并行调用的每个子请求单独计数
+     */
+    @Bean("glmVisionRateLimiter")
+    public ProviderRateLimiter glmVisionRateLimiter(RateLimiterRegistry rateLimiterRegistry,
+                                                    @Qualifier("glmVisionCredentialPool") CredentialPool credentialPool,
+                                                    @Value("${ai.strategy.glm.rate-limit.rpm:0}") long rpm,
+                                                    @Value("${ai.strategy.glm.rate-limit.tpm:0}") long tpm) {
+        return rateLimiterRegistry.create("glm", rpm, tpm, credentialPool);
+    }
+
+    /**
+     * GLM 成本加权准入
+     * 在途请求的估算成本（输入token + max_tokens + 图片字节）之和不超过 cost.capacity，单张多页视觉请求按图片数量与字节数计入
+     */
+    @Bean("glmVisionCostLimiter")
+    public WeightedSemaphore glmVisionCostLimiter(CostLimiterRegistry costLimiterRegistry,
+                                                  @Value("${ai.strategy.glm.cost.capacity:600000}") long capacity) {
+        return costLimiterRegistry.create("glm", capacity);
+    }
+
+    /**
+     * GLM Feign客户端
+     * 每次调用按延迟与在途数选择入口，并从密钥池选取密钥写入 Authorization 头。
+     * 底层默认使用OkHttp，调用登记到请求上下文，客户端断开或超时时可直接取消长达数分钟的视觉调用，超时按请求剩余时限收紧；
+     * transport 为 jdk 时改用JDK HttpClient（HTTP/2多路复用），大量慢速视觉调用共享少量连接，见 {@link ProviderTransports}；
+     * 调用前经过平台限流准入，配额不足时排队等待；在途成本超过上限时排队等待成本名额
+     */
+    @Bean("glmVisionFeignClient")
+    public Client glmVisionFeignClient(@Qualifier("glmVisionCredentialPool") CredentialPool credentialPool,
+                                       @Qualifier("glmVisionEndpointPool") EndpointPool endpointPool,
+                                       @Value("${ai.strategy.glm.base-url:https://open.bigmodel.cn/api/paas/v4}") String baseUrl,
+                                       UpstreamCallTracker upstreamCallTracker,
+                                       RateLimiterRegistry rateLimiterRegistry,
+                                       @Qualifier("glmVisionRateLimiter") ProviderRateLimiter rateLimiter,
+                                       CostLimiterRegistry costLimiterRegistry,
+                                       @Qualifier("glmVisionCostLimiter") WeightedSemaphore costLimiter,
+                                       ProviderTransports providerTransports,
+                                       @Value("${ai.strategy.glm.transport:okhttp}") String transport) {
+        Client httpClient = providerTransports.create("glm", transport, Duration.ofSeconds(60),
+                () -> new okhttp3.OkHttpClient.Builder()
+                        .connectTimeout(60, TimeUnit.SECONDS)
+                        .readTimeout(300, TimeUnit.SECONDS)
+                        .writeTimeout(300, TimeUnit.SECONDS)
+                        .eventListenerFactory(upstreamCallTracker)
+                        .build());
+        return rateLimiterRegistry.decorate(costLimiterRegistry.decorate(new DeadlineAwareClient(
+                new EndpointSelectingClient(new CredentialPoolClient(httpClient, credentialPool),
+                        endpointPool, baseUrl)), costLimiter),
+                rateLimiter);
+    }
+
+    /**
+     * 请求拦截器，用于添加Content-Type头
      */
     @Bean("glmVisionRequestInterceptor")
     public GlmVisionRequestInterceptor requestInterceptor() {
         return new GlmVisionRequestInterceptor();
     }
 
+    /**
+     * GLM 错误解码器
+     * 按HTTP状态码与智谱业务错误码（error.code）归类错误，瞬时错误交给重试器
+     */
+    @Bean("glmVisionErrorDecoder")
+    public ErrorDecoder glmVisionErrorDecoder() {
+        return new ProviderErrorDecoder("glm", GLM_ERROR_CODES);
+    }
+
+    /**
+     * GLM 重试预算，所有GLM视觉请求共享
+     */
+    @Bean("glmVisionRetryBudget")
+    public RetryBudget glmVisionRetryBudget(
+            @Value("${ai.strategy.glm.retry-budget.ratio:0.1}") double ratio,
+            @Value("${ai.strategy.glm.retry-budget.min-per-second:0.5}") double minRetriesPerSecond,
+            @Value("${ai.strategy.glm.retry-budget.max-balance:5}") double maxBalance) {
+        return new RetryBudget(ratio, minRetriesPerSecond, maxBalance);
+    }
+
     /**
      * GLM视觉模型Feign客户端专用重试策略
-     * 禁用重试 - 针对长时间处理任务，避免重复5分钟超时
+     * 读超时不重试，避免重复5分钟超时；限流、过载与连接失败按退避与 Retry-After 重试
      */
     @Bean("glmVisionRetryer")
     @ConditionalOnMissingBean(Retryer.class)
-    public Retryer glmVisionRetryer() {
-        // 禁用重试：使用Feign内置的NEVER_RETRY实例
-        return Retryer.NEVER_RETRY;
+    public Retryer glmVisionRetryer(@Value("${ai.strategy.glm.retry-attempts:2}") int maxAttempts,
+                                    @Value("${ai.strategy.glm.retry-delay:2000}") long initialBackoffMs,
+                                    @Value("${ai.strategy.glm.retry-max-delay:10000}") long maxBackoffMs,
+                                    @Value("${ai.strategy.glm.retry-max-wait:30000}") long maxRetryAfterMs,
+                                    @Qualifier("glmVisionRetryBudget") RetryBudget retryBudget) {
+        return new ProviderRetryer("glm", maxAttempts, initialBackoffMs, maxBackoffMs, maxRetryAfterMs,
+                retryBudget);
     }
-}
\ No newline at end of file
+}
@@ -2,11 +2,10 @@ package com.contract.ai.core.strategy.impl.glm;
 
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
-import org.springframework.beans.factory.annotation.Value;
 
 /**
  * GLM视觉模型请求拦截器
- * 负责添加Authorization认证头
+ * 负责添加Content-Type头，Authorization认证头由 {@link com.contract.ai.core.resilience.CredentialPoolClient} 按密钥池写入
  */
 public class GlmVisionRequestInterceptor implements RequestInterceptor {
 
@@ -6,6 +6,7 @@ import com.contract.ai.core.strategy.AiStrategy;
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
 import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.exception.AiUpstreamException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -77,8 +78,8 @@ public class IflowAiStrategy implements AiStrategy {
         } catch (Exception e) {
             log.error("Error calling Iflow API for model [{}]: {}", request.getModel(), e.getMessage(), e);
 
-            // 根据异常类型映射到不同的错误码
-            AiErrorCode errorCode = mapExceptionToErrorCode(e);
+            // 按错误解码器的归类映射错误码，网络异常按异常类型判断
+            AiErrorCode errorCode = AiUpstreamException.errorCodeOf(e);
             throw new AiException(errorCode, e);
         }
     }
@@ -164,32 +165,6 @@ public class IflowAiStrategy implements AiStrategy {
         return response;
     }
 
-    /**
-     * 映射异常到错误码
-     */
-    private AiErrorCode mapExceptionToErrorCode(Exception e) {
-        String errorMessage = e.getMessage().toLowerCase();
-
-        if (errorMessage.contains("400") || errorMessage.contains("bad request")) {
-            return AiErrorCode.AI_INVALID_MODEL_PARAMETER;
-        } else if (errorMessage.contains("401") || errorMessage.contains("unauthorized") ||
-            errorMessage.contains("api key")) {
-            return AiErrorCode.AI_AUTHENTICATION_FAILED;
-        } else if (errorMessage.contains("404") || errorMessage.contains("not found")) {
-            return AiErrorCode.AI_MODEL_NOT_SUPPORTED;
-        } else if (errorMessage.contains("429") || errorMessage.contains("too many requests")) {
-            return AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED;
-        } else if (errorMessage.contains("503") || errorMessage.contains("service unavailable")) {
-            return AiErrorCode.AI_SERVICE_UNAVAILABLE;
-        } else if (errorMessage.contains("504") || errorMessage.contains("gateway timeout")) {
-            return AiErrorCode.AI_REQUEST_TIMEOUT;
-        } else if (errorMessage.contains("timeout")) {
-            return AiErrorCode.AI_READ_TIMEOUT;
-        } else {
-            return AiErrorCode.AI_SERVICE_ERROR;
-        }
-    }
-
     /**
      * 提取响应内容
      *
@@ -1,16 +1,35 @@
 package com.contract.ai.core.strategy.impl.iflow;
 
+import com.contract.ai.core.resilience.CostLimiterRegistry;
+import com.contract.ai.core.resilience.CredentialPool;
+import com.contract.ai.core.resilience.CredentialPoolClient;
+import com.contract.ai.core.resilience.CredentialPoolRegistry;
+import com.contract.ai.core.resilience.DeadlineAwareClient;
+import com.contract.ai.core.resilience.EndpointPool;
+import com.contract.ai.core.resilience.EndpointPoolRegistry;
+import com.contract.ai.core.resilience.EndpointSelectingClient;
+import com.contract.ai.core.resilience.ProviderErrorDecoder;
+import com.contract.ai.core.resilience.ProviderRateLimiter;
+import com.contract.ai.core.resilience.ProviderRetryer;
+import com.contract.ai.core.resilience.ProviderTransports;
+import com.contract.ai.core.resilience.RateLimiterRegistry;
+import com.contract.ai.core.resilience.RetryBudget;
+import com.contract.ai.core.resilience.UpstreamCallTracker;
+import com.contract.ai.core.resilience.WeightedSemaphore;
+import feign.Client;
 import feign.Request;
 import feign.RequestInterceptor;
 import feign.Retryer;
-import feign.okhttp.OkHttpClient;
+import feign.codec.ErrorDecoder;
 import okhttp3.ConnectionPool;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -32,15 +51,40 @@ public class IflowConfiguration {
     @Value("${ai.strategy.iflow.retry-delay:1000}")
     private long retryDelay;
 
+    @Value("${ai.strategy.iflow.retry-max-delay:8000}")
+    private long retryMaxDelay;
+
+    @Value("${ai.strategy.iflow.retry-max-wait:30000}")
+    private long retryMaxWait;
+
+    @Value("${ai.strategy.iflow.retry-budget.ratio:0.2}")
+    private double retryBudgetRatio;
+
+    @Value("${ai.strategy.iflow.retry-budget.min-per-second:1}")
+    private double retryBudgetMinPerSecond;
+
+    @Value("${ai.strategy.iflow.retry-budget.max-balance:10}")
+    private double retryBudgetMaxBalance;
+
     @Value("${ai.strategy.iflow.api-key:}")
     private String apiKey;
 
+    @Value("${ai.strategy.iflow.api-keys:}")
+    private String apiKeys;
+
+    @Value("${ai.strategy.iflow.base-url:https://apis.iflow.cn}")
+    private String baseUrl;
+
+    @Value("${ai.strategy.iflow.base-urls:}")
+    private String baseUrls;
+
     /**
-     * 心流平台Bearer Token认证拦截器
+     * 心流平台API密钥池
+     * 优先使用 api-keys（逗号分隔），未配置时使用单个 api-key
      */
-    @Bean("iflowBearerTokenInterceptor")
-    public IflowBearerTokenInterceptor iflowBearerTokenInterceptor() {
-        return new IflowBearerTokenInterceptor(apiKey);
+    @Bean("iflowCredentialPool")
+    public CredentialPool iflowCredentialPool(CredentialPoolRegistry credentialPoolRegistry) {
+        return credentialPoolRegistry.create("iflow", apiKeys, apiKey);
     }
 
     /**
@@ -59,24 +103,91 @@ public class IflowConfiguration {
         };
     }
 
+    /**
+     * 心流平台错误解码器（OpenAI兼容错误格式）
+     */
+    @Bean("iflowErrorDecoder")
+    public ErrorDecoder iflowErrorDecoder() {
+        return new ProviderErrorDecoder("iflow", ProviderErrorDecoder.OPENAI_COMPATIBLE_CODES);
+    }
+
+    /**
+     * 心流平台重试策略
+     * 只重试瞬时错误，指数退避加抖动，遵循 Retry-After，受平台重试预算限制
+     */
+    @Bean("iflowRetryer")
+    public Retryer iflowRetryer() {
+        return new ProviderRetryer("iflow", retryAttempts, retryDelay, retryMaxDelay, retryMaxWait,
+            new RetryBudget(retryBudgetRatio, retryBudgetMinPerSecond, retryBudgetMaxBalance));
+    }
+
+    /**
+     * 心流平台入口地址池
+     * 优先使用 base-urls（逗号分隔），未配置时只使用 base-url
+     */
+    @Bean("iflowEndpointPool")
+    public EndpointPool iflowEndpointPool(EndpointPoolRegistry endpointPoolRegistry) {
+        return endpointPoolRegistry.create("iflow", baseUrls, baseUrl);
+    }
+
+    /**
+     * 心流平台限流准入
+     * 按 rate-limit.rpm / rate-limit.tpm 排队调用，未配置时按响应中的 x-ratelimit-* 自动调整
+     */
+    @Bean("iflowRateLimiter")
+    public ProviderRateLimiter iflowRateLimiter(RateLimiterRegistry rateLimiterRegistry,
+                                                @Qualifier("iflowCredentialPool") CredentialPool credentialPool,
+                                                @Value("${ai.strategy.iflow.rate-limit.rpm:0}") long rpm,
+                                                @Value("${ai.strategy.iflow.rate-limit.tpm:0}") long tpm) {
+        return rateLimiterRegistry.create("iflow", rpm, tpm, credentialPool);
+    }
+
+    /**
+     * 心流平台成本加权准入
+     * 在途请求的估算成本（输入token + max_tokens + 图片字节）之和不超过 cost.capacity
+     */
+    @Bean("iflowCostLimiter")
+    public WeightedSemaphore iflowCostLimiter(CostLimiterRegistry costLimiterRegistry,
+                                              @Value("${ai.strategy.iflow.cost.capacity:200000}") long capacity) {
+        return costLimiterRegistry.create("iflow", capacity);
+    }
+
     /**
      * 心流平台专用OkHttp客户端
+     * 每次调用按延迟与在途数选择入口，并从密钥池选取密钥写入 Bearer Token 认证头；
+     * 调用登记到请求上下文，客户端断开或超时时可被取消，超时按请求剩余时限收紧；
+     * transport 为 jdk 时改用JDK HttpClient（HTTP/2多路复用），见 {@link ProviderTransports}；
+     * 调用前经过平台限流准入，配额不足时排队等待；在途成本超过上限时排队等待成本名额
      */
     @Bean("iflowOkHttpClient")
-    public OkHttpClient feignOkHttpClient() {
-        ConnectionPool connectionPool = new ConnectionPool(
-            5, // 最大空闲连接数
-            5, TimeUnit.MINUTES // 保持时间
-        );
-
-        okhttp3.OkHttpClient okHttpClient = new okhttp3.OkHttpClient.Builder()
-            .connectionPool(connectionPool)
-            .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
-            .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
-            .writeTimeout(readTimeout, TimeUnit.MILLISECONDS)
-            .retryOnConnectionFailure(true)
-            .build();
-
-        return new OkHttpClient(okHttpClient);
+    public Client feignOkHttpClient(@Qualifier("iflowCredentialPool") CredentialPool credentialPool,
+                                    @Qualifier("iflowEndpointPool") EndpointPool endpointPool,
+                                    UpstreamCallTracker upstreamCallTracker,
+                                    RateLimiterRegistry rateLimiterRegistry,
+                                    @Qualifier("iflowRateLimiter") ProviderRateLimiter rateLimiter,
+                                    CostLimiterRegistry costLimiterRegistry,
+                                    @Qualifier("iflowCostLimiter") WeightedSemaphore costLimiter,
+                                    ProviderTransports providerTransports,
+                                    @Value("${ai.strategy.iflow.transport:okhttp}") String transport) {
+        Client httpClient = providerTransports.create("iflow", transport, Duration.ofMillis(connectTimeout), () -> {
+            ConnectionPool connectionPool = new ConnectionPool(
+                5, // 最大空闲连接数
+                5, TimeUnit.MINUTES // 保持时间
+            );
+
+            return new okhttp3.OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(upstreamCallTracker)
+                .build();
+        });
+
+        return rateLimiterRegistry.decorate(costLimiterRegistry.decorate(new DeadlineAwareClient(
+            new EndpointSelectingClient(new CredentialPoolClient(httpClient, credentialPool),
+                    endpointPool, baseUrl)), costLimiter),
+            rateLimiter);
     }
 }
\ No newline at end of file
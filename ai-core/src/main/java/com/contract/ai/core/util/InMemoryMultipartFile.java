@@ -0,0 +1,97 @@
+package com.contract.ai.core.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * 内存中的上传文件
+ * 上传文件的临时文件随Servlet请求结束删除，而异步执行（如幂等请求的断开宽限期）可能晚于原请求结束，
+ * 提交异步执行前先将上传文件读入内存，执行期间不再依赖临时文件
+ */
+public final class InMemoryMultipartFile implements MultipartFile {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final byte[] content;
+
+    public InMemoryMultipartFile(String name, String originalFilename, String contentType, byte[] content) {
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.content = content != null ? content : new byte[0];
+    }
+
+    /**
+     * 将上传文件读入内存
+     *
+     * @param files 上传文件，可为null
+     * @return 内存中的上传文件，入参为null时返回null
+     * @throws IllegalArgumentException 读取上传文件失败
+     */
+    public static MultipartFile[] copyOf(MultipartFile[] files) {
+        if (files == null) {
+            return null;
+        }
+        MultipartFile[] copies = new MultipartFile[files.length];
+        for (int i = 0; i < files.length; i++) {
+            MultipartFile file = files[i];
+            if (file == null || file instanceof InMemoryMultipartFile) {
+                copies[i] = file;
+                continue;
+            }
+            try {
+                copies[i] = new InMemoryMultipartFile(file.getName(), file.getOriginalFilename(),
+                        file.getContentType(), file.getBytes());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("读取上传文件失败: " + file.getOriginalFilename(), e);
+            }
+        }
+        return copies;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return content.length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return content.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return content;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.write(dest.toPath(), content);
+    }
+}
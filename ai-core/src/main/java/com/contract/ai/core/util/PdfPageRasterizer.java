@@ -0,0 +1,217 @@
+package com.contract.ai.core.util;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PDF页面并行渲染器
+ * 页面按连续区间分配给有界线程池中的多个worker，每个worker持有独立的PDDocument（PDFBox非线程安全），
+ * 渲染完一页立即交给页面处理器（压缩/base64），不在内存中保留整份文档的位图
+ */
+@Slf4j
+@Component
+public class PdfPageRasterizer {
+
+    /**
+     * 渲染线程数（所有请求共享），同时也是单次渲染的最大并行度
+     */
+    @Value("${ai.document.rasterize.threads:4}")
+    private int threads;
+
+    /**
+     * 渲染线程池，首次使用时创建
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * 页面处理器，在渲染线程中逐页调用
+     *
+     * @param <T> 处理结果类型
+     */
+    @FunctionalInterface
+    public interface PageProcessor<T> {
+
+        /**
+         * 处理单页位图
+         *
+         * @param pageNumber 页码（从1开始）
+         * @param image 渲染结果，调用返回后即可回收
+         * @return 处理结果
+         * @throws IOException 处理失败
+         */
+        T process(int pageNumber, BufferedImage image) throws IOException;
+    }
+
+    /**
+     * 获取PDF页数
+     *
+     * @param pdf PDF文件内容
+     * @return 页数
+     * @throws IOException 解析失败
+     */
+    public int getPageCount(byte[] pdf) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    /**
+     * 并行渲染指定页面
+     *
+     * @param pdf PDF文件内容
+     * @param pageNumbers 需要渲染的页码（从1开始，升序）
+     * @param dpi 渲染分辨率
+     * @param processor 页面处理器
+     * @param <T> 处理结果类型
+     * @return 与 pageNumbers 顺序一致的处理结果
+     * @throws IOException 渲染或处理失败
+     */
+    public <T> List<T> rasterize(byte[] pdf, List<Integer> pageNumbers, float dpi, PageProcessor<T> processor)
+            throws IOException {
+        if (pageNumbers.isEmpty()) {
+            return List.of();
+        }
+
+        long startTime = System.currentTimeMillis();
+        int workerCount = Math.min(Math.max(1, threads), pageNumbers.size());
+        Object[] results = new Object[pageNumbers.size()];
+
+        List<Future<?>> futures = new ArrayList<>(workerCount);
+        int chunkSize = pageNumbers.size() / workerCount;
+        int remainder = pageNumbers.size() % workerCount;
+        int from = 0;
+        for (int worker = 0; worker < workerCount; worker++) {
+            int start = from;
+            int end = start + chunkSize + (worker < remainder ? 1 : 0);
+            from = end;
+            futures.add(getExecutor().submit(() -> {
+                try (PDDocument document = Loader.loadPDF(pdf)) {
+                    PDFRenderer renderer = new PDFRenderer(document);
+                    for (int i = start; i < end; i++) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new CancellationException("PDF渲染已取消");
+                        }
+                        int pageNumber = pageNumbers.get(i);
+                        BufferedImage image = renderer.renderImageWithDPI(pageNumber - 1, dpi, ImageType.RGB);
+                        results[i] = processor.process(pageNumber, image);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("PDF页面渲染失败", e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF页面渲染被中断", e);
+        }
+
+        log.info("PDF渲染完成: {} 页, DPI {}, {} 个worker, 耗时 {} ms", pageNumbers.size(), dpi, workerCount,
+                System.currentTimeMillis() - startTime);
+
+        @SuppressWarnings("unchecked")
+        List<T> orderedResults = (List<T>) Arrays.asList(results);
+        return orderedResults;
+    }
+
+    /**
+     * 解析页码范围，例如 "1-3,5,8-"，结果去重并升序排列
+     *
+     * @param pageRange 页码范围，为空时表示全部页面
+     * @param pageCount 文档页数
+     * @return 页码列表（从1开始）
+     * @throws IllegalArgumentException 格式错误或不包含任何有效页码
+     */
+    public static List<Integer> parsePageRange(String pageRange, int pageCount) {
+        TreeSet<Integer> pages = new TreeSet<>();
+        if (pageRange == null || pageRange.isBlank()) {
+            for (int page = 1; page <= pageCount; page++) {
+                pages.add(page);
+            }
+            return new ArrayList<>(pages);
+        }
+
+        for (String part : pageRange.split(",")) {
+            String segment = part.trim();
+            if (segment.isEmpty()) {
+                continue;
+            }
+            try {
+                int dash = segment.indexOf('-');
+                int first;
+                int last;
+                if (dash < 0) {
+                    first = Integer.parseInt(segment);
+                    last = first;
+                } else {
+                    String head = segment.substring(0, dash).trim();
+                    String tail = segment.substring(dash + 1).trim();
+                    first = head.isEmpty() ? 1 : Integer.parseInt(head);
+                    last = tail.isEmpty() ? pageCount : Integer.parseInt(tail);
+                }
+                for (int page = Math.max(1, first); page <= Math.min(pageCount, last); page++) {
+                    pages.add(page);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("页码范围格式错误: " + pageRange);
+            }
+        }
+
+        if (pages.isEmpty()) {
+            throw new IllegalArgumentException("页码范围 " + pageRange + " 不包含有效页码，文档共 " + pageCount + " 页");
+        }
+        return new ArrayList<>(pages);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    AtomicInteger threadIndex = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                        Thread thread = new Thread(runnable, "pdf-rasterizer-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+}
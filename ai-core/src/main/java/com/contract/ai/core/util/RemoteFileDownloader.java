@@ -0,0 +1,233 @@
+package com.contract.ai.core.util;
+
+import com.contract.ai.core.resilience.AiRequestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 远程文件下载工具类
+ * 用于在本地解析 file_url 指向的文档，下载大小受限，超过限制时中止读取。
+ * file_url 由调用方提供，下载前校验目标地址：主机须在 allowed-hosts 范围内（为空时不限制），
+ * 解析出的地址不能是回环、内网、链路本地（含云厂商元数据地址）等内部地址；重定向不自动跟随，每一跳重新校验。
+ * 以 {@link #downloadAndRetain} 下载的文件保留在当前请求的上下文中，同一请求随后下载相同URL时直接使用，不再重复下载
+ */
+@Slf4j
+@Component
+public class RemoteFileDownloader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 允许下载的主机，逗号分隔，支持 *.example.com 形式，为空时不限制
+     */
+    @Value("${ai.document.download.allowed-hosts:}")
+    private List<String> allowedHosts;
+
+    /**
+     * 是否允许下载内网地址，仅用于文件服务部署在内网的环境
+     */
+    @Value("${ai.document.download.allow-private-network:false}")
+    private boolean allowPrivateNetwork;
+
+    @Value("${ai.document.download.max-redirects:3}")
+    private int maxRedirects;
+
+    /**
+     * 下载远程文件
+     *
+     * @param fileUrl 文件URL（仅支持http/https）
+     * @param maxBytes 允许的最大字节数
+     * @param timeoutMillis 连接与读取超时（毫秒）
+     * @return 文件内容
+     * @throws IOException 地址不允许访问、下载失败、响应码非2xx或超过大小限制
+     */
+    public byte[] download(String fileUrl, long maxBytes, int timeoutMillis) throws IOException {
+        AiRequestContext context = AiRequestContext.current();
+        byte[] retained = context != null ? context.takeRetainedFile(fileUrl) : null;
+        if (retained != null && retained.length <= maxBytes) {
+            log.debug("复用本次请求已下载的文件: {}，大小: {} bytes", fileUrl, retained.length);
+            return retained;
+        }
+
+        URI uri;
+        try {
+            uri = URI.create(fileUrl);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("文件URL格式错误: " + fileUrl, e);
+        }
+
+        for (int redirects = 0; ; redirects++) {
+            checkTarget(uri);
+
+            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setInstanceFollowRedirects(false);
+            try {
+                int status = connection.getResponseCode();
+                if (status >= 300 && status < 400 && connection.getHeaderField("Location") != null) {
+                    if (redirects >= maxRedirects) {
+                        throw new IOException("文件下载重定向次数超过限制: " + maxRedirects);
+                    }
+                    uri = uri.resolve(connection.getHeaderField("Location"));
+                    log.debug("文件下载重定向: {} -> {}", fileUrl, uri);
+                    continue;
+                }
+                if (status < 200 || status >= 300) {
+                    throw new IOException("文件下载失败，HTTP状态码: " + status);
+                }
+                return readBody(connection, fileUrl, maxBytes);
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * 下载远程文件，并保留在当前请求的上下文中，供同一请求的后续处理复用一次
+     *
+     * @param fileUrl 文件URL（仅支持http/https）
+     * @param maxBytes 允许的最大字节数
+     * @param timeoutMillis 连接与读取超时（毫秒）
+     * @return 文件内容
+     * @throws IOException 地址不允许访问、下载失败、响应码非2xx或超过大小限制
+     */
+    public byte[] downloadAndRetain(String fileUrl, long maxBytes, int timeoutMillis) throws IOException {
+        byte[] content = download(fileUrl, maxBytes, timeoutMillis);
+        AiRequestContext context = AiRequestContext.current();
+        if (context != null) {
+            context.retainFile(fileUrl, content);
+        }
+        return content;
+    }
+
+    /**
+     * 释放当前请求保留的下载结果，确定不再需要时调用
+     */
+    public void discardRetained() {
+        AiRequestContext context = AiRequestContext.current();
+        if (context != null) {
+            context.discardRetainedFiles();
+        }
+    }
+
+    private byte[] readBody(HttpURLConnection connection, String fileUrl, long maxBytes) throws IOException {
+        long contentLength = connection.getContentLengthLong();
+        if (contentLength > maxBytes) {
+            throw new IOException("文件大小超过限制: " + contentLength + " bytes");
+        }
+
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    contentLength > 0 ? (int) contentLength : BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IOException("文件大小超过限制: " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            log.debug("文件下载完成: {}，大小: {} bytes", fileUrl, total);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 校验下载目标：协议、主机白名单与解析出的全部地址
+     *
+     * @param uri 下载地址
+     * @throws IOException 地址不允许访问
+     */
+    private void checkTarget(URI uri) throws IOException {
+        String scheme = uri.getScheme();
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+            throw new IOException("不支持的文件URL协议: " + scheme);
+        }
+        String host = uri.getHost();
+        if (host == null || host.isEmpty()) {
+            throw new IOException("文件URL缺少主机: " + uri);
+        }
+        if (!isAllowedHost(host)) {
+            throw new IOException("文件URL的主机不在允许范围内: " + host);
+        }
+        if (allowPrivateNetwork) {
+            return;
+        }
+
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new IOException("无法解析文件URL的主机: " + host, e);
+        }
+        for (InetAddress address : addresses) {
+            if (isInternalAddress(address)) {
+                throw new IOException("文件URL指向内部地址，拒绝下载: " + host);
+            }
+        }
+    }
+
+    private boolean isAllowedHost(String host) {
+        if (allowedHosts == null || allowedHosts.stream().allMatch(String::isBlank)) {
+            return true;
+        }
+        String normalized = host.toLowerCase(Locale.ROOT);
+        for (String allowed : allowedHosts) {
+            String entry = allowed.trim().toLowerCase(Locale.ROOT);
+            if (entry.isEmpty()) {
+                continue;
+            }
+            if (entry.startsWith("*.") ? normalized.endsWith(entry.substring(1)) : normalized.equals(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否为内部地址：回环、任意地址、链路本地（169.254.0.0/16，含元数据地址）、内网、组播，以及IPv6唯一本地地址（fc00::/7）
+     */
+    public static boolean isInternalAddress(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isAnyLocalAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        return address instanceof Inet6Address && (address.getAddress()[0] & 0xFE) == 0xFC;
+    }
+
+    /**
+     * 从URL路径中解析文件名
+     *
+     * @param fileUrl 文件URL
+     * @return 文件名，无法解析时返回空字符串
+     */
+    public static String extractFileName(String fileUrl) {
+        try {
+            String path = URI.create(fileUrl).getPath();
+            if (path == null || path.isEmpty()) {
+                return "";
+            }
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            return URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.contract.ai.core.util;
+
+import com.contract.ai.feign.util.KeyframeSelector;
+import com.contract.ai.feign.util.PerceptualHash;
+import lombok.extern.slf4j.Slf4j;
+import org.jcodec.api.FrameGrab;
+import org.jcodec.api.JCodecException;
+import org.jcodec.api.PictureWithMetadata;
+import org.jcodec.common.io.ByteBufferSeekableByteChannel;
+import org.jcodec.common.io.NIOUtils;
+import org.jcodec.common.io.SeekableByteChannel;
+import org.jcodec.scale.AWTUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MP4视频关键帧提取器（JCodec，纯Java解码）
+ * 按固定间隔定位到最近的关键帧（sloppy seek，只解码关键帧本身），计算感知哈希后
+ * 剔除近似重复的画面，并按场景变化幅度或等间隔挑选不超过上限的帧，
+ * 第二遍只解码被选中的帧交给帧处理器，内存中不保留全部采样画面
+ */
+@Slf4j
+@Component
+public class VideoKeyframeExtractor {
+
+    /**
+     * 采样间隔（毫秒），视频较长时自动放大以保证采样数不超过 max-samples
+     */
+    @Value("${ai.video.keyframe.sample-interval-ms:2000}")
+    private long sampleIntervalMs;
+
+    /**
+     * 单个视频最多采样的帧数
+     */
+    @Value("${ai.video.keyframe.max-samples:150}")
+    private int maxSamples;
+
+    /**
+     * 感知哈希汉明距离不超过该值视为近似重复画面
+     */
+    @Value("${ai.video.keyframe.dedupe-distance:8}")
+    private int dedupeDistance;
+
+    /**
+     * 去重后帧数仍超过上限时的挑选方式：SCENE_CHANGE / INTERVAL
+     */
+    @Value("${ai.video.keyframe.selection:SCENE_CHANGE}")
+    private KeyframeSelector.Mode selection;
+
+    /**
+     * 帧处理器，逐帧调用
+     *
+     * @param <T> 处理结果类型
+     */
+    @FunctionalInterface
+    public interface FrameProcessor<T> {
+
+        /**
+         * 处理单帧画面
+         *
+         * @param timestampMs 帧在视频中的时间位置（毫秒）
+         * @param frame 解码后的画面，调用返回后即可回收
+         * @return 处理结果
+         * @throws IOException 处理失败
+         */
+        T process(long timestampMs, BufferedImage frame) throws IOException;
+    }
+
+    /**
+     * 从内存中的视频提取关键帧
+     *
+     * @param video 视频文件内容
+     * @param maxFrames 最多返回的帧数（通常为模型的图片数量限制）
+     * @param processor 帧处理器
+     * @param <T> 处理结果类型
+     * @return 按时间顺序排列的处理结果
+     * @throws IOException 视频无法解析或处理失败
+     */
+    public <T> List<T> extract(byte[] video, int maxFrames, FrameProcessor<T> processor) throws IOException {
+        try (SeekableByteChannel channel = ByteBufferSeekableByteChannel.readFromByteBuffer(ByteBuffer.wrap(video))) {
+            return extract(channel, maxFrames, processor);
+        }
+    }
+
+    /**
+     * 从本地视频文件提取关键帧
+     *
+     * @param video 视频文件路径
+     * @param maxFrames 最多返回的帧数（通常为模型的图片数量限制）
+     * @param processor 帧处理器
+     * @param <T> 处理结果类型
+     * @return 按时间顺序排列的处理结果
+     * @throws IOException 视频无法解析或处理失败
+     */
+    public <T> List<T> extract(Path video, int maxFrames, FrameProcessor<T> processor) throws IOException {
+        try (SeekableByteChannel channel = NIOUtils.readableChannel(video.toFile())) {
+            return extract(channel, maxFrames, processor);
+        }
+    }
+
+    private <T> List<T> extract(SeekableByteChannel channel, int maxFrames, FrameProcessor<T> processor)
+            throws IOException {
+        long startTime = System.currentTimeMillis();
+        try {
+            FrameGrab grab = FrameGrab.createFrameGrab(channel);
+            double duration = grab.getVideoTrack().getMeta().getTotalDuration();
+            if (duration <= 0) {
+                throw new IOException("无法读取视频时长");
+            }
+
+            // 第一遍：按间隔定位关键帧并计算指纹
+            double interval = Math.max(sampleIntervalMs / 1000.0, duration / Math.max(1, maxSamples));
+            List<KeyframeSelector.Sample> samples = new ArrayList<>();
+            Map<Long, Double> exactSeconds = new HashMap<>();
+            long lastTimestampMs = -1;
+            for (double second = 0; second < duration; second += interval) {
+                grab.seekToSecondSloppy(second);
+                PictureWithMetadata frame = grab.getNativeFrameWithMetadata();
+                if (frame == null) {
+                    break;
+                }
+                long timestampMs = Math.round(frame.getTimestamp() * 1000);
+                if (timestampMs == lastTimestampMs) {
+                    // 采样点落在同一关键帧的GOP内
+                    continue;
+                }
+                lastTimestampMs = timestampMs;
+                exactSeconds.put(timestampMs, frame.getTimestamp());
+                samples.add(new KeyframeSelector.Sample(timestampMs,
+                        PerceptualHash.dHash(AWTUtil.toBufferedImage(frame.getPicture()))));
+            }
+
+            List<KeyframeSelector.Sample> selected = KeyframeSelector.select(samples, maxFrames, dedupeDistance,
+                    selection);
+
+            // 第二遍：只解码选中的帧
+            List<T> results = new ArrayList<>(selected.size());
+            for (KeyframeSelector.Sample sample : selected) {
+                grab.seekToSecondSloppy(exactSeconds.get(sample.getTimestampMs()));
+                PictureWithMetadata frame = grab.getNativeFrameWithMetadata();
+                if (frame == null) {
+                    throw new IOException("无法解码 " + sample + " 处的画面");
+                }
+                results.add(processor.process(sample.getTimestampMs(), AWTUtil.toBufferedImage(frame.getPicture())));
+            }
+
+            log.info("视频关键帧提取完成: 时长 {}s, 采样 {} 帧, 保留 {} 帧 {}, 耗时 {} ms",
+                    String.format("%.1f", duration), samples.size(), selected.size(), selected,
+                    System.currentTimeMillis() - startTime);
+            return results;
+        } catch (JCodecException e) {
+            throw new IOException("视频解析失败: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // JCodec 对不支持的编码（如H.265）会抛出运行时异常
+            throw new IOException("视频解码失败，可能是不支持的编码格式: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.contract.ai.core.config;
+
+import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.resilience.AiRequestContext;
+import com.contract.ai.core.resilience.IdempotencyCache;
+import com.contract.ai.core.resilience.UpstreamCallTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 异步请求取消拦截器测试类
+ */
+class AiAsyncConfigurationTest {
+
+    private static final String ROUTE = "/chat";
+
+    private final UpstreamCallTracker upstreamCallTracker = mock(UpstreamCallTracker.class);
+    private IdempotencyCache idempotencyCache;
+    private AiAsyncConfiguration.RequestCancellationInterceptor interceptor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        idempotencyCache = new IdempotencyCache(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(idempotencyCache, "enabled", true);
+        ReflectionTestUtils.setField(idempotencyCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(idempotencyCache, "ttlMs", 60000L);
+        ReflectionTestUtils.setField(idempotencyCache, "disconnectGraceMs", 0L);
+        interceptor = new AiAsyncConfiguration.RequestCancellationInterceptor(upstreamCallTracker, idempotencyCache);
+    }
+
+    @Test
+    void testTimeoutOfSharedExecutionKeepsItForAttachedRetry() throws Exception {
+        CountDownLatch abandoned = new CountDownLatch(1);
+        AiRequestContext context = new AiRequestContext("req-1");
+        idempotencyCache.execute(ROUTE, null, "key-1", "fp", CompletableFuture::new, abandoned::countDown);
+        idempotencyCache.execute(ROUTE, null, "key-1", "fp", CompletableFuture::new, null);
+
+        DeferredResult<Object> deferredResult = new DeferredResult<>();
+        NativeWebRequest first = request(context);
+        assertFalse(interceptor.handleTimeout(first, deferredResult));
+
+        assertInstanceOf(AiException.class, deferredResult.getResult());
+        verify(first).removeAttribute(IdempotencyCache.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        // 挂上的重试仍在等待，不取消共享的执行
+        assertFalse(abandoned.await(200, TimeUnit.MILLISECONDS));
+        verify(upstreamCallTracker, never()).cancel(any(), anyString());
+
+        assertTrue(interceptor.handleError(request(null), new DeferredResult<>(), new RuntimeException("closed")));
+        assertTrue(abandoned.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testTimeoutWithoutIdempotencyKeyCancelsRequest() {
+        AiRequestContext context = new AiRequestContext("req-2");
+        NativeWebRequest request = mock(NativeWebRequest.class);
+        when(request.getAttribute(AiRequestContext.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))
+                .thenReturn(context);
+
+        assertFalse(interceptor.handleTimeout(request, new DeferredResult<>()));
+        verify(upstreamCallTracker).cancel(context, AiRequestContext.REASON_TIMEOUT);
+    }
+
+    private static NativeWebRequest request(AiRequestContext context) {
+        NativeWebRequest request = mock(NativeWebRequest.class);
+        when(request.getAttribute(AiRequestContext.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))
+                .thenReturn(context);
+        when(request.getAttribute(IdempotencyCache.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))
+                .thenReturn(IdempotencyCache.cacheKey(ROUTE, null, "key-1"));
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+package com.contract.ai.core.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应并发限制测试类
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.SECONDS.toNanos(2);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testLimitGrowsWhileLatencyIsStable() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        saturate(limiter, 10);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess(RTT);
+            assertTrue(limiter.acquire(0));
+        }
+        assertTrue(limiter.getLimit() > 15, "limit=" + limiter.getLimit());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(40);
+        saturate(limiter, 40);
+        for (int i = 0; i < 50; i++) {
+            limiter.onSuccess(RTT);
+            limiter.acquire(0);
+        }
+        double before = limiter.getLimit();
+
+        // 上游排队，延迟升到4倍
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess(RTT * 4);
+            limiter.acquire(0);
+        }
+        assertTrue(limiter.getLimit() < before * 0.7, "before=" + before + ", after=" + limiter.getLimit());
+    }
+
+    @Test
+    void testLimitDoesNotGrowWhenUnderused() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.acquire(0));
+            limiter.onSuccess(RTT);
+        }
+        assertEquals(10.0, limiter.getLimit());
+    }
+
+    @Test
+    void testFailuresBackOffOncePerLatencyWindow() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        saturate(limiter, 10);
+        limiter.onSuccess(RTT);
+        limiter.acquire(0);
+        double before = limiter.getLimit();
+
+        // 同一批并发请求同时超时只收缩一次
+        limiter.onDropped();
+        limiter.onDropped();
+        limiter.onDropped();
+        assertEquals(before * 0.9, limiter.getLimit(), 1e-9);
+
+        clock.addAndGet(RTT);
+        limiter.onDropped();
+        assertEquals(before * 0.81, limiter.getLimit(), 1e-9);
+        assertEquals(6, limiter.getInFlight());
+    }
+
+    @Test
+    void testCallsBeyondLimitQueueOrAreShed() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("deepseek-chat", 1, 1, 10, 1,
+                1.5, 0.9, 10, 200, clock::get);
+        assertTrue(limiter.acquire(0));
+        assertFalse(limiter.acquire(0));
+
+        CountDownLatch queued = new CountDownLatch(1);
+        AtomicBoolean admitted = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                queued.countDown();
+                admitted.set(limiter.acquire(5_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        while (limiter.getWaiting() == 0) {
+            Thread.sleep(5);
+        }
+        // 队列已满，直接拒绝
+        assertFalse(limiter.acquire(1_000));
+
+        limiter.onIgnored();
+        waiter.join(5_000);
+        assertTrue(admitted.get());
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getWaiting());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter("glm-4.5v", initialLimit, 1, 100, 10, 1.5, 0.9, 10, 200, clock::get);
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, int calls) throws InterruptedException {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(limiter.acquire(0));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.contract.ai.core.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import feign.Request;
+import okhttp3.Call;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 请求取消上下文测试
+ */
+class AiRequestContextTest {
+
+    @Test
+    void testCancelAbortsInFlightCallsAndInterruptsBoundThread() throws Exception {
+        AiRequestContext context = new AiRequestContext("req-1");
+        Call call = mock(Call.class);
+        CountDownLatch bound = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        Thread worker = new Thread(() -> {
+            try (AiRequestContext.Scope ignored = context.bind()) {
+                context.register(call);
+                bound.countDown();
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        worker.start();
+        assertTrue(bound.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, context.cancel(AiRequestContext.REASON_DISCONNECT));
+        worker.join(5_000);
+
+        verify(call).cancel();
+        assertTrue(interrupted.get());
+        assertEquals(AiRequestContext.REASON_DISCONNECT, context.getCancelReason());
+        // 重复取消不再生效
+        assertEquals(-1, context.cancel(AiRequestContext.REASON_TIMEOUT));
+    }
+
+    @Test
+    void testCallStartedAfterCancelIsCancelledImmediately() {
+        AiRequestContext context = new AiRequestContext("req-2");
+        Call finished = mock(Call.class);
+        Call late = mock(Call.class);
+
+        try (AiRequestContext.Scope ignored = context.bind()) {
+            assertSame(context, AiRequestContext.current());
+            context.register(finished);
+            context.unregister(finished);
+
+            context.cancel(AiRequestContext.REASON_TIMEOUT);
+            context.register(late);
+            assertTrue(AiRequestContext.isCurrentCancelled());
+        }
+
+        verify(finished, never()).cancel();
+        verify(late).cancel();
+        assertNull(AiRequestContext.current());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void testChildContextCancellation() {
+        AiRequestContext parent = new AiRequestContext("req-3");
+        AiRequestContext hop = parent.child();
+        Call hopCall = mock(Call.class);
+        hop.register(hopCall);
+
+        // 单跳超时只取消该跳
+        hop.cancel(AiRequestContext.REASON_HOP_TIMEOUT);
+        verify(hopCall).cancel();
+        assertFalse(parent.isCancelled());
+
+        // 请求取消时级联取消子上下文
+        AiRequestContext nextHop = parent.child();
+        Call nextCall = mock(Call.class);
+        nextHop.register(nextCall);
+        assertEquals(1, parent.cancel(AiRequestContext.REASON_DISCONNECT));
+        verify(nextCall).cancel();
+        assertTrue(nextHop.isCancelled());
+        assertEquals(AiRequestContext.REASON_DISCONNECT, nextHop.getCancelReason());
+        assertTrue(parent.child().isCancelled());
+    }
+
+    @Test
+    void testOnlyHopTimeoutCancellationCountsAsUpstreamFailure() {
+        AiException readTimeout = new AiException(AiErrorCode.AI_READ_TIMEOUT, "read timed out");
+        assertTrue(DispatchGuard.isUpstreamFailure(readTimeout));
+
+        AiRequestContext parent = new AiRequestContext("req-4");
+        AiRequestContext hop = parent.child();
+        try (AiRequestContext.Scope ignored = hop.bind()) {
+            hop.cancel(AiRequestContext.REASON_HOP_TIMEOUT);
+            assertTrue(DispatchGuard.isUpstreamFailure(readTimeout));
+        }
+
+        AiRequestContext disconnected = new AiRequestContext("req-5");
+        try (AiRequestContext.Scope ignored = disconnected.bind()) {
+            disconnected.cancel(AiRequestContext.REASON_DISCONNECT);
+            assertFalse(DispatchGuard.isUpstreamFailure(readTimeout));
+        }
+    }
+
+    @Test
+    void testDeadlineBoundsUpstreamTimeouts() throws Exception {
+        List<Request.Options> seen = new ArrayList<>();
+        DeadlineAwareClient client = new DeadlineAwareClient((request, options) -> {
+            seen.add(options);
+            return null;
+        });
+        Request request = Request.create(Request.HttpMethod.POST, "https://open.bigmodel.cn/api/paas/v4/chat/completions",
+                Map.of(), "{}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, null);
+        Request.Options options = new Request.Options(60, TimeUnit.SECONDS, 300, TimeUnit.SECONDS, true);
+
+        AiRequestContext parent = new AiRequestContext("req-6");
+        parent.setTimeoutMs(20_000);
+        AiRequestContext hop = parent.child();
+        try (AiRequestContext.Scope ignored = hop.bind()) {
+            client.execute(request, options);
+        }
+        // 子上下文沿用父上下文的截止时间
+        assertTrue(seen.get(0).connectTimeoutMillis() <= 20_000);
+        assertTrue(seen.get(0).readTimeoutMillis() <= 20_000);
+
+        client.execute(request, options);
+        assertSame(options, seen.get(1));
+
+        AiRequestContext expired = new AiRequestContext("req-7");
+        expired.setTimeoutMs(0);
+        try (AiRequestContext.Scope ignored = expired.bind()) {
+            AiException e = assertThrows(AiException.class, () -> client.execute(request, options));
+            assertEquals(AiErrorCode.AI_REQUEST_TIMEOUT, e.getErrorCode());
+            // 调用方时限导致的超时不计入熔断
+            assertFalse(DispatchGuard.isUpstreamFailure(e));
+        }
+        assertEquals(2, seen.size());
+    }
+}
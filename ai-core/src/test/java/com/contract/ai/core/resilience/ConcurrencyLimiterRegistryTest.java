@@ -0,0 +1,62 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiCircuitOpenException;
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiUpstreamException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 模型并发限制注册中心测试类
+ */
+class ConcurrencyLimiterRegistryTest {
+
+    private static final String MODEL = "glm-4-flash";
+
+    private ConcurrencyLimiterRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new ConcurrencyLimiterRegistry(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(registry, "enabled", true);
+        ReflectionTestUtils.setField(registry, "initialLimit", 20);
+        ReflectionTestUtils.setField(registry, "minLimit", 2);
+        ReflectionTestUtils.setField(registry, "maxLimit", 200);
+        ReflectionTestUtils.setField(registry, "maxQueue", 50);
+        ReflectionTestUtils.setField(registry, "maxWaitMs", 100L);
+        ReflectionTestUtils.setField(registry, "tolerance", 1.5);
+        ReflectionTestUtils.setField(registry, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(registry, "shortWindow", 10);
+        ReflectionTestUtils.setField(registry, "longWindow", 200);
+    }
+
+    @Test
+    void testCircuitOpenRejectionDoesNotShrinkLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertThrows(AiCircuitOpenException.class, () -> registry.execute(MODEL, () -> {
+                throw new AiCircuitOpenException(MODEL, "熔断中");
+            }));
+        }
+
+        AdaptiveConcurrencyLimiter limiter = registry.get(MODEL);
+        assertEquals(20, limiter.getLimit(), 0.001);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testUpstreamFailureShrinksLimit() {
+        assertThrows(AiUpstreamException.class, () -> registry.execute(MODEL, () -> {
+            throw new AiUpstreamException("glm", 503, AiErrorCode.AI_SERVICE_UNAVAILABLE, null, null, true, "过载");
+        }));
+
+        AdaptiveConcurrencyLimiter limiter = registry.get(MODEL);
+        assertTrue(limiter.getLimit() < 20, "limit=" + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,131 @@
+package com.contract.ai.core.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * API密钥池测试
+ */
+class CredentialPoolTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private CredentialPool pool(CredentialPool.Selection selection, String... keys) {
+        return new CredentialPool("glm", List.of(keys), selection, 30_000, 600_000, now::get);
+    }
+
+    @Test
+    void testLeastLoadedSelection() {
+        CredentialPool pool = pool(CredentialPool.Selection.LEAST_LOADED, "a", "b", "c");
+
+        CredentialPool.Lease first = pool.acquire();
+        CredentialPool.Lease second = pool.acquire();
+        CredentialPool.Lease third = pool.acquire();
+        // 三个密钥各占用一个
+        assertEquals(3, List.of(first.getApiKey(), second.getApiKey(), third.getApiKey()).stream().distinct().count());
+
+        second.onSuccess();
+        assertEquals(second.getApiKey(), pool.acquire().getApiKey());
+
+        // 重复记录结果不影响计数
+        second.onFailure();
+        CredentialPool.Credential credential = pool.getCredentials().stream()
+                .filter(c -> c.getLabel().equals(second.getLabel())).findFirst().orElseThrow();
+        assertEquals(1, credential.getSuccesses());
+        assertEquals(0, credential.getFailures());
+        assertEquals(1, credential.getInFlight());
+    }
+
+    @Test
+    void testThrottledKeyCoolsDown() {
+        CredentialPool pool = pool(CredentialPool.Selection.ROUND_ROBIN, "a", "b");
+
+        CredentialPool.Lease lease = pool.acquire();
+        String throttledKey = lease.getApiKey();
+        lease.onThrottled(5_000L);
+
+        for (int i = 0; i < 4; i++) {
+            CredentialPool.Lease next = pool.acquire();
+            assertNotEquals(throttledKey, next.getApiKey());
+            next.onSuccess();
+        }
+
+        now.addAndGet(5_000);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            CredentialPool.Lease next = pool.acquire();
+            keys.add(next.getApiKey());
+            next.onSuccess();
+        }
+        assertTrue(keys.contains(throttledKey));
+    }
+
+    @Test
+    void testAllKeysCoolingUsesEarliestRecovery() {
+        CredentialPool pool = pool(CredentialPool.Selection.LEAST_LOADED, "a", "b");
+
+        CredentialPool.Lease a = pool.acquire();
+        CredentialPool.Lease b = pool.acquire();
+        (a.getApiKey().equals("a") ? a : b).onRejected();
+        (a.getApiKey().equals("b") ? a : b).onThrottled(null);
+
+        // b 冷却30秒，a 冷却10分钟
+        assertEquals("b", pool.acquire().getApiKey());
+        CredentialPool.Credential rejected = pool.getCredentials().get(0);
+        assertEquals(1, rejected.getThrottled());
+        assertEquals(now.get() + 600_000, rejected.getCoolingUntil());
+    }
+
+    @Test
+    void testEmptyPool() {
+        CredentialPool pool = pool(CredentialPool.Selection.LEAST_LOADED, " ", "");
+
+        assertTrue(pool.isEmpty());
+        assertNull(pool.acquire());
+    }
+
+    @Test
+    void testClientRotatesKeyAfterThrottle() throws Exception {
+        CredentialPool pool = new CredentialPool("iflow", List.of("k1", "k2"), CredentialPool.Selection.LEAST_LOADED,
+                30_000, 600_000);
+        List<String> authorizations = new ArrayList<>();
+        CredentialPoolClient client = new CredentialPoolClient((request, options) -> {
+            Collection<String> authorization = request.headers().get("Authorization");
+            authorizations.add(authorization.iterator().next());
+            int status = authorizations.size() == 1 ? 429 : 200;
+            return Response.builder()
+                    .status(status)
+                    .reason("")
+                    .request(request)
+                    .headers(status == 429 ? Map.of("Retry-After", List.of("20")) : Map.of())
+                    .body("{}", StandardCharsets.UTF_8)
+                    .build();
+        }, pool);
+
+        Request request = Request.create(Request.HttpMethod.POST, "https://apis.iflow.cn/v1/chat/completions",
+                Map.of("Authorization", List.of("Bearer stale")), "{}".getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8, null);
+        assertEquals(429, client.execute(request, null).status());
+        assertEquals(200, client.execute(request, null).status());
+        assertEquals(200, client.execute(request, null).status());
+
+        // 被限流的密钥冷却期间不再被选中
+        String throttled = authorizations.get(0);
+        assertTrue(throttled.equals("Bearer k1") || throttled.equals("Bearer k2"));
+        assertNotEquals(throttled, authorizations.get(1));
+        assertEquals(authorizations.get(1), authorizations.get(2));
+    }
+}
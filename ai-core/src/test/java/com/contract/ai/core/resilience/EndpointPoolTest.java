@@ -0,0 +1,153 @@
+package com.contract.ai.core.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * 多入口地址池测试
+ */
+class EndpointPoolTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private EndpointPool pool(int maxEjectionPercent, String... baseUrls) {
+        return new EndpointPool("glm", List.of(baseUrls), 0.5, 2, 10_000, maxEjectionPercent, nanos::get);
+    }
+
+    /**
+     * 按选中的入口模拟一次调用
+     */
+    private EndpointPool.Endpoint call(EndpointPool pool, ToLongFunction<EndpointPool.Endpoint> latency,
+                                       Predicate<EndpointPool.Endpoint> success) {
+        EndpointPool.Endpoint chosen = pool.choose();
+        pool.onResult(chosen, latency.applyAsLong(chosen), success.test(chosen));
+        return chosen;
+    }
+
+    @Test
+    void testPrefersLowerLatencyEndpoint() {
+        EndpointPool pool = pool(50, "https://a.example.com/", "https://b.example.com");
+        EndpointPool.Endpoint a = pool.getEndpoints().get(0);
+        EndpointPool.Endpoint b = pool.getEndpoints().get(1);
+        assertEquals("https://a.example.com", a.getBaseUrl());
+
+        // 未测量的入口代价为0，前两次调用各探测一个入口
+        call(pool, e -> e == a ? SLOW : FAST, e -> true);
+        call(pool, e -> e == a ? SLOW : FAST, e -> true);
+        assertEquals(5_000, a.getEwmaMillis(), 0.001);
+
+        // 两个入口时每次都比较两者，慢入口不再被选中
+        for (int i = 0; i < 20; i++) {
+            EndpointPool.Endpoint chosen = pool.choose();
+            assertEquals(b, chosen);
+            pool.onResult(chosen, FAST, true);
+        }
+        assertEquals(0, b.getInFlight());
+    }
+
+    @Test
+    void testInFlightCallsShiftLoad() {
+        EndpointPool pool = pool(50, "https://a.example.com", "https://b.example.com");
+        EndpointPool.Endpoint a = pool.getEndpoints().get(0);
+        EndpointPool.Endpoint b = pool.getEndpoints().get(1);
+        call(pool, e -> e == a ? FAST : FAST * 5 / 2, e -> true);
+        call(pool, e -> e == a ? FAST : FAST * 5 / 2, e -> true);
+
+        // a 已有两个在途调用，代价 3×200ms 高于 b 的 1×500ms
+        assertEquals(a, pool.choose());
+        assertEquals(a, pool.choose());
+        assertEquals(b, pool.choose());
+    }
+
+    @Test
+    void testEjectsFailingEndpoint() {
+        EndpointPool pool = pool(50, "https://a.example.com", "https://b.example.com");
+        EndpointPool.Endpoint a = pool.getEndpoints().get(0);
+        EndpointPool.Endpoint b = pool.getEndpoints().get(1);
+
+        // a 快速失败，代价低于 b，三次调用内必然连续失败两次
+        for (int i = 0; i < 3; i++) {
+            call(pool, e -> e == a ? FAST : SLOW, e -> e == b);
+        }
+        assertTrue(a.isEjected());
+
+        for (int i = 0; i < 5; i++) {
+            EndpointPool.Endpoint chosen = pool.choose();
+            assertEquals(b, chosen);
+            pool.onResult(chosen, SLOW, true);
+        }
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertFalse(a.isEjected());
+    }
+
+    @Test
+    void testMaxEjectionPercentKeepsEndpointsAvailable() {
+        EndpointPool pool = pool(50, "https://a.example.com", "https://b.example.com");
+        for (int i = 0; i < 10; i++) {
+            call(pool, e -> FAST, e -> false);
+        }
+
+        // 最多摘除一半的入口
+        assertEquals(1, pool.getEndpoints().stream().filter(EndpointPool.Endpoint::isEjected).count());
+    }
+
+    @Test
+    void testClientRewritesBaseUrl() throws Exception {
+        EndpointPool pool = pool(50, "https://open.bigmodel.cn/api/paas/v4", "https://gw.example.com/glm/v4");
+        List<String> urls = new ArrayList<>();
+        EndpointSelectingClient client = new EndpointSelectingClient((request, options) -> {
+            urls.add(request.url());
+            boolean gateway = request.url().startsWith("https://gw.example.com");
+            if (!gateway) {
+                sleep(20);
+            }
+            return Response.builder()
+                    .status(gateway ? 200 : 503)
+                    .reason("")
+                    .request(request)
+                    .headers(Map.of())
+                    .body("{}", StandardCharsets.UTF_8)
+                    .build();
+        }, pool, "https://open.bigmodel.cn/api/paas/v4/");
+
+        Request request = Request.create(Request.HttpMethod.POST,
+                "https://open.bigmodel.cn/api/paas/v4/chat/completions", Map.of(),
+                "{}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, null);
+        for (int i = 0; i < 20; i++) {
+            client.execute(request, null);
+        }
+
+        assertTrue(urls.stream().allMatch(url -> url.endsWith("/chat/completions")));
+        assertTrue(urls.contains("https://gw.example.com/glm/v4/chat/completions"));
+        // 主入口被探测一次后因延迟更高不再被选中，后续调用都走网关
+        assertEquals(1, urls.stream().filter(url -> url.startsWith("https://open.bigmodel.cn")).count());
+        assertTrue(urls.subList(2, urls.size()).stream().allMatch(url -> url.startsWith("https://gw.example.com/glm/v4")));
+        assertEquals(1, pool.getEndpoints().get(0).getFailures());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.resilience.FairRequestScheduler.Priority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 请求加权公平调度器测试类
+ */
+class FairRequestSchedulerTest {
+
+    private ManualExecutor executor;
+    private FairRequestScheduler scheduler;
+    private final List<String> started = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        executor = new ManualExecutor();
+        scheduler = new FairRequestScheduler(executor, mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 4);
+        ReflectionTestUtils.setField(scheduler, "batchMaxShare", 0.5);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 10);
+        ReflectionTestUtils.setField(scheduler, "interactiveWeight", 8.0);
+        ReflectionTestUtils.setField(scheduler, "batchWeight", 1.0);
+        ReflectionTestUtils.setField(scheduler, "tenantWeightsSpec", "");
+        ReflectionTestUtils.setField(scheduler, "batchTenantsSpec", "review-job");
+        ReflectionTestUtils.setField(scheduler, "tenantHeaders", List.of("X-Tenant-Id", "username"));
+        scheduler.init();
+    }
+
+    @Test
+    void testBatchShareLeavesRoomForInteractiveRequests() {
+        Executor batch = scheduler.executorFor("review-job", Priority.BATCH);
+        for (int i = 0; i < 5; i++) {
+            submit(batch, "batch-" + i);
+        }
+        // 4个名额中批量最多占2个，空闲名额留给交互请求
+        assertEquals(2, scheduler.getRunning(Priority.BATCH));
+        assertEquals(3, scheduler.getQueued(Priority.BATCH));
+
+        Executor interactive = scheduler.executorFor("alice", Priority.INTERACTIVE);
+        submit(interactive, "alice-0");
+        submit(interactive, "alice-1");
+        submit(interactive, "alice-2");
+        assertEquals(2, scheduler.getRunning(Priority.INTERACTIVE));
+        assertEquals(1, scheduler.getQueued(Priority.INTERACTIVE));
+        assertEquals(4, executor.pending());
+
+        // 批量请求结束后，排队的交互请求先于排队的批量请求执行
+        executor.runNext();
+        assertEquals(3, scheduler.getRunning(Priority.INTERACTIVE));
+        assertEquals(1, scheduler.getRunning(Priority.BATCH));
+        assertEquals(3, scheduler.getQueued(Priority.BATCH));
+
+        executor.drain();
+        assertEquals(List.of("batch-0", "batch-1", "alice-0", "alice-1", "alice-2", "batch-2", "batch-3", "batch-4"),
+                started);
+        assertEquals(0, scheduler.getRunning(Priority.BATCH));
+    }
+
+    @Test
+    void testTenantsShareSlotsByWeight() {
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(scheduler, "tenantWeightsSpec", "legal=2");
+        scheduler.init();
+
+        Executor bob = scheduler.executorFor("bob", Priority.INTERACTIVE);
+        Executor legal = scheduler.executorFor("legal", Priority.INTERACTIVE);
+        submit(bob, "hold");
+        submit(bob, "bob-0");
+        submit(bob, "bob-1");
+        for (int i = 0; i < 4; i++) {
+            submit(legal, "legal-" + i);
+        }
+        assertEquals(1, executor.pending());
+
+        executor.drain();
+        // 权重2的租户获得两倍名额，另一个租户不会饿死
+        assertEquals(List.of("hold", "legal-0", "legal-1", "legal-2", "bob-0", "legal-3", "bob-1"), started);
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() {
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 1);
+        scheduler.init();
+
+        Executor interactive = scheduler.executorFor(null, Priority.INTERACTIVE);
+        submit(interactive, "running");
+        submit(interactive, "queued");
+        assertThrows(RejectedExecutionException.class, () -> submit(interactive, "rejected"));
+        // 各优先级队列独立计算容量
+        submit(scheduler.executorFor(null, Priority.BATCH), "batch");
+        assertEquals(1, scheduler.getQueued(Priority.BATCH));
+    }
+
+    @Test
+    void testDisabledSchedulerUsesExecutorDirectly() {
+        ReflectionTestUtils.setField(scheduler, "enabled", false);
+        assertSame(executor, scheduler.executorFor("alice", Priority.BATCH));
+    }
+
+    @Test
+    void testResolvePriority() {
+        assertEquals(Priority.INTERACTIVE, scheduler.resolvePriority("alice", null));
+        assertEquals(Priority.BATCH, scheduler.resolvePriority("review-job", null));
+        assertEquals(Priority.BATCH, scheduler.resolvePriority("alice", " Batch "));
+        assertEquals(Priority.INTERACTIVE, scheduler.resolvePriority("review-job", "interactive"));
+        assertEquals(Priority.INTERACTIVE, scheduler.resolvePriority("alice", "urgent"));
+    }
+
+    @Test
+    void testParseWeights() {
+        assertEquals(Map.of("legal", 2.0, "ops", 0.5),
+                FairRequestScheduler.parseWeights(" legal = 2 ,ops=0.5,bad,neg=-1,nan=abc,=3"));
+        assertTrue(FairRequestScheduler.parseWeights(null).isEmpty());
+    }
+
+    private void submit(Executor target, String name) {
+        target.execute(() -> started.add(name));
+    }
+
+    /**
+     * 手动驱动的线程池：放行的请求按顺序暂存，由测试决定何时执行
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        int pending() {
+            return tasks.size();
+        }
+
+        /**
+         * 执行最早放行的请求，结束时调度器放行下一个请求
+         */
+        void runNext() {
+            tasks.remove(0).run();
+        }
+
+        void drain() {
+            while (!tasks.isEmpty()) {
+                runNext();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 幂等键缓存测试类
+ */
+class IdempotencyCacheTest {
+
+    private static final String ROUTE = "/chat";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new IdempotencyCache(null, clock::get);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60000L);
+        ReflectionTestUtils.setField(cache, "disconnectGraceMs", 10000L);
+    }
+
+    @Test
+    void testRetryAttachesToInFlightExecution() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> first = cache.execute(ROUTE, "key-1", "fp", () -> run(upstream));
+        CompletableFuture<String> retry = cache.execute(ROUTE, "key-1", "fp", () -> run(new CompletableFuture<>()));
+
+        assertEquals(1, executions.get());
+        assertFalse(retry.isDone());
+        upstream.complete("result");
+        assertEquals("result", first.get());
+        assertEquals("result", retry.get());
+    }
+
+    @Test
+    void testReplaysCompletedResultUntilExpired() throws Exception {
+        cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("result")));
+        assertEquals("result", cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("again"))).get());
+        assertEquals(1, executions.get());
+
+        // 不同接口的相同键互不影响
+        cache.execute("/chat/vision/urls", "key-1", "fp", () -> run(CompletableFuture.completedFuture("vision")));
+        assertEquals(2, executions.get());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertEquals("again", cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("again"))).get());
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void testFailedExecutionIsNotKept() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        cache.execute(ROUTE, "key-1", "fp", () -> run(upstream));
+        CompletableFuture<String> attached = cache.execute(ROUTE, "key-1", "fp", () -> run(new CompletableFuture<>()));
+        upstream.completeExceptionally(new AiException(AiErrorCode.AI_READ_TIMEOUT));
+
+        ExecutionException e = assertThrows(ExecutionException.class, attached::get);
+        assertInstanceOf(AiException.class, e.getCause());
+        assertEquals(0, cache.size());
+
+        assertEquals("ok", cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("ok"))).get());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testRejectedExecutionReleasesKey() {
+        assertThrows(AiException.class, () -> cache.execute(ROUTE, "key-1", "fp", () -> {
+            throw new AiException(AiErrorCode.AI_SERVICE_UNAVAILABLE);
+        }));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSameKeyOfDifferentTenantsExecutesSeparately() throws Exception {
+        cache.execute(ROUTE, "tenant-a", "key-1", "fp", () -> run(CompletableFuture.completedFuture("a")), null);
+
+        assertEquals("b", cache.execute(ROUTE, "tenant-b", "key-1", "fp",
+                () -> run(CompletableFuture.completedFuture("b")), null).get());
+        assertEquals("a", cache.execute(ROUTE, "tenant-a", "key-1", "fp",
+                () -> run(CompletableFuture.completedFuture("again")), null).get());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testRejectsKeyReusedForDifferentRequest() {
+        cache.execute(ROUTE, "key-1", "fp-1", () -> run(new CompletableFuture<>()));
+
+        AiException e = assertThrows(AiException.class,
+                () -> cache.execute(ROUTE, "key-1", "fp-2", () -> run(new CompletableFuture<>())));
+        assertEquals(AiErrorCode.AI_INVALID_MODEL_PARAMETER, e.getErrorCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testEvictsOldestKeysBeyondCapacity() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("1")));
+        cache.execute(ROUTE, "key-2", "fp", () -> run(CompletableFuture.completedFuture("2")));
+        cache.execute(ROUTE, "key-3", "fp", () -> run(CompletableFuture.completedFuture("3")));
+        assertEquals(2, cache.size());
+
+        cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("1")));
+        assertEquals(4, executions.get());
+    }
+
+    @Test
+    void testWithoutKeyAlwaysExecutes() {
+        cache.execute(ROUTE, null, "fp", () -> run(CompletableFuture.completedFuture("1")));
+        cache.execute(ROUTE, " ", "fp", () -> run(CompletableFuture.completedFuture("1")));
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("1")));
+        cache.execute(ROUTE, "key-1", "fp", () -> run(CompletableFuture.completedFuture("1")));
+        assertEquals(4, executions.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testAbandonedExecutionIsCancelledAfterGrace() throws Exception {
+        ReflectionTestUtils.setField(cache, "disconnectGraceMs", 0L);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        cache.execute(ROUTE, null, "key-1", "fp", () -> run(new CompletableFuture<>()), cancelled::countDown);
+
+        assertTrue(cache.onClientDisconnected(IdempotencyCache.cacheKey(ROUTE, null, "key-1")));
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testAttachedRetryKeepsExecutionUntilItDisconnects() throws Exception {
+        ReflectionTestUtils.setField(cache, "disconnectGraceMs", 200L);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        String cacheKey = IdempotencyCache.cacheKey(ROUTE, null, "key-1");
+        cache.execute(ROUTE, null, "key-1", "fp", () -> run(new CompletableFuture<>()), cancelled::countDown);
+
+        assertTrue(cache.onClientDisconnected(cacheKey));
+        cache.execute(ROUTE, "key-1", "fp", () -> run(new CompletableFuture<>()));
+        // 宽限期内有重试挂上，执行继续
+        assertFalse(cancelled.await(500, TimeUnit.MILLISECONDS));
+
+        assertTrue(cache.onClientDisconnected(cacheKey));
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testDisconnectIsLeftToCallerWhenNothingIsShared() throws Exception {
+        assertFalse(cache.onClientDisconnected(IdempotencyCache.cacheKey(ROUTE, null, "missing")));
+
+        cache.execute(ROUTE, null, "key-1", "fp", () -> run(CompletableFuture.completedFuture("1")),
+                () -> fail("cancelled"));
+        assertFalse(cache.onClientDisconnected(IdempotencyCache.cacheKey(ROUTE, null, "key-1")));
+
+        // 未登记取消操作的执行由调用方处理
+        cache.execute(ROUTE, "key-2", "fp", () -> run(new CompletableFuture<>()));
+        assertFalse(cache.onClientDisconnected(IdempotencyCache.cacheKey(ROUTE, null, "key-2")));
+    }
+
+    private <T> CompletableFuture<T> run(CompletableFuture<T> result) {
+        executions.incrementAndGet();
+        return result;
+    }
+}
@@ -0,0 +1,158 @@
+package com.contract.ai.core.resilience;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JDK HttpClient Feign客户端测试类
+ */
+class JdkHttp2ClientTest {
+
+    private static final Request.Options OPTIONS = new Request.Options(1, TimeUnit.SECONDS, 5, TimeUnit.SECONDS, true);
+
+    private final AtomicReference<String> receivedAuthorization = new AtomicReference<>();
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+    private final CountDownLatch slowStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer server;
+    private JdkHttp2Client client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/chat/completions", exchange -> {
+            receivedAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            try (InputStream in = exchange.getRequestBody()) {
+                receivedBody.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            byte[] body = "{\"id\":\"chatcmpl-1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("x-ratelimit-remaining-requests", "99");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            slowStarted.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        client = new JdkHttp2Client(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void testExecutesRequestAndMapsResponse() throws IOException {
+        Response response = client.execute(post("/chat/completions", "{\"model\":\"deepseek-chat\"}"), OPTIONS);
+
+        assertEquals(200, response.status());
+        assertEquals("Bearer sk-test", receivedAuthorization.get());
+        assertEquals("{\"model\":\"deepseek-chat\"}", receivedBody.get());
+        assertEquals(List.of("99"), new ArrayList<>(response.headers().get("X-RateLimit-Remaining-Requests")));
+        try (InputStream body = response.body().asInputStream()) {
+            assertEquals("{\"id\":\"chatcmpl-1\"}", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testAsyncExecutionDoesNotBlockCaller() throws Exception {
+        CompletableFuture<Response> future = client.execute(post("/slow", "{}"), OPTIONS, Optional.empty());
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        assertFalse(future.isDone());
+
+        release.countDown();
+        assertEquals(204, future.get(5, TimeUnit.SECONDS).status());
+    }
+
+    @Test
+    void testReadTimeoutIsReportedAsSocketTimeout() {
+        Request.Options shortTimeout = new Request.Options(1, TimeUnit.SECONDS, 200, TimeUnit.MILLISECONDS, true);
+
+        SocketTimeoutException e = assertThrows(SocketTimeoutException.class,
+                () -> client.execute(post("/slow", "{}"), shortTimeout));
+        assertFalse(e.getMessage().contains("connect"));
+    }
+
+    @Test
+    void testDeadlineBoundedOptionsLimitWholeCall() {
+        // DeadlineAwareClient 按剩余时限收紧后的 Options，连接与读取超时都不超过剩余时限
+        Request.Options bounded = new Request.Options(300, TimeUnit.MILLISECONDS, 300, TimeUnit.MILLISECONDS, true);
+
+        long start = System.nanoTime();
+        assertThrows(SocketTimeoutException.class, () -> client.execute(post("/slow", "{}"), bounded));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    void testInterruptAbortsCall() throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                client.execute(post("/slow", "{}"), OPTIONS);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        caller.start();
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+        // 请求取消时 AiRequestContext 中断绑定的线程
+        caller.interrupt();
+        caller.join(5000);
+        assertFalse(caller.isAlive());
+        assertInstanceOf(InterruptedIOException.class, failure.get());
+    }
+
+    private Request post(String path, String body) {
+        Map<String, Collection<String>> headers = Map.of(
+                "Authorization", List.of("Bearer sk-test"),
+                "Content-Type", List.of("application/json"),
+                "Content-Length", List.of(String.valueOf(body.length())));
+        return Request.create(Request.HttpMethod.POST, "http://127.0.0.1:" + server.getAddress().getPort() + path,
+                headers, body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, null);
+    }
+}
@@ -0,0 +1,128 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiOverloadedException;
+import com.contract.ai.core.resilience.FairRequestScheduler.Priority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 接口级负载保护测试类
+ */
+class LoadShedderTest {
+
+    private static final String ROUTE = "/chat";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> queue = new ArrayList<>();
+    private final Executor executor = queue::add;
+    private LoadShedder loadShedder;
+
+    @BeforeEach
+    void setUp() {
+        loadShedder = new LoadShedder(null, clock::get);
+        ReflectionTestUtils.setField(loadShedder, "enabled", true);
+        ReflectionTestUtils.setField(loadShedder, "targetDelayMs", 1000L);
+        ReflectionTestUtils.setField(loadShedder, "intervalMs", 5000L);
+        ReflectionTestUtils.setField(loadShedder, "maxInFlight", 10);
+        ReflectionTestUtils.setField(loadShedder, "minRetryAfterSeconds", 1L);
+        ReflectionTestUtils.setField(loadShedder, "maxRetryAfterSeconds", 60L);
+    }
+
+    @Test
+    void testShedsBatchRequestsWhenQueueDelayStaysAboveTarget() {
+        submit(Priority.BATCH);
+        submit(Priority.BATCH);
+        submit(Priority.BATCH);
+
+        // 排队3秒后开始执行，高于目标但尚未持续一个interval
+        advance(3000);
+        runNext();
+        submit(Priority.BATCH);
+        advance(5000);
+        runNext();
+        assertTrue(loadShedder.getRoutes().get(ROUTE).isDropping());
+
+        AiOverloadedException e = assertThrows(AiOverloadedException.class, () -> submit(Priority.BATCH));
+        assertEquals(AiErrorCode.AI_SERVICE_UNAVAILABLE, e.getErrorCode());
+        assertEquals(8, e.getRetryAfterSeconds());
+        // 交互请求不受排队延迟拒绝
+        submit(Priority.INTERACTIVE);
+
+        // 排队延迟回到目标以下后恢复
+        runNext();
+        runNext();
+        assertTrue(loadShedder.getRoutes().get(ROUTE).isDropping());
+        runNext();
+        assertFalse(loadShedder.getRoutes().get(ROUTE).isDropping());
+        submit(Priority.BATCH);
+    }
+
+    @Test
+    void testRecoversWhenQueueIsDrained() {
+        submit(Priority.BATCH);
+        submit(Priority.BATCH);
+        advance(2000);
+        runNext();
+        advance(6000);
+        runNext();
+        assertTrue(loadShedder.getRoutes().get(ROUTE).isDropping());
+
+        // 没有排队的请求时不再拒绝
+        submit(Priority.BATCH);
+        assertFalse(loadShedder.getRoutes().get(ROUTE).isDropping());
+    }
+
+    @Test
+    void testInFlightLimitShedsAllPriorities() {
+        ReflectionTestUtils.setField(loadShedder, "maxInFlight", 2);
+        submit(Priority.INTERACTIVE);
+        submit(Priority.INTERACTIVE);
+        AiOverloadedException e = assertThrows(AiOverloadedException.class, () -> submit(Priority.INTERACTIVE));
+        assertEquals(1, e.getRetryAfterSeconds());
+
+        runNext();
+        assertEquals(1, loadShedder.getRoutes().get(ROUTE).getInFlight());
+        submit(Priority.INTERACTIVE);
+
+        // 执行器拒绝时释放名额
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("full");
+        };
+        runNext();
+        assertThrows(RejectedExecutionException.class,
+                () -> loadShedder.admit(ROUTE, Priority.INTERACTIVE).wrap(rejecting).execute(() -> { }));
+        assertEquals(1, loadShedder.getRoutes().get(ROUTE).getInFlight());
+    }
+
+    @Test
+    void testDisabledAdmitsEverything() {
+        ReflectionTestUtils.setField(loadShedder, "enabled", false);
+        ReflectionTestUtils.setField(loadShedder, "maxInFlight", 1);
+        submit(Priority.BATCH);
+        submit(Priority.BATCH);
+        assertEquals(0, loadShedder.getRoutes().get(ROUTE).getInFlight());
+    }
+
+    private void submit(Priority priority) {
+        loadShedder.admit(ROUTE, priority).wrap(executor).execute(() -> { });
+    }
+
+    private void runNext() {
+        queue.remove(0).run();
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,113 @@
+package com.contract.ai.core.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模型熔断器测试
+ */
+class ModelCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    /**
+     * 窗口10，至少5次调用，失败率50%，慢调用率80%（超过5秒），打开30秒，半开探测2次
+     */
+    private final ModelCircuitBreaker breaker =
+            new ModelCircuitBreaker("glm-4.5v", 10, 5, 0.5, 0.8, 5000, 30_000, 2, nanos::get);
+
+    @Test
+    void testOpensWhenFailureRateExceedsThreshold() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onError(FAST);
+        }
+        // 未达到最小调用数前不打开
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState());
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess(FAST);
+
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getNotPermittedCalls());
+        assertEquals(30_000, breaker.getRemainingOpenMillis());
+    }
+
+    @Test
+    void testOpensWhenSlowCallRateExceedsThreshold() {
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onSuccess(SLOW);
+        }
+        breaker.tryAcquirePermission();
+        breaker.onSuccess(FAST);
+
+        // 4/5 = 80% 慢调用
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpenProbesCloseCircuit() {
+        open();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        // 探测名额用完
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onSuccess(FAST);
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(FAST);
+
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getBufferedCalls());
+    }
+
+    @Test
+    void testFailedProbeReopensCircuit() {
+        open();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+        breaker.onSuccess(FAST);
+        breaker.onError(FAST);
+
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testIgnoredProbeReleasesPermit() {
+        open();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+        // 参数错误等请求自身的问题不计入探测结果
+        breaker.onIgnored();
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    private void open() {
+        for (int i = 0; i < 5; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onError(FAST);
+        }
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
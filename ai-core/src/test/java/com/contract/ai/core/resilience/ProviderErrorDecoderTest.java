@@ -0,0 +1,120 @@
+package com.contract.ai.core.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiUpstreamException;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上游平台错误解码器测试
+ */
+class ProviderErrorDecoderTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final ProviderErrorDecoder decoder =
+            new ProviderErrorDecoder("deepseek", ProviderErrorDecoder.OPENAI_COMPATIBLE_CODES, () -> NOW);
+
+    @Test
+    void testRateLimitIsRetryableAndHonoursRetryAfter() {
+        Exception exception = decoder.decode("DeepSeekClient#chatCompletions", response(429,
+                Map.of("Retry-After", List.of("3")),
+                "{\"error\":{\"message\":\"Rate limit reached\",\"type\":\"rate_limit_error\"}}"));
+
+        RetryableException retryable = assertInstanceOf(RetryableException.class, exception);
+        assertEquals(NOW + 3000, retryable.retryAfter());
+        AiUpstreamException upstream = assertInstanceOf(AiUpstreamException.class, retryable.getCause());
+        assertEquals(AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, upstream.getErrorCode());
+        assertEquals("rate_limit_error", upstream.getProviderCode());
+        assertEquals(3000L, upstream.getRetryAfterMillis());
+    }
+
+    @Test
+    void testBadRequestIsNotRetried() {
+        Exception exception = decoder.decode("DeepSeekClient#chatCompletions", response(400, Map.of(),
+                "{\"error\":{\"message\":\"too long\",\"type\":\"invalid_request_error\","
+                        + "\"code\":\"context_length_exceeded\"}}"));
+
+        AiUpstreamException upstream = assertInstanceOf(AiUpstreamException.class, exception);
+        assertEquals(AiErrorCode.AI_CONTEXT_TOO_LONG, upstream.getErrorCode());
+        assertEquals("context_length_exceeded", upstream.getProviderCode());
+        assertFalse(upstream.isRetryable());
+    }
+
+    @Test
+    void testProviderCodeOverridesStatus() {
+        ProviderErrorDecoder glmDecoder = new ProviderErrorDecoder("glm",
+                Map.of("1113", AiErrorCode.AI_QUOTA_EXCEEDED), () -> NOW);
+
+        // 智谱欠费同样返回429，但不应重试
+        Exception exception = glmDecoder.decode("GlmVisionClient#chatCompletions", response(429, Map.of(),
+                "{\"error\":{\"code\":\"1113\",\"message\":\"您的账户已欠费\"}}"));
+
+        AiUpstreamException upstream = assertInstanceOf(AiUpstreamException.class, exception);
+        assertEquals(AiErrorCode.AI_QUOTA_EXCEEDED, upstream.getErrorCode());
+        assertFalse(upstream.isRetryable());
+    }
+
+    @Test
+    void testServerErrorWithoutBodyIsRetryable() {
+        Exception exception = decoder.decode("DeepSeekClient#chatCompletions", response(503, Map.of(), ""));
+
+        RetryableException retryable = assertInstanceOf(RetryableException.class, exception);
+        assertNull(retryable.retryAfter());
+        assertEquals(AiErrorCode.AI_SERVICE_UNAVAILABLE, AiUpstreamException.errorCodeOf(retryable));
+    }
+
+    @Test
+    void testParseRetryAfterHeaders() {
+        assertEquals(360_000L, ProviderErrorDecoder.parseDuration("6m0s"));
+        assertEquals(20L, ProviderErrorDecoder.parseDuration("20ms"));
+        assertEquals(1500L, ProviderErrorDecoder.parseDuration("1.5s"));
+        assertNull(ProviderErrorDecoder.parseDuration("soon"));
+
+        assertEquals(5000L, ProviderErrorDecoder.parseRetryAfterMillis(
+                Map.of("retry-after", List.of("Tue, 14 Nov 2023 22:13:25 GMT")), 503, 1_700_000_000_000L));
+        assertEquals(2000L, ProviderErrorDecoder.parseRetryAfterMillis(Map.of(
+                "x-ratelimit-reset-requests", List.of("1s"),
+                "x-ratelimit-reset-tokens", List.of("2s")), 429, NOW));
+        // 非429响应不读取限流重置头
+        assertNull(ProviderErrorDecoder.parseRetryAfterMillis(
+                Map.of("x-ratelimit-reset-requests", List.of("1s")), 503, NOW));
+    }
+
+    @Test
+    void testErrorCodeOfNetworkFailures() {
+        assertEquals(AiErrorCode.AI_CONNECTION_FAILED,
+                AiUpstreamException.errorCodeOf(new RuntimeException(new ConnectException("Connection refused"))));
+        assertEquals(AiErrorCode.AI_SERVICE_ERROR,
+                AiUpstreamException.errorCodeOf(new RuntimeException("Network connection failed")));
+        assertTrue(ProviderErrorDecoder.isTransient(502, AiErrorCode.AI_SERVICE_ERROR));
+        assertFalse(ProviderErrorDecoder.isTransient(500, AiErrorCode.AI_CONTENT_FILTERED));
+    }
+
+    private static Response response(int status, Map<String, List<String>> headers, String body) {
+        Request request = Request.create(Request.HttpMethod.POST, "https://api.example.com/v1/chat/completions",
+                Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+        return Response.builder()
+                .status(status)
+                .reason("error")
+                .request(request)
+                .headers(Collections.<String, Collection<String>>unmodifiableMap(headers))
+                .body(body, StandardCharsets.UTF_8)
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiAdmissionRejectedException;
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiUpstreamException;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 平台限流准入测试类
+ */
+class ProviderRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void testRequestsQueueAtConfiguredRate() {
+        // 60 RPM，容量1秒：每秒放行一个
+        ProviderRateLimiter limiter = limiter(60, 0, 1);
+
+        assertEquals(0, limiter.reserve(1, 10_000));
+        assertEquals(1000, limiter.reserve(1, 10_000));
+        assertEquals(2000, limiter.reserve(1, 10_000));
+        // 排不上的调用不占用令牌
+        assertEquals(-1, limiter.reserve(1, 2500));
+        assertEquals(3000, limiter.reserve(1, 10_000));
+
+        now.addAndGet(3000);
+        assertEquals(1000, limiter.reserve(1, 10_000));
+    }
+
+    @Test
+    void testTokenBudgetAndRefund() {
+        // 6000 TPM，容量10秒即1000个token
+        ProviderRateLimiter limiter = limiter(0, 6000, 10);
+
+        assertEquals(0, limiter.reserve(800, 60_000));
+        assertEquals(6000, limiter.reserve(800, 60_000));
+        limiter.refund(800);
+        // 超过容量的请求按容量计算，不会永远排不上
+        assertEquals(8000, limiter.reserve(5000, 60_000));
+        assertEquals(16_000, limiter.reserve(800, 60_000));
+    }
+
+    @Test
+    void testResponseHeadersAdjustLimits() {
+        ProviderRateLimiter limiter = limiter(0, 0, 1);
+        assertEquals(0, limiter.reserve(1, 0));
+
+        limiter.onResponse(200, Map.of(
+                "x-ratelimit-limit-requests", List.of("120"),
+                "x-ratelimit-remaining-requests", List.of("0"),
+                "x-ratelimit-reset-requests", List.of("1.5s")));
+        assertEquals(120.0, limiter.getRequestsPerMinute());
+        assertEquals(1500, limiter.reserve(1, 10_000));
+
+        // 配置的速率低于上游时以配置为准
+        ProviderRateLimiter configured = limiter(30, 0, 1);
+        configured.onResponse(200, Map.of("X-RateLimit-Limit-Requests", List.of("120")));
+        assertEquals(30.0, configured.getRequestsPerMinute());
+    }
+
+    @Test
+    void testRetryAfterPausesAdmission() {
+        ProviderRateLimiter limiter = limiter(0, 0, 1);
+        limiter.onResponse(429, Map.of("Retry-After", List.of("3")));
+        assertEquals(3000, limiter.reserve(1, 10_000));
+        assertEquals(-1, limiter.reserve(1, 1000));
+
+        now.addAndGet(3000);
+        assertEquals(0, limiter.reserve(1, 0));
+    }
+
+    @Test
+    void testMultipleKeysScaleLimitsAndOnlyDrainOnThrottle() {
+        ProviderRateLimiter limiter = new ProviderRateLimiter("deepseek", true, 0, 0, 1, 3, 2, 1000, now::get);
+        limiter.onResponse(200, Map.of(
+                "x-ratelimit-limit-requests", List.of("60"),
+                "x-ratelimit-remaining-requests", List.of("0")));
+        // 上游限额按单个密钥计算，剩余配额只反映单个密钥
+        assertEquals(180.0, limiter.getRequestsPerMinute());
+        assertEquals(0, limiter.reserve(1, 0));
+
+        limiter.onResponse(429, Map.of("Retry-After", List.of("30")));
+        // 被限流的密钥由密钥池冷却，平台只放慢一个请求间隔
+        long wait = limiter.reserve(1, 10_000);
+        assertTrue(wait > 0 && wait <= 1000, "wait=" + wait);
+    }
+
+    @Test
+    void testEstimateTokens() {
+        ProviderRateLimiter limiter = limiter(0, 0, 1);
+        String image = "data:image/png;base64," + "A".repeat(100_000);
+        String body = "{\"model\":\"glm-4.5v\",\"max_tokens\":500,\"messages\":[{\"content\":[{\"type\":\"image_url\","
+                + "\"image_url\":{\"url\":\"" + image + "\"}}]}]}";
+
+        long estimate = limiter.estimateTokens(body.getBytes(StandardCharsets.UTF_8));
+        // base64内容按图片计，不按字符数
+        assertTrue(estimate > 1500 && estimate < 1700, "estimate=" + estimate);
+        assertEquals(1, limiter.estimateTokens(null));
+    }
+
+    @Test
+    void testClientRejectsWhenAdmissionWouldExceedDeadline() throws Exception {
+        ProviderRateLimiter limiter = new ProviderRateLimiter("glm", true, 60, 0, 1, 1, 2, 1000);
+        AtomicInteger calls = new AtomicInteger();
+        RateLimitedClient client = new RateLimitedClient((request, options) -> {
+            calls.incrementAndGet();
+            return Response.builder()
+                    .status(200)
+                    .reason("OK")
+                    .request(request)
+                    .headers(Map.<String, Collection<String>>of("x-ratelimit-limit-requests", List.of("60")))
+                    .body("{}", StandardCharsets.UTF_8)
+                    .build();
+        }, limiter, 30_000, null);
+        Request request = Request.create(Request.HttpMethod.POST, "https://open.bigmodel.cn/api/paas/v4/chat/completions",
+                Map.of(), "{}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, null);
+        Request.Options options = new Request.Options(60, TimeUnit.SECONDS, 300, TimeUnit.SECONDS, true);
+
+        AiRequestContext context = new AiRequestContext("req-1");
+        context.setTimeoutMs(200);
+        try (AiRequestContext.Scope ignored = context.bind()) {
+            assertEquals(200, client.execute(request, options).status());
+            AiUpstreamException e = assertThrows(AiUpstreamException.class, () -> client.execute(request, options));
+            assertEquals(AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, e.getErrorCode());
+            // 本地排队等不到的请求没有发往上游，不计入熔断
+            assertInstanceOf(AiAdmissionRejectedException.class, e);
+            assertFalse(DispatchGuard.isUpstreamFailure(e));
+        }
+        assertEquals(1, calls.get());
+    }
+
+    private ProviderRateLimiter limiter(long rpm, long tpm, double burstSeconds) {
+        return new ProviderRateLimiter("glm", true, rpm, tpm, burstSeconds, 1, 2, 1000, now::get);
+    }
+}
@@ -0,0 +1,140 @@
+package com.contract.ai.core.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiUpstreamException;
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 平台重试策略与重试预算测试
+ */
+class ProviderRetryerTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void testRetryAfterIsHonouredUntilAttemptsExhausted() {
+        Retryer retryer = retryer(3, new RetryBudget(0.2, 1, 10)).clone();
+        RetryableException rateLimited = upstream(429, AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, NOW + 1500);
+
+        retryer.continueOrPropagate(rateLimited);
+        retryer.continueOrPropagate(rateLimited);
+        RetryableException thrown = assertThrows(RetryableException.class,
+                () -> retryer.continueOrPropagate(rateLimited));
+
+        assertSame(rateLimited, thrown);
+        assertEquals(List.of(1500L, 1500L), sleeps);
+    }
+
+    @Test
+    void testBackoffGrowsExponentiallyWithJitter() {
+        ProviderRetryer retryer = retryer(5, new RetryBudget(0.2, 1, 10));
+
+        for (int i = 0; i < 100; i++) {
+            long first = retryer.backoff(1);
+            long third = retryer.backoff(3);
+            long capped = retryer.backoff(10);
+            assertTrue(first >= 50 && first <= 100, "first=" + first);
+            assertTrue(third >= 200 && third <= 400, "third=" + third);
+            assertTrue(capped >= 500 && capped <= 1000, "capped=" + capped);
+        }
+    }
+
+    @Test
+    void testReadTimeoutAndLongRetryAfterAreNotRetried() {
+        Retryer retryer = retryer(3, new RetryBudget(0.2, 1, 10)).clone();
+        RetryableException readTimeout = new RetryableException(-1, "Read timed out", Request.HttpMethod.POST,
+                new SocketTimeoutException("Read timed out"), (Long) null, request());
+        RetryableException longWait = upstream(429, AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, NOW + 60_000);
+
+        assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(readTimeout));
+        assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(longWait));
+        assertTrue(sleeps.isEmpty());
+
+        RetryableException connectTimeout = new RetryableException(-1, "Connect timed out", Request.HttpMethod.POST,
+                new SocketTimeoutException("Connect timed out"), (Long) null, request());
+        retryer.continueOrPropagate(connectTimeout);
+        assertEquals(1, sleeps.size());
+    }
+
+    @Test
+    void testRetryBudgetLimitsRetryStorm() {
+        AtomicLong nanos = new AtomicLong();
+        RetryBudget budget = new RetryBudget(0.2, 1, 2, nanos::get);
+        RetryableException unavailable = upstream(503, AiErrorCode.AI_SERVICE_UNAVAILABLE, null);
+
+        // 预算初始为2，两次重试后耗尽，后续请求不再重试
+        retryer(2, budget).clone().continueOrPropagate(unavailable);
+        retryer(2, budget).clone().continueOrPropagate(unavailable);
+        Retryer exhausted = retryer(2, budget).clone();
+        assertThrows(RetryableException.class, () -> exhausted.continueOrPropagate(unavailable));
+        assertEquals(2, sleeps.size());
+
+        // 经过一秒按 min-per-second 补充后可再次重试
+        nanos.addAndGet(1_000_000_000L);
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void testCancelledRequestIsNotRetried() {
+        Retryer retryer = retryer(3, new RetryBudget(0.2, 1, 10)).clone();
+        RetryableException unavailable = upstream(503, AiErrorCode.AI_SERVICE_UNAVAILABLE, null);
+        AiRequestContext context = new AiRequestContext("req-1");
+
+        try (AiRequestContext.Scope ignored = context.bind()) {
+            context.cancel(AiRequestContext.REASON_DISCONNECT);
+            assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(unavailable));
+        }
+        assertTrue(sleeps.isEmpty());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void testRetryThatCannotFinishBeforeDeadlineIsSkipped() {
+        Retryer retryer = retryer(3, new RetryBudget(0.2, 1, 10)).clone();
+        AiRequestContext context = new AiRequestContext("req-2");
+        context.setTimeoutMs(1000);
+
+        try (AiRequestContext.Scope ignored = context.bind()) {
+            RetryableException waitTooLong = upstream(429, AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, NOW + 1500);
+            assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(waitTooLong));
+            assertTrue(sleeps.isEmpty());
+
+            retryer.continueOrPropagate(upstream(429, AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, NOW + 200));
+        }
+        assertEquals(List.of(200L), sleeps);
+    }
+
+    private ProviderRetryer retryer(int maxAttempts, RetryBudget budget) {
+        return new ProviderRetryer("test", maxAttempts, 100, 1000, 10_000, budget, sleeps::add, () -> NOW);
+    }
+
+    private static RetryableException upstream(int status, AiErrorCode errorCode, Long retryAt) {
+        AiUpstreamException cause = new AiUpstreamException("test", status, errorCode, null,
+                retryAt != null ? retryAt - NOW : null, true, "HTTP " + status);
+        return new RetryableException(status, cause.getMessage(), Request.HttpMethod.POST, cause, retryAt, request());
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.POST, "https://api.example.com/v1/chat/completions",
+                Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+    }
+}
@@ -0,0 +1,51 @@
+package com.contract.ai.core.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上游请求成本估算测试类
+ */
+class RequestCostEstimatorTest {
+
+    private final RequestCostEstimator estimator = new RequestCostEstimator(2, 1000, 1000);
+
+    @Test
+    void testTextRequest() {
+        String body = "{\"model\":\"deepseek-chat\",\"max_tokens\":200,\"messages\":[{\"role\":\"user\",\"content\":\"hi\"}]}";
+
+        RequestCostEstimator.Estimate estimate = estimator.estimate(body.getBytes(StandardCharsets.UTF_8));
+        assertEquals(200, estimate.getMaxTokens());
+        assertEquals(0, estimate.getImages());
+        assertEquals(estimate.getPromptTokens() + 200, estimate.getCost());
+        assertEquals(estimate.getCost(), estimate.getTokens());
+    }
+
+    @Test
+    void testImagesAreWeightedByCountAndBytes() {
+        String page = "data:image/png;base64," + "A".repeat(400_000);
+        String body = "{\"model\":\"glm-4.5v\",\"messages\":[{\"content\":["
+                + "{\"type\":\"image_url\",\"image_url\":{\"url\":\"" + page + "\"}},"
+                + "{\"type\":\"image_url\",\"image_url\":{\"url\":\"" + page + "\"}},"
+                + "{\"type\":\"image_url\",\"image_url\":{\"url\":\"https://example.com/p3.png\"}}]}]}";
+
+        RequestCostEstimator.Estimate estimate = estimator.estimate(body.getBytes(StandardCharsets.UTF_8));
+        assertEquals(3, estimate.getImages());
+        assertEquals(600_000, estimate.getImageBytes());
+        // 3张图片各1000，base64图片每1000字节计1，文本按字符折算
+        assertTrue(estimate.getPromptTokens() > 3000 && estimate.getPromptTokens() < 3200,
+                "promptTokens=" + estimate.getPromptTokens());
+        assertEquals(estimate.getPromptTokens() + 600, estimate.getCost());
+        // token数只计图片张数，不计字节
+        assertEquals(estimate.getPromptTokens(), estimate.getTokens());
+    }
+
+    @Test
+    void testEmptyBody() {
+        assertEquals(1, estimator.estimate(null).getCost());
+        assertEquals(1, estimator.estimate(new byte[0]).getTokens());
+    }
+}
@@ -0,0 +1,144 @@
+package com.contract.ai.core.resilience;
+
+import com.contract.ai.core.exception.AiAdmissionRejectedException;
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiUpstreamException;
+import feign.Request;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 成本加权信号量测试类
+ */
+class WeightedSemaphoreTest {
+
+    @Test
+    void testAdmitsByCostNotByCount() throws Exception {
+        WeightedSemaphore semaphore = new WeightedSemaphore("deepseek", 10_000, 5_000, 0.5, 10);
+
+        for (int i = 0; i < 9; i++) {
+            assertEquals(1_000, semaphore.acquire(1_000, 0));
+        }
+        assertEquals(0.9, semaphore.getUtilization(), 1e-9);
+        assertEquals(-1, semaphore.acquire(2_000, 0));
+        assertEquals(1_000, semaphore.acquire(1_000, 0));
+
+        semaphore.release(1_000);
+        assertEquals(9_000, semaphore.getUsed());
+    }
+
+    @Test
+    void testClientRejectsLocallyWhenCapacityIsFull() throws Exception {
+        WeightedSemaphore semaphore = new WeightedSemaphore("glm", 1_000, 1_000_000, 1.0, 10);
+        AtomicInteger calls = new AtomicInteger();
+        CostLimitedClient client = new CostLimitedClient((request, options) -> {
+            calls.incrementAndGet();
+            return null;
+        }, semaphore, new RequestCostEstimator(4, 1000, 1000), 0, null);
+        Request request = Request.create(Request.HttpMethod.POST, "https://open.bigmodel.cn/api/paas/v4/chat/completions",
+                Map.of(), "{\"max_tokens\":100}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, null);
+        Request.Options options = new Request.Options(60, TimeUnit.SECONDS, 300, TimeUnit.SECONDS, true);
+        assertEquals(1_000, semaphore.acquire(1_000, 0));
+
+        AiUpstreamException e = assertThrows(AiUpstreamException.class, () -> client.execute(request, options));
+
+        assertEquals(AiErrorCode.AI_REQUEST_LIMIT_EXCEEDED, e.getErrorCode());
+        // 名额不足的请求没有发往上游，不计入熔断
+        assertInstanceOf(AiAdmissionRejectedException.class, e);
+        assertFalse(DispatchGuard.isUpstreamFailure(e));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testLargeRequestsCannotCrowdOutSmallOnes() throws Exception {
+        WeightedSemaphore semaphore = new WeightedSemaphore("glm", 10_000, 2_000, 0.5, 10);
+        // 单个请求的占用不超过大请求份额
+        assertEquals(5_000, semaphore.weightOf(80_000));
+
+        assertEquals(3_000, semaphore.acquire(3_000, 0));
+        // 大请求份额已满
+        assertEquals(-1, semaphore.acquire(3_000, 0));
+
+        AtomicLong largeWeight = new AtomicLong();
+        Thread large = new Thread(() -> {
+            try {
+                largeWeight.set(semaphore.acquire(3_000, 5_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        large.start();
+        awaitWaiting(semaphore, 1);
+
+        // 排队的大请求只因份额已满而等待，不阻塞小请求，直到剩余名额不够它占用
+        for (int i = 0; i < 5; i++) {
+            assertEquals(1_000, semaphore.acquire(1_000, 0));
+        }
+        assertEquals(-1, semaphore.acquire(1_000, 0));
+        assertEquals(3_000, semaphore.getLargeUsed());
+
+        semaphore.release(3_000);
+        large.join(5_000);
+        assertEquals(3_000, largeWeight.get());
+        assertEquals(3_000, semaphore.getLargeUsed());
+        assertEquals(8_000, semaphore.getUsed());
+    }
+
+    @Test
+    void testQueuedRequestIsNotOvertakenWhenCapacityIsShort() throws Exception {
+        WeightedSemaphore semaphore = new WeightedSemaphore("glm", 10_000, 2_000, 0.5, 10);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(1_000, semaphore.acquire(1_000, 0));
+        }
+
+        AtomicLong largeWeight = new AtomicLong();
+        Thread large = new Thread(() -> {
+            try {
+                largeWeight.set(semaphore.acquire(4_000, 5_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        large.start();
+        awaitWaiting(semaphore, 1);
+
+        // 总名额不足的大请求在排队，后到的小请求不能越过它，避免大请求饿死
+        assertEquals(-1, semaphore.acquire(1_000, 0));
+        semaphore.release(1_000);
+        semaphore.release(1_000);
+        large.join(5_000);
+        assertEquals(4_000, largeWeight.get());
+        assertEquals(10_000, semaphore.getUsed());
+    }
+
+    @Test
+    void testWaitTimesOutAndQueueIsBounded() throws Exception {
+        WeightedSemaphore semaphore = new WeightedSemaphore("iflow", 1_000, 1_000, 1.0, 0);
+        assertEquals(1_000, semaphore.acquire(1_000, 0));
+
+        // 队列长度为0时不排队
+        long start = System.nanoTime();
+        assertEquals(-1, semaphore.acquire(1, 5_000));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        WeightedSemaphore queued = new WeightedSemaphore("iflow", 1_000, 1_000, 1.0, 5);
+        assertEquals(1_000, queued.acquire(1_000, 0));
+        assertEquals(-1, queued.acquire(1, 50));
+        assertEquals(0, queued.getWaiting());
+    }
+
+    private static void awaitWaiting(WeightedSemaphore semaphore, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (semaphore.getWaiting() < waiting) {
+            assertTrue(System.nanoTime() < deadline, "waiter did not queue");
+            Thread.sleep(5);
+        }
+    }
+}
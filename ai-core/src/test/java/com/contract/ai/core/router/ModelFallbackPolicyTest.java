@@ -0,0 +1,99 @@
+package com.contract.ai.core.router;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型降级策略测试
+ */
+class ModelFallbackPolicyTest {
+
+    private ModelFallbackPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        policy = new ModelFallbackPolicy();
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "chainsSpec", " GLM-4.6 = deepseek-chat, GLM-4.6 ;glm-4.5v=GLM-4V-Plus-0111,;bad-entry");
+        ReflectionTestUtils.setField(policy, "hopTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(policy, "maxThreads", 2);
+        policy.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        policy.shutdown();
+    }
+
+    @Test
+    void testParseChains() {
+        Map<String, List<String>> chains = ModelFallbackPolicy.parseChains("a=b,c,b;d=d;=x;e=");
+
+        assertEquals(Map.of("a", List.of("b", "c")), chains);
+        assertTrue(ModelFallbackPolicy.parseChains("").isEmpty());
+    }
+
+    @Test
+    void testGetChain() {
+        assertEquals(List.of("GLM-4.6", "deepseek-chat"), policy.getChain("GLM-4.6"));
+        assertEquals(List.of("glm-4.5v", "GLM-4V-Plus-0111"), policy.getChain("glm-4.5v"));
+        assertEquals(List.of("deepseek-chat"), policy.getChain("deepseek-chat"));
+
+        ReflectionTestUtils.setField(policy, "enabled", false);
+        assertEquals(List.of("GLM-4.6"), policy.getChain("GLM-4.6"));
+    }
+
+    @Test
+    void testHopTimeoutBoundedByRemainingBudget() {
+        assertEquals(1000, policy.hopTimeoutMs(60_000));
+        assertEquals(300, policy.hopTimeoutMs(300));
+
+        ReflectionTestUtils.setField(policy, "hopTimeoutMs", 0L);
+        assertEquals(60_000, policy.hopTimeoutMs(60_000));
+    }
+
+    @Test
+    void testCallWithTimeoutInterruptsSlowHop() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        AiException e = assertThrows(AiException.class, () -> policy.callWithTimeout("GLM-4.6", 50, () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ie) {
+                interrupted.countDown();
+            }
+            return "late";
+        }));
+
+        assertEquals(AiErrorCode.AI_REQUEST_TIMEOUT, e.getErrorCode());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCallWithTimeoutPropagatesFailure() {
+        IllegalArgumentException failure = new IllegalArgumentException("bad request");
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> policy.callWithTimeout("GLM-4.6", 1000, () -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown);
+        assertEquals("ok", policy.callWithTimeout("GLM-4.6", 1000, () -> "ok"));
+        assertEquals("inline", policy.callWithTimeout("GLM-4.6", 0, () -> "inline"));
+    }
+}
@@ -0,0 +1,331 @@
+package com.contract.ai.core.service;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import com.contract.ai.feign.dto.AiJob;
+import com.contract.ai.feign.dto.ApiResponse;
+import com.contract.ai.feign.dto.ChatRequest;
+import com.contract.ai.feign.dto.ChatResponse;
+import com.contract.ai.feign.enums.AiJobStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异步任务服务测试类
+ */
+@ExtendWith(MockitoExtension.class)
+class AiJobServiceTest {
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private WebhookDispatcher webhookDispatcher;
+
+    @TempDir
+    Path storeDir;
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private AiJobStore jobStore;
+
+    @BeforeEach
+    void setUp() {
+        jobStore = new AiJobStore(new ObjectMapper().findAndRegisterModules(), storeDir.toString());
+    }
+
+    @Test
+    void testSubmitRunsJobAndKeepsResult() {
+        ChatResponse response = new ChatResponse();
+        response.setModel("glm-4.5v");
+        when(chatService.chat(any(ChatRequest.class))).thenReturn(response);
+        AiJobService service = createService();
+
+        AiJob job = service.submit(request());
+        assertEquals(AiJobStatus.QUEUED, job.getStatus());
+        assertEquals(1, executor.pending());
+
+        executor.drain();
+        AiJob finished = service.get(job.getJobId());
+        assertEquals(AiJobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals(1, finished.getAttempts());
+        assertEquals("glm-4.5v", finished.getResult().getModel());
+
+        // 结束后只持久化状态与结果
+        AiJobStore.StoredJob stored = jobStore.loadAll().get(0);
+        assertEquals(AiJobStatus.SUCCEEDED, stored.getJob().getStatus());
+        assertNull(stored.getRequest());
+    }
+
+    @Test
+    void testFailedJobRecordsErrorCode() {
+        when(chatService.chat(any(ChatRequest.class)))
+                .thenThrow(new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "模型调用超时"));
+        AiJobService service = createService();
+
+        AiJob job = service.submit(request());
+        executor.drain();
+
+        AiJob failed = service.get(job.getJobId());
+        assertEquals(AiJobStatus.FAILED, failed.getStatus());
+        assertEquals(AiErrorCode.AI_REQUEST_TIMEOUT.getCode(), failed.getErrorCode());
+        assertNull(failed.getResult());
+    }
+
+    @Test
+    void testPushesResultToCallbackUrl() {
+        ChatResponse response = new ChatResponse();
+        when(chatService.chat(any(ChatRequest.class))).thenReturn(response);
+        AiJobService service = createService();
+        ChatRequest request = request();
+        request.setExtensions(Map.of(WebhookDispatcher.CALLBACK_URL_EXTENSION, "https://callback.example.com/ai"));
+
+        String jobId = service.submit(request).getJobId();
+        verify(webhookDispatcher, never()).dispatch(anyString(), anyString(), any());
+        executor.drain();
+
+        verify(webhookDispatcher).dispatch(eq("https://callback.example.com/ai"), eq(jobId),
+                argThat(payload -> payload instanceof ApiResponse<?> api
+                        && api.getData() == response && jobId.equals(api.getRequestId())));
+    }
+
+    @Test
+    void testRejectsInvalidCallbackUrl() {
+        when(webhookDispatcher.validate("ftp://callback.example.com")).thenReturn("回调地址必须是 http 或 https 地址");
+        AiJobService service = createService();
+        ChatRequest request = request();
+        request.setExtensions(Map.of(WebhookDispatcher.CALLBACK_URL_EXTENSION, "ftp://callback.example.com"));
+
+        AiException e = assertThrows(AiException.class, () -> service.submit(request));
+        assertEquals(AiErrorCode.AI_INVALID_MODEL_PARAMETER, e.getErrorCode());
+        assertEquals(0, executor.pending());
+    }
+
+    @Test
+    void testRejectsWhenExecutorIsFull() {
+        executor.rejecting = true;
+        AiJobService service = createService();
+
+        AiException e = assertThrows(AiException.class, () -> service.submit(request()));
+        assertEquals(AiErrorCode.AI_SERVICE_UNAVAILABLE, e.getErrorCode());
+        assertTrue(jobStore.loadAll().isEmpty());
+    }
+
+    @Test
+    void testIdempotentResubmissionReturnsExistingJob() {
+        AiJobService service = createService();
+
+        AiJob first = service.submit(request(), "tenant-a", "key-1");
+        AiJob retry = service.submit(request(), "tenant-a", "key-1");
+        assertEquals(first.getJobId(), retry.getJobId());
+        assertEquals(1, executor.pending());
+        assertEquals(1, jobStore.loadAll().size());
+
+        // 键按租户隔离
+        AiJob otherTenant = service.submit(request(), "tenant-b", "key-1");
+        assertNotEquals(first.getJobId(), otherTenant.getJobId());
+        assertEquals(2, executor.pending());
+    }
+
+    @Test
+    void testRejectsIdempotencyKeyReusedForDifferentRequest() {
+        AiJobService service = createService();
+        service.submit(request(), "tenant-a", "key-1");
+
+        ChatRequest different = ChatRequest.builder()
+                .model("glm-4.5v")
+                .messages(List.of(ChatRequest.Message.textMessage("user", "审核另一份合同")))
+                .build();
+        AiException e = assertThrows(AiException.class, () -> service.submit(different, "tenant-a", "key-1"));
+        assertEquals(AiErrorCode.AI_INVALID_MODEL_PARAMETER, e.getErrorCode());
+        assertEquals(1, executor.pending());
+    }
+
+    @Test
+    void testRejectedSubmissionReleasesIdempotencyKey() {
+        AiJobService service = createService();
+        executor.rejecting = true;
+        assertThrows(AiException.class, () -> service.submit(request(), "tenant-a", "key-1"));
+
+        executor.rejecting = false;
+        AiJob job = service.submit(request(), "tenant-a", "key-1");
+        assertEquals(AiJobStatus.QUEUED, job.getStatus());
+        assertEquals(1, executor.pending());
+    }
+
+    @Test
+    void testIdempotencyKeySurvivesRestart() {
+        AiJobService before = createService();
+        String jobId = before.submit(request(), "tenant-a", "key-1").getJobId();
+        executor.tasks.clear();
+
+        AiJobService after = createService();
+        assertEquals(jobId, after.submit(request(), "tenant-a", "key-1").getJobId());
+        assertEquals(1, executor.pending());
+    }
+
+    @Test
+    void testRecoversUnfinishedJobsAfterRestart() {
+        AiJobService before = createService();
+        String queued = before.submit(request()).getJobId();
+        String interrupted = before.submit(request()).getJobId();
+        String exhausted = before.submit(request()).getJobId();
+        // 模拟进程在任务执行中退出
+        markRunning(interrupted, 1);
+        markRunning(exhausted, 2);
+        executor.tasks.clear();
+
+        when(chatService.chat(any(ChatRequest.class))).thenReturn(new ChatResponse());
+        AiJobService after = createService();
+        assertEquals(AiJobStatus.FAILED, after.get(exhausted).getStatus());
+        assertEquals(2, executor.pending());
+
+        executor.drain();
+        assertEquals(AiJobStatus.SUCCEEDED, after.get(queued).getStatus());
+        assertEquals(1, after.get(queued).getAttempts());
+        assertEquals(AiJobStatus.SUCCEEDED, after.get(interrupted).getStatus());
+        assertEquals(2, after.get(interrupted).getAttempts());
+    }
+
+    @Test
+    void testRemovesExpiredJobsOnStartup() {
+        AiJob job = new AiJob();
+        job.setJobId("expired");
+        job.setStatus(AiJobStatus.SUCCEEDED);
+        job.setFinishedAt(LocalDateTime.now().minusHours(48));
+        jobStore.save(new AiJobStore.StoredJob(job, null));
+
+        AiJobService service = createService();
+        assertNull(service.get("expired"));
+        assertTrue(jobStore.loadAll().isEmpty());
+        verify(chatService, never()).chat(any(ChatRequest.class));
+    }
+
+    @Test
+    void testAwaitReturnsWhenJobFinishes() throws Exception {
+        when(chatService.chat(any(ChatRequest.class))).thenReturn(new ChatResponse());
+        AiJobService service = createService();
+        String jobId = service.submit(request()).getJobId();
+
+        CompletableFuture<AiJob> pending = service.await(jobId, 30000);
+        assertFalse(pending.isDone());
+        executor.drain();
+        assertEquals(AiJobStatus.SUCCEEDED, pending.get(1, TimeUnit.SECONDS).getStatus());
+
+        // 已结束的任务立即返回，不存在的任务返回null
+        assertTrue(service.await(jobId, 30000).isDone());
+        assertNull(service.await("missing", 30000).get());
+    }
+
+    @Test
+    void testAwaitTimesOutWithCurrentStatus() throws Exception {
+        AiJobService service = createService();
+        ReflectionTestUtils.setField(service, "maxWaitMs", 50L);
+        String jobId = service.submit(request()).getJobId();
+
+        AiJob job = service.await(jobId, 30000).get(5, TimeUnit.SECONDS);
+        assertEquals(AiJobStatus.QUEUED, job.getStatus());
+    }
+
+    private AiJobService createService() {
+        AiJobService service = new AiJobService(chatService, jobStore, executor, webhookDispatcher);
+        ReflectionTestUtils.setField(service, "timeoutMs", 0L);
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+        ReflectionTestUtils.setField(service, "retentionHours", 24L);
+        ReflectionTestUtils.setField(service, "maxWaitMs", 60000L);
+        service.init();
+        return service;
+    }
+
+    private void markRunning(String jobId, int attempts) {
+        AiJobStore.StoredJob stored = jobStore.loadAll().stream()
+                .filter(s -> s.getJob().getJobId().equals(jobId))
+                .findFirst()
+                .orElseThrow();
+        stored.getJob().setStatus(AiJobStatus.RUNNING);
+        stored.getJob().setAttempts(attempts);
+        jobStore.save(stored);
+    }
+
+    private static ChatRequest request() {
+        return ChatRequest.builder()
+                .model("glm-4.5v")
+                .messages(List.of(ChatRequest.Message.textMessage("user", "审核这份合同")))
+                .build();
+    }
+
+    /**
+     * 手动执行的执行器
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException("full");
+            }
+            tasks.add(command);
+        }
+
+        int pending() {
+            return tasks.size();
+        }
+
+        void drain() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.contract.ai.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 完成回调投递测试类
+ */
+class WebhookDispatcherTest {
+
+    private static final String SECRET = "test-secret";
+
+    /**
+     * 依次返回的状态码，用完后返回200
+     */
+    private final ConcurrentLinkedQueue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final List<Received> received = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private WebhookDispatcher dispatcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/callback", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            received.add(new Received(exchange.getRequestHeaders().getFirst(WebhookDispatcher.SIGNATURE_HEADER),
+                    exchange.getRequestHeaders().getFirst(WebhookDispatcher.TIMESTAMP_HEADER),
+                    exchange.getRequestHeaders().getFirst(WebhookDispatcher.DELIVERY_HEADER), body));
+            Integer status = statuses.poll();
+            exchange.sendResponseHeaders(status != null ? status : 200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        dispatcher = new WebhookDispatcher(new ObjectMapper(), mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "secret", SECRET);
+        ReflectionTestUtils.setField(dispatcher, "allowedHosts", List.of());
+        // 测试接收方在本机
+        ReflectionTestUtils.setField(dispatcher, "allowPrivateNetwork", true);
+        ReflectionTestUtils.setField(dispatcher, "threads", 2);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 50L);
+        ReflectionTestUtils.setField(dispatcher, "connectTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "readTimeoutMs", 1000L);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void testDeliversSignedPayload() throws Exception {
+        assertTrue(dispatcher.dispatch(callbackUrl(), "job-1", Map.of("code", 0)));
+        awaitIdle();
+
+        assertEquals(1, received.size());
+        Received request = received.get(0);
+        assertEquals("job-1", request.deliveryId);
+        assertEquals("{\"code\":0}", new String(request.body, StandardCharsets.UTF_8));
+        assertEquals("sha256=" + WebhookDispatcher.sign(SECRET, request.timestamp, request.body), request.signature);
+    }
+
+    @Test
+    void testRetriesServerErrorsWithBackoff() throws Exception {
+        statuses.add(503);
+        statuses.add(500);
+        assertTrue(dispatcher.dispatch(callbackUrl(), "job-2", Map.of("code", 0)));
+        awaitIdle();
+
+        assertEquals(3, received.size());
+    }
+
+    @Test
+    void testDoesNotRetryClientErrors() throws Exception {
+        statuses.add(400);
+        assertTrue(dispatcher.dispatch(callbackUrl(), "job-3", Map.of("code", 0)));
+        awaitIdle();
+
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            statuses.add(502);
+        }
+        assertTrue(dispatcher.dispatch(callbackUrl(), "job-4", Map.of("code", 0)));
+        awaitIdle();
+
+        assertEquals(3, received.size());
+    }
+
+    @Test
+    void testDropsWhenQueueIsFull() {
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 0);
+        assertFalse(dispatcher.dispatch(callbackUrl(), "job-5", Map.of("code", 0)));
+        assertEquals(0, dispatcher.getPending());
+    }
+
+    @Test
+    void testValidatesCallbackUrl() {
+        assertNull(dispatcher.validate(callbackUrl()));
+        assertNotNull(dispatcher.validate("ftp://127.0.0.1/callback"));
+        assertNotNull(dispatcher.validate("not a url"));
+
+        ReflectionTestUtils.setField(dispatcher, "allowedHosts", List.of("*.example.com"));
+        assertNull(dispatcher.validate("https://hooks.example.com/ai"));
+        assertNotNull(dispatcher.validate(callbackUrl()));
+        assertFalse(dispatcher.dispatch(callbackUrl(), "job-6", Map.of("code", 0)));
+    }
+
+    @Test
+    void testRejectsInternalCallbackTargets() {
+        ReflectionTestUtils.setField(dispatcher, "allowPrivateNetwork", false);
+
+        assertNotNull(dispatcher.validate(callbackUrl()));
+        assertNotNull(dispatcher.validate("http://169.254.169.254/latest/meta-data/"));
+        assertNotNull(dispatcher.validate("http://10.0.0.1/callback"));
+        assertFalse(dispatcher.dispatch(callbackUrl(), "job-7", Map.of("code", 0)));
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void testRechecksAddressOnEveryAttempt() throws Exception {
+        // 首次投递允许，重试前改为不允许，模拟提交后DNS改指向内网
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 500L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 500L);
+        statuses.add(503);
+        assertTrue(dispatcher.dispatch(localhostUrl(), "job-8", Map.of("code", 0)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        ReflectionTestUtils.setField(dispatcher, "allowPrivateNetwork", false);
+        awaitIdle();
+
+        assertEquals(1, received.size());
+    }
+
+    private String localhostUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/callback";
+    }
+
+    private String callbackUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/callback";
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcher.getPending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, dispatcher.getPending());
+    }
+
+    private record Received(String signature, String timestamp, String deliveryId, byte[] body) {
+    }
+}
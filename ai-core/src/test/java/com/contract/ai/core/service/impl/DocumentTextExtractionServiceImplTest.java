@@ -0,0 +1,186 @@
+package com.contract.ai.core.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.contract.ai.core.service.DocumentTextExtractionService;
+import com.contract.ai.core.util.PdfPageRasterizer;
+import com.contract.ai.core.util.RemoteFileDownloader;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文档文本提取服务测试
+ */
+class DocumentTextExtractionServiceImplTest {
+
+    private final Map<String, byte[]> files = new HashMap<>();
+
+    private HttpServer server;
+
+    private DocumentTextExtractionServiceImpl extractionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/", exchange -> {
+            byte[] body = files.get(exchange.getRequestURI().getPath().substring("/files/".length()));
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        PdfPageRasterizer pdfPageRasterizer = new PdfPageRasterizer();
+        ReflectionTestUtils.setField(pdfPageRasterizer, "threads", 2);
+        // 测试文件服务在本机，允许下载内网地址
+        RemoteFileDownloader remoteFileDownloader = new RemoteFileDownloader();
+        ReflectionTestUtils.setField(remoteFileDownloader, "allowPrivateNetwork", true);
+        extractionService = new DocumentTextExtractionServiceImpl(pdfPageRasterizer, remoteFileDownloader);
+        ReflectionTestUtils.setField(extractionService, "maxFileSizeMb", 10);
+        ReflectionTestUtils.setField(extractionService, "downloadTimeoutMs", 5000);
+        ReflectionTestUtils.setField(extractionService, "minCharsPerPage", 30);
+        ReflectionTestUtils.setField(extractionService, "maxScannedPages", 1);
+        ReflectionTestUtils.setField(extractionService, "renderDpi", 72);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testExtract_BornDigitalPdfIsFullyTextBearing() throws IOException {
+        files.put("contract.pdf", createPdf(false, false));
+
+        DocumentTextExtractionService.ExtractedDocument document = extractionService.extract(url("contract.pdf"));
+
+        assertNotNull(document);
+        assertEquals(DocumentTextExtractionService.DocumentFormat.PDF, document.getFormat());
+        assertEquals("contract.pdf", document.getFileName());
+        assertEquals(2, document.getPageCount());
+        assertTrue(document.isFullyTextBearing());
+        assertTrue(document.getPageTexts().get(0).contains("Article 1"));
+        assertTrue(document.getPageTexts().get(1).contains("Article 2"));
+    }
+
+    @Test
+    void testExtract_ScannedPageIsDetectedAndRendered() throws IOException {
+        files.put("mixed.pdf", createPdf(false, true));
+
+        DocumentTextExtractionService.ExtractedDocument document = extractionService.extract(url("mixed.pdf"));
+
+        assertFalse(document.isFullyTextBearing());
+        assertTrue(document.hasTextLayer());
+        assertEquals(1, document.getScannedPages().size());
+        assertEquals(2, document.getScannedPages().get(0));
+        assertTrue(document.isScannedPagesRendered());
+        assertTrue(document.getScannedPageImages().get(0).startsWith("data:image/jpeg;base64,"));
+    }
+
+    @Test
+    void testExtract_FullyScannedPdfHasNoTextLayer() throws IOException {
+        files.put("scan.pdf", createPdf(true, true));
+
+        DocumentTextExtractionService.ExtractedDocument document = extractionService.extract(url("scan.pdf"));
+
+        assertFalse(document.hasTextLayer());
+        assertTrue(document.getScannedPageImages().isEmpty());
+    }
+
+    @Test
+    void testExtract_Docx() throws IOException {
+        try (XWPFDocument docx = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            docx.createParagraph().createRun().setText("甲方与乙方经友好协商，就房屋租赁事宜达成如下协议，双方共同遵守。");
+            docx.createParagraph().createRun().setText("第一条 租赁期限为三年，自二〇二五年一月一日起计算。");
+            docx.write(out);
+            files.put("lease.docx", out.toByteArray());
+        }
+
+        DocumentTextExtractionService.ExtractedDocument document = extractionService.extract(url("lease.docx"));
+
+        assertEquals(DocumentTextExtractionService.DocumentFormat.DOCX, document.getFormat());
+        assertTrue(document.isFullyTextBearing());
+        assertTrue(document.getPageTexts().get(0).contains("租赁期限为三年"));
+    }
+
+    @Test
+    void testExtract_UnsupportedFormatReturnsNull() throws IOException {
+        files.put("notes.txt", "plain text content that is not a document".getBytes());
+
+        assertNull(extractionService.extract(url("notes.txt")));
+    }
+
+    private String url(String fileName) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/files/" + fileName;
+    }
+
+    /**
+     * 生成两页PDF，每页为文本页或仅含图片的扫描页
+     */
+    private byte[] createPdf(boolean firstPageScanned, boolean secondPageScanned) throws IOException {
+        try (PDDocument pdf = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            addPage(pdf, "Article 1", firstPageScanned);
+            addPage(pdf, "Article 2", secondPageScanned);
+            pdf.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private void addPage(PDDocument pdf, String heading, boolean scanned) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        pdf.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+            if (scanned) {
+                BufferedImage scan = new BufferedImage(400, 560, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = scan.createGraphics();
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, scan.getWidth(), scan.getHeight());
+                g.setColor(Color.BLACK);
+                g.drawString(heading + " scanned", 40, 60);
+                g.dispose();
+                PDImageXObject image = LosslessFactory.createFromImage(pdf, scan);
+                content.drawImage(image, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
+            } else {
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                content.newLineAtOffset(72, 760);
+                content.showText(heading + ". The lessor agrees to lease the premises to the lessee.");
+                content.newLineAtOffset(0, -16);
+                content.showText("The term of the lease shall be three years from the effective date.");
+                content.endText();
+            }
+        }
+    }
+}
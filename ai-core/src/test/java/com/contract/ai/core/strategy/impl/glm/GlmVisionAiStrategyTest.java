@@ -0,0 +1,494 @@
+package com.contract.ai.core.strategy.impl.glm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.contract.ai.core.exception.AiErrorCode;
+import com.contract.ai.core.exception.AiException;
+import com.contract.ai.core.registry.AiStrategyRegistry;
+import com.contract.ai.core.resilience.AiRequestContext;
+import com.contract.ai.core.service.FileStorageService;
+import com.contract.ai.core.util.PdfPageRasterizer;
+import com.contract.ai.core.util.RemoteFileDownloader;
+import com.contract.ai.core.util.VideoKeyframeExtractor;
+import com.contract.ai.feign.convertor.GlmConvertor;
+import com.contract.ai.feign.dto.ChatRequest;
+import com.contract.ai.feign.dto.ChatResponse;
+import com.contract.ai.feign.dto.glm.GlmVisionChatRequest;
+import com.contract.ai.feign.dto.glm.GlmVisionChatResponse;
+import com.contract.ai.feign.dto.glm.MultimodalityContentItem;
+import com.contract.ai.feign.enums.ResizeEngine;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * GLM视觉模型策略测试
+ */
+@ExtendWith(MockitoExtension.class)
+class GlmVisionAiStrategyTest {
+
+    @Mock
+    private GlmVisionClient glmVisionClient;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private AiStrategyRegistry strategyRegistry;
+
+    private GlmVisionAiStrategy glmVisionAiStrategy;
+
+    @BeforeEach
+    void setUp() {
+        glmVisionAiStrategy = new GlmVisionAiStrategy(glmVisionClient, fileStorageService, new GlmConvertor(),
+                strategyRegistry, new PdfPageRasterizer(), new VideoKeyframeExtractor(), new RemoteFileDownloader());
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "enabledModels", List.of("glm-4.1v-thinking-flash"));
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "resizeEngine", ResizeEngine.THUMBNAILATOR);
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "tilingMinPageWidth", 900);
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "mapReduceMaxConcurrency", 3);
+    }
+
+    @Test
+    void testHandleChatWithVision_TilesPagesIntoSingleImage() throws IOException {
+        ChatRequest request = createMultiPageRequest(4);
+        request.setExtensions(Map.of("page_tiling", true));
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenReturn(createGlmResponse());
+
+        ChatResponse response = glmVisionAiStrategy.handleChatWithVision(request, extractImageMap(request));
+
+        assertEquals("第1页至第4页均为合同正文", response.getMessages().get(0).getContent());
+
+        ArgumentCaptor<GlmVisionChatRequest> captor = ArgumentCaptor.forClass(GlmVisionChatRequest.class);
+        verify(glmVisionClient).chatCompletions(captor.capture());
+
+        @SuppressWarnings("unchecked")
+        List<MultimodalityContentItem> items =
+                (List<MultimodalityContentItem>) captor.getValue().getMessages().get(0).getContent();
+        long imageCount = items.stream().filter(item -> "image_url".equals(item.getType())).count();
+        assertEquals(1, imageCount);
+        assertTrue(items.stream().anyMatch(item -> "text".equals(item.getType())
+                && item.getText().contains("P1") && item.getText().contains("P4")));
+        // 调用方的请求保持原样，回退或重放时仍是原始图片
+        assertEquals(4, extractImageMap(request).size());
+    }
+
+    @Test
+    void testHandleChatWithVisionBase64_TilesOverLimitUploads() throws IOException {
+        MultipartFile[] files = new MultipartFile[3];
+        List<Map<String, Object>> declaredFiles = new ArrayList<>();
+        for (int i = 1; i <= files.length; i++) {
+            files[i - 1] = new MockMultipartFile("files", "page" + i + ".jpg", "image/jpeg", createPage(i));
+            declaredFiles.add(Map.of("name", "image_" + i + ".jpg", "type", "image/jpeg"));
+        }
+        ChatRequest request = ChatRequest.builder()
+                .model("glm-4.1v-thinking-flash")
+                .messages(List.of(ChatRequest.Message.builder()
+                        .role("user")
+                        .content("请概括这份合同每一页的内容")
+                        .extensions(Map.of("files", declaredFiles))
+                        .build()))
+                .extensions(Map.of("page_tiling", true))
+                .build();
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenReturn(createGlmResponse());
+
+        glmVisionAiStrategy.handleChatWithVisionBase64(request, files);
+
+        ArgumentCaptor<GlmVisionChatRequest> captor = ArgumentCaptor.forClass(GlmVisionChatRequest.class);
+        verify(glmVisionClient).chatCompletions(captor.capture());
+        @SuppressWarnings("unchecked")
+        List<MultimodalityContentItem> items =
+                (List<MultimodalityContentItem>) captor.getValue().getMessages().get(0).getContent();
+        assertEquals(1, items.stream().filter(item -> "image_url".equals(item.getType())).count());
+        assertEquals(declaredFiles, request.getMessages().get(0).getExtensions().get("files"));
+    }
+
+    @Test
+    void testHandleChatWithVision_RejectsOverLimitWhenTilingDisabled() throws IOException {
+        ChatRequest request = createMultiPageRequest(3);
+
+        assertThrows(AiException.class,
+                () -> glmVisionAiStrategy.handleChatWithVision(request, extractImageMap(request)));
+        verify(glmVisionClient, never()).chatCompletions(any());
+    }
+
+    @Test
+    void testHandleChatWithVisionBase64_ValidatesLimitAfterVideoFramesAreExpanded() throws IOException {
+        VideoKeyframeExtractor extractor = mock(VideoKeyframeExtractor.class);
+        byte[] frame = createPage(2);
+        when(extractor.extract(any(Path.class), anyInt(), any())).thenAnswer(invocation -> {
+            int maxFrames = invocation.getArgument(1);
+            return Collections.nCopies(maxFrames, frame);
+        });
+        GlmVisionAiStrategy strategy = new GlmVisionAiStrategy(glmVisionClient, fileStorageService, new GlmConvertor(),
+                strategyRegistry, new PdfPageRasterizer(), extractor, new RemoteFileDownloader());
+        ReflectionTestUtils.setField(strategy, "resizeEngine", ResizeEngine.THUMBNAILATOR);
+        ReflectionTestUtils.setField(strategy, "videoKeyframeEnabled", true);
+        MultipartFile[] files = {
+                new MockMultipartFile("files", "page1.jpg", "image/jpeg", createPage(1)),
+                new MockMultipartFile("files", "clip.mp4", "video/mp4", new byte[]{0, 0, 0, 24})
+        };
+        ChatRequest request = ChatRequest.builder()
+                .model("glm-4.1v-thinking-flash")
+                .messages(List.of(ChatRequest.Message.textMessage("user", "描述图片与视频内容")))
+                .build();
+
+        // 上传的图片数未超过限制，视频展开为关键帧后超过
+        assertThrows(AiException.class, () -> strategy.handleChatWithVisionBase64(request, files));
+        verify(extractor).extract(any(Path.class), anyInt(), any());
+        verify(glmVisionClient, never()).chatCompletions(any());
+    }
+
+    @Test
+    void testHandleChatWithVisionBase64_SkippedNonImageUploadsDoNotCountTowardLimit() throws IOException {
+        MultipartFile[] files = {
+                new MockMultipartFile("files", "page1.jpg", "image/jpeg", createPage(1)),
+                new MockMultipartFile("files", "notes.txt", "text/plain", "备注".getBytes())
+        };
+        ChatRequest request = ChatRequest.builder()
+                .model("glm-4.1v-thinking-flash")
+                .messages(List.of(ChatRequest.Message.textMessage("user", "描述图片内容")))
+                .build();
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenReturn(createGlmResponse());
+
+        glmVisionAiStrategy.handleChatWithVisionBase64(request, files);
+
+        verify(glmVisionClient).chatCompletions(any(GlmVisionChatRequest.class));
+    }
+
+    @Test
+    void testHandleChatWithFiles_CountsExistingImagesBeforeRasterizingPdf() throws IOException {
+        RemoteFileDownloader downloader = mock(RemoteFileDownloader.class);
+        when(downloader.download(anyString(), anyLong(), anyInt())).thenReturn(createPdf(1));
+        GlmVisionAiStrategy strategy = new GlmVisionAiStrategy(glmVisionClient, fileStorageService, new GlmConvertor(),
+                strategyRegistry, new PdfPageRasterizer(), new VideoKeyframeExtractor(), downloader);
+        ReflectionTestUtils.setField(strategy, "rasterizeEnabled", true);
+        ReflectionTestUtils.setField(strategy, "rasterizeDefaultDpi", 72);
+        ReflectionTestUtils.setField(strategy, "rasterizeMaxPages", 50);
+        ReflectionTestUtils.setField(strategy, "rasterizeMaxFileSizeMb", 50);
+        ReflectionTestUtils.setField(strategy, "rasterizeDownloadTimeoutMs", 1000);
+        String fileUrl = "https://files.example.com/contract.pdf";
+        ChatRequest request = ChatRequest.builder()
+                .model("glm-4.1v-thinking-flash")
+                .messages(List.of(ChatRequest.Message.builder()
+                        .role("user")
+                        .content(List.of(
+                                ChatRequest.Message.ContentItem.text("对照图片审核合同"),
+                                ChatRequest.Message.ContentItem.imageUrl("data:image/jpeg;base64,"
+                                        + Base64.getEncoder().encodeToString(createPage(1))),
+                                ChatRequest.Message.ContentItem.fileUrl(fileUrl)))
+                        .build()))
+                .build();
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenReturn(createGlmResponse());
+
+        // 已有1张图片，模型限制1张，PDF页面不再渲染为图片，保持文件URL方式
+        strategy.handleChatWithFiles(request, Map.of("contract.pdf", fileUrl));
+
+        ArgumentCaptor<GlmVisionChatRequest> captor = ArgumentCaptor.forClass(GlmVisionChatRequest.class);
+        verify(glmVisionClient).chatCompletions(captor.capture());
+        @SuppressWarnings("unchecked")
+        List<MultimodalityContentItem> items =
+                (List<MultimodalityContentItem>) captor.getValue().getMessages().get(0).getContent();
+        assertEquals(1, items.stream().filter(item -> "image_url".equals(item.getType())).count());
+        assertEquals(1, items.stream().filter(item -> "file_url".equals(item.getType())).count());
+    }
+
+    @Test
+    void testHandleChatWithVision_MapReduceSplitsIntoGroupsAndReduces() throws IOException {
+        ChatRequest request = createMultiPageRequest(3);
+        request.setExtensions(Map.of("map_reduce", true));
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "mapReduceMergeMode", "REDUCE");
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenAnswer(invocation -> createGlmResponse(
+                        summarize(invocation.getArgument(1, GlmVisionChatRequest.class)), 100, 20));
+
+        ChatResponse response = glmVisionAiStrategy.handleChatWithVision(request, extractImageMap(request));
+
+        ArgumentCaptor<GlmVisionChatRequest> captor = ArgumentCaptor.forClass(GlmVisionChatRequest.class);
+        verify(glmVisionClient, times(4)).chatCompletions(captor.capture());
+
+        List<GlmVisionChatRequest> groupRequests = captor.getAllValues().stream()
+                .filter(glmRequest -> glmRequest.getMessages().get(0).getContent() instanceof List)
+                .toList();
+        assertEquals(3, groupRequests.size());
+        for (GlmVisionChatRequest groupRequest : groupRequests) {
+            @SuppressWarnings("unchecked")
+            List<MultimodalityContentItem> items =
+                    (List<MultimodalityContentItem>) groupRequest.getMessages().get(0).getContent();
+            assertEquals(1, items.stream().filter(item -> "image_url".equals(item.getType())).count());
+        }
+
+        assertEquals("汇总回答", response.getMessages().get(0).getContent());
+        assertEquals(400, response.getUsage().getPromptTokens());
+        assertEquals(80, response.getUsage().getCompletionTokens());
+        assertEquals(480, response.getUsage().getTotalTokens());
+        assertEquals(3, response.getExtensions().get("map_reduce_groups"));
+    }
+
+    @Test
+    void testHandleChatWithVision_MapReduceConcatenatesInPageOrder() throws IOException {
+        ChatRequest request = createMultiPageRequest(3);
+        request.setExtensions(Map.of("map_reduce", true));
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "mapReduceMergeMode", "CONCAT");
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenAnswer(invocation -> createGlmResponse(
+                        summarize(invocation.getArgument(1, GlmVisionChatRequest.class)), 100, 20));
+
+        ChatResponse response = glmVisionAiStrategy.handleChatWithVision(request, extractImageMap(request));
+
+        verify(glmVisionClient, times(3)).chatCompletions(any(GlmVisionChatRequest.class));
+        String content = response.getMessages().get(0).getContent();
+        assertTrue(content.indexOf("【第1页】") < content.indexOf("【第2页】"));
+        assertTrue(content.indexOf("【第2页】") < content.indexOf("【第3页】"));
+        assertEquals(360, response.getUsage().getTotalTokens());
+    }
+
+    @Test
+    void testHandleChatWithVision_MapReduceUsesCustomMerger() throws IOException {
+        ChatRequest request = createMultiPageRequest(2);
+        request.setExtensions(Map.of("map_reduce", true));
+        glmVisionAiStrategy.setPartialResponseMerger((original, partials) -> {
+            ChatResponse merged = new ChatResponse();
+            merged.setMessages(List.of(new ChatResponse.Message("assistant", "共" + partials.size() + "组")));
+            return merged;
+        });
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenAnswer(invocation -> createGlmResponse("部分回答", 100, 20));
+
+        ChatResponse response = glmVisionAiStrategy.handleChatWithVision(request, extractImageMap(request));
+
+        assertEquals("共2组", response.getMessages().get(0).getContent());
+        assertEquals(240, response.getUsage().getTotalTokens());
+    }
+
+    @Test
+    void testHandleChatWithVisionBase64_MapReducesOverLimitUploads() throws IOException {
+        MultipartFile[] files = new MultipartFile[2];
+        List<Map<String, Object>> declaredFiles = new ArrayList<>();
+        for (int i = 1; i <= files.length; i++) {
+            files[i - 1] = new MockMultipartFile("files", "page" + i + ".jpg", "image/jpeg", createPage(i));
+            declaredFiles.add(Map.of("name", "image_" + i + ".jpg", "type", "image/jpeg"));
+        }
+        ChatRequest request = ChatRequest.builder()
+                .model("glm-4.1v-thinking-flash")
+                .messages(List.of(ChatRequest.Message.builder()
+                        .role("user")
+                        .content("请概括这份合同每一页的内容")
+                        .extensions(Map.of("files", declaredFiles))
+                        .build()))
+                .extensions(Map.of("map_reduce", true))
+                .build();
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "mapReduceMergeMode", "CONCAT");
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class)))
+                .thenAnswer(invocation -> createGlmResponse("部分回答", 100, 20));
+
+        ChatResponse response = glmVisionAiStrategy.handleChatWithVisionBase64(request, files);
+
+        verify(glmVisionClient, times(2)).chatCompletions(any(GlmVisionChatRequest.class));
+        assertEquals(2, response.getExtensions().get("map_reduce_groups"));
+    }
+
+    @Test
+    void testHandleChatWithVision_MapReduceGroupsInheritRequestDeadline() throws IOException {
+        ChatRequest request = createMultiPageRequest(3);
+        request.setExtensions(Map.of("map_reduce", true));
+        ReflectionTestUtils.setField(glmVisionAiStrategy, "mapReduceMergeMode", "CONCAT");
+        List<Long> remainingMillis = Collections.synchronizedList(new ArrayList<>());
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class))).thenAnswer(invocation -> {
+            remainingMillis.add(AiRequestContext.currentRemainingMillis());
+            return createGlmResponse("部分回答", 100, 20);
+        });
+
+        AiRequestContext context = new AiRequestContext("req-1");
+        context.setTimeoutMs(60_000);
+        try (AiRequestContext.Scope ignored = context.bind()) {
+            glmVisionAiStrategy.handleChatWithVision(request, extractImageMap(request));
+        }
+
+        assertEquals(3, remainingMillis.size());
+        for (Long remaining : remainingMillis) {
+            assertNotNull(remaining);
+            assertTrue(remaining > 0 && remaining <= 60_000);
+        }
+    }
+
+    @Test
+    void testHandleChatWithVision_CancellingRequestCancelsMapReduceGroups() throws Exception {
+        ChatRequest request = createMultiPageRequest(3);
+        request.setExtensions(Map.of("map_reduce", true));
+        CountDownLatch started = new CountDownLatch(3);
+        AtomicInteger interrupted = new AtomicInteger();
+        when(glmVisionClient.chatCompletions(any(GlmVisionChatRequest.class))).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                throw new AiException(AiErrorCode.AI_REQUEST_TIMEOUT, "interrupted");
+            }
+            return createGlmResponse("部分回答", 100, 20);
+        });
+
+        AiRequestContext context = new AiRequestContext("req-1");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try (AiRequestContext.Scope ignored = context.bind()) {
+                glmVisionAiStrategy.handleChatWithVision(request, extractImageMap(request));
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        caller.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        context.cancel(AiRequestContext.REASON_DISCONNECT);
+        caller.join(5000);
+
+        assertFalse(caller.isAlive());
+        assertInstanceOf(AiException.class, failure.get());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (interrupted.get() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, interrupted.get());
+    }
+
+    /**
+     * 模拟模型回答：分组请求返回其页码说明，汇总请求返回固定内容
+     */
+    private String summarize(GlmVisionChatRequest glmRequest) {
+        Object content = glmRequest.getMessages().get(glmRequest.getMessages().size() - 1).getContent();
+        if (!(content instanceof List)) {
+            return "汇总回答";
+        }
+        @SuppressWarnings("unchecked")
+        List<MultimodalityContentItem> items = (List<MultimodalityContentItem>) content;
+        return items.stream()
+                .filter(item -> "text".equals(item.getType()) && item.getText().startsWith("以下为"))
+                .map(MultimodalityContentItem::getText)
+                .findFirst()
+                .orElse("");
+    }
+
+    private ChatRequest createMultiPageRequest(int pageCount) throws IOException {
+        List<ChatRequest.Message.ContentItem> items = new ArrayList<>();
+        items.add(ChatRequest.Message.ContentItem.text("请概括这份合同每一页的内容"));
+        for (int i = 1; i <= pageCount; i++) {
+            items.add(ChatRequest.Message.ContentItem.imageUrl(
+                    "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(createPage(i))));
+        }
+        return ChatRequest.builder()
+                .model("glm-4.1v-thinking-flash")
+                .messages(List.of(ChatRequest.Message.multimodalMessage("user", items)))
+                .build();
+    }
+
+    private Map<String, String> extractImageMap(ChatRequest request) {
+        Map<String, String> imageMap = new LinkedHashMap<>();
+        for (ChatRequest.Message.ContentItem item : request.getMessages().get(0).getMultimodalContent()) {
+            if ("image_url".equals(item.getType())) {
+                imageMap.put("image_" + (imageMap.size() + 1) + ".jpg", item.getImage_url().getUrl());
+            }
+        }
+        return imageMap;
+    }
+
+    private byte[] createPage(int pageNumber) throws IOException {
+        BufferedImage page = new BufferedImage(1240, 1754, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = page.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, page.getWidth(), page.getHeight());
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SERIF, Font.PLAIN, 28));
+        for (int line = 0; line < 40; line++) {
+            g.drawString("第" + pageNumber + "页 合同条款第" + (line + 1) + "条", 120, 150 + line * 36);
+        }
+        g.dispose();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(page, "jpeg", baos);
+        return baos.toByteArray();
+    }
+
+    private byte[] createPdf(int pageCount) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pageCount; i++) {
+                document.addPage(new PDPage());
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    private GlmVisionChatResponse createGlmResponse() {
+        return createGlmResponse("第1页至第4页均为合同正文", 0, 0);
+    }
+
+    private GlmVisionChatResponse createGlmResponse(String content, int promptTokens, int completionTokens) {
+        GlmVisionChatResponse.Message message = new GlmVisionChatResponse.Message();
+        message.setRole("assistant");
+        message.setContent(content);
+
+        GlmVisionChatResponse.Choice choice = new GlmVisionChatResponse.Choice();
+        choice.setIndex(0);
+        choice.setMessage(message);
+
+        GlmVisionChatResponse response = new GlmVisionChatResponse();
+        response.setId("glm-test-id");
+        response.setModel("glm-4.1v-thinking-flash");
+        response.setChoices(List.of(choice));
+        if (promptTokens > 0) {
+            GlmVisionChatResponse.Usage usage = new GlmVisionChatResponse.Usage();
+            usage.setPromptTokens(promptTokens);
+            usage.setCompletionTokens(completionTokens);
+            usage.setTotalTokens(promptTokens + completionTokens);
+            response.setUsage(usage);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,98 @@
+package com.contract.ai.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PDF页面并行渲染器测试
+ */
+class PdfPageRasterizerTest {
+
+    private PdfPageRasterizer rasterizer;
+
+    @BeforeEach
+    void setUp() {
+        rasterizer = new PdfPageRasterizer();
+        ReflectionTestUtils.setField(rasterizer, "threads", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rasterizer.shutdown();
+    }
+
+    @Test
+    void testRasterize_ResultsFollowPageOrderAcrossWorkers() throws IOException {
+        byte[] pdf = createPdf(7);
+        Set<String> workerThreads = ConcurrentHashMap.newKeySet();
+
+        List<String> results = rasterizer.rasterize(pdf, List.of(1, 2, 3, 4, 5, 6, 7), 36, (pageNumber, image) -> {
+            workerThreads.add(Thread.currentThread().getName());
+            return pageNumber + ":" + image.getWidth() + "x" + image.getHeight();
+        });
+
+        assertEquals(7, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertTrue(results.get(i).startsWith((i + 1) + ":"));
+        }
+        assertEquals(3, workerThreads.size());
+    }
+
+    @Test
+    void testRasterize_DpiControlsResolution() throws IOException {
+        byte[] pdf = createPdf(1);
+
+        List<Integer> widths = rasterizer.rasterize(pdf, List.of(1), 144, (pageNumber, image) -> image.getWidth());
+
+        // A4 宽 595pt，144 DPI 下为 2 倍
+        assertEquals(1190, widths.get(0), 1);
+    }
+
+    @Test
+    void testRasterize_ProcessorFailureIsPropagated() throws IOException {
+        byte[] pdf = createPdf(4);
+
+        assertThrows(IOException.class, () -> rasterizer.rasterize(pdf, List.of(1, 2, 3, 4), 36,
+                (pageNumber, image) -> {
+                    if (pageNumber == 3) {
+                        throw new IOException("压缩失败");
+                    }
+                    return pageNumber;
+                }));
+    }
+
+    @Test
+    void testParsePageRange() {
+        assertEquals(List.of(1, 2, 3, 4, 5), PdfPageRasterizer.parsePageRange(null, 5));
+        assertEquals(List.of(1, 2, 3, 5), PdfPageRasterizer.parsePageRange("1-3, 5", 5));
+        assertEquals(List.of(4, 5), PdfPageRasterizer.parsePageRange("4-", 5));
+        assertEquals(List.of(2, 3), PdfPageRasterizer.parsePageRange("3,2,3-100", 3));
+        assertThrows(IllegalArgumentException.class, () -> PdfPageRasterizer.parsePageRange("9-12", 5));
+        assertThrows(IllegalArgumentException.class, () -> PdfPageRasterizer.parsePageRange("a-b", 5));
+    }
+
+    private byte[] createPdf(int pageCount) throws IOException {
+        try (PDDocument pdf = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < pageCount; i++) {
+                pdf.addPage(new PDPage(PDRectangle.A4));
+            }
+            pdf.save(out);
+            return out.toByteArray();
+        }
+    }
+}
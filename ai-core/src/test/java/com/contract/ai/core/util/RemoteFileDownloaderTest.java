@@ -0,0 +1,165 @@
+package com.contract.ai.core.util;
+
+import com.contract.ai.core.resilience.AiRequestContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 远程文件下载工具测试类
+ */
+class RemoteFileDownloaderTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private RemoteFileDownloader downloader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/contract.pdf", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = "%PDF-1.7".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/redirect/relative", exchange -> redirect(exchange, "/files/contract.pdf"));
+        server.createContext("/redirect/other-host",
+                exchange -> redirect(exchange, "http://localhost:" + port() + "/files/contract.pdf"));
+        server.createContext("/redirect/loop", exchange -> redirect(exchange, "/redirect/loop"));
+        server.start();
+
+        downloader = new RemoteFileDownloader();
+        ReflectionTestUtils.setField(downloader, "allowedHosts", List.of());
+        ReflectionTestUtils.setField(downloader, "allowPrivateNetwork", false);
+        ReflectionTestUtils.setField(downloader, "maxRedirects", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRejectsLoopbackByDefault() {
+        IOException e = assertThrows(IOException.class,
+                () -> downloader.download(url("/files/contract.pdf"), 1024, 5000));
+        assertTrue(e.getMessage().contains("内部地址"));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void testRejectsHostOutsideAllowList() {
+        ReflectionTestUtils.setField(downloader, "allowedHosts", List.of("*.example.com"));
+        ReflectionTestUtils.setField(downloader, "allowPrivateNetwork", true);
+
+        assertThrows(IOException.class, () -> downloader.download(url("/files/contract.pdf"), 1024, 5000));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void testFollowsRedirectAfterCheckingTarget() throws IOException {
+        ReflectionTestUtils.setField(downloader, "allowedHosts", List.of("127.0.0.1"));
+        ReflectionTestUtils.setField(downloader, "allowPrivateNetwork", true);
+
+        assertEquals("%PDF-1.7", new String(downloader.download(url("/redirect/relative"), 1024, 5000),
+                StandardCharsets.UTF_8));
+
+        // 重定向目标同样需要通过校验
+        assertThrows(IOException.class, () -> downloader.download(url("/redirect/other-host"), 1024, 5000));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testStopsAfterMaxRedirects() {
+        ReflectionTestUtils.setField(downloader, "allowPrivateNetwork", true);
+
+        IOException e = assertThrows(IOException.class,
+                () -> downloader.download(url("/redirect/loop"), 1024, 5000));
+        assertTrue(e.getMessage().contains("重定向"));
+    }
+
+    @Test
+    void testRejectsOversizedFile() {
+        ReflectionTestUtils.setField(downloader, "allowPrivateNetwork", true);
+
+        assertThrows(IOException.class, () -> downloader.download(url("/files/contract.pdf"), 4, 5000));
+    }
+
+    @Test
+    void testReusesRetainedDownloadWithinRequest() throws IOException {
+        ReflectionTestUtils.setField(downloader, "allowPrivateNetwork", true);
+        AiRequestContext context = new AiRequestContext("req-1");
+
+        try (AiRequestContext.Scope ignored = context.bind()) {
+            byte[] extracted = downloader.downloadAndRetain(url("/files/contract.pdf"), 1024, 5000);
+            // 子上下文（如分组调用线程）中同样复用
+            try (AiRequestContext.Scope child = context.child().bind()) {
+                assertSame(extracted, downloader.download(url("/files/contract.pdf"), 1024, 5000));
+            }
+            assertEquals(1, requests.get());
+
+            // 保留的内容只复用一次
+            downloader.download(url("/files/contract.pdf"), 1024, 5000);
+            assertEquals(2, requests.get());
+        }
+
+        // 未绑定请求上下文时不保留
+        downloader.downloadAndRetain(url("/files/contract.pdf"), 1024, 5000);
+        downloader.download(url("/files/contract.pdf"), 1024, 5000);
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void testDiscardRetainedDownloads() throws IOException {
+        ReflectionTestUtils.setField(downloader, "allowPrivateNetwork", true);
+
+        try (AiRequestContext.Scope ignored = new AiRequestContext("req-1").bind()) {
+            downloader.downloadAndRetain(url("/files/contract.pdf"), 1024, 5000);
+            downloader.discardRetained();
+            downloader.download(url("/files/contract.pdf"), 1024, 5000);
+        }
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testClassifiesInternalAddresses() throws IOException {
+        for (String internal : List.of("127.0.0.1", "0.0.0.0", "10.1.2.3", "172.16.0.1", "192.168.1.10",
+                "169.254.169.254", "::1", "fe80::1", "fd00::1")) {
+            assertTrue(RemoteFileDownloader.isInternalAddress(InetAddress.getByName(internal)), internal);
+        }
+        for (String external : List.of("8.8.8.8", "2001:4860:4860::8888")) {
+            assertFalse(RemoteFileDownloader.isInternalAddress(InetAddress.getByName(external)), external);
+        }
+    }
+
+    private static void redirect(HttpExchange exchange, String location) throws IOException {
+        exchange.getResponseHeaders().add("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+        exchange.close();
+    }
+
+    private int port() {
+        return server.getAddress().getPort();
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + port() + path;
+    }
+}
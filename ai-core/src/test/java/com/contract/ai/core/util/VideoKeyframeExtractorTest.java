@@ -0,0 +1,100 @@
+package com.contract.ai.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.contract.ai.feign.util.KeyframeSelector;
+import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 视频关键帧提取器测试
+ */
+class VideoKeyframeExtractorTest {
+
+    private static final int FPS = 5;
+
+    @TempDir
+    Path tempDir;
+
+    private VideoKeyframeExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new VideoKeyframeExtractor();
+        ReflectionTestUtils.setField(extractor, "sampleIntervalMs", 500L);
+        ReflectionTestUtils.setField(extractor, "maxSamples", 150);
+        ReflectionTestUtils.setField(extractor, "dedupeDistance", 8);
+        ReflectionTestUtils.setField(extractor, "selection", KeyframeSelector.Mode.SCENE_CHANGE);
+    }
+
+    @Test
+    void testExtract_RepeatedScenesAreDeduplicated() throws IOException {
+        Path video = createVideo(3, 5);
+
+        List<Long> timestamps = extractor.extract(video, 10, (timestampMs, frame) -> {
+            assertEquals(320, frame.getWidth());
+            return timestampMs;
+        });
+
+        assertEquals(3, timestamps.size());
+        assertEquals(0L, timestamps.get(0));
+        assertTrue(timestamps.get(0) < timestamps.get(1) && timestamps.get(1) < timestamps.get(2));
+    }
+
+    @Test
+    void testExtract_RespectsFrameLimitForInMemoryVideo() throws IOException {
+        byte[] video = Files.readAllBytes(createVideo(3, 5));
+
+        List<Long> timestamps = extractor.extract(video, 2, (timestampMs, frame) -> timestampMs);
+
+        assertEquals(2, timestamps.size());
+        assertEquals(0L, timestamps.get(0));
+    }
+
+    @Test
+    void testExtract_InvalidVideoThrowsIOException() {
+        assertThrows(IOException.class, () -> extractor.extract("not a video".getBytes(), 5,
+                (timestampMs, frame) -> timestampMs));
+    }
+
+    /**
+     * 生成包含若干个静止场景的MP4，每个场景持续指定秒数
+     */
+    private Path createVideo(int sceneCount, int secondsPerScene) throws IOException {
+        Path video = tempDir.resolve("signing.mp4");
+        AWTSequenceEncoder encoder = AWTSequenceEncoder.createSequenceEncoder(video.toFile(), FPS);
+        for (int scene = 0; scene < sceneCount; scene++) {
+            BufferedImage image = createScene(scene);
+            for (int frame = 0; frame < FPS * secondsPerScene; frame++) {
+                encoder.encodeImage(image);
+            }
+        }
+        encoder.finish();
+        return video;
+    }
+
+    private BufferedImage createScene(int scene) {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(Color.BLACK);
+        // 每个场景的深色块位于不同位置，保证画面结构不同
+        g.fillRect(scene * 100, scene * 60, 120, 100);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,78 @@
+package com.contract.ai.feign.util;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 jdk.incubator.vector 的重采样计算核
+ * 只在 vector profile 下编译，由 {@link ImageResampler} 在启用向量化且运行时加载了孵化模块时反射加载，加载失败回退到标量实现
+ */
+final class VectorResampleKernel implements ResampleKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * 水平方向的抽头数通常只有十几个，用较窄的向量减少尾部标量循环
+     */
+    private static final VectorSpecies<Float> DOT_SPECIES = FloatVector.SPECIES_128;
+
+    static final VectorResampleKernel INSTANCE = new VectorResampleKernel();
+
+    private VectorResampleKernel() {
+    }
+
+    /**
+     * 当前CPU的首选向量宽度（float通道数），小于4时向量化没有收益
+     */
+    static int laneCount() {
+        return SPECIES.length();
+    }
+
+    /**
+     * 供 {@link ImageResampler} 反射调用，向量宽度不足时返回null
+     */
+    static ResampleKernel create() {
+        return laneCount() >= 4 ? INSTANCE : null;
+    }
+
+    @Override
+    public float dot(float[] src, int srcOffset, float[] weights, int weightOffset, int length) {
+        int i = 0;
+        int upperBound = DOT_SPECIES.loopBound(length);
+        float sum = 0f;
+        if (upperBound > 0) {
+            FloatVector acc = FloatVector.zero(DOT_SPECIES);
+            for (; i < upperBound; i += DOT_SPECIES.length()) {
+                FloatVector s = FloatVector.fromArray(DOT_SPECIES, src, srcOffset + i);
+                FloatVector w = FloatVector.fromArray(DOT_SPECIES, weights, weightOffset + i);
+                acc = s.fma(w, acc);
+            }
+            sum = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) {
+            sum += src[srcOffset + i] * weights[weightOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(float weight, float[] src, float[] acc, int length) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        FloatVector w = FloatVector.broadcast(SPECIES, weight);
+        for (; i < upperBound; i += SPECIES.length()) {
+            FloatVector s = FloatVector.fromArray(SPECIES, src, i);
+            FloatVector a = FloatVector.fromArray(SPECIES, acc, i);
+            s.fma(w, a).intoArray(acc, i);
+        }
+        for (; i < length; i++) {
+            acc[i] += weight * src[i];
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
@@ -1,19 +1,27 @@
 package com.contract.ai.feign.client;
 
+import com.contract.ai.feign.dto.AiJob;
 import com.contract.ai.feign.dto.ApiResponse;
 import com.contract.ai.feign.dto.ChatRequest;
 import com.contract.ai.feign.dto.ChatResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
  * AI服务Feign客户端
- * 提供完整的AI服务接口，包括文本和视觉处理能力
+ * 提供完整的AI服务接口，包括文本和视觉处理能力。
+ * 需要限时的调用可包在 {@code AiDeadline.call(Duration.ofSeconds(20), () -> aiClient.chat(request))} 中，
+ * 服务端按剩余时限收紧上游超时，过期的请求不再调用上游。
+ * 批量任务应在请求扩展参数中设置 {@code "priority": "batch"}，服务端为交互请求保留处理名额。
+ * 耗时数分钟的视觉或文档审核建议使用 {@link #submitJob(ChatRequest)} 提交异步任务，再通过 {@link #getJob(String, long)} 轮询结果，
+ * 避免长时间占用连接并在读超时后重复提交
  */
 @FeignClient(
     name = "contract-ai-service",
@@ -61,6 +69,37 @@ public interface AiClient {
             @RequestPart(value = "files", required = false) MultipartFile[] files
     );
 
+    /**
+     * 提交异步任务
+     * 立即返回任务ID，任务在服务端的有界线程池上执行，状态与结果持久化在服务端本地，服务重启后继续执行或标记失败
+     * 请求自动携带幂等键，超时重试返回首次提交创建的任务，不会重复创建
+     *
+     * @param request 聊天请求，图片以URL或base64内容放在messages中
+     * @return 任务信息，状态为 QUEUED
+     */
+    @PostMapping("/jobs")
+    ApiResponse<AiJob> submitJob(@RequestBody ChatRequest request);
+
+    /**
+     * 查询异步任务
+     *
+     * @param jobId 任务ID
+     * @return 任务状态，SUCCEEDED 时包含结果
+     */
+    @GetMapping("/jobs/{jobId}")
+    ApiResponse<AiJob> getJob(@PathVariable("jobId") String jobId);
+
+    /**
+     * 长轮询异步任务
+     * 任务未结束时最多等待 waitMs 毫秒（服务端上限60秒），结束或超时后返回当前状态
+     *
+     * @param jobId  任务ID
+     * @param waitMs 最多等待的毫秒数
+     * @return 任务状态，SUCCEEDED 时包含结果
+     */
+    @GetMapping("/jobs/{jobId}")
+    ApiResponse<AiJob> getJob(@PathVariable("jobId") String jobId, @RequestParam("waitMs") long waitMs);
+
     /**
      * 健康检查接口
      *
@@ -1,7 +1,10 @@
 package com.contract.ai.feign.client;
 
+import feign.Capability;
+import feign.Client;
 import feign.Request;
 import feign.Retryer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,7 +14,7 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Feign客户端配置
- * 默认60s超时 + 3次指数退避重试
+ * 默认60s超时 + 3次指数退避重试，聊天请求的重试携带相同的幂等键
  *
  * 注意：这个类是Feign的具体配置，不是Spring的自动配置类
  * 实际的Spring配置请参考 com.contract.ai.feign.config.AiClientConfiguration
@@ -41,4 +44,31 @@ public class AiClientConfiguration {
         // 初始间隔100ms，最大间隔1s，最大重试次数3次
         return new Retryer.Default(100, TimeUnit.SECONDS.toMillis(1), 3);
     }
+
+    /**
+     * 截止时间传递
+     * 调用方通过 {@link AiDeadline#call} 设定时限后，AI服务请求携带 X-Ai-Timeout-Ms 头，超时按剩余时限收紧，
+     * 过期后不再发起调用或重试；未设定时使用 ai.client.default-timeout-ms（0表示不设定）
+     */
+    @Bean("aiClientDeadlineCapability")
+    public Capability deadlineCapability(
+            @Value("${ai.client.service-name:contract-ai-service}") String serviceName,
+            @Value("${ai.client.default-timeout-ms:0}") long defaultTimeoutMs) {
+        return new Capability() {
+            @Override
+            public Client enrich(Client client) {
+                return new AiDeadlineClient(client, serviceName, defaultTimeoutMs);
+            }
+        };
+    }
+
+    /**
+     * 幂等键
+     * 聊天请求携带 Idempotency-Key，重试时复用同一个键，服务端不会为重试重复调用上游模型
+     */
+    @Bean("aiClientIdempotencyInterceptor")
+    public AiIdempotencyInterceptor idempotencyInterceptor(
+            @Value("${ai.client.service-name:contract-ai-service}") String serviceName) {
+        return new AiIdempotencyInterceptor(serviceName);
+    }
 }
\ No newline at end of file
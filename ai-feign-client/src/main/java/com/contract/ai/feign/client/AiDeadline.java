@@ -0,0 +1,91 @@
+package com.contract.ai.feign.client;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * AI请求截止时间
+ * 调用方通过 {@link #call(Duration, Supplier)} 为当前线程上的 AiClient 调用设定时限，
+ * 剩余毫秒数通过 {@value #HEADER} 请求头传给AI服务，服务端据此收紧上游调用超时、跳过来不及完成的重试，
+ * 并丢弃排队期间已过期的请求。请求头使用相对毫秒数而非绝对时间，避免调用方与服务端的时钟偏差
+ */
+public final class AiDeadline {
+
+    /**
+     * 剩余时限请求头（毫秒）
+     */
+    public static final String HEADER = "X-Ai-Timeout-Ms";
+
+    /**
+     * 当前线程的截止时间（System.nanoTime）
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private AiDeadline() {
+    }
+
+    /**
+     * 在时限内执行AI调用，嵌套调用时取更早的截止时间
+     *
+     * @param timeout 时限
+     * @param call    调用，通常为 AiClient 的方法
+     * @return 调用结果
+     */
+    public static <T> T call(Duration timeout, Supplier<T> call) {
+        Long previous = DEADLINE.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        if (previous != null && previous - deadline < 0) {
+            deadline = previous;
+        }
+        DEADLINE.set(deadline);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                DEADLINE.set(previous);
+            } else {
+                DEADLINE.remove();
+            }
+        }
+    }
+
+    /**
+     * 当前线程剩余的时限
+     *
+     * @return 剩余毫秒数（已过期时为0或负数），未设定时返回null
+     */
+    public static Long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return null;
+        }
+        return Math.floorDiv(deadline - System.nanoTime(), 1_000_000L);
+    }
+
+    /**
+     * 解析请求头中的剩余时限
+     *
+     * @param value 请求头的值
+     * @return 剩余毫秒数，缺失或格式错误时返回null
+     */
+    public static Long parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 发起调用前已超过截止时间
+     */
+    public static class DeadlineExceededException extends RuntimeException {
+
+        public DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.contract.ai.feign.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 携带截止时间的Feign客户端
+ * 只作用于AI服务的请求：每次HTTP调用（包括重试）按当前线程剩余时限（见 {@link AiDeadline}）写入 {@value AiDeadline#HEADER} 请求头，
+ * 并把连接、读取超时收紧到剩余时限以内；已过期时不再发起调用，Feign也不会继续重试
+ */
+public class AiDeadlineClient implements Client {
+
+    /**
+     * 读取超时在剩余时限之外多等待的时间，让服务端的超时响应能够返回
+     */
+    static final long READ_GRACE_MS = 1000;
+
+    private final Client delegate;
+    private final String serviceName;
+    private final long defaultTimeoutMs;
+
+    /**
+     * @param delegate         实际发送请求的客户端
+     * @param serviceName      AI服务的Feign客户端名称
+     * @param defaultTimeoutMs 调用方未设定时限时使用的时限，0表示不设定
+     */
+    public AiDeadlineClient(Client delegate, String serviceName, long defaultTimeoutMs) {
+        this.delegate = delegate;
+        this.serviceName = serviceName;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (!targetsAiService(request)) {
+            return delegate.execute(request, options);
+        }
+        Long remaining = AiDeadline.remainingMillis();
+        if (remaining == null && defaultTimeoutMs > 0) {
+            remaining = defaultTimeoutMs;
+        }
+        if (remaining == null) {
+            return delegate.execute(request, options);
+        }
+        if (remaining <= 0) {
+            throw new AiDeadline.DeadlineExceededException(
+                    "AI请求已超过截止时间，未发起调用: " + request.httpMethod() + " " + request.url());
+        }
+
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.put(AiDeadline.HEADER, List.of(String.valueOf(remaining)));
+        Request bounded = Request.create(request.httpMethod(), request.url(), headers, request.body(),
+                request.charset(), request.requestTemplate());
+        Request.Options boundedOptions = new Request.Options(
+                Math.min(options.connectTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+                Math.min(options.readTimeoutMillis(), remaining + READ_GRACE_MS), TimeUnit.MILLISECONDS,
+                options.isFollowRedirects());
+        return delegate.execute(bounded, boundedOptions);
+    }
+
+    private boolean targetsAiService(Request request) {
+        return request.requestTemplate() != null
+                && request.requestTemplate().feignTarget() != null
+                && serviceName.equals(request.requestTemplate().feignTarget().name());
+    }
+}
@@ -0,0 +1,47 @@
+package com.contract.ai.feign.client;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+import java.util.UUID;
+
+/**
+ * 幂等键拦截器
+ * 为AI服务的聊天请求与任务提交写入 {@value #HEADER} 请求头。Feign 的重试复用同一个请求模板，拦截器只在请求头缺失时生成新的键，
+ * 因此同一次调用的所有重试携带相同的键：服务端据此把重试挂到首次请求的执行上，或直接返回已完成的结果，
+ * 首次请求在客户端超时但服务端已完成时不会重复调用上游模型；任务提交的重试返回首次提交创建的任务，不会重复创建
+ */
+public class AiIdempotencyInterceptor implements RequestInterceptor {
+
+    /**
+     * 幂等键请求头
+     */
+    public static final String HEADER = "Idempotency-Key";
+
+    private final String serviceName;
+
+    /**
+     * @param serviceName AI服务的Feign客户端名称
+     */
+    public AiIdempotencyInterceptor(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (!targetsIdempotentRoute(template) || template.headers().containsKey(HEADER)) {
+            return;
+        }
+        template.header(HEADER, UUID.randomUUID().toString());
+    }
+
+    private boolean targetsIdempotentRoute(RequestTemplate template) {
+        if (!"POST".equals(template.method())
+                || template.feignTarget() == null
+                || !serviceName.equals(template.feignTarget().name())) {
+            return false;
+        }
+        String path = template.path();
+        return path.contains("/chat") || path.endsWith("/jobs");
+    }
+}
@@ -49,8 +49,11 @@ public class DeepSeekConvertor implements PlatformConvertor<DeepSeekChatRequest,
         Double presencePenalty = null;
 
         if (chatRequest.getExtensions() != null) {
-            frequencyPenalty = (Double) chatRequest.getExtensions().get("frequencyPenalty");
-            presencePenalty = (Double) chatRequest.getExtensions().get("presencePenalty");
+            // JSON中的整数会被反序列化为Integer，统一按Number读取
+            Object frequency = chatRequest.getExtensions().get("frequencyPenalty");
+            Object presence = chatRequest.getExtensions().get("presencePenalty");
+            frequencyPenalty = frequency instanceof Number ? ((Number) frequency).doubleValue() : null;
+            presencePenalty = presence instanceof Number ? ((Number) presence).doubleValue() : null;
         }
 
         return DeepSeekChatRequest.builder()
@@ -1,6 +1,7 @@
 package com.contract.ai.feign.convertor;
 
 import com.contract.ai.feign.dto.ChatRequest;
+import com.contract.ai.feign.dto.RequestProfile;
 import com.contract.ai.feign.dto.glm.GlmVisionChatRequest;
 import com.contract.ai.feign.dto.glm.MultimodalityContentItem;
 import com.contract.ai.feign.util.ImageBase64Validator;
@@ -29,9 +30,11 @@ public class GlmConvertor {
      */
     public GlmVisionChatRequest convertToGlmVisionRequest(ChatRequest chatRequest, Map<String, String> fileContents) {
         List<GlmVisionChatRequest.VisionMessage> visionMessages = new ArrayList<>();
+        // 请求画像中没有附件时无需逐条检查消息
+        boolean requestHasAttachments = chatRequest.getProfile().hasAttachments();
 
         for (ChatRequest.Message message : chatRequest.getMessages()) {
-            if (hasFileAttachments(message)) {
+            if (requestHasAttachments && hasFileAttachments(message)) {
                 // 处理包含文件附件的多模态消息
                 GlmVisionChatRequest.VisionMessage visionMessage = convertToMultimodalityMessage(message, fileContents);
                 visionMessages.add(visionMessage);
@@ -64,13 +67,21 @@ public class GlmConvertor {
                 .topP(chatRequest.getTopP())
                 .maxTokens(chatRequest.getMaxTokens())
                 .stop(chatRequest.getStop())
-                .requestId(chatRequest.getExtensions() != null ?
-                    (String) chatRequest.getExtensions().get("request_id") : null)
-                .userId(chatRequest.getExtensions() != null ?
-                    (String) chatRequest.getExtensions().get("user_id") : null)
+                .requestId(extensionAsString(chatRequest, "request_id"))
+                .userId(extensionAsString(chatRequest, "user_id"))
                 .build();
     }
 
+    /**
+     * 读取字符串类型的扩展参数
+     */
+    private String extensionAsString(ChatRequest chatRequest, String key) {
+        if (chatRequest.getExtensions() == null || chatRequest.getExtensions().get(key) == null) {
+            return null;
+        }
+        return String.valueOf(chatRequest.getExtensions().get(key));
+    }
+
     /**
      * 将通用消息转换为多模态消息
      * 支持新的content数组和旧的文件扩展结构
@@ -304,6 +315,9 @@ public class GlmConvertor {
      */
     public Map<String, Object> extractFileInfo(ChatRequest chatRequest) {
         Map<String, Object> fileInfo = new HashMap<>();
+        if (chatRequest.getProfile().count(RequestProfile.LEGACY_FILE_TYPE) == 0) {
+            return fileInfo;
+        }
 
         for (ChatRequest.Message message : chatRequest.getMessages()) {
             if (hasFileAttachments(message)) {
@@ -0,0 +1,62 @@
+package com.contract.ai.feign.dto;
+
+import com.contract.ai.feign.enums.AiJobStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步任务DTO
+ * 提交长耗时的视觉或文档审核请求后返回任务ID，通过任务ID查询状态与结果
+ */
+@Data
+public class AiJob {
+
+    /**
+     * 任务ID
+     */
+    @JsonProperty("job_id")
+    private String jobId;
+
+    /**
+     * 任务状态
+     */
+    private AiJobStatus status;
+
+    /**
+     * 请求的模型
+     */
+    private String model;
+
+    /**
+     * 已执行次数，服务重启后恢复执行时增加
+     */
+    private Integer attempts;
+
+    @JsonProperty("created_at")
+    private LocalDateTime createdAt;
+
+    @JsonProperty("started_at")
+    private LocalDateTime startedAt;
+
+    @JsonProperty("finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 执行结果，仅在 SUCCEEDED 时有值
+     */
+    private ChatResponse result;
+
+    /**
+     * 失败时的错误码
+     */
+    @JsonProperty("error_code")
+    private String errorCode;
+
+    /**
+     * 失败时的错误信息
+     */
+    @JsonProperty("error_message")
+    private String errorMessage;
+}
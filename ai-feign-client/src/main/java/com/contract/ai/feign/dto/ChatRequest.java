@@ -1,30 +1,40 @@
 package com.contract.ai.feign.dto;
 
 import com.contract.ai.feign.enums.PlatFormType;
-import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 聊天请求DTO
  * 固定签名chat(ChatRequest)对外契约
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 public class ChatRequest {
@@ -94,6 +104,43 @@ public class ChatRequest {
      */
     private Map<String, Object> extensions;
 
+    /**
+     * 请求画像缓存，不参与构造、序列化与比较
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final transient AtomicReference<RequestProfile> profileCache = new AtomicReference<>();
+
+    /**
+     * 获取请求画像
+     * 缓存的画像按内容校验（见 {@link RequestProfile#isFor}），模型、消息、内容项或响应格式被替换或原地修改后重新计算
+     *
+     * @return 请求画像
+     */
+    @JsonIgnore
+    public RequestProfile getProfile() {
+        RequestProfile current = profileCache.get();
+        if (current == null || !current.isFor(this)) {
+            current = RequestProfile.analyze(this);
+            profileCache.set(current);
+        }
+        return current;
+    }
+
+    /**
+     * 沿用另一请求已计算的画像，用于以相同内容重建请求（如归一化），画像与本请求内容不一致时忽略
+     *
+     * @param source 原请求
+     */
+    public void reuseProfile(ChatRequest source) {
+        RequestProfile candidate = source.profileCache.get();
+        if (candidate != null && candidate.isFor(this)) {
+            profileCache.compareAndSet(null, candidate);
+        }
+    }
+
     /**
      * 消息内容
      */
@@ -103,6 +150,12 @@ public class ChatRequest {
     @AllArgsConstructor
     public static class Message {
 
+        /**
+         * 以Map列表构造的内容项转换用，ObjectMapper线程安全，全局共享一个实例
+         */
+        private static final ObjectMapper CONTENT_MAPPER = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
         /**
          * 消息角色 (system, user, assistant)
          */
@@ -113,8 +166,9 @@ public class ChatRequest {
          * 消息内容
          * 可以是：
          * 1. 纯文本字符串（向后兼容）
-         * 2. 多模态内容数组（新格式）
+         * 2. 多模态内容数组（新格式），反序列化时直接解析为类型化的 {@link ContentItem} 列表
          */
+        @JsonDeserialize(using = ContentDeserializer.class)
         private Object content;
 
         /**
@@ -148,14 +202,18 @@ public class ChatRequest {
         /**
          * 检查消息是否为多模态内容
          */
+        @JsonIgnore
         public boolean isMultimodal() {
             return content instanceof List;
         }
 
         /**
          * 获取多模态内容列表
-         * 处理反序列化后的类型转换问题
+         * JSON反序列化得到的内容已是类型化列表，直接复制返回；
+         * 代码中以Map列表构造的内容每次调用时转换，不回写消息，同一消息可在多个线程间共享。
+         * 与原先一样返回新的可修改列表，增删列表元素不影响消息本身
          */
+        @JsonIgnore
         @SuppressWarnings("unchecked")
         public List<ContentItem> getMultimodalContent() {
             if (!isMultimodal()) {
@@ -163,37 +221,34 @@ public class ChatRequest {
             }
 
             List<Object> rawList = (List<Object>) content;
-            List<ContentItem> contentItems = new ArrayList<>();
-
+            List<ContentItem> contentItems = new ArrayList<>(rawList.size());
             for (Object item : rawList) {
-                if (item instanceof ContentItem) {
-                    contentItems.add((ContentItem) item);
-                } else if (item instanceof Map) {
-                    // 处理反序列化为Map的情况
-                    try {
-                        // 使用Jackson将Map转换为ContentItem
-                        ObjectMapper mapper = new ObjectMapper();
-                        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-                        ContentItem contentItem = mapper.convertValue(item, ContentItem.class);
-                        contentItems.add(contentItem);
-                    } catch (Exception e) {
-                        // 如果转换失败，创建一个默认的文本项
-                        ContentItem fallbackItem = ContentItem.text(item.toString());
-                        contentItems.add(fallbackItem);
-                    }
-                } else {
-                    // 其他情况，创建默认的文本项
-                    ContentItem fallbackItem = ContentItem.text(item.toString());
-                    contentItems.add(fallbackItem);
-                }
+                contentItems.add(toContentItem(item));
             }
-
             return contentItems;
         }
 
+        /**
+         * 将非类型化的内容项转换为 {@link ContentItem}，无法转换时作为文本处理
+         */
+        private static ContentItem toContentItem(Object item) {
+            if (item instanceof ContentItem contentItem) {
+                return contentItem;
+            }
+            if (item instanceof Map) {
+                try {
+                    return CONTENT_MAPPER.convertValue(item, ContentItem.class);
+                } catch (IllegalArgumentException e) {
+                    return ContentItem.text(item.toString());
+                }
+            }
+            return ContentItem.text(String.valueOf(item));
+        }
+
         /**
          * 获取文本内容（向后兼容）
          */
+        @JsonIgnore
         public String getTextContent() {
             if (content instanceof String) {
                 return (String) content;
@@ -215,11 +270,14 @@ public class ChatRequest {
 
         /**
          * 内容项
+         * 文本、图片、文件内容项共用 type / text / image_url / file_url 扁平结构，
+         * 推荐通过 {@link #text(String)}、{@link #imageUrl(String)}、{@link #fileUrl(String)} 创建
          */
         @Data
         @Builder
         @NoArgsConstructor
         @AllArgsConstructor
+        @JsonIgnoreProperties(ignoreUnknown = true)
         public static class ContentItem {
             /**
              * 内容类型：text, image_url, file_url
@@ -276,6 +334,25 @@ public class ChatRequest {
             }
         }
 
+        /**
+         * content 字段反序列化器：字符串保持原样，数组直接解析为类型化的内容项列表
+         */
+        public static class ContentDeserializer extends JsonDeserializer<Object> {
+
+            @Override
+            public Object deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                JsonToken token = parser.currentToken();
+                if (token == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+                if (token == JsonToken.START_ARRAY) {
+                    return context.readValue(parser,
+                            context.getTypeFactory().constructCollectionType(List.class, ContentItem.class));
+                }
+                return context.readValue(parser, Object.class);
+            }
+        }
+
         /**
          * 图片URL信息
          */
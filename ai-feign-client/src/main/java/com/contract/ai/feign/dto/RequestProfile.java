@@ -0,0 +1,414 @@
+package com.contract.ai.feign.dto;
+
+import com.contract.ai.feign.enums.ModelCapability;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 请求画像
+ * 对消息列表做一次遍历得到内容类型计数、文本长度、图片大小与摘要、所需模型能力及请求指纹，
+ * 由 {@link ChatRequest#getProfile()} 缓存，控制器、服务、路由与转换器直接读取而不再重复遍历消息。
+ * 所需模型能力只在这里推导，包括由 response_format 决定的 JSON 输出模式
+ */
+@Getter
+public final class RequestProfile {
+
+    /**
+     * 旧版 message.extensions.files 文件附件的计数键
+     */
+    public static final String LEGACY_FILE_TYPE = "legacy_file";
+
+    private static final String DATA_URL_BASE64_MARKER = ";base64,";
+
+    /**
+     * 计算画像时的模型名与内容快照，用于判断缓存是否仍对应当前请求
+     */
+    @Getter(AccessLevel.NONE)
+    private final String sourceModel;
+
+    @Getter(AccessLevel.NONE)
+    private final Object[] sourceSnapshot;
+
+    private final int messageCount;
+
+    /**
+     * 按内容类型统计的内容项数量（纯文本消息计入 text）
+     */
+    private final Map<String, Integer> contentTypeCounts;
+
+    /**
+     * 文本总长度（字符数）
+     */
+    private final int totalTextLength;
+
+    /**
+     * 图片信息，按出现顺序排列
+     */
+    private final List<ImageInfo> images;
+
+    /**
+     * 图片URL（base64数据），按出现顺序排列
+     */
+    private final List<String> imageUrls;
+
+    /**
+     * 文件URL，按出现顺序排列
+     */
+    private final List<String> fileUrls;
+
+    /**
+     * 请求所需的模型能力
+     */
+    private final Set<ModelCapability> requiredCapabilities;
+
+    /**
+     * 请求指纹：模型名与规范化后的消息内容（角色、文本、图片摘要、文件URL）的SHA-256，
+     * 不包含温度等采样参数，内容相同的请求指纹相同
+     */
+    private final String fingerprint;
+
+    private RequestProfile(Builder builder, Object[] sourceSnapshot) {
+        this.sourceModel = builder.model;
+        this.sourceSnapshot = sourceSnapshot;
+        this.messageCount = builder.messages != null ? builder.messages.size() : 0;
+        this.contentTypeCounts = Collections.unmodifiableMap(builder.contentTypeCounts);
+        this.totalTextLength = builder.totalTextLength;
+        this.images = Collections.unmodifiableList(builder.images);
+        this.imageUrls = Collections.unmodifiableList(builder.imageUrls);
+        this.fileUrls = Collections.unmodifiableList(builder.fileUrls);
+        this.requiredCapabilities = Collections.unmodifiableSet(builder.capabilities);
+        this.fingerprint = HexFormat.of().formatHex(builder.fingerprintDigest.digest());
+    }
+
+    /**
+     * 遍历一次消息列表生成请求画像
+     *
+     * @param request 聊天请求
+     * @return 请求画像
+     */
+    @SuppressWarnings("unchecked")
+    public static RequestProfile analyze(ChatRequest request) {
+        Object[] snapshot = snapshot(request);
+        Builder builder = new Builder(request.getModel(), request.getMessages());
+        builder.token(request.getModel());
+        if (request.getResponseReformat() != null && "json_object".equals(request.getResponseReformat().getType())) {
+            builder.capabilities.add(ModelCapability.JSON_MODE);
+        }
+
+        if (request.getMessages() != null) {
+            for (ChatRequest.Message message : request.getMessages()) {
+                if (message == null) {
+                    continue;
+                }
+                builder.token("role").token(message.getRole());
+                if (message.isMultimodal()) {
+                    for (ChatRequest.Message.ContentItem item : message.getMultimodalContent()) {
+                        builder.addItem(item);
+                    }
+                } else if (message.getContent() instanceof String text) {
+                    builder.addText(text);
+                }
+
+                if (message.getExtensions() != null && message.getExtensions().get("files") instanceof List<?> files) {
+                    for (Object file : files) {
+                        Object name = file instanceof Map ? ((Map<String, Object>) file).get("name") : file;
+                        builder.count(LEGACY_FILE_TYPE);
+                        builder.capabilities.add(ModelCapability.FILE_INPUT);
+                        builder.token(LEGACY_FILE_TYPE).token(String.valueOf(name));
+                    }
+                }
+            }
+        }
+        return new RequestProfile(builder, snapshot);
+    }
+
+    /**
+     * 画像是否仍对应该请求：模型相同，且消息、内容项及响应格式的各组成对象与计算画像时一致。
+     * 各对象按引用比较，替换列表或通过setter修改内容项都会使画像失效，无需重新摘要内容
+     */
+    public boolean isFor(ChatRequest request) {
+        if (sourceSnapshot == null || !Objects.equals(request.getModel(), sourceModel)) {
+            return false;
+        }
+        Object[] current = snapshot(request);
+        if (current == null || current.length != sourceSnapshot.length) {
+            return false;
+        }
+        for (int i = 0; i < current.length; i++) {
+            Object expected = sourceSnapshot[i];
+            if (current[i] != expected && !(expected instanceof Integer && expected.equals(current[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 请求内容快照：依次记录决定画像的各对象引用与列表长度。
+     * 包含以Map构造的内容项时无法按引用判断是否被修改，返回null，画像不缓存
+     */
+    @SuppressWarnings({"unchecked", "deprecation"})
+    private static Object[] snapshot(ChatRequest request) {
+        List<Object> refs = new ArrayList<>();
+        ChatRequest.ResponseReformat responseReformat = request.getResponseReformat();
+        refs.add(responseReformat);
+        refs.add(responseReformat != null ? responseReformat.getType() : null);
+        List<ChatRequest.Message> messages = request.getMessages();
+        refs.add(messages);
+        if (messages == null) {
+            return refs.toArray();
+        }
+        refs.add(messages.size());
+        for (ChatRequest.Message message : messages) {
+            refs.add(message);
+            if (message == null) {
+                continue;
+            }
+            refs.add(message.getRole());
+            Object content = message.getContent();
+            refs.add(content);
+            if (content instanceof List<?> items) {
+                refs.add(items.size());
+                for (Object item : items) {
+                    if (!(item instanceof ChatRequest.Message.ContentItem contentItem)) {
+                        return null;
+                    }
+                    refs.add(contentItem);
+                    refs.add(contentItem.getType());
+                    refs.add(contentItem.getText());
+                    refs.add(contentItem.getImage_url());
+                    refs.add(contentItem.getImage_url() != null ? contentItem.getImage_url().getUrl() : null);
+                    refs.add(contentItem.getFile_url());
+                    refs.add(contentItem.getFile_url() != null ? contentItem.getFile_url().getUrl() : null);
+                }
+            }
+            Map<String, Object> extensions = message.getExtensions();
+            refs.add(extensions);
+            Object files = extensions != null ? extensions.get("files") : null;
+            refs.add(files);
+            if (files instanceof List<?> fileList) {
+                refs.add(fileList.size());
+                for (Object file : fileList) {
+                    refs.add(file);
+                    refs.add(file instanceof Map ? ((Map<String, Object>) file).get("name") : null);
+                }
+            }
+        }
+        return refs.toArray();
+    }
+
+    /**
+     * 指定类型的内容项数量
+     */
+    public int count(String type) {
+        return contentTypeCounts.getOrDefault(type, 0);
+    }
+
+    public int getImageCount() {
+        return count("image_url");
+    }
+
+    public int getFileCount() {
+        return count("file_url");
+    }
+
+    /**
+     * 是否包含图片或文件附件
+     */
+    public boolean hasAttachments() {
+        return requiredCapabilities.contains(ModelCapability.VISION)
+                || requiredCapabilities.contains(ModelCapability.FILE_INPUT);
+    }
+
+    public boolean requires(ModelCapability capability) {
+        return requiredCapabilities.contains(capability);
+    }
+
+    /**
+     * 图片解码后的总字节数
+     */
+    public long getTotalImageBytes() {
+        long total = 0;
+        for (ImageInfo image : images) {
+            total += image.getByteSize();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("messages=%d, contents=%s, textLength=%d, imageBytes=%d, capabilities=%s, fingerprint=%s",
+                messageCount, contentTypeCounts, totalTextLength, getTotalImageBytes(), requiredCapabilities,
+                fingerprint.substring(0, 16));
+    }
+
+    /**
+     * 图片信息
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class ImageInfo {
+
+        /**
+         * 图片在请求中的序号（从1开始）
+         */
+        private final int index;
+
+        /**
+         * MIME类型，非data URL时为null
+         */
+        private final String mimeType;
+
+        /**
+         * base64解码后的字节数（按编码长度计算，不实际解码）
+         */
+        private final long byteSize;
+
+        /**
+         * 图片数据的SHA-256
+         */
+        private final String sha256;
+    }
+
+    /**
+     * 单次遍历的累加器
+     */
+    private static final class Builder {
+
+        private final String model;
+        private final List<ChatRequest.Message> messages;
+        private final Map<String, Integer> contentTypeCounts = new LinkedHashMap<>();
+        private final List<ImageInfo> images = new ArrayList<>();
+        private final List<String> imageUrls = new ArrayList<>();
+        private final List<String> fileUrls = new ArrayList<>();
+        private final Set<ModelCapability> capabilities = EnumSet.of(ModelCapability.TEXT);
+        private final MessageDigest fingerprintDigest = sha256();
+        private final byte[] buffer = new byte[8192];
+        private int totalTextLength;
+
+        private Builder(String model, List<ChatRequest.Message> messages) {
+            this.model = model;
+            this.messages = messages;
+        }
+
+        private void addItem(ChatRequest.Message.ContentItem item) {
+            String type = item.getType();
+            if ("text".equals(type)) {
+                addText(item.getText());
+            } else if ("image_url".equals(type)) {
+                count(type);
+                capabilities.add(ModelCapability.VISION);
+                String url = item.getImage_url() != null ? item.getImage_url().getUrl() : null;
+                ImageInfo image = describeImage(images.size() + 1, url);
+                images.add(image);
+                if (url != null) {
+                    imageUrls.add(url);
+                }
+                token(type).token(image.getSha256());
+            } else if ("file_url".equals(type)) {
+                count(type);
+                capabilities.add(ModelCapability.FILE_INPUT);
+                String url = item.getFile_url() != null ? item.getFile_url().getUrl() : null;
+                if (url != null) {
+                    fileUrls.add(url);
+                }
+                token(type).token(url);
+            } else {
+                count(String.valueOf(type));
+                token(String.valueOf(type));
+            }
+        }
+
+        private void addText(String text) {
+            count("text");
+            if (text != null) {
+                totalTextLength += text.length();
+            }
+            token("text").token(text);
+        }
+
+        private void count(String type) {
+            contentTypeCounts.merge(type, 1, Integer::sum);
+        }
+
+        /**
+         * 写入一个指纹分量，以长度前缀分隔避免拼接歧义
+         */
+        private Builder token(String value) {
+            if (value == null) {
+                fingerprintDigest.update((byte) 0);
+                return this;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            fingerprintDigest.update((byte) 1);
+            fingerprintDigest.update(intBytes(bytes.length));
+            fingerprintDigest.update(bytes);
+            return this;
+        }
+
+        /**
+         * 统计图片大小并计算摘要，只对base64部分分块摘要，不解码也不复制整段数据
+         */
+        private ImageInfo describeImage(int index, String url) {
+            if (url == null) {
+                return new ImageInfo(index, null, 0, "");
+            }
+            String mimeType = null;
+            int payloadStart = 0;
+            int markerIndex = url.startsWith("data:") ? url.indexOf(DATA_URL_BASE64_MARKER) : -1;
+            if (markerIndex > 0) {
+                mimeType = url.substring("data:".length(), markerIndex);
+                payloadStart = markerIndex + DATA_URL_BASE64_MARKER.length();
+            }
+
+            MessageDigest digest = sha256();
+            int length = url.length() - payloadStart;
+            for (int offset = payloadStart; offset < url.length(); offset += buffer.length) {
+                int chunk = Math.min(buffer.length, url.length() - offset);
+                for (int i = 0; i < chunk; i++) {
+                    buffer[i] = (byte) url.charAt(offset + i);
+                }
+                digest.update(buffer, 0, chunk);
+            }
+
+            long byteSize = length;
+            if (markerIndex > 0) {
+                int padding = 0;
+                if (length > 0 && url.charAt(url.length() - 1) == '=') {
+                    padding++;
+                }
+                if (length > 1 && url.charAt(url.length() - 2) == '=') {
+                    padding++;
+                }
+                byteSize = (long) length * 3 / 4 - padding;
+            }
+            return new ImageInfo(index, mimeType, byteSize, HexFormat.of().formatHex(digest.digest()));
+        }
+
+        private static byte[] intBytes(int value) {
+            return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 不可用", e);
+            }
+        }
+    }
+}
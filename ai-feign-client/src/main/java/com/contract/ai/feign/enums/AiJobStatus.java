@@ -0,0 +1,50 @@
+package com.contract.ai.feign.enums;
+
+/**
+ * 异步任务状态枚举
+ */
+public enum AiJobStatus {
+
+    /**
+     * 已受理，等待执行
+     */
+    QUEUED("QUEUED", "排队中"),
+
+    /**
+     * 执行中
+     */
+    RUNNING("RUNNING", "执行中"),
+
+    /**
+     * 执行成功，结果可取
+     */
+    SUCCEEDED("SUCCEEDED", "已完成"),
+
+    /**
+     * 执行失败
+     */
+    FAILED("FAILED", "已失败");
+
+    private final String code;
+    private final String description;
+
+    AiJobStatus(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 是否为终止状态，终止后状态与结果不再变化
+     */
+    public boolean isTerminal() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,28 @@
+package com.contract.ai.feign.enums;
+
+/**
+ * 模型能力
+ * 用于描述请求所需的能力，路由时与模型支持的能力比对
+ */
+public enum ModelCapability {
+
+    /**
+     * 文本对话
+     */
+    TEXT,
+
+    /**
+     * 图片理解（image_url）
+     */
+    VISION,
+
+    /**
+     * 文件输入（file_url 或旧版 files 扩展）
+     */
+    FILE_INPUT,
+
+    /**
+     * JSON输出模式（response_format: json_object）
+     */
+    JSON_MODE
+}
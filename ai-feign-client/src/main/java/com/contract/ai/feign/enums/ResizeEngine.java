@@ -0,0 +1,42 @@
+package com.contract.ai.feign.enums;
+
+import com.contract.ai.feign.util.ImageResampler;
+
+/**
+ * 图片压缩时使用的缩放引擎
+ */
+public enum ResizeEngine {
+
+    /**
+     * Thumbnailator（Java2D），每一轮质量/尺寸尝试都重新解码并缩放
+     */
+    THUMBNAILATOR(null),
+
+    /**
+     * 内置重采样器：区域平均
+     */
+    AREA_AVERAGE(ImageResampler.Filter.AREA_AVERAGE),
+
+    /**
+     * 内置重采样器：双三次插值
+     */
+    BICUBIC(ImageResampler.Filter.BICUBIC),
+
+    /**
+     * 内置重采样器：Lanczos3
+     */
+    LANCZOS3(ImageResampler.Filter.LANCZOS3);
+
+    private final ImageResampler.Filter filter;
+
+    ResizeEngine(ImageResampler.Filter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * 内置重采样器使用的滤波器，THUMBNAILATOR 返回null
+     */
+    public ImageResampler.Filter getFilter() {
+        return filter;
+    }
+}
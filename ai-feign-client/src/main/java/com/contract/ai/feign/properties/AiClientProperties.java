@@ -36,6 +36,11 @@ public class AiClientProperties {
      */
     private int readTimeout = 60000;
 
+    /**
+     * 默认请求时限（毫秒），调用方未通过 AiDeadline 设定时限时使用，0表示不设定
+     */
+    private long defaultTimeoutMs = 0;
+
     /**
      * 重试次数
      */
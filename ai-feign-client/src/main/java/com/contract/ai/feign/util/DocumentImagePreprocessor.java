@@ -0,0 +1,705 @@
+package com.contract.ai.feign.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 合同扫描件图片预处理工具类
+ * 在压缩前识别黑白文档类图片，转换为灰度或二值图，裁剪空白边距，可选纠偏，
+ * 并选择更紧凑的编码格式，以减少发送给视觉模型的字节数
+ */
+@Slf4j
+public class DocumentImagePreprocessor {
+
+    /**
+     * 文档识别时的最大采样像素数
+     */
+    private static final int MAX_SAMPLE_PIXELS = 250_000;
+
+    /**
+     * 判定为彩色像素的饱和度阈值（max-min通道差）
+     */
+    private static final int COLOR_CHROMA_THRESHOLD = 48;
+
+    /**
+     * 纠偏角度搜索范围（度）与步长
+     */
+    private static final double MAX_SKEW_DEGREES = 5.0;
+    private static final double SKEW_STEP_DEGREES = 0.25;
+
+    /**
+     * 纠偏计算使用的缩略图最大边长
+     */
+    private static final int SKEW_ANALYSIS_SIZE = 1000;
+
+    /**
+     * 预处理图片
+     * 非文档类图片或预处理后体积没有减小时，返回原图
+     *
+     * @param imageBytes 原始图片字节
+     * @param options 预处理选项
+     * @return 预处理结果
+     * @throws IOException 图片读取或编码失败时抛出
+     */
+    public static PreprocessResult preprocess(byte[] imageBytes, Options options) throws IOException {
+        if (imageBytes == null || imageBytes.length == 0) {
+            throw new IllegalArgumentException("图片内容不能为空");
+        }
+
+        long startNanos = System.nanoTime();
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageBytes));
+        if (source == null) {
+            throw new IOException("无法解码图片内容");
+        }
+
+        DocumentStats stats = analyze(source);
+        if (!stats.isDocumentLike(options.getMaxColorRatio())) {
+            log.debug("图片不是文档类图片，跳过预处理: colorRatio={}, brightRatio={}",
+                    stats.colorRatio, stats.brightRatio);
+            return PreprocessResult.original(imageBytes, source.getWidth(), source.getHeight(), elapsedMillis(startNanos));
+        }
+
+        BufferedImage gray = toGray(source);
+        int threshold = otsuThreshold(histogram(gray));
+
+        double skewAngle = 0.0;
+        if (options.isDeskew()) {
+            skewAngle = estimateSkewAngle(gray, threshold);
+            if (Math.abs(skewAngle) >= 0.2) {
+                gray = rotate(gray, -skewAngle);
+            }
+        }
+
+        boolean cropped = false;
+        if (options.isCropMargins()) {
+            BufferedImage croppedImage = cropMargins(gray, threshold, options.getMarginPadding());
+            cropped = croppedImage != gray;
+            gray = croppedImage;
+        }
+
+        // 存在少量彩色（如印章）时保留灰度，避免二值化后印章与文字粘连
+        boolean binarize = options.isBinarize() && stats.colorRatio <= options.getBinarizeMaxColorRatio()
+                && stats.midToneRatio(threshold) <= options.getBinarizeMaxMidToneRatio();
+
+        byte[] encoded;
+        String format;
+        Mode mode;
+        if (binarize) {
+            encoded = encodePng(binarize(gray, threshold));
+            format = "png";
+            mode = Mode.BINARY;
+        } else {
+            // 文字密集的页面JPEG块效应明显且体积偏大，取灰度PNG与JPEG中较小者
+            BufferedImage whitened = whitenBackground(gray, threshold);
+            byte[] jpeg = encodeJpeg(whitened, options.getJpegQuality());
+            byte[] png = encodePng(whitened);
+            if (png.length <= jpeg.length) {
+                encoded = png;
+                format = "png";
+            } else {
+                encoded = jpeg;
+                format = "jpeg";
+            }
+            mode = Mode.GRAYSCALE;
+        }
+
+        if (encoded.length >= imageBytes.length) {
+            log.debug("文档预处理后体积未减小，保留原图: 原始 {} 字节, 处理后 {} 字节", imageBytes.length, encoded.length);
+            return PreprocessResult.original(imageBytes, source.getWidth(), source.getHeight(), elapsedMillis(startNanos));
+        }
+
+        return new PreprocessResult(encoded, format, mode, gray.getWidth(), gray.getHeight(),
+                cropped, skewAngle, elapsedMillis(startNanos));
+    }
+
+    /**
+     * 判断图片是否为文档类图片（浅色背景、几乎无彩色）
+     *
+     * @param image 图片
+     * @param maxColorRatio 允许的最大彩色像素比例
+     * @return 是否为文档类图片
+     */
+    public static boolean isDocumentLike(BufferedImage image, double maxColorRatio) {
+        return analyze(image).isDocumentLike(maxColorRatio);
+    }
+
+    /**
+     * 采样统计图片的彩色比例、亮度分布
+     */
+    private static DocumentStats analyze(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long totalPixels = (long) width * height;
+        int step = (int) Math.max(1, Math.ceil(Math.sqrt((double) totalPixels / MAX_SAMPLE_PIXELS)));
+
+        DocumentStats stats = new DocumentStats();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y += step) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x += step) {
+                int rgb = row[x];
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int max = Math.max(r, Math.max(g, b));
+                int min = Math.min(r, Math.min(g, b));
+                if (max - min > COLOR_CHROMA_THRESHOLD) {
+                    stats.colorPixels++;
+                }
+                stats.histogram[luma(r, g, b)]++;
+                stats.samples++;
+            }
+        }
+
+        long bright = 0;
+        for (int i = 200; i < 256; i++) {
+            bright += stats.histogram[i];
+        }
+        stats.colorRatio = (double) stats.colorPixels / stats.samples;
+        stats.brightRatio = (double) bright / stats.samples;
+        return stats;
+    }
+
+    /**
+     * 转换为8位灰度图
+     */
+    static BufferedImage toGray(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return source;
+        }
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] target = ((java.awt.image.DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        int[] row = new int[width];
+        boolean hasAlpha = source.getColorModel().hasAlpha();
+        for (int y = 0; y < height; y++) {
+            source.getRGB(0, y, width, 1, row, 0, width);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int value = luma(r, g, b);
+                if (hasAlpha) {
+                    // 透明区域按白色背景合成
+                    int alpha = (rgb >>> 24) & 0xFF;
+                    value = (value * alpha + 255 * (255 - alpha)) / 255;
+                }
+                target[offset + x] = (byte) value;
+            }
+        }
+        return gray;
+    }
+
+    /**
+     * 统计灰度直方图
+     */
+    static int[] histogram(BufferedImage gray) {
+        int[] histogram = new int[256];
+        byte[] data = ((java.awt.image.DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        for (byte value : data) {
+            histogram[value & 0xFF]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * 使用Otsu方法计算二值化阈值
+     */
+    static int otsuThreshold(int[] histogram) {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < 256; i++) {
+            total += histogram[i];
+            sum += (double) i * histogram[i];
+        }
+
+        double sumBackground = 0;
+        long weightBackground = 0;
+        double maxVariance = -1;
+        int threshold = 128;
+        for (int i = 0; i < 256; i++) {
+            weightBackground += histogram[i];
+            if (weightBackground == 0) {
+                continue;
+            }
+            long weightForeground = total - weightBackground;
+            if (weightForeground == 0) {
+                break;
+            }
+            sumBackground += (double) i * histogram[i];
+            double meanBackground = sumBackground / weightBackground;
+            double meanForeground = (sum - sumBackground) / weightForeground;
+            double variance = (double) weightBackground * weightForeground
+                    * (meanBackground - meanForeground) * (meanBackground - meanForeground);
+            if (variance > maxVariance) {
+                maxVariance = variance;
+                threshold = i;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * 裁剪四周均匀的空白边距
+     * 若裁剪后区域过小（可能为空白页），返回原图
+     */
+    static BufferedImage cropMargins(BufferedImage gray, int threshold, int padding) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        byte[] data = ((java.awt.image.DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+
+        int[] rowInk = new int[height];
+        int[] colInk = new int[width];
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                if ((data[offset + x] & 0xFF) <= threshold) {
+                    rowInk[y]++;
+                    colInk[x]++;
+                }
+            }
+        }
+
+        // 忽略扫描噪点：一行/列至少有0.2%的深色像素才算内容
+        int rowNoise = Math.max(2, width / 500);
+        int colNoise = Math.max(2, height / 500);
+        int top = firstAbove(rowInk, rowNoise);
+        int bottom = lastAbove(rowInk, rowNoise);
+        int left = firstAbove(colInk, colNoise);
+        int right = lastAbove(colInk, colNoise);
+        if (top < 0 || left < 0) {
+            return gray;
+        }
+
+        top = Math.max(0, top - padding);
+        left = Math.max(0, left - padding);
+        bottom = Math.min(height - 1, bottom + padding);
+        right = Math.min(width - 1, right + padding);
+
+        int croppedWidth = right - left + 1;
+        int croppedHeight = bottom - top + 1;
+        if ((long) croppedWidth * croppedHeight < (long) width * height / 10) {
+            return gray;
+        }
+        if (croppedWidth == width && croppedHeight == height) {
+            return gray;
+        }
+
+        BufferedImage cropped = new BufferedImage(croppedWidth, croppedHeight, BufferedImage.TYPE_BYTE_GRAY);
+        cropped.getRaster().setRect(-left, -top, gray.getRaster());
+        return cropped;
+    }
+
+    /**
+     * 通过水平投影方差估计倾斜角度（度）
+     * 文本行与水平方向对齐时，行投影的方差最大
+     */
+    static double estimateSkewAngle(BufferedImage gray, int threshold) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        int step = Math.max(1, Math.max(width, height) / SKEW_ANALYSIS_SIZE);
+        byte[] data = ((java.awt.image.DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+
+        // 收集深色像素的采样坐标
+        int capacity = 1024;
+        int[] xs = new int[capacity];
+        int[] ys = new int[capacity];
+        int count = 0;
+        for (int y = 0; y < height; y += step) {
+            int offset = y * width;
+            for (int x = 0; x < width; x += step) {
+                if ((data[offset + x] & 0xFF) <= threshold) {
+                    if (count == capacity) {
+                        capacity *= 2;
+                        xs = java.util.Arrays.copyOf(xs, capacity);
+                        ys = java.util.Arrays.copyOf(ys, capacity);
+                    }
+                    xs[count] = x / step;
+                    ys[count] = y / step;
+                    count++;
+                }
+            }
+        }
+        if (count < 100) {
+            return 0.0;
+        }
+
+        int scaledWidth = width / step + 1;
+        int scaledHeight = height / step + 1;
+        int bins = scaledHeight + scaledWidth + 1;
+        int[] profile = new int[bins * 2];
+        double bestAngle = 0.0;
+        double bestScore = -1;
+        for (double angle = -MAX_SKEW_DEGREES; angle <= MAX_SKEW_DEGREES + 1e-9; angle += SKEW_STEP_DEGREES) {
+            double radians = Math.toRadians(angle);
+            double sin = Math.sin(radians);
+            double cos = Math.cos(radians);
+            java.util.Arrays.fill(profile, 0);
+            for (int i = 0; i < count; i++) {
+                int bin = (int) Math.round(ys[i] * cos - xs[i] * sin) + bins;
+                profile[bin]++;
+            }
+            double score = 0;
+            for (int value : profile) {
+                score += (double) value * value;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestAngle = angle;
+            }
+        }
+        return bestAngle;
+    }
+
+    /**
+     * 按角度旋转灰度图，空白区域填充白色
+     */
+    static BufferedImage rotate(BufferedImage gray, double degrees) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        BufferedImage rotated = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = rotated.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(gray, AffineTransform.getRotateInstance(Math.toRadians(degrees), width / 2.0, height / 2.0), null);
+        } finally {
+            graphics.dispose();
+        }
+        return rotated;
+    }
+
+    /**
+     * 按阈值二值化为1位图
+     */
+    static BufferedImage binarize(BufferedImage gray, int threshold) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        BufferedImage binary = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] data = ((java.awt.image.DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        java.awt.image.WritableRaster raster = binary.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                row[x] = (data[offset + x] & 0xFF) > threshold ? 1 : 0;
+            }
+            raster.setSamples(0, y, width, 1, 0, row);
+        }
+        return binary;
+    }
+
+    /**
+     * 纸张底色提亮为纯白，其余灰阶线性拉伸，消除底纹噪点以提升压缩率
+     */
+    static BufferedImage whitenBackground(BufferedImage gray, int threshold) {
+        int[] histogram = histogram(gray);
+        int paper = threshold + 1;
+        for (int i = threshold + 1; i < histogram.length; i++) {
+            if (histogram[i] > histogram[paper]) {
+                paper = i;
+            }
+        }
+        int whitePoint = Math.max(threshold + 1, paper - 12);
+        byte[] lut = new byte[256];
+        for (int i = 0; i < lut.length; i++) {
+            lut[i] = (byte) (i >= whitePoint ? 255 : i * 255 / whitePoint);
+        }
+
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] source = ((java.awt.image.DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        byte[] target = ((java.awt.image.DataBufferByte) result.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < width * height; i++) {
+            target[i] = lut[source[i] & 0xFF];
+        }
+        return result;
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", baos)) {
+            throw new IOException("没有可用的PNG编码器");
+        }
+        return baos.toByteArray();
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("没有可用的JPEG编码器");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    private static int firstAbove(int[] values, int limit) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > limit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastAbove(int[] values, int limit) {
+        for (int i = values.length - 1; i >= 0; i--) {
+            if (values[i] > limit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int luma(int r, int g, int b) {
+        return (r * 299 + g * 587 + b * 114) / 1000;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 采样统计信息
+     */
+    private static class DocumentStats {
+        private final long[] histogram = new long[256];
+        private long samples;
+        private long colorPixels;
+        private double colorRatio;
+        private double brightRatio;
+
+        /**
+         * 浅色背景占多数且彩色像素较少时视为文档
+         */
+        boolean isDocumentLike(double maxColorRatio) {
+            return samples > 0 && colorRatio <= maxColorRatio && brightRatio >= 0.5;
+        }
+
+        /**
+         * 中间色调占比，照片类内容该值较高，不适合二值化
+         */
+        double midToneRatio(int threshold) {
+            int low = Math.max(0, threshold - 60);
+            int high = Math.min(255, threshold + 60);
+            long mid = 0;
+            for (int i = low; i <= high; i++) {
+                mid += histogram[i];
+            }
+            return samples == 0 ? 1.0 : (double) mid / samples;
+        }
+    }
+
+    /**
+     * 预处理模式
+     */
+    public enum Mode {
+        /**
+         * 未处理，保留原图
+         */
+        ORIGINAL,
+        /**
+         * 8位灰度
+         */
+        GRAYSCALE,
+        /**
+         * 1位二值图
+         */
+        BINARY
+    }
+
+    /**
+     * 预处理选项
+     */
+    public static class Options {
+        private boolean binarize = true;
+        private boolean cropMargins = true;
+        private boolean deskew = false;
+        private int marginPadding = 16;
+        private float jpegQuality = 0.85f;
+        private double maxColorRatio = 0.05;
+        private double binarizeMaxColorRatio = 0.002;
+        private double binarizeMaxMidToneRatio = 0.08;
+
+        public static Options defaults() {
+            return new Options();
+        }
+
+        public Options binarize(boolean binarize) {
+            this.binarize = binarize;
+            return this;
+        }
+
+        public Options cropMargins(boolean cropMargins) {
+            this.cropMargins = cropMargins;
+            return this;
+        }
+
+        public Options deskew(boolean deskew) {
+            this.deskew = deskew;
+            return this;
+        }
+
+        public Options marginPadding(int marginPadding) {
+            this.marginPadding = marginPadding;
+            return this;
+        }
+
+        public Options jpegQuality(float jpegQuality) {
+            this.jpegQuality = jpegQuality;
+            return this;
+        }
+
+        public Options maxColorRatio(double maxColorRatio) {
+            this.maxColorRatio = maxColorRatio;
+            return this;
+        }
+
+        public boolean isBinarize() {
+            return binarize;
+        }
+
+        public boolean isCropMargins() {
+            return cropMargins;
+        }
+
+        public boolean isDeskew() {
+            return deskew;
+        }
+
+        public int getMarginPadding() {
+            return marginPadding;
+        }
+
+        public float getJpegQuality() {
+            return jpegQuality;
+        }
+
+        public double getMaxColorRatio() {
+            return maxColorRatio;
+        }
+
+        public double getBinarizeMaxColorRatio() {
+            return binarizeMaxColorRatio;
+        }
+
+        public double getBinarizeMaxMidToneRatio() {
+            return binarizeMaxMidToneRatio;
+        }
+    }
+
+    /**
+     * 预处理结果
+     */
+    public static class PreprocessResult {
+        private final byte[] bytes;
+        private final String format;
+        private final Mode mode;
+        private final int width;
+        private final int height;
+        private final boolean cropped;
+        private final double skewAngle;
+        private final long elapsedMillis;
+
+        private PreprocessResult(byte[] bytes, String format, Mode mode, int width, int height,
+                                 boolean cropped, double skewAngle, long elapsedMillis) {
+            this.bytes = bytes;
+            this.format = format;
+            this.mode = mode;
+            this.width = width;
+            this.height = height;
+            this.cropped = cropped;
+            this.skewAngle = skewAngle;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * 构建未处理的结果，沿用原始图片
+         */
+        public static PreprocessResult original(byte[] bytes, int width, int height, long elapsedMillis) {
+            return new PreprocessResult(bytes, null, Mode.ORIGINAL, width, height, false, 0.0, elapsedMillis);
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * 输出格式（png/jpeg），未处理时为null
+         */
+        public String getFormat() {
+            return format;
+        }
+
+        /**
+         * 输出MIME类型，未处理时为null，调用方应沿用原始类型
+         */
+        public String getMimeType() {
+            return format == null ? null : "image/" + format;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public boolean isProcessed() {
+            return mode != Mode.ORIGINAL;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public boolean isCropped() {
+            return cropped;
+        }
+
+        public double getSkewAngle() {
+            return skewAngle;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mode=%s, format=%s, size=%d bytes, dimensions=%dx%d, cropped=%s, skew=%.2f, elapsed=%dms",
+                    mode, format, bytes.length, width, height, cropped, skewAngle, elapsedMillis);
+        }
+    }
+}
@@ -129,6 +129,28 @@ public class ImageBase64Validator {
         return base64Image;
     }
 
+    /**
+     * 解码base64图片为字节数组
+     * 兼容带 data:image/ 前缀与纯base64两种格式
+     *
+     * @param base64Image base64图片字符串
+     * @return 图片字节数组，无法解码时返回null
+     */
+    public static byte[] decodeBase64Image(String base64Image) {
+        String normalized = normalizeBase64Image(base64Image);
+        if (normalized == null) {
+            return null;
+        }
+
+        int commaIndex = normalized.indexOf(',');
+        String data = commaIndex >= 0 ? normalized.substring(commaIndex + 1) : normalized;
+        try {
+            return Base64.getDecoder().decode(data.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * 通过文件头检测图片格式
      *
@@ -1,13 +1,25 @@
 package com.contract.ai.feign.util;
 
+import com.contract.ai.feign.enums.ResizeEngine;
+import lombok.extern.slf4j.Slf4j;
 import net.coobird.thumbnailator.Thumbnails;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Locale;
 
 /**
  * 使用Thumbnailator库的图片压缩工具类
@@ -20,6 +32,7 @@ import java.nio.file.Paths;
  *     <version>0.4.19</version>
  * </dependency>
  */
+@Slf4j
 public class ImageCompressorWithThumbnailator {
 
     /**
@@ -229,18 +242,70 @@ public class ImageCompressorWithThumbnailator {
      */
     public static byte[] compressMultipartFile(MultipartFile file, int maxWidth, int maxHeight, int targetSizeKB)
             throws IOException {
+        return compressMultipartFile(file, maxWidth, maxHeight, targetSizeKB, ResizeEngine.THUMBNAILATOR);
+    }
+
+    /**
+     * 使用指定缩放引擎压缩 MultipartFile 到指定分辨率和文件大小
+     * @param file 上传的文件
+     * @param maxWidth 最大宽度（像素）
+     * @param maxHeight 最大高度（像素）
+     * @param targetSizeKB 目标大小（KB）
+     * @param engine 缩放引擎
+     * @return 压缩后的字节数组
+     * @throws IOException 压缩失败时抛出异常
+     */
+    public static byte[] compressMultipartFile(MultipartFile file, int maxWidth, int maxHeight, int targetSizeKB,
+                                               ResizeEngine engine) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("文件不能为空");
         }
 
+        return compressImageBytes(file.getBytes(), maxWidth, maxHeight, targetSizeKB, engine);
+    }
+
+    /**
+     * 压缩图片字节数组到指定分辨率和文件大小
+     * 用于对预处理后的图片继续压缩
+     * @param originalBytes 图片字节数组
+     * @param maxWidth 最大宽度（像素）
+     * @param maxHeight 最大高度（像素）
+     * @param targetSizeKB 目标大小（KB）
+     * @return 压缩后的字节数组
+     * @throws IOException 压缩失败时抛出异常
+     */
+    public static byte[] compressImageBytes(byte[] originalBytes, int maxWidth, int maxHeight, int targetSizeKB)
+            throws IOException {
+        return compressImageBytes(originalBytes, maxWidth, maxHeight, targetSizeKB, ResizeEngine.THUMBNAILATOR);
+    }
+
+    /**
+     * 使用指定缩放引擎压缩图片字节数组到指定分辨率和文件大小
+     * @param originalBytes 图片字节数组
+     * @param maxWidth 最大宽度（像素）
+     * @param maxHeight 最大高度（像素）
+     * @param targetSizeKB 目标大小（KB）
+     * @param engine 缩放引擎，为null时使用Thumbnailator
+     * @return 压缩后的字节数组
+     * @throws IOException 压缩失败时抛出异常
+     */
+    public static byte[] compressImageBytes(byte[] originalBytes, int maxWidth, int maxHeight, int targetSizeKB,
+                                            ResizeEngine engine) throws IOException {
+        if (originalBytes == null || originalBytes.length == 0) {
+            throw new IllegalArgumentException("图片内容不能为空");
+        }
+
         long targetSizeBytes = targetSizeKB * 1024L;
-        byte[] originalBytes = file.getBytes();
 
         // 如果原文件已满足要求，直接返回
         if (originalBytes.length <= targetSizeBytes) {
             return originalBytes;
         }
 
+        if (engine != null && engine.getFilter() != null) {
+            return compressWithResampler(originalBytes, maxWidth, maxHeight, targetSizeBytes, engine.getFilter());
+        }
+
         // 质量级别数组
         float[] qualities = {0.9f, 0.8f, 0.7f, 0.6f, 0.5f, 0.4f, 0.3f, 0.2f, 0.1f};
 
@@ -304,6 +369,105 @@ public class ImageCompressorWithThumbnailator {
         return baos.toByteArray();
     }
 
+    /**
+     * 使用内置重采样器压缩：只解码、缩放一次，后续各轮仅重新编码或在已缩小的图片上继续缩放
+     */
+    private static byte[] compressWithResampler(byte[] originalBytes, int maxWidth, int maxHeight,
+                                                long targetSizeBytes, ImageResampler.Filter filter) throws IOException {
+        String format = detectFormat(originalBytes);
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(originalBytes));
+        if (source == null) {
+            throw new IOException("无法解码图片内容");
+        }
+
+        // 质量只对jpeg有效，无损格式（png等）每个分辨率只编码一次
+        float[] qualities = isLossy(format)
+                ? new float[]{0.9f, 0.8f, 0.7f, 0.6f, 0.5f, 0.4f, 0.3f, 0.2f, 0.1f}
+                : new float[]{1.0f};
+        BufferedImage fitted = fitWithin(source, maxWidth, maxHeight, filter);
+        for (float quality : qualities) {
+            byte[] encoded = encode(fitted, format, quality);
+            if (encoded.length <= targetSizeBytes) {
+                log.debug("分辨率+质量压缩成功，分辨率: {}x{}, 质量: {}, 大小: {} 字节",
+                        fitted.getWidth(), fitted.getHeight(), quality, encoded.length);
+                return encoded;
+            }
+        }
+
+        double[] scales = {0.9, 0.8, 0.7, 0.6, 0.5, 0.4, 0.3, 0.2, 0.1};
+        for (double scale : scales) {
+            BufferedImage scaled = fitWithin(fitted, (int) (maxWidth * scale), (int) (maxHeight * scale), filter);
+            for (float quality : qualities) {
+                byte[] encoded = encode(scaled, format, quality);
+                if (encoded.length <= targetSizeBytes) {
+                    log.debug("分辨率缩放+质量压缩成功，分辨率: {}x{}, 质量: {}, 大小: {} 字节",
+                            scaled.getWidth(), scaled.getHeight(), quality, encoded.length);
+                    return encoded;
+                }
+            }
+        }
+
+        byte[] encoded = encode(fitWithin(fitted, 100, 100, filter), format, 0.1f);
+        log.debug("使用最小压缩设置，大小: {} 字节", encoded.length);
+        return encoded;
+    }
+
+    /**
+     * 保持宽高比缩放到指定范围内，不放大
+     */
+    private static BufferedImage fitWithin(BufferedImage image, int maxWidth, int maxHeight,
+                                           ImageResampler.Filter filter) {
+        double ratio = Math.min((double) Math.max(1, maxWidth) / image.getWidth(),
+                (double) Math.max(1, maxHeight) / image.getHeight());
+        if (ratio >= 1.0) {
+            return image;
+        }
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        return ImageResampler.resize(image, width, height, filter);
+    }
+
+    /**
+     * 识别原图格式，无法识别时按jpeg输出
+     */
+    private static String detectFormat(byte[] bytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (readers.hasNext()) {
+                return readers.next().getFormatName().toLowerCase(Locale.ROOT);
+            }
+        }
+        return "jpeg";
+    }
+
+    /**
+     * 是否按质量有损编码
+     */
+    private static boolean isLossy(String format) {
+        return "jpeg".equals(format);
+    }
+
+    private static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("没有可用的图片编码器: " + format);
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed() && isLossy(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
     /**
      * 获取文件大小（KB）
      */
@@ -0,0 +1,465 @@
+package com.contract.ai.feign.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+/**
+ * 可分离卷积图片缩放工具类
+ * 先垂直后水平两遍卷积，源图行按需解包进环形缓冲区，避免整幅中间图的内存占用；
+ * 默认使用标量计算核；以 vector profile 构建、设置 -D{@value #VECTOR_PROPERTY}=true 并以 --add-modules jdk.incubator.vector 启动时
+ * 使用向量化计算核，任一条件不满足时回退标量实现
+ */
+@Slf4j
+public final class ImageResampler {
+
+    /**
+     * 启用向量化计算核的系统属性
+     */
+    public static final String VECTOR_PROPERTY = "ai.image.resampler.vector";
+
+    private static final String VECTOR_KERNEL_CLASS = "com.contract.ai.feign.util.VectorResampleKernel";
+
+    private static final ResampleKernel DEFAULT_KERNEL = detectKernel();
+
+    private ImageResampler() {
+    }
+
+    /**
+     * 重采样滤波器
+     */
+    public enum Filter {
+
+        /**
+         * 区域平均（盒式滤波），大倍率缩小时速度最快且无摩尔纹
+         */
+        AREA_AVERAGE(0.5) {
+            @Override
+            double weight(double x) {
+                return x > -0.5 && x <= 0.5 ? 1.0 : 0.0;
+            }
+        },
+
+        /**
+         * 双三次插值（a = -0.5）
+         */
+        BICUBIC(2.0) {
+            @Override
+            double weight(double x) {
+                double a = -0.5;
+                x = Math.abs(x);
+                if (x < 1.0) {
+                    return ((a + 2.0) * x - (a + 3.0)) * x * x + 1.0;
+                }
+                if (x < 2.0) {
+                    return (((x - 5.0) * x + 8.0) * x - 4.0) * a;
+                }
+                return 0.0;
+            }
+        },
+
+        /**
+         * Lanczos3，文字边缘最锐利，计算量最大
+         */
+        LANCZOS3(3.0) {
+            @Override
+            double weight(double x) {
+                if (x > -3.0 && x < 3.0) {
+                    return sinc(x) * sinc(x / 3.0);
+                }
+                return 0.0;
+            }
+        };
+
+        private final double support;
+
+        Filter(double support) {
+            this.support = support;
+        }
+
+        abstract double weight(double x);
+
+        private static double sinc(double x) {
+            if (x == 0.0) {
+                return 1.0;
+            }
+            x *= Math.PI;
+            return Math.sin(x) / x;
+        }
+    }
+
+    /**
+     * 缩放图片到指定尺寸
+     * @param source 原始图片
+     * @param targetWidth 目标宽度
+     * @param targetHeight 目标高度
+     * @param filter 重采样滤波器
+     * @return 缩放后的图片（灰度图输出TYPE_BYTE_GRAY，带透明通道输出TYPE_INT_ARGB，其余输出TYPE_INT_RGB）
+     */
+    public static BufferedImage resize(BufferedImage source, int targetWidth, int targetHeight, Filter filter) {
+        return resize(source, targetWidth, targetHeight, filter, DEFAULT_KERNEL);
+    }
+
+    /**
+     * 当前使用的计算核名称
+     */
+    public static String kernelName() {
+        return DEFAULT_KERNEL.name();
+    }
+
+    /**
+     * 使用指定计算核缩放图片，供测试与基准测试对比标量/向量实现
+     */
+    static BufferedImage resize(BufferedImage source, int targetWidth, int targetHeight, Filter filter,
+                                ResampleKernel kernel) {
+        if (source == null) {
+            throw new IllegalArgumentException("图片不能为空");
+        }
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("目标尺寸必须大于0: " + targetWidth + "x" + targetHeight);
+        }
+
+        PixelReader reader = PixelReader.of(source);
+        int channels = reader.channels;
+        int sourceWidth = source.getWidth();
+        Coefficients horizontal = Coefficients.compute(sourceWidth, targetWidth, filter);
+        Coefficients vertical = Coefficients.compute(source.getHeight(), targetHeight, filter);
+
+        float[][][] ring = new float[vertical.maxCount][channels][sourceWidth];
+        float[][] acc = new float[channels][sourceWidth];
+        float[][] output = new float[channels][targetWidth];
+        PixelWriter writer = PixelWriter.of(channels, targetWidth, targetHeight);
+
+        int nextRow = 0;
+        for (int y = 0; y < targetHeight; y++) {
+            int start = vertical.start[y];
+            int count = vertical.count[y];
+            nextRow = Math.max(nextRow, start);
+            for (; nextRow < start + count; nextRow++) {
+                reader.readRow(nextRow, ring[nextRow % vertical.maxCount]);
+            }
+
+            // 垂直方向：整行乘加，占总计算量的大头且天然适合向量化
+            for (int c = 0; c < channels; c++) {
+                Arrays.fill(acc[c], 0f);
+            }
+            int weightOffset = y * vertical.stride;
+            for (int k = 0; k < count; k++) {
+                float weight = vertical.weights[weightOffset + k];
+                float[][] row = ring[(start + k) % vertical.maxCount];
+                for (int c = 0; c < channels; c++) {
+                    kernel.axpy(weight, row[c], acc[c], sourceWidth);
+                }
+            }
+
+            // 水平方向：只在已缩小的行上做加权求和
+            for (int c = 0; c < channels; c++) {
+                float[] src = acc[c];
+                float[] dst = output[c];
+                for (int x = 0; x < targetWidth; x++) {
+                    dst[x] = kernel.dot(src, horizontal.start[x], horizontal.weights,
+                            x * horizontal.stride, horizontal.count[x]);
+                }
+            }
+            writer.writeRow(y, output);
+        }
+        return writer.image;
+    }
+
+    private static ResampleKernel detectKernel() {
+        if (!Boolean.getBoolean(VECTOR_PROPERTY)) {
+            return ScalarResampleKernel.INSTANCE;
+        }
+        ResampleKernel kernel = vectorKernel();
+        if (kernel == null) {
+            return ScalarResampleKernel.INSTANCE;
+        }
+        log.info("图片重采样使用向量化实现: {}", kernel.name());
+        return kernel;
+    }
+
+    /**
+     * 加载向量化计算核
+     * 运行时未加载孵化模块、构建未包含向量化实现或CPU向量宽度不足时返回null
+     */
+    static ResampleKernel vectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.warn("未加载 jdk.incubator.vector 模块（--add-modules jdk.incubator.vector），图片重采样使用标量实现");
+            return null;
+        }
+        try {
+            ResampleKernel kernel = (ResampleKernel) Class.forName(VECTOR_KERNEL_CLASS)
+                    .getDeclaredMethod("create").invoke(null);
+            if (kernel == null) {
+                log.info("当前CPU向量宽度不足，图片重采样使用标量实现");
+            }
+            return kernel;
+        } catch (ClassNotFoundException e) {
+            log.warn("构建未包含向量化实现（需以 -Pvector 构建），图片重采样使用标量实现");
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector API不可用，图片重采样使用标量实现: {}", e.toString());
+        }
+        return null;
+    }
+
+    /**
+     * 一维卷积系数表，每个输出位置对应一段连续的输入区间及其归一化权重
+     */
+    static final class Coefficients {
+
+        final int[] start;
+        final int[] count;
+        final float[] weights;
+        final int stride;
+        final int maxCount;
+
+        private Coefficients(int[] start, int[] count, float[] weights, int stride, int maxCount) {
+            this.start = start;
+            this.count = count;
+            this.weights = weights;
+            this.stride = stride;
+            this.maxCount = maxCount;
+        }
+
+        static Coefficients compute(int inSize, int outSize, Filter filter) {
+            double scale = (double) inSize / outSize;
+            double filterScale = Math.max(scale, 1.0);
+            double support = filter.support * filterScale;
+            int stride = (int) Math.ceil(support) * 2 + 1;
+
+            int[] start = new int[outSize];
+            int[] count = new int[outSize];
+            float[] weights = new float[outSize * stride];
+            double[] row = new double[stride];
+            int maxCount = 1;
+            for (int i = 0; i < outSize; i++) {
+                double center = (i + 0.5) * scale;
+                int min = Math.max(0, (int) Math.floor(center - support + 0.5));
+                int max = Math.min(inSize, (int) Math.floor(center + support + 0.5));
+                int n = Math.min(max - min, stride);
+
+                double total = 0.0;
+                for (int k = 0; k < n; k++) {
+                    row[k] = filter.weight((k + min - center + 0.5) / filterScale);
+                    total += row[k];
+                }
+                // 权重和为0时（目标比原图更大且落在盒式滤波间隙）取最近像素
+                if (total == 0.0) {
+                    n = 1;
+                    min = Math.min(inSize - 1, (int) center);
+                    row[0] = 1.0;
+                    total = 1.0;
+                }
+                for (int k = 0; k < n; k++) {
+                    weights[i * stride + k] = (float) (row[k] / total);
+                }
+                start[i] = min;
+                count[i] = n;
+                maxCount = Math.max(maxCount, n);
+            }
+            return new Coefficients(start, count, weights, stride, maxCount);
+        }
+    }
+
+    /**
+     * 逐行读取像素并拆分为各通道的float数组
+     * 常见的 int/byte 存储格式直接访问底层数组，其余格式通过 getRGB 转换
+     */
+    private abstract static class PixelReader {
+
+        final int channels;
+        final int width;
+
+        PixelReader(int channels, int width) {
+            this.channels = channels;
+            this.width = width;
+        }
+
+        abstract void readRow(int y, float[][] planes);
+
+        static PixelReader of(BufferedImage image) {
+            Raster raster = image.getRaster();
+            boolean direct = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                    && raster.getDataBuffer().getNumBanks() == 1 && raster.getDataBuffer().getOffset() == 0;
+            int width = image.getWidth();
+            if (direct) {
+                switch (image.getType()) {
+                    case BufferedImage.TYPE_INT_RGB:
+                    case BufferedImage.TYPE_INT_ARGB:
+                        return new IntReader(image.getType() == BufferedImage.TYPE_INT_ARGB ? 4 : 3, width,
+                                ((DataBufferInt) raster.getDataBuffer()).getData(),
+                                ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride());
+                    case BufferedImage.TYPE_3BYTE_BGR:
+                    case BufferedImage.TYPE_4BYTE_ABGR:
+                    case BufferedImage.TYPE_BYTE_GRAY:
+                        ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+                        return new ByteReader(image.getType(), width,
+                                ((DataBufferByte) raster.getDataBuffer()).getData(),
+                                sampleModel.getScanlineStride());
+                    default:
+                        break;
+                }
+            }
+            return new RgbReader(image);
+        }
+    }
+
+    private static final class IntReader extends PixelReader {
+
+        private final int[] data;
+        private final int scanlineStride;
+
+        IntReader(int channels, int width, int[] data, int scanlineStride) {
+            super(channels, width);
+            this.data = data;
+            this.scanlineStride = scanlineStride;
+        }
+
+        @Override
+        void readRow(int y, float[][] planes) {
+            unpack(data, y * scanlineStride, width, channels, planes);
+        }
+    }
+
+    private static final class ByteReader extends PixelReader {
+
+        private final int type;
+        private final byte[] data;
+        private final int scanlineStride;
+
+        ByteReader(int type, int width, byte[] data, int scanlineStride) {
+            super(type == BufferedImage.TYPE_BYTE_GRAY ? 1 : type == BufferedImage.TYPE_4BYTE_ABGR ? 4 : 3, width);
+            this.type = type;
+            this.data = data;
+            this.scanlineStride = scanlineStride;
+        }
+
+        @Override
+        void readRow(int y, float[][] planes) {
+            int offset = y * scanlineStride;
+            if (type == BufferedImage.TYPE_BYTE_GRAY) {
+                float[] gray = planes[0];
+                for (int x = 0; x < width; x++) {
+                    gray[x] = data[offset + x] & 0xFF;
+                }
+            } else if (type == BufferedImage.TYPE_3BYTE_BGR) {
+                float[] r = planes[0];
+                float[] g = planes[1];
+                float[] b = planes[2];
+                for (int x = 0, i = offset; x < width; x++, i += 3) {
+                    b[x] = data[i] & 0xFF;
+                    g[x] = data[i + 1] & 0xFF;
+                    r[x] = data[i + 2] & 0xFF;
+                }
+            } else {
+                float[] r = planes[0];
+                float[] g = planes[1];
+                float[] b = planes[2];
+                float[] a = planes[3];
+                for (int x = 0, i = offset; x < width; x++, i += 4) {
+                    a[x] = data[i] & 0xFF;
+                    b[x] = data[i + 1] & 0xFF;
+                    g[x] = data[i + 2] & 0xFF;
+                    r[x] = data[i + 3] & 0xFF;
+                }
+            }
+        }
+    }
+
+    private static final class RgbReader extends PixelReader {
+
+        private final BufferedImage image;
+        private final int[] row;
+
+        RgbReader(BufferedImage image) {
+            super(image.getColorModel().hasAlpha() ? 4 : 3, image.getWidth());
+            this.image = image;
+            this.row = new int[image.getWidth()];
+        }
+
+        @Override
+        void readRow(int y, float[][] planes) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            unpack(row, 0, width, channels, planes);
+        }
+    }
+
+    private static void unpack(int[] pixels, int offset, int width, int channels, float[][] planes) {
+        float[] r = planes[0];
+        float[] g = planes[1];
+        float[] b = planes[2];
+        for (int x = 0; x < width; x++) {
+            int argb = pixels[offset + x];
+            r[x] = (argb >> 16) & 0xFF;
+            g[x] = (argb >> 8) & 0xFF;
+            b[x] = argb & 0xFF;
+        }
+        if (channels == 4) {
+            float[] a = planes[3];
+            for (int x = 0; x < width; x++) {
+                a[x] = pixels[offset + x] >>> 24;
+            }
+        }
+    }
+
+    /**
+     * 将各通道累加结果截断到 [0, 255] 后写回输出图片
+     */
+    private static final class PixelWriter {
+
+        private final BufferedImage image;
+        private final int channels;
+        private final int width;
+        private final int[] intData;
+        private final byte[] byteData;
+
+        private PixelWriter(BufferedImage image, int channels) {
+            this.image = image;
+            this.channels = channels;
+            this.width = image.getWidth();
+            if (channels == 1) {
+                this.byteData = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                this.intData = null;
+            } else {
+                this.intData = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                this.byteData = null;
+            }
+        }
+
+        static PixelWriter of(int channels, int width, int height) {
+            int type = channels == 1 ? BufferedImage.TYPE_BYTE_GRAY
+                    : channels == 4 ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            return new PixelWriter(new BufferedImage(width, height, type), channels);
+        }
+
+        void writeRow(int y, float[][] planes) {
+            int offset = y * width;
+            if (channels == 1) {
+                float[] gray = planes[0];
+                for (int x = 0; x < width; x++) {
+                    byteData[offset + x] = (byte) clamp(gray[x]);
+                }
+                return;
+            }
+            float[] r = planes[0];
+            float[] g = planes[1];
+            float[] b = planes[2];
+            float[] a = channels == 4 ? planes[3] : null;
+            for (int x = 0; x < width; x++) {
+                int alpha = a == null ? 0xFF : clamp(a[x]);
+                intData[offset + x] = alpha << 24 | clamp(r[x]) << 16 | clamp(g[x]) << 8 | clamp(b[x]);
+            }
+        }
+
+        private static int clamp(float value) {
+            int v = (int) (value + 0.5f);
+            return v < 0 ? 0 : Math.min(v, 255);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.contract.ai.feign.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 视频关键帧筛选工具类
+ * 输入按时间顺序采样的帧指纹，先剔除与已保留帧近似重复的帧，剩余帧数超过上限时
+ * 按场景变化幅度或等间隔挑选，结果始终按时间顺序排列
+ */
+public final class KeyframeSelector {
+
+    private KeyframeSelector() {
+    }
+
+    /**
+     * 超过上限时的挑选方式
+     */
+    public enum Mode {
+        /**
+         * 优先保留与前一采样帧差异最大的帧（场景切换）
+         */
+        SCENE_CHANGE,
+        /**
+         * 在去重后的帧中等间隔挑选
+         */
+        INTERVAL
+    }
+
+    /**
+     * 筛选关键帧
+     *
+     * @param samples 采样帧，按时间升序
+     * @param maxFrames 最多保留的帧数
+     * @param dedupeDistance 指纹汉明距离不超过该值视为近似重复
+     * @param mode 超过上限时的挑选方式
+     * @return 保留的采样帧，按时间升序
+     */
+    public static List<Sample> select(List<Sample> samples, int maxFrames, int dedupeDistance, Mode mode) {
+        if (maxFrames <= 0) {
+            throw new IllegalArgumentException("关键帧数量上限必须大于0");
+        }
+        if (samples == null || samples.isEmpty()) {
+            return List.of();
+        }
+
+        List<Sample> kept = new ArrayList<>();
+        List<Integer> sceneScores = new ArrayList<>();
+        Sample previous = null;
+        for (Sample sample : samples) {
+            int sceneScore = previous == null ? PerceptualHash.HASH_BITS
+                    : PerceptualHash.hammingDistance(previous.getHash(), sample.getHash());
+            previous = sample;
+
+            boolean duplicate = kept.stream().anyMatch(frame ->
+                    PerceptualHash.hammingDistance(frame.getHash(), sample.getHash()) <= dedupeDistance);
+            if (!duplicate) {
+                kept.add(sample);
+                sceneScores.add(sceneScore);
+            }
+        }
+
+        if (kept.size() <= maxFrames) {
+            return kept;
+        }
+
+        List<Integer> selectedIndexes = new ArrayList<>(maxFrames);
+        if (mode == Mode.INTERVAL) {
+            for (int i = 0; i < maxFrames; i++) {
+                selectedIndexes.add(maxFrames == 1 ? 0 : (int) Math.round((double) i * (kept.size() - 1) / (maxFrames - 1)));
+            }
+        } else {
+            // 首帧固定保留，其余按场景变化幅度从大到小挑选，幅度相同时取较早的帧
+            selectedIndexes.add(0);
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = 1; i < kept.size(); i++) {
+                candidates.add(i);
+            }
+            candidates.sort(Comparator.<Integer>comparingInt(sceneScores::get).reversed()
+                    .thenComparingInt(Integer::intValue));
+            selectedIndexes.addAll(candidates.subList(0, maxFrames - 1));
+            selectedIndexes.sort(Integer::compare);
+        }
+
+        List<Sample> selected = new ArrayList<>(maxFrames);
+        for (int index : selectedIndexes) {
+            selected.add(kept.get(index));
+        }
+        return selected;
+    }
+
+    /**
+     * 采样帧
+     */
+    public static final class Sample {
+
+        private final long timestampMs;
+        private final long hash;
+
+        public Sample(long timestampMs, long hash) {
+            this.timestampMs = timestampMs;
+            this.hash = hash;
+        }
+
+        /**
+         * @return 帧在视频中的时间位置（毫秒）
+         */
+        public long getTimestampMs() {
+            return timestampMs;
+        }
+
+        /**
+         * @return 帧的感知哈希指纹
+         */
+        public long getHash() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1fs", timestampMs / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.contract.ai.feign.util;
+
+import com.contract.ai.feign.enums.ResizeEngine;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 多页拼接工具类
+ * 将多张页面图片按网格拼接为不超过模型图片数量限制的若干张拼接图，每页上方绘制"P1"、"P2"等页码标签，
+ * 拼接图同时满足模型的像素上限与文件大小上限，使单张图片限制的模型一次调用即可覆盖多页
+ */
+@Slf4j
+public final class PageTileCompositor {
+
+    private PageTileCompositor() {
+    }
+
+    /**
+     * 拼接页面图片
+     *
+     * @param pages 页面图片字节数组，按页码顺序排列
+     * @param maxTiles 最多生成的拼接图数量（即模型的图片数量限制）
+     * @param options 拼接参数
+     * @return 拼接结果；单页宽度低于清晰度下限而无法拼接时返回空列表
+     * @throws IOException 图片解码或编码失败时抛出
+     */
+    public static List<Tile> compose(List<byte[]> pages, int maxTiles, Options options) throws IOException {
+        if (pages == null || pages.isEmpty()) {
+            throw new IllegalArgumentException("页面图片不能为空");
+        }
+        if (maxTiles <= 0) {
+            throw new IllegalArgumentException("拼接图数量必须大于0");
+        }
+
+        List<BufferedImage> images = new ArrayList<>(pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(pages.get(i)));
+            if (image == null) {
+                throw new IOException("无法解码第" + (i + 1) + "页图片");
+            }
+            images.add(image);
+        }
+
+        // 页数尽量均摊到每张拼接图，单张页数越少清晰度越高
+        int tileCount = Math.min(maxTiles, images.size());
+        int basePages = images.size() / tileCount;
+        int remainder = images.size() % tileCount;
+
+        List<Tile> tiles = new ArrayList<>(tileCount);
+        int to = 0;
+        for (int t = 0; t < tileCount; t++) {
+            int from = to;
+            to = from + basePages + (t < remainder ? 1 : 0);
+            Layout layout = Layout.plan(images.subList(from, to), options);
+            // 原图本身就比下限窄时以原图宽度为准
+            if (layout.cellWidth < Math.min(options.getMinPageWidth(), layout.sourceWidth)) {
+                log.info("拼接后单页宽度 {}px 低于下限 {}px，放弃拼接: 共 {} 页, 限制 {} 张",
+                        layout.cellWidth, options.getMinPageWidth(), images.size(), maxTiles);
+                return Collections.emptyList();
+            }
+
+            List<Integer> pageNumbers = new ArrayList<>(to - from);
+            for (int p = from; p < to; p++) {
+                pageNumbers.add(p + 1);
+            }
+            BufferedImage canvas = render(images.subList(from, to), pageNumbers, layout, options);
+            byte[] bytes = encodeJpeg(canvas, 0.9f);
+            if (bytes.length > options.getMaxBytes()) {
+                bytes = ImageCompressorWithThumbnailator.compressImageBytes(bytes, options.getMaxWidth(),
+                        options.getMaxHeight(), (int) (options.getMaxBytes() / 1024), options.getResizeEngine());
+            }
+            tiles.add(new Tile(bytes, "image/jpeg", pageNumbers, layout.rows, layout.cols,
+                    canvas.getWidth(), canvas.getHeight()));
+        }
+        return tiles;
+    }
+
+    /**
+     * 生成拼接图的页码位置说明，追加到请求文本中
+     *
+     * @param tiles 拼接结果
+     * @return 位置说明文本
+     */
+    public static String describe(List<Tile> tiles) {
+        StringBuilder builder = new StringBuilder("以下图片由多页文档拼接而成，每页上方标注了页码（P1、P2……），阅读顺序为从左到右、从上到下。");
+        for (int t = 0; t < tiles.size(); t++) {
+            Tile tile = tiles.get(t);
+            builder.append("\n第").append(t + 1).append("张图片为").append(tile.getRows()).append("行")
+                    .append(tile.getCols()).append("列：");
+            List<Integer> pageNumbers = tile.getPageNumbers();
+            for (int i = 0; i < pageNumbers.size(); i++) {
+                if (i > 0) {
+                    builder.append("，");
+                }
+                builder.append("第").append(i / tile.getCols() + 1).append("行第").append(i % tile.getCols() + 1)
+                        .append("列为P").append(pageNumbers.get(i));
+            }
+            builder.append("。");
+        }
+        builder.append("\n引用内容时请注明所在页码。");
+        return builder.toString();
+    }
+
+    private static BufferedImage render(List<BufferedImage> pages, List<Integer> pageNumbers, Layout layout,
+                                        Options options) {
+        BufferedImage canvas = new BufferedImage(layout.width, layout.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = canvas.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, layout.width, layout.height);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            Font font = new Font(Font.SANS_SERIF, Font.BOLD, Math.max(12, layout.labelHeight * 3 / 4));
+            graphics.setFont(font);
+            FontMetrics metrics = graphics.getFontMetrics();
+            int gap = options.getGap();
+
+            for (int i = 0; i < pages.size(); i++) {
+                int row = i / layout.cols;
+                int col = i % layout.cols;
+                int cellX = gap + col * (layout.cellWidth + gap);
+                int cellY = gap + row * (layout.cellHeight + layout.labelHeight + gap);
+
+                String label = "P" + pageNumbers.get(i);
+                graphics.setColor(Color.BLACK);
+                graphics.drawString(label, cellX, cellY + (layout.labelHeight + metrics.getAscent()) / 2 - 2);
+
+                BufferedImage page = pages.get(i);
+                double ratio = Math.min((double) layout.cellWidth / page.getWidth(),
+                        (double) layout.cellHeight / page.getHeight());
+                int width = Math.max(1, (int) Math.round(page.getWidth() * ratio));
+                int height = Math.max(1, (int) Math.round(page.getHeight() * ratio));
+                BufferedImage scaled = ratio < 1.0
+                        ? ImageResampler.resize(page, width, height, options.getFilter())
+                        : page;
+                int pageX = cellX + (layout.cellWidth - scaled.getWidth()) / 2;
+                int pageY = cellY + layout.labelHeight;
+                graphics.drawImage(scaled, pageX, pageY, null);
+
+                graphics.setColor(Color.GRAY);
+                graphics.setStroke(new BasicStroke(2f));
+                graphics.drawRect(pageX - 1, pageY - 1, scaled.getWidth() + 1, scaled.getHeight() + 1);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return canvas;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("没有可用的JPEG编码器");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * 网格布局：在像素上限内选择使单页宽度最大的列数
+     */
+    private static final class Layout {
+
+        private int sourceWidth;
+        private int rows;
+        private int cols;
+        private int cellWidth;
+        private int cellHeight;
+        private int labelHeight;
+        private int width;
+        private int height;
+
+        static Layout plan(List<BufferedImage> pages, Options options) {
+            int maxPageWidth = 1;
+            double aspect = 0.0;
+            for (BufferedImage page : pages) {
+                maxPageWidth = Math.max(maxPageWidth, page.getWidth());
+                aspect = Math.max(aspect, (double) page.getHeight() / page.getWidth());
+            }
+
+            int count = pages.size();
+            int gap = options.getGap();
+            Layout best = null;
+            for (int cols = 1; cols <= count; cols++) {
+                int rows = (count + cols - 1) / cols;
+                // 列数增加而行数不变时只会缩小单页宽度
+                if (cols > 1 && rows == (count + cols - 2) / (cols - 1)) {
+                    continue;
+                }
+                int cellWidth = Math.min(maxPageWidth, (options.getMaxWidth() - gap * (cols + 1)) / cols);
+                int rowBudget = (options.getMaxHeight() - gap * (rows + 1)) / rows;
+                while (cellWidth > 0 && Math.ceil(cellWidth * aspect) + labelHeight(cellWidth) > rowBudget) {
+                    int shrunk = (int) Math.floor((rowBudget - labelHeight(cellWidth)) / aspect);
+                    cellWidth = Math.min(cellWidth - 1, shrunk);
+                }
+                if (cellWidth <= 0) {
+                    continue;
+                }
+                if (best == null || cellWidth > best.cellWidth) {
+                    Layout layout = new Layout();
+                    layout.rows = rows;
+                    layout.cols = cols;
+                    layout.cellWidth = cellWidth;
+                    layout.cellHeight = (int) Math.ceil(cellWidth * aspect);
+                    layout.labelHeight = labelHeight(cellWidth);
+                    layout.width = gap + cols * (cellWidth + gap);
+                    layout.height = gap + rows * (layout.cellHeight + layout.labelHeight + gap);
+                    best = layout;
+                }
+            }
+            if (best == null) {
+                best = new Layout();
+            }
+            best.sourceWidth = maxPageWidth;
+            return best;
+        }
+
+        private static int labelHeight(int cellWidth) {
+            return Math.max(20, Math.min(80, cellWidth / 25));
+        }
+    }
+
+    /**
+     * 拼接参数
+     */
+    public static final class Options {
+
+        private int maxWidth = 6000;
+        private int maxHeight = 6000;
+        private long maxBytes = 5L * 1024 * 1024;
+        private int minPageWidth = 900;
+        private int gap = 24;
+        private ImageResampler.Filter filter = ImageResampler.Filter.AREA_AVERAGE;
+        private ResizeEngine resizeEngine = ResizeEngine.THUMBNAILATOR;
+
+        public static Options defaults() {
+            return new Options();
+        }
+
+        public Options maxWidth(int maxWidth) {
+            this.maxWidth = maxWidth;
+            return this;
+        }
+
+        public Options maxHeight(int maxHeight) {
+            this.maxHeight = maxHeight;
+            return this;
+        }
+
+        public Options maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * 拼接后单页最小宽度，低于该值时文字难以辨认，放弃拼接
+         */
+        public Options minPageWidth(int minPageWidth) {
+            this.minPageWidth = minPageWidth;
+            return this;
+        }
+
+        public Options gap(int gap) {
+            this.gap = gap;
+            return this;
+        }
+
+        public Options filter(ImageResampler.Filter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        public Options resizeEngine(ResizeEngine resizeEngine) {
+            this.resizeEngine = resizeEngine;
+            return this;
+        }
+
+        public int getMaxWidth() {
+            return maxWidth;
+        }
+
+        public int getMaxHeight() {
+            return maxHeight;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public int getMinPageWidth() {
+            return minPageWidth;
+        }
+
+        public int getGap() {
+            return gap;
+        }
+
+        public ImageResampler.Filter getFilter() {
+            return filter;
+        }
+
+        public ResizeEngine getResizeEngine() {
+            return resizeEngine;
+        }
+    }
+
+    /**
+     * 拼接图
+     */
+    public static final class Tile {
+
+        private final byte[] bytes;
+        private final String mimeType;
+        private final List<Integer> pageNumbers;
+        private final int rows;
+        private final int cols;
+        private final int width;
+        private final int height;
+
+        Tile(byte[] bytes, String mimeType, List<Integer> pageNumbers, int rows, int cols, int width, int height) {
+            this.bytes = bytes;
+            this.mimeType = mimeType;
+            this.pageNumbers = Collections.unmodifiableList(pageNumbers);
+            this.rows = rows;
+            this.cols = cols;
+            this.width = width;
+            this.height = height;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        /**
+         * 拼接图包含的页码（从1开始），按从左到右、从上到下排列
+         */
+        public List<Integer> getPageNumbers() {
+            return pageNumbers;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getCols() {
+            return cols;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * 转换为 data:image/...;base64 格式
+         */
+        public String toDataUrl() {
+            return "data:" + mimeType + ";base64," + java.util.Base64.getEncoder().encodeToString(bytes);
+        }
+    }
+}
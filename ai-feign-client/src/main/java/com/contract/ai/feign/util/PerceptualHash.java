@@ -0,0 +1,84 @@
+package com.contract.ai.feign.util;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 感知哈希工具类
+ * 基于差值哈希（dHash）：将图片划分为 9x8 网格并求各单元平均亮度，逐行比较相邻单元的明暗，得到64位指纹。
+ * 对压缩噪声、轻微亮度变化不敏感，两张图片指纹的汉明距离越小越相似
+ */
+public final class PerceptualHash {
+
+    /**
+     * 指纹位数
+     */
+    public static final int HASH_BITS = 64;
+
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    /**
+     * 每个网格单元在单个方向上的最大采样点数，大图按步长抽样求均值即可
+     */
+    private static final int MAX_SAMPLES_PER_AXIS = 32;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * 计算图片的差值哈希
+     *
+     * @param image 图片
+     * @return 64位指纹
+     */
+    public static long dHash(BufferedImage image) {
+        if (image == null) {
+            throw new IllegalArgumentException("图片不能为空");
+        }
+
+        int[] luma = new int[HASH_WIDTH * HASH_HEIGHT];
+        int width = image.getWidth();
+        int height = image.getHeight();
+        for (int cellY = 0; cellY < HASH_HEIGHT; cellY++) {
+            int y0 = cellY * height / HASH_HEIGHT;
+            int y1 = Math.max(y0 + 1, (cellY + 1) * height / HASH_HEIGHT);
+            int stepY = Math.max(1, (y1 - y0) / MAX_SAMPLES_PER_AXIS);
+            for (int cellX = 0; cellX < HASH_WIDTH; cellX++) {
+                int x0 = cellX * width / HASH_WIDTH;
+                int x1 = Math.max(x0 + 1, (cellX + 1) * width / HASH_WIDTH);
+                int stepX = Math.max(1, (x1 - x0) / MAX_SAMPLES_PER_AXIS);
+                long sum = 0;
+                int count = 0;
+                for (int y = y0; y < y1 && y < height; y += stepY) {
+                    for (int x = x0; x < x1 && x < width; x += stepX) {
+                        int rgb = image.getRGB(x, y);
+                        sum += (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+                        count++;
+                    }
+                }
+                luma[cellY * HASH_WIDTH + cellX] = count == 0 ? 0 : (int) (sum / count);
+            }
+        }
+
+        long hash = 0L;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int left = luma[y * HASH_WIDTH + x];
+                int right = luma[y * HASH_WIDTH + x + 1];
+                hash = (hash << 1) | (left > right ? 1L : 0L);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 计算两个指纹的汉明距离
+     *
+     * @param first 指纹1
+     * @param second 指纹2
+     * @return 不同的位数（0-64）
+     */
+    public static int hammingDistance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+}
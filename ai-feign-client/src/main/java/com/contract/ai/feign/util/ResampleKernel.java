@@ -0,0 +1,23 @@
+package com.contract.ai.feign.util;
+
+/**
+ * 重采样内层计算核
+ * 抽象出卷积中最耗时的两类运算，便于在标量实现与Vector API实现之间切换
+ */
+interface ResampleKernel {
+
+    /**
+     * 加权求和：sum(src[srcOffset + i] * weights[weightOffset + i])，i ∈ [0, length)
+     */
+    float dot(float[] src, int srcOffset, float[] weights, int weightOffset, int length);
+
+    /**
+     * 累加：acc[i] += weight * src[i]，i ∈ [0, length)
+     */
+    void axpy(float weight, float[] src, float[] acc, int length);
+
+    /**
+     * 计算核名称，用于日志与基准测试输出
+     */
+    String name();
+}
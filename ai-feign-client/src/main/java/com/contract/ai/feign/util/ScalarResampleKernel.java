@@ -0,0 +1,34 @@
+package com.contract.ai.feign.util;
+
+/**
+ * 标量重采样计算核
+ * 不依赖任何孵化模块，作为Vector API不可用时的兜底实现
+ */
+final class ScalarResampleKernel implements ResampleKernel {
+
+    static final ScalarResampleKernel INSTANCE = new ScalarResampleKernel();
+
+    private ScalarResampleKernel() {
+    }
+
+    @Override
+    public float dot(float[] src, int srcOffset, float[] weights, int weightOffset, int length) {
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            sum += src[srcOffset + i] * weights[weightOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(float weight, float[] src, float[] acc, int length) {
+        for (int i = 0; i < length; i++) {
+            acc[i] += weight * src[i];
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,116 @@
+package com.contract.ai.feign.client;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 截止时间传递测试类
+ */
+class AiDeadlineClientTest {
+
+    private static final Request.Options OPTIONS = new Request.Options(
+            60, TimeUnit.SECONDS, 300, TimeUnit.SECONDS, true);
+
+    private final List<Request> requests = new ArrayList<>();
+    private final List<Request.Options> options = new ArrayList<>();
+
+    private final AiDeadlineClient client = new AiDeadlineClient((request, opts) -> {
+        requests.add(request);
+        options.add(opts);
+        return Response.builder()
+                .status(200)
+                .reason("OK")
+                .request(request)
+                .headers(Map.of())
+                .body("{}", StandardCharsets.UTF_8)
+                .build();
+    }, "contract-ai-service", 0);
+
+    @Test
+    void testRemainingDeadlineIsSentAndBoundsTimeouts() {
+        AiDeadline.call(Duration.ofSeconds(20), () -> execute(client, request("contract-ai-service")));
+
+        long header = Long.parseLong(requests.get(0).headers().get(AiDeadline.HEADER).iterator().next());
+        assertTrue(header > 19_000 && header <= 20_000, "header=" + header);
+        assertTrue(options.get(0).connectTimeoutMillis() <= 20_000);
+        assertEquals(header + AiDeadlineClient.READ_GRACE_MS, options.get(0).readTimeoutMillis());
+        assertNull(AiDeadline.remainingMillis());
+    }
+
+    @Test
+    void testNestedCallKeepsEarlierDeadline() {
+        AiDeadline.call(Duration.ofSeconds(5), () ->
+                AiDeadline.call(Duration.ofMinutes(5), () -> execute(client, request("contract-ai-service"))));
+
+        long header = Long.parseLong(requests.get(0).headers().get(AiDeadline.HEADER).iterator().next());
+        assertTrue(header <= 5_000, "header=" + header);
+    }
+
+    @Test
+    void testExpiredDeadlineFailsWithoutCalling() {
+        assertThrows(AiDeadline.DeadlineExceededException.class,
+                () -> AiDeadline.call(Duration.ZERO, () -> execute(client, request("contract-ai-service"))));
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void testOtherClientsAndCallsWithoutDeadlineAreUntouched() {
+        AiDeadline.call(Duration.ofSeconds(20), () -> execute(client, request("other-service")));
+        execute(client, request("contract-ai-service"));
+
+        for (int i = 0; i < 2; i++) {
+            assertFalse(requests.get(i).headers().containsKey(AiDeadline.HEADER));
+            assertSame(OPTIONS, options.get(i));
+        }
+    }
+
+    @Test
+    void testDefaultTimeoutAppliesWhenCallerSetsNone() {
+        AiDeadlineClient withDefault = new AiDeadlineClient((request, opts) -> {
+            requests.add(request);
+            options.add(opts);
+            return null;
+        }, "contract-ai-service", 30_000);
+
+        execute(withDefault, request("contract-ai-service"));
+
+        assertEquals("30000", requests.get(0).headers().get(AiDeadline.HEADER).iterator().next());
+        assertEquals(31_000, options.get(0).readTimeoutMillis());
+    }
+
+    @Test
+    void testParseHeader() {
+        assertEquals(1500L, AiDeadline.parse(" 1500 "));
+        assertNull(AiDeadline.parse("soon"));
+        assertNull(AiDeadline.parse(null));
+    }
+
+    private static Response execute(AiDeadlineClient client, Request request) {
+        try {
+            return client.execute(request, OPTIONS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Request request(String serviceName) {
+        RequestTemplate template = new RequestTemplate();
+        template.feignTarget(new Target.HardCodedTarget<>(AiClient.class, serviceName, "http://" + serviceName));
+        return Request.create(Request.HttpMethod.POST, "http://" + serviceName + "/contract-ai/api/ai/chat",
+                Map.of(), "{}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, template);
+    }
+}
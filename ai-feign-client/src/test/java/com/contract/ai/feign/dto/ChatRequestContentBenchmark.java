@@ -0,0 +1,121 @@
+package com.contract.ai.feign.dto;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多模态内容解析基准测试：原 Object content（Map列表 + 每次调用新建 ObjectMapper 转换）与类型化内容项对比
+ * 场景为20条多模态消息的请求，按一次请求的处理链路访问内容：
+ * ChatController、ChatService.chat、validateAndNormalize、extractImageMap、
+ * GlmConvertor.hasFileAttachments、convertToMultimodalityMessage 各调用一次 getMultimodalContent
+ * 运行方式：在 ai-feign-client 模块执行 mvn test-compile 后运行本类的 main 方法，已开启 -prof gc 统计每次操作的内存分配
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatRequestContentBenchmark {
+
+    private static final int MESSAGE_COUNT = 20;
+
+    /**
+     * 单次请求处理链路中 getMultimodalContent 的调用次数
+     */
+    private static final int ACCESSES_PER_REQUEST = 6;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private String requestJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("platform", "GLM");
+        request.put("model", "glm-4.5v");
+        ArrayNode messages = request.putArray("messages");
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            ObjectNode message = messages.addObject();
+            message.put("role", "user");
+            ArrayNode content = message.putArray("content");
+            content.addObject().put("type", "text").put("text", "请审查第" + (i + 1) + "份合同的违约条款");
+            content.addObject().put("type", "image_url").putObject("image_url")
+                    .put("url", "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNk" + i);
+            content.addObject().put("type", "file_url").putObject("file_url")
+                    .put("url", "https://example.com/contracts/" + (i + 1) + ".pdf");
+        }
+        requestJson = objectMapper.writeValueAsString(request);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void legacyObjectContent(Blackhole blackhole) throws Exception {
+        // 原 content 字段为 Object，数组被反序列化为 Map 列表
+        Map<String, Object> request = objectMapper.readValue(requestJson, Map.class);
+        List<Object> contents = new ArrayList<>();
+        for (Map<String, Object> message : (List<Map<String, Object>>) request.get("messages")) {
+            contents.add(message.get("content"));
+        }
+        for (int access = 0; access < ACCESSES_PER_REQUEST; access++) {
+            for (Object content : contents) {
+                blackhole.consume(legacyGetMultimodalContent(content));
+            }
+        }
+    }
+
+    @Benchmark
+    public void typedContent(Blackhole blackhole) throws Exception {
+        ChatRequest request = objectMapper.readValue(requestJson, ChatRequest.class);
+        for (int access = 0; access < ACCESSES_PER_REQUEST; access++) {
+            for (ChatRequest.Message message : request.getMessages()) {
+                blackhole.consume(message.getMultimodalContent());
+            }
+        }
+    }
+
+    /**
+     * 原 getMultimodalContent 实现：Map 形式的内容项每次调用都新建 ObjectMapper 转换
+     */
+    @SuppressWarnings("unchecked")
+    private static List<ChatRequest.Message.ContentItem> legacyGetMultimodalContent(Object content) {
+        List<ChatRequest.Message.ContentItem> contentItems = new ArrayList<>();
+        for (Object item : (List<Object>) content) {
+            if (item instanceof Map) {
+                ObjectMapper mapper = new ObjectMapper();
+                mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+                contentItems.add(mapper.convertValue(item, ChatRequest.Message.ContentItem.class));
+            }
+        }
+        return contentItems;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChatRequestContentBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,148 @@
+package com.contract.ai.feign.dto;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 聊天请求DTO测试类，验证多模态内容的JSON格式与原扁平结构兼容
+ */
+class ChatRequestTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void testDeserializeTypedContentItems() throws Exception {
+        String json = """
+                {"platform":"GLM","model":"glm-4.5v","messages":[
+                  {"role":"system","content":"你是合同审查助手"},
+                  {"role":"user","content":[
+                    {"type":"text","text":"请审查","image_url":null,"file_url":null},
+                    {"type":"image_url","image_url":{"url":"data:image/png;base64,AAAA"}},
+                    {"type":"file_url","file_url":{"url":"https://example.com/contract.pdf"}}
+                  ]}
+                ]}
+                """;
+
+        ChatRequest request = objectMapper.readValue(json, ChatRequest.class);
+
+        ChatRequest.Message system = request.getMessages().get(0);
+        assertFalse(system.isMultimodal());
+        assertEquals("你是合同审查助手", system.getTextContent());
+
+        ChatRequest.Message user = request.getMessages().get(1);
+        assertTrue(user.isMultimodal());
+        List<ChatRequest.Message.ContentItem> items = user.getMultimodalContent();
+        assertEquals("text", items.get(0).getType());
+        assertEquals("image_url", items.get(1).getType());
+        assertEquals("file_url", items.get(2).getType());
+        assertEquals("data:image/png;base64,AAAA", items.get(1).getImage_url().getUrl());
+        assertEquals("https://example.com/contract.pdf", items.get(2).getFile_url().getUrl());
+        assertEquals("请审查", user.getTextContent());
+        // 反序列化时已完成类型转换，多次获取不会重新转换
+        assertSame(items.get(1), user.getMultimodalContent().get(1));
+    }
+
+    @Test
+    void testMissingOrUnknownTypeIsKeptForValidation() throws Exception {
+        String json = """
+                {"role":"user","content":[
+                  {"type":"video_url","video_url":{"url":"https://example.com/a.mp4"}},
+                  {"text":"缺少类型"}
+                ]}
+                """;
+
+        ChatRequest.Message message = objectMapper.readValue(json, ChatRequest.Message.class);
+
+        List<ChatRequest.Message.ContentItem> items = message.getMultimodalContent();
+        assertEquals(2, items.size());
+        assertEquals("video_url", items.get(0).getType());
+        assertNull(items.get(1).getType());
+    }
+
+    @Test
+    void testSerializedFormMatchesFlatContentItem() throws Exception {
+        ChatRequest.Message message = ChatRequest.Message.multimodalMessage("user", List.of(
+                ChatRequest.Message.ContentItem.text("请审查"),
+                ChatRequest.Message.ContentItem.imageUrl("data:image/jpeg;base64,BBBB"),
+                ChatRequest.Message.ContentItem.fileUrl("https://example.com/contract.docx")));
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(message));
+
+        JsonNode content = json.get("content");
+        assertEquals("text", content.get(0).get("type").asText());
+        assertEquals("请审查", content.get(0).get("text").asText());
+        assertEquals("image_url", content.get(1).get("type").asText());
+        assertEquals("data:image/jpeg;base64,BBBB", content.get(1).get("image_url").get("url").asText());
+        assertEquals("file_url", content.get(2).get("type").asText());
+        assertEquals("https://example.com/contract.docx", content.get(2).get("file_url").get("url").asText());
+        // 派生的便捷方法不写入JSON
+        assertFalse(json.has("multimodal"));
+        assertFalse(json.has("multimodalContent"));
+        assertFalse(json.has("textContent"));
+
+        ChatRequest.Message roundTrip = objectMapper.readValue(json.toString(), ChatRequest.Message.class);
+        assertEquals(message.getMultimodalContent(), roundTrip.getMultimodalContent());
+    }
+
+    @Test
+    void testMapContentIsConvertedWithoutMutatingMessage() {
+        List<Object> content = new ArrayList<>();
+        content.add(Map.of("type", "text", "text", "请审查"));
+        content.add(Map.of("type", "image_url", "image_url", Map.of("url", "data:image/png;base64,CCCC")));
+        ChatRequest.Message message = ChatRequest.Message.builder().role("user").content(content).build();
+
+        List<ChatRequest.Message.ContentItem> items = message.getMultimodalContent();
+
+        assertEquals("text", items.get(0).getType());
+        assertEquals("data:image/png;base64,CCCC", items.get(1).getImage_url().getUrl());
+        // 获取内容不回写消息，多个线程共享同一消息时没有数据竞争
+        assertSame(content, message.getContent());
+        assertInstanceOf(Map.class, content.get(1));
+        assertEquals(items, message.getMultimodalContent());
+    }
+
+    @Test
+    void testLegacyConstructorsBuilderAndSettersStillWork() {
+        ChatRequest.Message.ContentItem image = ChatRequest.Message.ContentItem.builder()
+                .type("image_url")
+                .image_url(ChatRequest.Message.ImageUrlInfo.builder().url("data:image/png;base64,DDDD").build())
+                .build();
+        ChatRequest.Message.ContentItem text = new ChatRequest.Message.ContentItem("text", "请审查", null, null);
+
+        assertEquals(ChatRequest.Message.ContentItem.text("请审查"), text);
+        assertEquals(ChatRequest.Message.ContentItem.imageUrl("data:image/png;base64,DDDD"), image);
+
+        ChatRequest.Message.ContentItem file = new ChatRequest.Message.ContentItem();
+        file.setType("file_url");
+        file.setFile_url(ChatRequest.Message.FileUrlInfo.builder().url("https://example.com/contract.pdf").build());
+        assertEquals(ChatRequest.Message.ContentItem.fileUrl("https://example.com/contract.pdf"), file);
+
+        text.setText("请重新审查");
+        image.setImage_url(ChatRequest.Message.ImageUrlInfo.builder().url("data:image/png;base64,EEEE").build());
+        assertEquals("请重新审查", text.getText());
+        assertEquals("data:image/png;base64,EEEE", image.getImage_url().getUrl());
+        text.setType("image_url");
+        assertEquals("image_url", text.getType());
+    }
+
+    @Test
+    void testMultimodalContentIsMutableCopy() {
+        ChatRequest.Message message = ChatRequest.Message.multimodalMessage("user", List.of(
+                ChatRequest.Message.ContentItem.text("请审查")));
+
+        List<ChatRequest.Message.ContentItem> items = message.getMultimodalContent();
+        items.add(ChatRequest.Message.ContentItem.imageUrl("data:image/png;base64,FFFF"));
+
+        assertEquals(2, items.size());
+        assertEquals(1, message.getMultimodalContent().size());
+    }
+}
@@ -0,0 +1,136 @@
+package com.contract.ai.feign.dto;
+
+import com.contract.ai.feign.enums.ModelCapability;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求画像测试类
+ */
+class RequestProfileTest {
+
+    private static final String IMAGE_URL = "data:image/png;base64,iVBORw0KGgo=";
+
+    @Test
+    void testAnalyzeCountsContentAndCapabilities() {
+        ChatRequest request = request("glm-4.5v", List.of(
+                ChatRequest.Message.textMessage("system", "你是合同审查助手"),
+                ChatRequest.Message.multimodalMessage("user", List.of(
+                        ChatRequest.Message.ContentItem.text("请审查"),
+                        ChatRequest.Message.ContentItem.imageUrl(IMAGE_URL),
+                        ChatRequest.Message.ContentItem.fileUrl("https://example.com/contract.pdf")))));
+
+        RequestProfile profile = request.getProfile();
+
+        assertEquals(2, profile.getMessageCount());
+        assertEquals(2, profile.count("text"));
+        assertEquals(1, profile.getImageCount());
+        assertEquals(1, profile.getFileCount());
+        assertEquals("你是合同审查助手".length() + "请审查".length(), profile.getTotalTextLength());
+        assertEquals(Set.of(ModelCapability.TEXT, ModelCapability.VISION, ModelCapability.FILE_INPUT),
+                profile.getRequiredCapabilities());
+        assertTrue(profile.hasAttachments());
+        assertEquals(List.of(IMAGE_URL), profile.getImageUrls());
+        assertEquals(List.of("https://example.com/contract.pdf"), profile.getFileUrls());
+
+        RequestProfile.ImageInfo image = profile.getImages().get(0);
+        assertEquals(1, image.getIndex());
+        assertEquals("image/png", image.getMimeType());
+        // "iVBORw0KGgo=" 解码后为8字节
+        assertEquals(8, image.getByteSize());
+        assertEquals(64, image.getSha256().length());
+    }
+
+    @Test
+    void testLegacyFilesRequireFileInput() {
+        ChatRequest.Message message = ChatRequest.Message.textMessage("user", "请审查附件");
+        message.setExtensions(Map.of("files", List.of(Map.of("name", "contract.pdf"))));
+
+        RequestProfile profile = request("glm-4.5v", List.of(message)).getProfile();
+
+        assertEquals(1, profile.count(RequestProfile.LEGACY_FILE_TYPE));
+        assertTrue(profile.requires(ModelCapability.FILE_INPUT));
+        assertFalse(profile.requires(ModelCapability.VISION));
+    }
+
+    @Test
+    void testFingerprintIgnoresSamplingParameters() {
+        ChatRequest first = request("deepseek-chat", List.of(ChatRequest.Message.textMessage("user", "你好")));
+        ChatRequest second = request("deepseek-chat", List.of(ChatRequest.Message.textMessage("user", "你好")));
+        second.setTemperature(0.2);
+        ChatRequest otherRole = request("deepseek-chat", List.of(ChatRequest.Message.textMessage("system", "你好")));
+        ChatRequest otherModel = request("deepseek-reasoner", List.of(ChatRequest.Message.textMessage("user", "你好")));
+
+        assertEquals(first.getProfile().getFingerprint(), second.getProfile().getFingerprint());
+        assertNotEquals(first.getProfile().getFingerprint(), otherRole.getProfile().getFingerprint());
+        assertNotEquals(first.getProfile().getFingerprint(), otherModel.getProfile().getFingerprint());
+    }
+
+    @Test
+    void testProfileIsCachedUntilContentChanges() {
+        List<ChatRequest.Message> messages = new ArrayList<>(List.of(ChatRequest.Message.textMessage("user", "你好")));
+        ChatRequest request = request("deepseek-chat", messages);
+
+        RequestProfile profile = request.getProfile();
+        assertSame(profile, request.getProfile());
+
+        // 归一化时以相同消息列表重建请求，沿用原画像
+        ChatRequest rebuilt = request("deepseek-chat", messages);
+        rebuilt.reuseProfile(request);
+        assertSame(profile, rebuilt.getProfile());
+
+        request.setModel("deepseek-reasoner");
+        assertNotSame(profile, request.getProfile());
+
+        rebuilt.setMessages(List.of(ChatRequest.Message.multimodalMessage("user",
+                List.of(ChatRequest.Message.ContentItem.imageUrl(IMAGE_URL)))));
+        assertEquals(1, rebuilt.getProfile().getImageCount());
+    }
+
+    @Test
+    void testInPlaceChangesInvalidateCachedProfile() {
+        ChatRequest.Message.ContentItem text = ChatRequest.Message.ContentItem.text("请审查");
+        List<ChatRequest.Message> messages = new ArrayList<>(List.of(ChatRequest.Message.multimodalMessage("user",
+                new ArrayList<>(List.of(text)))));
+        ChatRequest request = request("glm-4.5v", messages);
+        RequestProfile profile = request.getProfile();
+
+        request.getMessages().add(ChatRequest.Message.multimodalMessage("user",
+                List.of(ChatRequest.Message.ContentItem.imageUrl(IMAGE_URL))));
+        assertEquals(1, request.getProfile().getImageCount());
+
+        String fingerprint = request.getProfile().getFingerprint();
+        text.setText("请重新审查");
+        assertNotEquals(fingerprint, request.getProfile().getFingerprint());
+        assertNotSame(profile, request.getProfile());
+    }
+
+    @Test
+    void testJsonModeIsDerivedFromResponseFormat() {
+        ChatRequest request = request("deepseek-chat", List.of(ChatRequest.Message.textMessage("user", "输出JSON")));
+        assertFalse(request.getProfile().requires(ModelCapability.JSON_MODE));
+
+        request.setResponseReformat(ChatRequest.ResponseReformat.builder().type("json_object").build());
+        assertTrue(request.getProfile().requires(ModelCapability.JSON_MODE));
+    }
+
+    @Test
+    void testCachedProfileDoesNotAffectEquality() {
+        ChatRequest first = request("deepseek-chat", List.of(ChatRequest.Message.textMessage("user", "你好")));
+        ChatRequest second = first.toBuilder().build();
+        first.getProfile();
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    private static ChatRequest request(String model, List<ChatRequest.Message> messages) {
+        return ChatRequest.builder().model(model).messages(messages).build();
+    }
+}
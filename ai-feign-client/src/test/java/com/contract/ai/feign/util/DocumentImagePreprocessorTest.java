@@ -0,0 +1,164 @@
+package com.contract.ai.feign.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文档图片预处理测试类
+ */
+class DocumentImagePreprocessorTest {
+
+    @Test
+    void testScannedDocumentIsBinarizedAndCropped() throws IOException {
+        byte[] scan = encode(createScannedPage(0.0), "jpeg");
+
+        DocumentImagePreprocessor.PreprocessResult result =
+                DocumentImagePreprocessor.preprocess(scan, DocumentImagePreprocessor.Options.defaults());
+
+        assertTrue(result.isProcessed());
+        assertEquals(DocumentImagePreprocessor.Mode.BINARY, result.getMode());
+        assertEquals("image/png", result.getMimeType());
+        assertTrue(result.isCropped());
+        assertTrue(result.getWidth() < 1240 && result.getHeight() < 1754);
+        assertTrue(result.getBytes().length * 4 < scan.length,
+                "预处理后体积应显著减小: " + scan.length + " -> " + result.getBytes().length);
+    }
+
+    @Test
+    void testDeskewDetectsRotation() throws IOException {
+        byte[] scan = encode(createScannedPage(2.0), "png");
+
+        DocumentImagePreprocessor.PreprocessResult result = DocumentImagePreprocessor.preprocess(scan,
+                DocumentImagePreprocessor.Options.defaults().deskew(true));
+
+        assertTrue(result.isProcessed());
+        assertEquals(2.0, result.getSkewAngle(), 0.5);
+    }
+
+    @Test
+    void testPageWithRedSealKeepsGrayscale() throws IOException {
+        BufferedImage page = createScannedPage(0.0);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setColor(new Color(220, 30, 30));
+        graphics.fillOval(800, 1300, 160, 160);
+        graphics.dispose();
+
+        byte[] scan = encode(page, "jpeg");
+
+        DocumentImagePreprocessor.PreprocessResult result =
+                DocumentImagePreprocessor.preprocess(scan, DocumentImagePreprocessor.Options.defaults());
+
+        assertEquals(DocumentImagePreprocessor.Mode.GRAYSCALE, result.getMode());
+        assertNotNull(result.getMimeType());
+        assertTrue(result.getBytes().length < scan.length);
+    }
+
+    @Test
+    void testPhotoIsLeftUntouched() throws IOException {
+        BufferedImage photo = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                photo.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        byte[] original = encode(photo, "jpeg");
+
+        DocumentImagePreprocessor.PreprocessResult result =
+                DocumentImagePreprocessor.preprocess(original, DocumentImagePreprocessor.Options.defaults());
+
+        assertFalse(result.isProcessed());
+        assertSame(original, result.getBytes());
+        assertNull(result.getMimeType());
+    }
+
+    @Test
+    void testOtsuThresholdSeparatesBimodalHistogram() {
+        int[] histogram = new int[256];
+        histogram[20] = 1000;
+        histogram[235] = 9000;
+
+        int threshold = DocumentImagePreprocessor.otsuThreshold(histogram);
+
+        assertTrue(threshold >= 20 && threshold < 235);
+    }
+
+    /**
+     * 扫描件语料基准测试
+     * 通过 -Dpreprocess.corpus=/path/to/scans 指定样本目录，输出大小、耗时与输出尺寸
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "preprocess.corpus", matches = ".+")
+    void benchmarkScanCorpus() throws IOException {
+        Path corpus = Paths.get(System.getProperty("preprocess.corpus"));
+        List<Path> samples;
+        try (Stream<Path> files = Files.list(corpus)) {
+            samples = files.filter(path -> path.toString().toLowerCase().matches(".*\\.(jpe?g|png)$"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        assertFalse(samples.isEmpty(), "样本目录中没有jpg/png图片: " + corpus);
+
+        DocumentImagePreprocessor.Options options = DocumentImagePreprocessor.Options.defaults().deskew(true);
+        long totalBefore = 0;
+        long totalAfter = 0;
+        long totalMillis = 0;
+        System.out.printf("%-40s %12s %12s %8s %12s %10s%n", "file", "before(KB)", "after(KB)", "ratio", "dimensions", "time(ms)");
+        for (Path sample : samples) {
+            byte[] original = Files.readAllBytes(sample);
+            DocumentImagePreprocessor.PreprocessResult result = DocumentImagePreprocessor.preprocess(original, options);
+            totalBefore += original.length;
+            totalAfter += result.getBytes().length;
+            totalMillis += result.getElapsedMillis();
+            System.out.printf("%-40s %12d %12d %7.1fx %12s %10d  %s%n",
+                    sample.getFileName(), original.length / 1024, result.getBytes().length / 1024,
+                    (double) original.length / result.getBytes().length,
+                    result.getWidth() + "x" + result.getHeight(), result.getElapsedMillis(), result.getMode());
+        }
+        System.out.printf("合计: %d 个样本, %d KB -> %d KB (%.1fx), 平均耗时 %d ms%n",
+                samples.size(), totalBefore / 1024, totalAfter / 1024,
+                (double) totalBefore / Math.max(1, totalAfter), totalMillis / samples.size());
+    }
+
+    /**
+     * 生成模拟扫描页：偏黄白底、宽边距、若干行黑色文字
+     */
+    private static BufferedImage createScannedPage(double rotationDegrees) {
+        BufferedImage page = new BufferedImage(1240, 1754, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setColor(new Color(250, 249, 244));
+        graphics.fillRect(0, 0, page.getWidth(), page.getHeight());
+        graphics.rotate(Math.toRadians(rotationDegrees), page.getWidth() / 2.0, page.getHeight() / 2.0);
+        graphics.setColor(new Color(25, 25, 25));
+        graphics.setFont(new Font(Font.SERIF, Font.PLAIN, 22));
+        for (int y = 260; y < 1500; y += 36) {
+            graphics.drawString("The parties agree that the obligations set out in clause " + y
+                    + " shall survive termination.", 180, y);
+        }
+        graphics.dispose();
+        return page;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, format, baos);
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,130 @@
+package com.contract.ai.feign.util;
+
+import net.coobird.thumbnailator.Thumbnails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片缩放基准测试：Thumbnailator 与内置重采样器（标量/向量）对比
+ * 运行方式：在 ai-feign-client 模块执行 mvn -Pvector test-compile 后运行本类的 main 方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dai.image.resampler.vector=true", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ImageResamplerBenchmark {
+
+    /**
+     * 缩放场景：12MP→4MP（4000x3000→2309x1732），36MP→9MP（7200x5000→3600x2500）
+     */
+    @Param({"12MP_TO_4MP", "36MP_TO_9MP"})
+    private String scenario;
+
+    private BufferedImage source;
+    private int targetWidth;
+    private int targetHeight;
+    private ResampleKernel vectorKernel;
+
+    @Setup
+    public void setUp() {
+        vectorKernel = ImageResampler.vectorKernel();
+        if (vectorKernel == null) {
+            throw new IllegalStateException("向量化计算核不可用，请以 -Pvector 构建");
+        }
+        if ("12MP_TO_4MP".equals(scenario)) {
+            source = createPhoto(4000, 3000);
+            targetWidth = 2309;
+            targetHeight = 1732;
+        } else {
+            source = createPhoto(7200, 5000);
+            targetWidth = 3600;
+            targetHeight = 2500;
+        }
+    }
+
+    @Benchmark
+    public BufferedImage thumbnailator() throws IOException {
+        return Thumbnails.of(source).size(targetWidth, targetHeight).asBufferedImage();
+    }
+
+    @Benchmark
+    public BufferedImage areaAverageScalar() {
+        return ImageResampler.resize(source, targetWidth, targetHeight, ImageResampler.Filter.AREA_AVERAGE,
+                ScalarResampleKernel.INSTANCE);
+    }
+
+    @Benchmark
+    public BufferedImage areaAverageVector() {
+        return ImageResampler.resize(source, targetWidth, targetHeight, ImageResampler.Filter.AREA_AVERAGE,
+                vectorKernel);
+    }
+
+    @Benchmark
+    public BufferedImage bicubicScalar() {
+        return ImageResampler.resize(source, targetWidth, targetHeight, ImageResampler.Filter.BICUBIC,
+                ScalarResampleKernel.INSTANCE);
+    }
+
+    @Benchmark
+    public BufferedImage bicubicVector() {
+        return ImageResampler.resize(source, targetWidth, targetHeight, ImageResampler.Filter.BICUBIC,
+                vectorKernel);
+    }
+
+    @Benchmark
+    public BufferedImage lanczos3Scalar() {
+        return ImageResampler.resize(source, targetWidth, targetHeight, ImageResampler.Filter.LANCZOS3,
+                ScalarResampleKernel.INSTANCE);
+    }
+
+    @Benchmark
+    public BufferedImage lanczos3Vector() {
+        return ImageResampler.resize(source, targetWidth, targetHeight, ImageResampler.Filter.LANCZOS3,
+                vectorKernel);
+    }
+
+    /**
+     * 生成带渐变与噪点的模拟照片（与JPEG解码结果相同的TYPE_3BYTE_BGR格式）
+     */
+    private static BufferedImage createPhoto(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        Random random = new Random(7);
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(32);
+                data[i++] = (byte) (x * 200 / width + noise);
+                data[i++] = (byte) (y * 200 / height + noise);
+                data[i++] = (byte) ((x + y) * 100 / (width + height) + noise);
+            }
+        }
+        return image;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageResamplerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.contract.ai.feign.util;
+
+import com.contract.ai.feign.enums.ResizeEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片重采样器测试类
+ */
+class ImageResamplerTest {
+
+    @ParameterizedTest
+    @EnumSource(ImageResampler.Filter.class)
+    void testUniformImageStaysUniform(ImageResampler.Filter filter) {
+        BufferedImage gray = new BufferedImage(997, 601, BufferedImage.TYPE_BYTE_GRAY);
+        Arrays.fill(((DataBufferByte) gray.getRaster().getDataBuffer()).getData(), (byte) 137);
+
+        BufferedImage result = ImageResampler.resize(gray, 333, 200, filter);
+
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, result.getType());
+        assertEquals(333, result.getWidth());
+        assertEquals(200, result.getHeight());
+        for (byte value : ((DataBufferByte) result.getRaster().getDataBuffer()).getData()) {
+            assertEquals(137, value & 0xFF);
+        }
+    }
+
+    @Test
+    void testAreaAverageHalvesExactly() {
+        BufferedImage source = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, 0x000000);
+        source.setRGB(1, 0, 0x0000FF);
+        source.setRGB(0, 1, 0x00FF00);
+        source.setRGB(1, 1, 0xFF0000);
+        source.setRGB(2, 0, 0xFFFFFF);
+        source.setRGB(3, 0, 0xFFFFFF);
+        source.setRGB(2, 1, 0xFFFFFF);
+        source.setRGB(3, 1, 0xFFFFFF);
+
+        BufferedImage result = ImageResampler.resize(source, 2, 1, ImageResampler.Filter.AREA_AVERAGE);
+
+        assertEquals(0x404040, result.getRGB(0, 0) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, result.getRGB(1, 0) & 0xFFFFFF);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ImageResampler.Filter.class)
+    void testDefaultKernelMatchesScalar(ImageResampler.Filter filter) {
+        BufferedImage source = new BufferedImage(1200, 900, BufferedImage.TYPE_3BYTE_BGR);
+        new Random(1).nextBytes(((DataBufferByte) source.getRaster().getDataBuffer()).getData());
+
+        BufferedImage expected = ImageResampler.resize(source, 701, 523, filter, ScalarResampleKernel.INSTANCE);
+        BufferedImage actual = ImageResampler.resize(source, 701, 523, filter);
+
+        int[] expectedPixels = ((DataBufferInt) expected.getRaster().getDataBuffer()).getData();
+        int[] actualPixels = ((DataBufferInt) actual.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < expectedPixels.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                int diff = Math.abs(((expectedPixels[i] >> shift) & 0xFF) - ((actualPixels[i] >> shift) & 0xFF));
+                assertTrue(diff <= 1, "像素差异超过1: " + diff);
+            }
+        }
+    }
+
+    @Test
+    void testAlphaChannelIsPreserved() {
+        BufferedImage source = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                source.setRGB(x, y, 0x80336699);
+            }
+        }
+
+        BufferedImage result = ImageResampler.resize(source, 16, 16, ImageResampler.Filter.LANCZOS3);
+
+        assertEquals(BufferedImage.TYPE_INT_ARGB, result.getType());
+        assertEquals(0x80336699, result.getRGB(8, 8));
+    }
+
+    @Test
+    void testCompressWithResamplerEngine() throws IOException {
+        BufferedImage photo = new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                photo.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(photo, "jpeg", baos);
+
+        byte[] compressed = ImageCompressorWithThumbnailator.compressImageBytes(baos.toByteArray(),
+                1500, 1500, 512, ResizeEngine.AREA_AVERAGE);
+
+        assertTrue(compressed.length <= 512 * 1024);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(compressed));
+        assertNotNull(decoded);
+        assertTrue(decoded.getWidth() <= 1500 && decoded.getHeight() <= 1500);
+        assertEquals(3.0 / 2.0, (double) decoded.getWidth() / decoded.getHeight(), 0.01);
+    }
+}
@@ -0,0 +1,107 @@
+package com.contract.ai.feign.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键帧筛选与感知哈希测试类
+ */
+class KeyframeSelectorTest {
+
+    @Test
+    void testPerceptualHashToleratesNoiseButSeparatesScenes() {
+        BufferedImage document = createScene(Color.WHITE, "第一条 租赁期限", 0);
+        BufferedImage noisyDocument = createScene(Color.WHITE, "第一条 租赁期限", 6);
+        BufferedImage signing = createScene(new Color(40, 60, 90), "签字页", 0);
+
+        long documentHash = PerceptualHash.dHash(document);
+        assertTrue(PerceptualHash.hammingDistance(documentHash, PerceptualHash.dHash(noisyDocument)) <= 8);
+        assertTrue(PerceptualHash.hammingDistance(documentHash, PerceptualHash.dHash(signing)) > 8);
+    }
+
+    @Test
+    void testNearDuplicateFramesAreRemoved() {
+        List<KeyframeSelector.Sample> samples = List.of(
+                new KeyframeSelector.Sample(0, 0x0000_0000_0000_0000L),
+                new KeyframeSelector.Sample(2000, 0x0000_0000_0000_0003L),
+                new KeyframeSelector.Sample(4000, 0xFFFF_FFFF_0000_0000L),
+                new KeyframeSelector.Sample(6000, 0x0000_0000_0000_0001L));
+
+        List<KeyframeSelector.Sample> selected = KeyframeSelector.select(samples, 5, 4,
+                KeyframeSelector.Mode.SCENE_CHANGE);
+
+        assertEquals(List.of(0L, 4000L), timestamps(selected));
+    }
+
+    @Test
+    void testSceneChangeModeKeepsLargestChanges() {
+        List<KeyframeSelector.Sample> samples = new ArrayList<>();
+        samples.add(new KeyframeSelector.Sample(0, 0L));
+        samples.add(new KeyframeSelector.Sample(1000, 0xFFL));
+        samples.add(new KeyframeSelector.Sample(2000, 0xFFFF_FFFF_FFFF_FFFFL));
+        samples.add(new KeyframeSelector.Sample(3000, 0xFFFF_FFFF_FFFF_0000L));
+        samples.add(new KeyframeSelector.Sample(4000, 0x0000_0000_0000_FFFFL));
+
+        List<KeyframeSelector.Sample> selected = KeyframeSelector.select(samples, 3, 2,
+                KeyframeSelector.Mode.SCENE_CHANGE);
+
+        assertEquals(List.of(0L, 2000L, 4000L), timestamps(selected));
+    }
+
+    @Test
+    void testIntervalModeSpreadsAcrossVideo() {
+        List<KeyframeSelector.Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            samples.add(new KeyframeSelector.Sample(i * 1000L, 0xFFL << (i * 7)));
+        }
+
+        List<KeyframeSelector.Sample> selected = KeyframeSelector.select(samples, 3, 0,
+                KeyframeSelector.Mode.INTERVAL);
+
+        assertEquals(List.of(0L, 4000L, 8000L), timestamps(selected));
+        assertEquals(1, KeyframeSelector.select(samples, 1, 0, KeyframeSelector.Mode.INTERVAL).size());
+    }
+
+    private List<Long> timestamps(List<KeyframeSelector.Sample> samples) {
+        List<Long> timestamps = new ArrayList<>();
+        for (KeyframeSelector.Sample sample : samples) {
+            timestamps.add(sample.getTimestampMs());
+        }
+        return timestamps;
+    }
+
+    private BufferedImage createScene(Color background, String text, int noise) {
+        BufferedImage image = new BufferedImage(640, 360, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(40, 40, 260, 280);
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 36));
+        g.drawString(text, 320, 180);
+        g.dispose();
+
+        Random random = new Random(7);
+        for (int i = 0; noise > 0 && i < 20000; i++) {
+            int x = random.nextInt(image.getWidth());
+            int y = random.nextInt(image.getHeight());
+            int rgb = image.getRGB(x, y);
+            int delta = random.nextInt(noise * 2 + 1) - noise;
+            int r = Math.max(0, Math.min(255, ((rgb >> 16) & 0xFF) + delta));
+            int gr = Math.max(0, Math.min(255, ((rgb >> 8) & 0xFF) + delta));
+            int b = Math.max(0, Math.min(255, (rgb & 0xFF) + delta));
+            image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+        }
+        return image;
+    }
+}
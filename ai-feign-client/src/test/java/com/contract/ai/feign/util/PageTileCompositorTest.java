@@ -0,0 +1,99 @@
+package com.contract.ai.feign.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多页拼接测试类
+ */
+class PageTileCompositorTest {
+
+    @Test
+    void testFourPagesComposeIntoSingleGrid() throws IOException {
+        List<PageTileCompositor.Tile> tiles = PageTileCompositor.compose(createPages(4),
+                1, PageTileCompositor.Options.defaults());
+
+        assertEquals(1, tiles.size());
+        PageTileCompositor.Tile tile = tiles.get(0);
+        assertEquals(2, tile.getRows());
+        assertEquals(2, tile.getCols());
+        assertEquals(Arrays.asList(1, 2, 3, 4), tile.getPageNumbers());
+        assertTrue(tile.getWidth() <= 6000 && tile.getHeight() <= 6000);
+        assertTrue(tile.getBytes().length <= 5 * 1024 * 1024);
+        assertTrue(tile.toDataUrl().startsWith("data:image/jpeg;base64,"));
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(tile.getBytes()));
+        assertNotNull(decoded);
+        assertEquals(tile.getWidth(), decoded.getWidth());
+        assertEquals(tile.getHeight(), decoded.getHeight());
+    }
+
+    @Test
+    void testPagesAreSpreadEvenlyAcrossTiles() throws IOException {
+        List<PageTileCompositor.Tile> tiles = PageTileCompositor.compose(createPages(7),
+                5, PageTileCompositor.Options.defaults());
+
+        assertEquals(5, tiles.size());
+        assertEquals(Arrays.asList(1, 2), tiles.get(0).getPageNumbers());
+        assertEquals(Arrays.asList(3, 4), tiles.get(1).getPageNumbers());
+        assertEquals(List.of(5), tiles.get(2).getPageNumbers());
+        assertEquals(List.of(7), tiles.get(4).getPageNumbers());
+    }
+
+    @Test
+    void testRefusesWhenPagesWouldBecomeIllegible() throws IOException {
+        List<PageTileCompositor.Tile> tiles = PageTileCompositor.compose(createPages(12),
+                1, PageTileCompositor.Options.defaults().minPageWidth(2000));
+
+        assertTrue(tiles.isEmpty());
+    }
+
+    @Test
+    void testDescribeListsEveryPagePosition() throws IOException {
+        List<PageTileCompositor.Tile> tiles = PageTileCompositor.compose(createPages(4),
+                1, PageTileCompositor.Options.defaults());
+
+        String legend = PageTileCompositor.describe(tiles);
+
+        for (int page = 1; page <= 4; page++) {
+            assertTrue(legend.contains("P" + page), "说明文字缺少页码 P" + page);
+        }
+    }
+
+    /**
+     * 生成A4比例的模拟文档页，页面正中印有页码
+     */
+    private static List<byte[]> createPages(int count) throws IOException {
+        List<byte[]> pages = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            BufferedImage page = new BufferedImage(2480, 3508, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = page.createGraphics();
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, page.getWidth(), page.getHeight());
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.SERIF, Font.PLAIN, 48));
+            for (int line = 0; line < 60; line++) {
+                g.drawString("第" + i + "页 合同条款第" + (line + 1) + "条", 200, 300 + line * 52);
+            }
+            g.dispose();
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ImageIO.write(page, "jpeg", baos);
+            pages.add(baos.toByteArray());
+        }
+        return pages;
+    }
+}